@@ -87,6 +87,9 @@ public class Kapi {
 
     public KapiGlobal kapiGlobal;
 
+    /* shared by the rewriters of the same definition, so that it is initialized once */
+    private final InitializeRewriter.InitializeDefinition initializeDefinition = new InitializeRewriter.InitializeDefinition();
+
     public Kapi(KapiGlobal kapiGlobal) {
         this.kapiGlobal = kapiGlobal;
     }
@@ -149,21 +152,42 @@ public class Kapi {
         ConstrainedTerm programInConstrainedTerm = new ConstrainedTerm(programWithMacroExpanded, rewritingContext); // initial constrained term
 
         // rewrite: apply the rewriter to the term
-        JavaKRunState result = (JavaKRunState) rewriter.rewrite(programInConstrainedTerm, Optional.ofNullable(depth).orElse(-1));
-        RewriterResult resultInScala = new RewriterResult(result.getStepsTaken(), result.getJavaKilTerm());
+        try {
+            JavaKRunState result = (JavaKRunState) rewriter.rewrite(programInConstrainedTerm, Optional.ofNullable(depth).orElse(-1));
+            return new RewriterResult(result.getStepsTaken(), result.getJavaKilTerm());
+        } finally {
+            rewritingContext.global().close();
+        }
+    }
 
-        return resultInScala;
+    /**
+     * @return a session running programs of the given definition on as many threads as processors
+     * @see KapiSession
+     */
+    public KapiSession session(CompiledDefinition compiledDef) {
+        return session(compiledDef, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return a session running programs of the given definition on the given number of threads
+     * @see KapiSession
+     */
+    public KapiSession session(CompiledDefinition compiledDef, int threads) {
+        return new KapiSession(this, compiledDef, threads);
     }
 
     public Tuple2<SymbolicRewriter,TermContext> getRewriter(CompiledDefinition compiledDef) {
         // TODO: simplify. skip to read.
 
         Map<String, MethodHandle> hookProvider = HookProvider.get(kapiGlobal.kem);
-        InitializeRewriter.InitializeDefinition initializeDefinition = new InitializeRewriter.InitializeDefinition();
 
         GlobalContext initializingContextGlobal = new GlobalContext(kapiGlobal, hookProvider, Stage.INITIALIZING);
         TermContext initializingContext = TermContext.builder(initializingContextGlobal).freshCounter(0).build();
-        org.kframework.backend.java.kil.Definition evaluatedDef = initializeDefinition.invoke(compiledDef.executionModule(), kapiGlobal.kem, initializingContext.global());
+        org.kframework.backend.java.kil.Definition evaluatedDef;
+        synchronized (initializeDefinition) {
+            evaluatedDef = initializeDefinition.invoke(compiledDef.executionModule(), kapiGlobal.kem, initializingContext.global());
+        }
+        initializingContextGlobal.close();
 
         GlobalContext rewritingContextGlobal = new GlobalContext(kapiGlobal, hookProvider, Stage.REWRITING);
         rewritingContextGlobal.setDefinition(evaluatedDef);
@@ -198,7 +222,7 @@ public class Kapi {
 
         // print output
         // from org.kframework.krun.KRun.run()
-        KRun.prettyPrint(compiledDef, krunOptions.output, s -> KRun.outputFile(s, krunOptions, files), result.k());
+        KRun.outputFile(compiledDef, result.k(), krunOptions, files);
     }
 
     /**
@@ -265,7 +289,7 @@ public class Kapi {
         assert ((KList) ((KItem) e.equalities().get(0).leftHandSide()).kList()).getContents().size() == 1;
         assert ((KList) ((KItem) e.equalities().get(0).leftHandSide()).kList()).getContents().get(0) instanceof BuiltinList;
 
-        return ((BuiltinList) ((KList) ((KItem) e.equalities().get(0).leftHandSide()).kList()).getContents().get(0)).children;
+        return ImmutableList.copyOf(((BuiltinList) ((KList) ((KItem) e.equalities().get(0).leftHandSide()).kList()).getContents().get(0)).children);
     }
 
     // TODO: better name
@@ -520,11 +544,16 @@ public class Kapi {
 
         //// prove spec rules
 
-        List<ConstrainedTerm> proofResults = javaRules.stream()
-                .filter(r -> !r.containsAttribute(Attribute.TRUSTED_KEY))
-                .map(r -> rewriter.proveRule(r.createLhsPattern(rewritingContext,1), r.createRhsPattern(1), allRules))
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+        List<ConstrainedTerm> proofResults;
+        try {
+            proofResults = javaRules.stream()
+                    .filter(r -> !r.containsAttribute(Attribute.TRUSTED_KEY))
+                    .map(r -> rewriter.proveRule(r.createLhsPattern(rewritingContext,1), r.createRhsPattern(1), allRules))
+                    .flatMap(List::stream)
+                    .collect(Collectors.toList());
+        } finally {
+            rewritingContext.global().close();
+        }
 
         //// print result
 
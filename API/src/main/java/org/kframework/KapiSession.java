@@ -0,0 +1,189 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework;
+
+import org.kframework.attributes.Source;
+import org.kframework.backend.java.compile.KOREtoBackendKIL;
+import org.kframework.backend.java.kil.ConstrainedTerm;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.symbolic.MacroExpander;
+import org.kframework.backend.java.symbolic.SymbolicRewriter;
+import org.kframework.backend.java.util.JavaKRunState;
+import org.kframework.frontend.K;
+import org.kframework.kompile.CompiledDefinition;
+import org.kframework.krun.KRun;
+import org.kframework.krun.api.KRunState;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Executes many programs of a definition, concurrently.
+ *
+ * The backend definition is initialized once, when the session is created, and shared by all the
+ * programs; each program is rewritten with a term context, a converter and a rewriter of its own,
+ * so that the session can be used from any thread. Create with {@link Kapi#session}, and close
+ * once done to stop the threads of the session.
+ *
+ * Example usage:
+ *
+ *   try (KapiSession session = kapi.session(compiledDef)) {
+ *       List<RewriterResult> results = session.krunAll(programs, null, 10, TimeUnit.SECONDS)
+ *               .collect(Collectors.toList());
+ *   }
+ */
+public class KapiSession implements AutoCloseable {
+
+    private final KapiGlobal kapiGlobal;
+    private final CompiledDefinition compiledDef;
+    private final BiFunction<String, Source, K> programParser;
+    private final GlobalContext global;
+    private final BigInteger initialCounter;
+    private final ExecutorService executor;
+    private final ScheduledThreadPoolExecutor timer;
+
+    KapiSession(Kapi kapi, CompiledDefinition compiledDef, int threads) {
+        this.kapiGlobal = kapi.kapiGlobal;
+        this.compiledDef = compiledDef;
+        this.programParser = compiledDef.getProgramParser(kapiGlobal.kem);
+        TermContext rewritingContext = kapi.getRewriter(compiledDef)._2();
+        this.global = rewritingContext.global();
+        this.initialCounter = rewritingContext.getCounterValue();
+
+        AtomicInteger workers = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "kapi-session-" + workers.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "kapi-session-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Parses the given program, puts it into the initial configuration and rewrites it.
+     *
+     * @param depth   the maximum number of rewrite steps, or null for no limit
+     * @param timeout the time after which the result completes with a {@link TimeoutException}
+     *                and the rewriting is interrupted, or 0 for no limit. The rewriter checks for
+     *                the interruption between rewrite steps, so a program stuck in a single step
+     *                (e.g. in a builtin function) keeps its thread until the step ends.
+     */
+    public CompletableFuture<RewriterResult> submit(String programText, Integer depth, long timeout, TimeUnit unit) {
+        return execute(() -> rewrite(kast(programText), depth), timeout, unit);
+    }
+
+    public CompletableFuture<RewriterResult> submit(String programText, Integer depth) {
+        return submit(programText, depth, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Rewrites the given configuration, e.g. one returned by {@link Kapi#kast}.
+     *
+     * @see #submit(String, Integer, long, TimeUnit)
+     */
+    public CompletableFuture<RewriterResult> submit(K program, Integer depth, long timeout, TimeUnit unit) {
+        return execute(() -> rewrite(program, depth), timeout, unit);
+    }
+
+    public CompletableFuture<RewriterResult> submit(K program, Integer depth) {
+        return submit(program, depth, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Submits all the given programs at once, each with the given depth and timeout.
+     *
+     * @return the results, in the order of the programs, each as soon as it is done; a program
+     * which failed or timed out throws a {@link java.util.concurrent.CompletionException} when its
+     * result is reached
+     */
+    public Stream<RewriterResult> krunAll(List<String> programTexts, Integer depth, long timeout, TimeUnit unit) {
+        List<CompletableFuture<RewriterResult>> results = programTexts.stream()
+                .map(programText -> submit(programText, depth, timeout, unit))
+                .collect(Collectors.toList());
+        return results.stream().map(CompletableFuture::join);
+    }
+
+    private CompletableFuture<RewriterResult> execute(Supplier<RewriterResult> task, long timeout, TimeUnit unit) {
+        CompletableFuture<RewriterResult> result = new CompletableFuture<>();
+        AtomicBoolean finished = new AtomicBoolean();
+        Future<?> execution = executor.submit(() -> {
+            RewriterResult value;
+            try {
+                value = task.get();
+            } catch (Throwable e) {
+                finished.set(true);
+                result.completeExceptionally(e);
+                return;
+            }
+            finished.set(true);
+            result.complete(value);
+        });
+        // cancelling the result, or timing it out, interrupts the rewriting; the result completed
+        // by the task itself must not interrupt the thread which is completing it
+        result.whenComplete((r, e) -> {
+            if (!finished.get()) {
+                execution.cancel(true);
+            }
+        });
+        if (timeout > 0) {
+            ScheduledFuture<?> timeoutTask = timer.schedule(
+                    () -> result.completeExceptionally(new TimeoutException("Rewriting timed out after " + timeout + " " + unit.toString().toLowerCase())),
+                    timeout, unit);
+            result.whenComplete((r, e) -> timeoutTask.cancel(false));
+        }
+        return result;
+    }
+
+    private K kast(String programText) {
+        K pgm = programParser.apply(programText, Source.apply("generated by api"));
+        return KRun.getInitConfig(pgm, compiledDef, kapiGlobal.kem);
+    }
+
+    private RewriterResult rewrite(K program, Integer depth) {
+        TermContext context = TermContext.builder(global).freshCounter(initialCounter).build();
+        // the converter keeps a table of the variables it converted, so it is not shared
+        KOREtoBackendKIL converter = new KOREtoBackendKIL(compiledDef.executionModule(), global.getDefinition(), global, false);
+        SymbolicRewriter rewriter = new SymbolicRewriter(global, kapiGlobal.kompileOptions.transition, new KRunState.Counter(), converter);
+
+        Term term = MacroExpander.expandAndEvaluate(context, kapiGlobal.kem, converter.convert(program));
+        JavaKRunState result = (JavaKRunState) rewriter.rewrite(new ConstrainedTerm(term, context), Optional.ofNullable(depth).orElse(-1));
+        return new RewriterResult(result.getStepsTaken(), result.getJavaKilTerm());
+    }
+
+    /**
+     * Interrupts the programs still running, stops the threads of the session and releases its
+     * Z3 sessions.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        timer.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        global.close();
+    }
+}
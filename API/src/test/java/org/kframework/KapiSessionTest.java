@@ -0,0 +1,68 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.kframework.kompile.CompiledDefinition;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class KapiSessionTest {
+
+    private static final String DEFINITION = "" +
+            "requires \"domains.k\"\n" +
+            "module TEST\n" +
+            "  imports DOMAINS\n" +
+            "  syntax KItem ::= \"count\" \"(\" Int \")\" | \"loop\"\n" +
+            "  rule count(N:Int) => count(N -Int 1) requires N >Int 0\n" +
+            "  rule loop => loop\n" +
+            "endmodule\n";
+
+    private static Kapi kapi;
+    private static CompiledDefinition compiledDef;
+
+    @BeforeClass
+    public static void kompile() {
+        kapi = new Kapi();
+        compiledDef = kapi.kompile(DEFINITION, "TEST");
+    }
+
+    @Test
+    public void testConcurrentProgramsMatchKrun() {
+        List<String> programs = Arrays.asList("count(0)", "count(10)", "count(100)", "count(200)",
+                "count(300)", "count(400)", "count(500)", "count(1000)");
+        List<RewriterResult> results;
+        try (KapiSession session = kapi.session(compiledDef, 4)) {
+            results = session.krunAll(programs, null, 0, TimeUnit.MILLISECONDS).collect(Collectors.toList());
+        }
+        for (int i = 0; i < programs.size(); i++) {
+            RewriterResult expected = kapi.krun(programs.get(i), null, compiledDef);
+            assertEquals(programs.get(i), expected.k().toString(), results.get(i).k().toString());
+            assertEquals(programs.get(i), expected.rewriteSteps(), results.get(i).rewriteSteps());
+        }
+    }
+
+    @Test
+    public void testTimeout() {
+        try (KapiSession session = kapi.session(compiledDef, 1)) {
+            CompletableFuture<RewriterResult> loop = session.submit("loop", null, 200, TimeUnit.MILLISECONDS);
+            try {
+                loop.join();
+                fail("the rewriting of loop should time out");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+            /* the interrupted rewriting releases the only thread of the session */
+            RewriterResult result = session.submit("count(10)", null, 10, TimeUnit.SECONDS).join();
+            assertEquals(kapi.krun("count(10)", null, compiledDef).k().toString(), result.k().toString());
+        }
+    }
+}
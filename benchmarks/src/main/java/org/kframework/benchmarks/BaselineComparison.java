@@ -0,0 +1,124 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the results of a run of the benchmarks, in the JSON format of JMH, against those of a
+ * baseline run.
+ *
+ * A benchmark regresses when it is slower than in the baseline by more than the threshold, beyond
+ * the error of its current score, so that the noise of a run alone does not make it regress.
+ */
+public class BaselineComparison {
+
+    public static class Result {
+        public final String mode;
+        public final double score;
+        public final double error;
+        public final String unit;
+
+        public Result(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /**
+         * @return whether the score is a number of operations per time unit, rather than a time
+         */
+        boolean isThroughput() {
+            return mode.equals("thrpt");
+        }
+    }
+
+    public static class Change {
+        public final String benchmark;
+        public final Result baseline;
+        public final Result current;
+        public final boolean regression;
+
+        Change(String benchmark, Result baseline, Result current, boolean regression) {
+            this.benchmark = benchmark;
+            this.baseline = baseline;
+            this.current = current;
+            this.regression = regression;
+        }
+
+        /**
+         * @return how many times slower the benchmark is than in the baseline, e.g. 1.5 for 50%
+         * slower and 0.5 for twice as fast
+         */
+        public double slowdown() {
+            return current.isThroughput() ? baseline.score / current.score : current.score / baseline.score;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-90s %12.3f %12.3f %-8s %+7.1f%%%s", benchmark, baseline.score, current.score,
+                    current.unit, (slowdown() - 1) * 100, regression ? "  REGRESSION" : "");
+        }
+    }
+
+    /**
+     * @return the results of the JMH report read from the given reader, by benchmark and parameters,
+     * e.g. {@code org.kframework.benchmarks.ParserBenchmark.parseProgram:statements=10}
+     */
+    public static Map<String, Result> parse(Reader json) {
+        Map<String, Result> results = new LinkedHashMap<>();
+        JsonArray runs = new JsonParser().parse(json).getAsJsonArray();
+        for (JsonElement element : runs) {
+            JsonObject run = element.getAsJsonObject();
+            StringBuilder key = new StringBuilder(run.get("benchmark").getAsString());
+            if (run.has("params")) {
+                Map<String, String> params = new TreeMap<>();
+                for (Map.Entry<String, JsonElement> param : run.getAsJsonObject("params").entrySet()) {
+                    params.put(param.getKey(), param.getValue().getAsString());
+                }
+                params.forEach((name, value) -> key.append(':').append(name).append('=').append(value));
+            }
+            JsonObject metric = run.getAsJsonObject("primaryMetric");
+            JsonElement error = metric.get("scoreError");
+            results.put(key.toString(), new Result(
+                    run.get("mode").getAsString(),
+                    metric.get("score").getAsDouble(),
+                    // the error is "NaN" when there are too few iterations to compute it
+                    error == null || !error.getAsJsonPrimitive().isNumber() ? 0 : error.getAsDouble(),
+                    metric.get("scoreUnit").getAsString()));
+        }
+        return results;
+    }
+
+    /**
+     * @param threshold the fraction by which a benchmark may be slower than in the baseline without
+     *                  regressing, e.g. 0.1 for 10%
+     * @return the changes of the benchmarks which were measured in the same mode and unit in both
+     * runs, in the order of the current run
+     */
+    public static List<Change> compare(Map<String, Result> baseline, Map<String, Result> current, double threshold) {
+        List<Change> changes = new ArrayList<>();
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            Result after = entry.getValue();
+            if (before == null || !before.mode.equals(after.mode) || !before.unit.equals(after.unit)) {
+                continue;
+            }
+            boolean regression = after.isThroughput()
+                    ? after.score + after.error < before.score * (1 - threshold)
+                    : after.score - after.error > before.score * (1 + threshold);
+            changes.add(new Change(entry.getKey(), before, after, regression));
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,93 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the benchmarks, writes their results in the JSON format of JMH, and compares them against
+ * the results of a baseline run, exiting with 1 if any of them regressed.
+ *
+ * Run from the benchmarks directory, after building with {@code mvn package -Pbenchmarks}:
+ * {@code java -jar target/benchmarks.jar [--save-baseline] [<benchmark regexp>...]}.
+ * Baselines depend on the machine, so none is stored in the repository; record one with
+ * {@code --save-baseline} before making the changes to measure.
+ */
+public class BenchmarkRunner {
+
+    @Parameter(description = "<benchmark regexp>")
+    private List<String> benchmarks = new ArrayList<>();
+
+    @Parameter(names = "--output", description = "The file to write the results to.")
+    private File output = new File("target/benchmarks.json");
+
+    @Parameter(names = "--baseline", description = "The file with the results of the baseline run.")
+    private File baseline = new File("baseline.json");
+
+    @Parameter(names = "--save-baseline", description = "Save the results as the baseline instead of comparing them against it.")
+    private boolean saveBaseline = false;
+
+    @Parameter(names = "--threshold", description = "The fraction by which a benchmark may be slower than in the baseline without regressing.")
+    private double threshold = 0.1;
+
+    @Parameter(names = "--kompiled", description = "The directory of the definitions kompiled at build time.")
+    private File kompiled = new File("target/k");
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new JCommander(runner, args);
+        System.exit(runner.run());
+    }
+
+    private int run() throws RunnerException, IOException {
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .resultFormat(ResultFormatType.JSON)
+                .result(output.getPath())
+                // as in the K scripts, the backend needs a large stack
+                .jvmArgsAppend("-Xss32m", "-Xmx4G", "-D" + DefinitionState.KOMPILED_PROPERTY + "=" + kompiled.getAbsolutePath());
+        if (benchmarks.isEmpty()) {
+            options.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        }
+        benchmarks.forEach(options::include);
+        new Runner(options.build()).run();
+
+        if (saveBaseline) {
+            FileUtils.copyFile(output, baseline);
+            System.out.println("Saved the results as the baseline " + baseline);
+            return 0;
+        }
+        if (!baseline.exists()) {
+            System.out.println("No baseline " + baseline + " to compare against; record one with --save-baseline.");
+            return 0;
+        }
+        List<BaselineComparison.Change> changes = BaselineComparison.compare(read(baseline), read(output), threshold);
+        System.out.println();
+        System.out.println(String.format("%-90s %12s %12s %-8s %8s", "Benchmark", "Baseline", "Current", "Unit", "Change"));
+        changes.forEach(System.out::println);
+        long regressions = changes.stream().filter(c -> c.regression).count();
+        System.out.println(regressions + " of " + changes.size() + " benchmarks regressed by more than "
+                + Math.round(threshold * 100) + "% against " + baseline);
+        return regressions == 0 ? 0 : 1;
+    }
+
+    private static Map<String, BaselineComparison.Result> read(File file) throws IOException {
+        try (Reader reader = new FileReader(file)) {
+            return BaselineComparison.parse(reader);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.BuiltinList;
+import org.kframework.backend.java.kil.BuiltinMap;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.Term;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building, looking up and concatenating the {@link BuiltinMap}s and {@link BuiltinList}s
+ * of the java backend, with integer keys and elements.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class BuiltinCollectionsBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private GlobalContext global;
+    private IntToken[] keys;
+    private BuiltinMap map;
+    private Term lowerHalf;
+    private Term upperHalf;
+    private BuiltinList list;
+
+    @Setup(Level.Trial)
+    public void setup(DefinitionState definition) {
+        global = definition.context.global();
+        keys = new IntToken[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = IntToken.of(i);
+        }
+        map = (BuiltinMap) buildMap();
+        lowerHalf = buildMap(0, size / 2);
+        upperHalf = buildMap(size / 2, size);
+        list = (BuiltinList) buildList();
+    }
+
+    @Benchmark
+    public Term buildMap() {
+        return buildMap(0, size);
+    }
+
+    private Term buildMap(int from, int to) {
+        BuiltinMap.Builder builder = BuiltinMap.builder(global);
+        for (int i = from; i < to; i++) {
+            builder.put(keys[i], keys[i]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public void lookupMap(Blackhole blackhole) {
+        for (IntToken key : keys) {
+            blackhole.consume(map.get(key));
+        }
+    }
+
+    @Benchmark
+    public Term concatenateMaps() {
+        return BuiltinMap.concatenate(global, lowerHalf, upperHalf);
+    }
+
+    @Benchmark
+    public Term buildList() {
+        BuiltinList.Builder builder = BuiltinList.builder(global);
+        for (IntToken element : keys) {
+            builder.add(element);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public void indexList(Blackhole blackhole) {
+        for (int i = 0; i < size; i++) {
+            blackhole.consume(list.get(i));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.kompile.CompiledDefinition;
+import org.kframework.utils.BinaryLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading the kompiled bundled definition through {@link BinaryLoader}, as krun does at
+ * startup, from the definition kompiled with each binary format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class DefinitionLoadingBenchmark {
+
+    @Param({"java", "compact"})
+    public String format;
+
+    @Benchmark
+    public CompiledDefinition loadDefinition() {
+        return DefinitionState.load(DefinitionState.kompiledDirectory(format));
+    }
+}
@@ -0,0 +1,88 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.Kapi;
+import org.kframework.backend.java.kil.ConstrainedTerm;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.backend.java.symbolic.MacroExpander;
+import org.kframework.backend.java.symbolic.SymbolicRewriter;
+import org.kframework.backend.java.util.JavaKRunState;
+import org.kframework.frontend.K;
+import org.kframework.kompile.CompiledDefinition;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.BinaryLoader;
+import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.inject.DefinitionLoadingModule;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import scala.Tuple2;
+
+import java.io.File;
+
+/**
+ * The bundled definition, src/main/k/bench.k, loaded once per benchmark together with a rewriter
+ * for it.
+ *
+ * The definition is kompiled at build time into a directory per binary format, under the directory
+ * given by the system property {@value #KOMPILED_PROPERTY}, which defaults to {@code target/k}.
+ */
+@State(Scope.Benchmark)
+public class DefinitionState {
+
+    public static final String KOMPILED_PROPERTY = "kframework.benchmarks.kompiled";
+
+    public Kapi kapi;
+    public CompiledDefinition compiledDefinition;
+    public SymbolicRewriter rewriter;
+    public TermContext context;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kapi = new Kapi();
+        compiledDefinition = load(kompiledDirectory("java"));
+        Tuple2<SymbolicRewriter, TermContext> rewriterAndContext = kapi.getRewriter(compiledDefinition);
+        rewriter = rewriterAndContext._1();
+        context = rewriterAndContext._2();
+    }
+
+    /**
+     * @param format "java" or "compact", the binary format the definition was kompiled with
+     */
+    public static File kompiledDirectory(String format) {
+        return new File(new File(System.getProperty(KOMPILED_PROPERTY, "target/k"), format), "bench-kompiled");
+    }
+
+    public static CompiledDefinition load(File kompiledDirectory) {
+        KExceptionManager kem = new KExceptionManager(new GlobalOptions());
+        return DefinitionLoadingModule.koreDefinition(new BinaryLoader(kem), new FileUtil(null, null, null, kompiledDirectory, null, null));
+    }
+
+    /**
+     * @return a program of the bundled language which sums the numbers from {@code n} down to 1,
+     * taking about 15 rewrite steps per number
+     */
+    public static String sumProgram(int n) {
+        return "int n, s; n = " + n + "; s = 0; while (!(n <= 0)) { s = s + n; n = n + -1; }";
+    }
+
+    /**
+     * @return the initial configuration of the given program, as a term of the backend
+     */
+    public ConstrainedTerm initialConfiguration(String program) {
+        K configuration = kapi.kast(program, compiledDefinition);
+        Term term = rewriter.getConstructor().convert(configuration);
+        return new ConstrainedTerm(MacroExpander.expandAndEvaluate(context, kapi.kapiGlobal.kem, term), context);
+    }
+
+    /**
+     * @return the configuration reached after the given number of rewrite steps
+     */
+    public ConstrainedTerm rewrite(ConstrainedTerm configuration, int steps) {
+        JavaKRunState state = (JavaKRunState) rewriter.rewrite(configuration, steps);
+        return new ConstrainedTerm(state.getJavaKilTerm(), context);
+    }
+}
@@ -0,0 +1,68 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link KItem#evaluateFunction} on the functions of the bundled definition: {@code fib},
+ * which evaluates many small applications of functions and builtins, and {@code buildMap} and
+ * {@code buildList}, which grow a builtin collection one element per application.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class FunctionEvaluationBenchmark {
+
+    private TermContext context;
+    private KLabelConstant fib;
+    private KLabelConstant buildMap;
+    private KLabelConstant buildList;
+
+    @Setup(Level.Trial)
+    public void setup(DefinitionState definition) {
+        context = definition.context;
+        fib = KLabelConstant.of("fib", context.definition());
+        buildMap = KLabelConstant.of("buildMap", context.definition());
+        buildList = KLabelConstant.of("buildList", context.definition());
+    }
+
+    @Benchmark
+    public Term fib() {
+        return evaluate(fib, 15);
+    }
+
+    @Benchmark
+    public Term buildMap() {
+        return evaluate(buildMap, 100);
+    }
+
+    @Benchmark
+    public Term buildList() {
+        return evaluate(buildList, 100);
+    }
+
+    private Term evaluate(KLabelConstant function, int argument) {
+        return KItem.of(function, KList.singleton(IntToken.of(argument)), context.global()).evaluateFunction(context);
+    }
+}
@@ -0,0 +1,62 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.backend.java.builtins.BuiltinIntOperations;
+import org.kframework.backend.java.builtins.IntToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time per iteration of the loop {@code while (n > 0) { s = s + n * n % 7; n = n - 1; }},
+ * the arithmetic of a typical loop counter, through {@link BuiltinIntOperations} and through
+ * {@link BigInteger} alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class IntArithmeticBenchmark {
+
+    private static final int ITERATIONS = 100000;
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public IntToken intTokenLoop() {
+        IntToken zero = IntToken.of(0);
+        IntToken one = IntToken.of(1);
+        IntToken seven = IntToken.of(7);
+        IntToken n = IntToken.of(ITERATIONS);
+        IntToken s = zero;
+        while (BuiltinIntOperations.gt(n, zero, null).booleanValue()) {
+            s = BuiltinIntOperations.add(s, BuiltinIntOperations.mod(BuiltinIntOperations.mul(n, n, null), seven, null), null);
+            n = BuiltinIntOperations.sub(n, one, null);
+        }
+        return s;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITERATIONS)
+    public BigInteger bigIntegerLoop() {
+        BigInteger seven = BigInteger.valueOf(7);
+        BigInteger n = BigInteger.valueOf(ITERATIONS);
+        BigInteger s = BigInteger.ZERO;
+        while (n.compareTo(BigInteger.ZERO) > 0) {
+            s = s.add(n.multiply(n).mod(seven));
+            n = n.subtract(BigInteger.ONE);
+        }
+        return s;
+    }
+}
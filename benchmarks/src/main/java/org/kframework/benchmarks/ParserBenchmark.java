@@ -0,0 +1,54 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.attributes.Source;
+import org.kframework.frontend.K;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Measures parsing programs of the bundled language with the GLL parser of its program grammar,
+ * which is built once, as kast and krun do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+    @Param({"10", "100"})
+    public int statements;
+
+    private BiFunction<String, Source, K> parser;
+    private String program;
+
+    @Setup(Level.Trial)
+    public void setup(DefinitionState definition) {
+        parser = definition.compiledDefinition.getProgramParser(definition.kapi.kapiGlobal.kem);
+        StringBuilder sb = new StringBuilder("int n, s; ");
+        for (int i = 0; i < statements; i++) {
+            sb.append("if (n <= ").append(i).append(") { s = s + (n + ").append(i).append("); } else { n = n + -1; } ");
+        }
+        program = sb.toString();
+    }
+
+    @Benchmark
+    public K parseProgram() {
+        return parser.apply(program, Source.apply("benchmark"));
+    }
+}
@@ -0,0 +1,67 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.backend.java.kil.ConstrainedTerm;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.symbolic.FastRuleMatcher;
+import org.kframework.utils.BitSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FastRuleMatcher#matchRulePattern}, which selects the rules applying to a
+ * configuration, on configurations taken from the run of a loop of the bundled definition.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class RuleMatcherBenchmark {
+
+    private FastRuleMatcher matcher;
+    private Term pattern;
+    private BitSet allRules;
+    private ConstrainedTerm initial;
+    private ConstrainedTerm inLoop;
+
+    @Setup(Level.Trial)
+    public void setup(DefinitionState definition) {
+        Definition backendDefinition = definition.context.definition();
+        matcher = new FastRuleMatcher(definition.context.global(), backendDefinition.ruleTable.size());
+        pattern = backendDefinition.automaton.leftHandSide();
+        allRules = BitSet.apply(backendDefinition.ruleTable.size());
+        allRules.makeOnes(backendDefinition.ruleTable.size());
+        initial = definition.initialConfiguration(DefinitionState.sumProgram(100));
+        inLoop = definition.rewrite(initial, 500);
+    }
+
+    @Benchmark
+    public List<FastRuleMatcher.RuleMatchResult> matchInitialConfiguration() {
+        return match(initial);
+    }
+
+    @Benchmark
+    public List<FastRuleMatcher.RuleMatchResult> matchConfigurationInLoop() {
+        return match(inLoop);
+    }
+
+    private List<FastRuleMatcher.RuleMatchResult> match(ConstrainedTerm subject) {
+        return matcher.matchRulePattern(subject, pattern, allRules, false, false, Collections.emptyList(), false, subject.termContext());
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.attributes.Source;
+import org.kframework.backend.java.kil.Rule;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.symbolic.SymbolicRewriter;
+import org.kframework.frontend.K;
+import org.kframework.rewriter.SearchType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the breadth-first {@link SymbolicRewriter#search} for the final states of a loop which
+ * chooses at each iteration between two values, sequentially and with parallel levels. In
+ * {@link #searchWithFreshConstants} one of the values is a fresh integer, so the terms of a level
+ * expanded in parallel generate fresh constants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param({"1", "4"})
+    public int searchThreads;
+
+    private DefinitionState definition;
+    private Rule finalState;
+    private Term withFreshConstants;
+    private Term withoutFreshConstants;
+
+    @Setup(Level.Trial)
+    public void setup(DefinitionState definition) {
+        this.definition = definition;
+        definition.context.global().krunOptions.experimental.searchThreads = searchThreads;
+        org.kframework.definition.Rule pattern = definition.compiledDefinition.compilePatternIfAbsent(
+                definition.kapi.kapiGlobal.files, definition.kapi.kapiGlobal.kem, "<k> .K </k>", Source.apply("<benchmark>"));
+        finalState = definition.rewriter.getConstructor().convert(Optional.empty(), pattern);
+        withFreshConstants = definition.initialConfiguration(choiceProgram("fresh")).term();
+        withoutFreshConstants = definition.initialConfiguration(choiceProgram("2")).term();
+    }
+
+    /**
+     * @return a program which adds, 8 times, either the given expression or 1
+     */
+    private static String choiceProgram(String choice) {
+        return "int n, s; n = 8; s = 0; while (!(n <= 0)) { s = s + choose(" + choice + ", 1); n = n + -1; }";
+    }
+
+    @Benchmark
+    public K searchWithFreshConstants() {
+        return search(withFreshConstants);
+    }
+
+    @Benchmark
+    public K searchWithoutFreshConstants() {
+        return search(withoutFreshConstants);
+    }
+
+    private K search(Term initialTerm) {
+        return definition.rewriter.search(initialTerm, finalState, -1, -1, SearchType.FINAL, definition.context, true);
+    }
+}
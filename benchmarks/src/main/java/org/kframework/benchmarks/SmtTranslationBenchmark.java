@@ -0,0 +1,68 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.symbolic.ConjunctiveFormula;
+import org.kframework.backend.java.symbolic.KILtoSMTLib;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link KILtoSMTLib#translateConstraint} on a chain of integer inequalities
+ * {@code x0 <=Int x1 +Int 0, x1 <=Int x2 +Int 1, ...}, the shape of the path conditions of
+ * symbolic loops.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Thread)
+public class SmtTranslationBenchmark {
+
+    @Param({"10", "100"})
+    public int conjuncts;
+
+    private ConjunctiveFormula constraint;
+
+    @Setup(Level.Trial)
+    public void setup(DefinitionState definition) {
+        GlobalContext global = definition.context.global();
+        KLabelConstant le = KLabelConstant.of("_<=Int_", definition.context.definition());
+        KLabelConstant plus = KLabelConstant.of("_+Int_", definition.context.definition());
+        constraint = ConjunctiveFormula.of(global);
+        for (int i = 0; i < conjuncts; i++) {
+            Term sum = KItem.of(plus, KList.concatenate(variable(i + 1), IntToken.of(i)), global);
+            constraint = constraint.add(KItem.of(le, KList.concatenate(variable(i), sum), global), BoolToken.TRUE);
+        }
+    }
+
+    private static Variable variable(int i) {
+        return new Variable("x" + i, Sort.INT);
+    }
+
+    @Benchmark
+    public String translateConstraint() {
+        return KILtoSMTLib.translateConstraint(constraint);
+    }
+}
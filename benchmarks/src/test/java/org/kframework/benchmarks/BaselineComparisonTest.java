@@ -0,0 +1,50 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.benchmarks;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BaselineComparisonTest {
+
+    private static String run(String benchmark, String mode, double score, double error) {
+        return "{\"benchmark\": \"" + benchmark + "\", \"mode\": \"" + mode + "\", \"params\": {\"size\": \"10\", \"kind\": \"a\"}, "
+                + "\"primaryMetric\": {\"score\": " + score + ", \"scoreError\": " + error + ", \"scoreUnit\": \"us/op\"}}";
+    }
+
+    private static Map<String, BaselineComparison.Result> parse(String... runs) {
+        return BaselineComparison.parse(new StringReader("[" + String.join(", ", runs) + "]"));
+    }
+
+    @Test
+    public void testParseKeysResultsByBenchmarkAndParameters() {
+        Map<String, BaselineComparison.Result> results = parse(run("B.m", "avgt", 2.5, 0.1));
+        BaselineComparison.Result result = results.get("B.m:kind=a:size=10");
+        assertEquals(2.5, result.score, 0);
+        assertEquals(0.1, result.error, 0);
+        assertEquals("us/op", result.unit);
+    }
+
+    @Test
+    public void testSlowerBeyondThresholdAndErrorRegresses() {
+        Map<String, BaselineComparison.Result> baseline = parse(run("A.m", "avgt", 10, 0), run("B.m", "avgt", 10, 0), run("C.m", "avgt", 10, 0));
+        Map<String, BaselineComparison.Result> current = parse(run("A.m", "avgt", 12, 0.5), run("B.m", "avgt", 12, 1.5), run("C.m", "avgt", 5, 0), run("D.m", "avgt", 1, 0));
+        List<BaselineComparison.Change> changes = BaselineComparison.compare(baseline, current, 0.1);
+        assertEquals(3, changes.size());
+        assertTrue(changes.get(0).regression);
+        assertFalse(changes.get(1).regression);
+        assertFalse(changes.get(2).regression);
+        assertEquals(0.5, changes.get(2).slowdown(), 1e-9);
+    }
+
+    @Test
+    public void testLowerThroughputRegresses() {
+        Map<String, BaselineComparison.Result> baseline = parse(run("A.m", "thrpt", 100, 0));
+        assertTrue(BaselineComparison.compare(baseline, parse(run("A.m", "thrpt", 80, 1)), 0.1).get(0).regression);
+        assertFalse(BaselineComparison.compare(baseline, parse(run("A.m", "thrpt", 120, 1)), 0.1).get(0).regression);
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.rewriter;
+
+import org.kframework.RewriterResult;
+import org.kframework.definition.Rule;
+import org.kframework.frontend.K;
+
+import java.util.Optional;
+
+/**
+ * A configuration that a {@link Rewriter} rewrites a few steps at a time, e.g. for the debugger.
+ * The rewriter keeps the configuration in its own representation between the calls, so that
+ * stepping through a trace does not convert it back and forth at each step.
+ */
+public interface RewriterSession {
+
+    /**
+     * A snapshot of the configuration of a session, which the session can be restored to.
+     */
+    interface Checkpoint {
+
+        /**
+         * @return the configuration of this checkpoint.
+         */
+        K k();
+    }
+
+    /**
+     * Rewrites the current configuration by at most the given number of steps.
+     *
+     * @return the number of steps taken, which is less than {@code steps} only if the
+     * configuration is final.
+     */
+    int step(int steps);
+
+    /**
+     * @return a checkpoint of the current configuration.
+     */
+    Checkpoint checkpoint();
+
+    /**
+     * Makes the configuration of the given checkpoint, which must have been taken by this session,
+     * the current configuration.
+     */
+    void restore(Checkpoint checkpoint);
+
+    /**
+     * Matches the current configuration against the given rule, like {@link Rewriter#match}.
+     */
+    K match(Rule rule);
+
+    /**
+     * The session of a rewriter that does not keep configurations in its own representation, which
+     * goes through {@link Rewriter#execute} and {@link Rewriter#match} at each call.
+     */
+    class Executing implements RewriterSession {
+
+        private final Rewriter rewriter;
+        private K k;
+
+        public Executing(Rewriter rewriter, K k) {
+            this.rewriter = rewriter;
+            this.k = k;
+        }
+
+        @Override
+        public int step(int steps) {
+            RewriterResult result = rewriter.execute(k, Optional.of(steps));
+            k = result.k();
+            return result.rewriteSteps().orElse(steps);
+        }
+
+        @Override
+        public Checkpoint checkpoint() {
+            K current = k;
+            return () -> current;
+        }
+
+        @Override
+        public void restore(Checkpoint checkpoint) {
+            k = checkpoint.k();
+        }
+
+        @Override
+        public K match(Rule rule) {
+            return rewriter.match(k, rule);
+        }
+    }
+}
@@ -38,5 +38,12 @@ trait Rewriter {
 
   def executeAndMatch(k: frontend.K, depth: Optional[Integer], rule: Rule): Tuple2[RewriterResult, frontend.K]
 
+  /**
+   * Starts a session that rewrites the given configuration a few steps at a time.
+   * By default, the session goes through execute and match at each call; a rewriter can override it
+   * to keep the configuration in its own representation between the calls.
+   */
+  def session(k: frontend.K): RewriterSession = new RewriterSession.Executing(this, k)
+
   def prove(rules: java.util.List[Rule]): java.util.List[frontend.K]
 }
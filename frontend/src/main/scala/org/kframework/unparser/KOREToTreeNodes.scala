@@ -7,6 +7,8 @@ import org.kframework.frontend.{KApply, KToken, KVariable, _}
 import org.kframework.parser.{Constant, Term, TermCons}
 import org.pcollections.ConsPStack
 
+import java.io.IOException
+
 import collection._
 import JavaConverters._
 
@@ -43,27 +45,93 @@ object KOREToTreeNodes {
     items map up(mod) _
   }
 
-  def toString(t: Term): String = t match {
-    case Constant(s, _) => s
-    case t@TermCons(items, p) => {
+  def toString(t: Term): String = {
+    val b = new java.lang.StringBuilder
+    print(b, t)
+    b.toString
+  }
+
+  /**
+   * Prints the given term to the given output as it goes, e.g. to a buffered writer,
+   * rather than building the whole string first.
+   */
+  @throws(classOf[IOException])
+  def print(out: Appendable, t: Term): Unit = t match {
+    case Constant(s, _) => out.append(s)
+    case t@TermCons(items, p) =>
       var i = 0
-      val unparsedItems = p.items map {
-        case Terminal(s, _) => s
-        case NonTerminal(sort) => {
-          i = i + 1
-          toString(t.get(i - 1))
-        }
-        case RegexTerminal(_, _, _) => throw new AssertionError("Unimplemented yet")
+      printProduction(out, p) { () =>
+        i = i + 1
+        print(out, t.get(i - 1))
       }
 
-      unparsedItems.mkString(" ")
-
       //TODO: Recover this code to enable format attribute (in PRETTY output mode).
       /*if (p.att.contains("format")) {
         p.att.get[String]("format").get.format(unparsedItems: _*)
       } else {
         unparsedItems.mkString(" ")
       }*/
+  }
+
+  /**
+   * Prints the given term as {@code print(out, apply(up(mod)(t), mod))} would, without building
+   * either of them, so that printing without brackets takes no memory besides the output.
+   */
+  @throws(classOf[IOException])
+  def print(out: Appendable, t: K, mod: Module): Unit = t match {
+    case v: KVariable => out.append(v.name)
+    case t: KToken => out.append(t.s)
+    case s: KSequence =>
+      if (s.items.size() == 0)
+        printProduction(out, production(mod, "#EmptyK", 0)) { () => }
+      else
+        printKSequence(out, s.items.asScala.toIndexedSeq, s.items.size(), mod)
+    case r: KRewrite =>
+      val items = Iterator(r.left, r.right)
+      printProduction(out, production(mod, "#KRewrite", 2)) { () => print(out, items.next(), mod) }
+    case a: KApply =>
+      val items = a.klist.items.asScala.iterator
+      printProduction(out, production(mod, a.klabel.name, a.klist.size)) { () => print(out, items.next(), mod) }
+  }
+
+  /**
+   * Prints the first n items of a sequence, nested to the left as {@link #up} nests them.
+   */
+  private def printKSequence(out: Appendable, items: IndexedSeq[K], n: Int, mod: Module): Unit = {
+    if (n == 1) {
+      print(out, items.head, mod)
+    } else {
+      var first = true
+      printProduction(out, production(mod, "#KSequence", 2)) { () =>
+        if (first) {
+          first = false
+          printKSequence(out, items, n - 1, mod)
+        } else {
+          print(out, items(n - 1), mod)
+        }
+      }
+    }
+  }
+
+  private def production(mod: Module, label: String, arity: Int): Production =
+    mod.productionsFor(KLabel(label)).find(p => p.items.count(_.isInstanceOf[NonTerminal]) == arity).get
+
+  /**
+   * Prints the items of the given production separated by spaces, calling printNext for each of
+   * its non-terminals in turn.
+   */
+  private def printProduction(out: Appendable, p: Production)(printNext: () => Unit): Unit = {
+    var first = true
+    for (item <- p.items) {
+      if (!first) {
+        out.append(' ')
+      }
+      first = false
+      item match {
+        case Terminal(s, _) => out.append(s)
+        case NonTerminal(sort) => printNext()
+        case RegexTerminal(_, _, _) => throw new AssertionError("Unimplemented yet")
+      }
     }
   }
 }
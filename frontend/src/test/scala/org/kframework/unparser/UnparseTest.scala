@@ -61,6 +61,12 @@ class UnparseTest {
     Assert.assertEquals("`` `_+_`(.KList)=>b(.KList)``~>c(.KList)",ToKast(KRewrite(KLabel("_+_")(),'b())~>'c()))
   }
 
+  @Test def Appendable() {
+    val b = new java.io.StringWriter
+    ToKast(b, KRewrite('a(),'b())~>'c())
+    Assert.assertEquals("``a(.KList)=>b(.KList)``~>c(.KList)",b.toString)
+  }
+
   @Test def testKeywords(): Unit = {
     Assert.assertEquals("#a(.KList)~>`#klabel`(.KList)~>#klabel(test)~>`#token`(.KList)~>#token(\"1\",\"Int\")",
       ToKast(KSequence(KLabel("#a")(),
@@ -0,0 +1,105 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins;
+
+import org.kframework.backend.java.kil.KItem;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.TermContext;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Table of {@code public static} methods on builtin bytes.
+ */
+public class BuiltinBytesOperations {
+
+    public static BytesToken concat(BytesToken term1, BytesToken term2, TermContext context) {
+        return term1.concatenate(term2);
+    }
+
+    public static IntToken length(BytesToken term, TermContext context) {
+        return IntToken.of(term.length());
+    }
+
+    public static BytesToken substr(BytesToken term, IntToken start, IntToken end, TermContext context) {
+        try {
+            return term.slice(start.intValue(), end.intValue());
+        } catch (IndexOutOfBoundsException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    public static IntToken get(BytesToken term, IntToken index, TermContext context) {
+        try {
+            return IntToken.of(term.get(index.intValue()));
+        } catch (IndexOutOfBoundsException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    public static IntToken bytes2int(BytesToken term, Term endianness, Term signedness, TermContext context) {
+        String endiannessLabel = label(endianness);
+        String signednessLabel = label(signedness);
+        if (!isEndianness(endiannessLabel) || !isSignedness(signednessLabel)) {
+            return null;
+        }
+        return IntToken.of(term.bigIntegerValue(
+                endiannessLabel.equals(LITTLE_ENDIAN),
+                signednessLabel.equals(SIGNED)));
+    }
+
+    public static BytesToken int2bytes(IntToken length, IntToken value, Term endianness, TermContext context) {
+        String endiannessLabel = label(endianness);
+        if (!isEndianness(endiannessLabel) || length.bigIntegerValue().signum() < 0) {
+            return null;
+        }
+        try {
+            return BytesToken.of(value.bigIntegerValue(), length.intValue(), endiannessLabel.equals(LITTLE_ENDIAN));
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the string of the Latin-1 characters with the codes of the given bytes.
+     */
+    public static StringToken bytes2string(BytesToken term, TermContext context) {
+        return StringToken.of(term.latin1Value());
+    }
+
+    /**
+     * Returns the bytes of the given string of Latin-1 characters, or {@code null} if it contains
+     * other characters.
+     */
+    public static BytesToken string2bytes(StringToken term, TermContext context) {
+        String value = term.stringValue();
+        if (!StandardCharsets.ISO_8859_1.newEncoder().canEncode(value)) {
+            return null;
+        }
+        return BytesToken.of(value.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static final String LITTLE_ENDIAN = "littleEndianBytes";
+    private static final String BIG_ENDIAN = "bigEndianBytes";
+    private static final String SIGNED = "signedBytes";
+    private static final String UNSIGNED = "unsignedBytes";
+
+    private static boolean isEndianness(String label) {
+        return LITTLE_ENDIAN.equals(label) || BIG_ENDIAN.equals(label);
+    }
+
+    private static boolean isSignedness(String label) {
+        return SIGNED.equals(label) || UNSIGNED.equals(label);
+    }
+
+    /**
+     * Returns the label of the given constant, or {@code null} if it is not a constant.
+     */
+    private static String label(Term term) {
+        if (term instanceof KItem && ((KItem) term).kLabel() instanceof KLabelConstant) {
+            return ((KLabelConstant) ((KItem) term).kLabel()).label();
+        }
+        return null;
+    }
+
+}
@@ -115,6 +115,49 @@ public final class BuiltinCryptoOperations {
         }
     }
 
+    /**
+     * Finds the keccak256 digest of the input bytes.
+     */
+    public static BytesToken keccak256raw(BytesToken input, TermContext context) {
+        return BytesToken.of(new Keccak.Digest256().digest(input.toByteArray()));
+    }
+
+    /**
+     * Finds the SHA3 digest of the input bytes.
+     */
+    public static BytesToken sha3256raw(BytesToken input, TermContext context) {
+        return BytesToken.of(new SHA3.Digest256().digest(input.toByteArray()));
+    }
+
+    /**
+     * Finds the SHA256 digest of the input bytes.
+     */
+    public static BytesToken sha256raw(BytesToken input, TermContext context) {
+        return BytesToken.of(new SHA256.Digest().digest(input.toByteArray()));
+    }
+
+    /**
+     * Finds the RIPEMD160 digest of the input bytes.
+     */
+    public static BytesToken ripemd160raw(BytesToken input, TermContext context) {
+        return BytesToken.of(new RIPEMD160.Digest().digest(input.toByteArray()));
+    }
+
+    /**
+     * Recovers the ECDSA Public key from a message hash and signature, as {@link #ecdsaRecover} but
+     * on bytes.
+     * @return the 64 bytes of the public key, or no bytes if key recovery fails due to invalid input.
+     */
+    public static BytesToken ecdsaRecoverRaw(BytesToken messageHash, IntToken v, BytesToken r, BytesToken s, TermContext context) {
+        try {
+            byte vByte = v.bigIntegerValue().byteValueExact();
+            ECDSARecover key = ECDSARecover.signatureToKey(messageHash.toByteArray(), r.toByteArray(), s.toByteArray(), vByte);
+            return BytesToken.of(Arrays.copyOfRange(key.getPubKey(), 1, 65));
+        } catch (SignatureException | IllegalArgumentException | ArithmeticException e) {
+            return BytesToken.EMPTY;
+        }
+    }
+
     private static BigInteger getCoord(KItem kitem, int idx) {
         K item = kitem.items().get(idx);
         if (!(item instanceof IntToken)) {
@@ -1,6 +1,8 @@
 // Copyright (c) 2013-2016 K Team. All Rights Reserved.
 package org.kframework.backend.java.builtins;
 
+import org.kframework.backend.java.builtins.primitives.Longs;
+import org.kframework.backend.java.builtins.primitives.OverflowArithmeticResult;
 import org.kframework.backend.java.kil.TermContext;
 
 import java.math.BigInteger;
@@ -8,24 +10,51 @@ import java.util.Random;
 
 /**
  * Table of {@code public static} methods on builtin integers.
+ * <p>
+ * The operations on integers that fit in a {@code long} are computed without going through
+ * {@link BigInteger} unless they overflow.
  *
  * @author: AndreiS
  */
 public class BuiltinIntOperations {
 
     public static IntToken add(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            OverflowArithmeticResult<Long> result = Longs.checkedAdd(term1.longValue(), term2.longValue());
+            if (!result.overflow) {
+                return IntToken.of(result.value);
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().add(term2.bigIntegerValue()));
     }
 
     public static IntToken sub(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            OverflowArithmeticResult<Long> result = Longs.checkedSub(term1.longValue(), term2.longValue());
+            if (!result.overflow) {
+                return IntToken.of(result.value);
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().subtract(term2.bigIntegerValue()));
     }
 
     public static IntToken mul(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            OverflowArithmeticResult<Long> result = Longs.checkedMul(term1.longValue(), term2.longValue());
+            if (!result.overflow) {
+                return IntToken.of(result.value);
+            }
+        }
         return IntToken.of(term1.bigIntegerValue().multiply(term2.bigIntegerValue()));
     }
 
     public static IntToken div(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong() && term2.longValue() != 0) {
+            OverflowArithmeticResult<Long> result = Longs.checkedDiv(term1.longValue(), term2.longValue());
+            if (!result.overflow) {
+                return IntToken.of(result.value);
+            }
+        }
         try {
             return IntToken.of(term1.bigIntegerValue().divide(term2.bigIntegerValue()));
         } catch (ArithmeticException e) {
@@ -44,6 +73,9 @@ public class BuiltinIntOperations {
     }
 
     public static IntToken rem(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong() && term2.longValue() != 0) {
+            return IntToken.of(term1.longValue() % term2.longValue());
+        }
         try {
             return IntToken.of(term1.bigIntegerValue().remainder(term2.bigIntegerValue()));
         } catch (ArithmeticException e) {
@@ -52,6 +84,9 @@ public class BuiltinIntOperations {
     }
 
     public static IntToken mod(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong() && term2.longValue() > 0) {
+            return IntToken.of(Math.floorMod(term1.longValue(), term2.longValue()));
+        }
         return IntToken.of(term1.bigIntegerValue().mod(term2.bigIntegerValue()));
     }
 
@@ -68,59 +103,77 @@ public class BuiltinIntOperations {
     }
 
     public static IntToken shr(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong() && term2.longValue() >= 0) {
+            return IntToken.of(term1.longValue() >> Math.min(term2.longValue(), Long.SIZE - 1));
+        }
         return IntToken.of(term1.bigIntegerValue().shiftRight(term2.bigIntegerValue().intValue()));
     }
 
     public static IntToken not(IntToken term, TermContext context) {
+        if (term.isLong()) {
+            return IntToken.of(~term.longValue());
+        }
         return IntToken.of(term.bigIntegerValue().not());
     }
 
     public static IntToken and(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return IntToken.of(term1.longValue() & term2.longValue());
+        }
         return IntToken.of(term1.bigIntegerValue().and(term2.bigIntegerValue()));
     }
 
     public static IntToken or(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return IntToken.of(term1.longValue() | term2.longValue());
+        }
         return IntToken.of(term1.bigIntegerValue().or(term2.bigIntegerValue()));
     }
 
     public static IntToken xor(IntToken term1, IntToken term2, TermContext context) {
+        if (term1.isLong() && term2.isLong()) {
+            return IntToken.of(term1.longValue() ^ term2.longValue());
+        }
         return IntToken.of(term1.bigIntegerValue().xor(term2.bigIntegerValue()));
     }
 
     public static IntToken min(IntToken term1, IntToken term2, TermContext context) {
-        return IntToken.of(term1.bigIntegerValue().min(term2.bigIntegerValue()));
+        return term1.compareTo(term2) <= 0 ? term1 : term2;
     }
 
     public static IntToken max(IntToken term1, IntToken term2, TermContext context) {
-        return IntToken.of(term1.bigIntegerValue().max(term2.bigIntegerValue()));
+        return term1.compareTo(term2) >= 0 ? term1 : term2;
     }
 
     public static IntToken abs(IntToken term, TermContext context) {
+        if (term.isLong() && term.longValue() != Long.MIN_VALUE) {
+            return IntToken.of(Math.abs(term.longValue()));
+        }
         return IntToken.of(term.bigIntegerValue().abs());
     }
 
     public static BoolToken eq(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) == 0);
+        return BoolToken.of(term1.compareTo(term2) == 0);
     }
 
     public static BoolToken ne(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) != 0);
+        return BoolToken.of(term1.compareTo(term2) != 0);
     }
 
     public static BoolToken gt(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) > 0);
+        return BoolToken.of(term1.compareTo(term2) > 0);
     }
 
     public static BoolToken ge(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) >= 0);
+        return BoolToken.of(term1.compareTo(term2) >= 0);
     }
 
     public static BoolToken lt(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) < 0);
+        return BoolToken.of(term1.compareTo(term2) < 0);
     }
 
     public static BoolToken le(IntToken term1, IntToken term2, TermContext context) {
-        return BoolToken.of(term1.bigIntegerValue().compareTo(term2.bigIntegerValue()) <= 0);
+        return BoolToken.of(term1.compareTo(term2) <= 0);
     }
 
     private static final Random randomGenerator = new Random();
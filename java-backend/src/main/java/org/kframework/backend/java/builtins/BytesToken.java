@@ -0,0 +1,349 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins;
+
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.Token;
+import org.kframework.backend.java.symbolic.Transformer;
+import org.kframework.backend.java.symbolic.Visitor;
+import org.kframework.kil.ASTNode;
+import org.kframework.utils.StringUtil;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * An immutable sequence of bytes.
+ * <p>
+ * A bytes token is either a slice of a byte array, which slices of the token share without
+ * copying, or the concatenation of two shorter tokens (a rope), so that appending to a long
+ * token does not copy it. Ropes are kept height-balanced as AVL trees, so that indexing into them
+ * takes logarithmic time however they were built. Short concatenations are flattened into a
+ * single array.
+ */
+public final class BytesToken extends Token {
+
+    public static final Sort SORT = Sort.BYTES;
+
+    public static final BytesToken EMPTY = new BytesToken(new byte[0], 0, 0);
+
+    /**
+     * Concatenations shorter than this are copied into a single array.
+     */
+    private static final int MIN_ROPE_LENGTH = 64;
+
+    /* the slice bytes[offset, offset + length), or null for a concatenation */
+    private final byte[] bytes;
+    private final int offset;
+
+    /* the concatenation left ++ right, or null for a slice */
+    private final BytesToken left;
+    private final BytesToken right;
+
+    private final int length;
+    private final int height;
+
+    private BytesToken(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+        this.left = null;
+        this.right = null;
+        this.height = 0;
+    }
+
+    private BytesToken(BytesToken left, BytesToken right) {
+        this.bytes = null;
+        this.offset = 0;
+        this.length = left.length + right.length;
+        this.left = left;
+        this.right = right;
+        this.height = Math.max(left.height, right.height) + 1;
+    }
+
+    /**
+     * Returns a {@code BytesToken} holding a copy of the given bytes.
+     */
+    public static BytesToken of(byte[] value) {
+        return value.length == 0 ? EMPTY : new BytesToken(value.clone(), 0, value.length);
+    }
+
+    /**
+     * Returns a {@code BytesToken} holding the given bytes, which the caller must not modify.
+     */
+    private static BytesToken wrap(byte[] value) {
+        return value.length == 0 ? EMPTY : new BytesToken(value, 0, value.length);
+    }
+
+    /**
+     * Returns the {@code length}-byte two's complement representation of the given integer,
+     * truncated to its least significant bytes if it does not fit.
+     */
+    public static BytesToken of(BigInteger value, int length, boolean littleEndian) {
+        assert length >= 0;
+        byte[] signed = value.toByteArray();
+        byte[] result = new byte[length];
+        byte sign = value.signum() < 0 ? (byte) -1 : 0;
+        for (int i = 0; i < length; i++) {
+            int j = signed.length - 1 - i;
+            result[length - 1 - i] = j >= 0 ? signed[j] : sign;
+        }
+        if (littleEndian) {
+            reverse(result);
+        }
+        return wrap(result);
+    }
+
+    /**
+     * Returns the {@code BytesToken} represented by a literal of the form {@code b"..."}, where
+     * each (possibly escaped) character stands for one byte.
+     */
+    public static BytesToken parse(String literal) {
+        if (!literal.startsWith("b")) {
+            throw new IllegalArgumentException("Expected a bytes literal of the form b\"...\": " + literal);
+        }
+        String value = StringUtil.unquoteKString(literal.substring(1));
+        byte[] result = new byte[value.length()];
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c > 0xff) {
+                throw new IllegalArgumentException("Expected only bytes in bytes literal: " + literal);
+            }
+            result[i] = (byte) c;
+        }
+        return wrap(result);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Returns the height of the rope of this token, 0 for a slice.
+     */
+    int height() {
+        return height;
+    }
+
+    /**
+     * Returns the byte at the given index, as an unsigned value.
+     */
+    public int get(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        }
+        BytesToken token = this;
+        while (token.bytes == null) {
+            if (index < token.left.length) {
+                token = token.left;
+            } else {
+                index -= token.left.length;
+                token = token.right;
+            }
+        }
+        return token.bytes[token.offset + index] & 0xff;
+    }
+
+    /**
+     * Returns the bytes in {@code [start, end)}, sharing the storage of this token.
+     */
+    public BytesToken slice(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("[" + start + ", " + end + ") of " + length);
+        }
+        if (start == 0 && end == length) {
+            return this;
+        } else if (start == end) {
+            return EMPTY;
+        } else if (bytes != null) {
+            return new BytesToken(bytes, offset + start, end - start);
+        } else if (end <= left.length) {
+            return left.slice(start, end);
+        } else if (start >= left.length) {
+            return right.slice(start - left.length, end - left.length);
+        } else {
+            return left.slice(start, left.length).concatenate(right.slice(0, end - left.length));
+        }
+    }
+
+    /**
+     * Returns the concatenation of this token and the given token, rebalancing along the spine of
+     * the taller one.
+     */
+    public BytesToken concatenate(BytesToken other) {
+        if (other.length == 0) {
+            return this;
+        } else if (length == 0) {
+            return other;
+        } else if (length + other.length < MIN_ROPE_LENGTH) {
+            return wrap(new BytesToken(this, other).toByteArray());
+        } else if (height > other.height + 1) {
+            return balance(left, right.concatenate(other));
+        } else if (other.height > height + 1) {
+            return balance(concatenate(other.left), other.right);
+        } else {
+            return new BytesToken(this, other);
+        }
+    }
+
+    /**
+     * Returns the concatenation of two tokens whose heights differ by at most two.
+     */
+    private static BytesToken balance(BytesToken left, BytesToken right) {
+        if (left.height > right.height + 1) {
+            if (left.left.height >= left.right.height) {
+                return new BytesToken(left.left, new BytesToken(left.right, right));
+            } else {
+                BytesToken inner = left.right;
+                return new BytesToken(new BytesToken(left.left, inner.left), new BytesToken(inner.right, right));
+            }
+        } else if (right.height > left.height + 1) {
+            if (right.right.height >= right.left.height) {
+                return new BytesToken(new BytesToken(left, right.left), right.right);
+            } else {
+                BytesToken inner = right.left;
+                return new BytesToken(new BytesToken(left, inner.left), new BytesToken(inner.right, right.right));
+            }
+        } else {
+            return new BytesToken(left, right);
+        }
+    }
+
+    /**
+     * Returns a copy of the bytes of this token.
+     */
+    public byte[] toByteArray() {
+        byte[] result = new byte[length];
+        copyTo(result, 0);
+        return result;
+    }
+
+    private void copyTo(byte[] destination, int position) {
+        if (bytes != null) {
+            System.arraycopy(bytes, offset, destination, position, length);
+        } else {
+            left.copyTo(destination, position);
+            right.copyTo(destination, position + left.length);
+        }
+    }
+
+    /**
+     * Returns the integer represented by the bytes of this token, in two's complement if
+     * {@code signed} and as an unsigned number otherwise.
+     */
+    public BigInteger bigIntegerValue(boolean littleEndian, boolean signed) {
+        if (length == 0) {
+            return BigInteger.ZERO;
+        }
+        byte[] value = toByteArray();
+        if (littleEndian) {
+            reverse(value);
+        }
+        return signed ? new BigInteger(value) : new BigInteger(1, value);
+    }
+
+    /**
+     * Returns the string of the Latin-1 characters with the codes of the bytes of this token.
+     */
+    public String latin1Value() {
+        return new String(toByteArray(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static void reverse(byte[] array) {
+        for (int i = 0, j = array.length - 1; i < j; i++, j--) {
+            byte tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    @Override
+    public Sort sort() {
+        return SORT;
+    }
+
+    @Override
+    public String javaBackendValue() {
+        return "b" + StringUtil.enquoteKString(latin1Value());
+    }
+
+    /**
+     * Same as {@link Arrays#hashCode(byte[])} on the bytes of this token, computed on its slices
+     * without copying them; cached by {@link #hashCode()}.
+     */
+    @Override
+    protected int computeHash() {
+        return hash(1);
+    }
+
+    /* folds the bytes of this token into the given hash */
+    private int hash(int hash) {
+        if (bytes == null) {
+            return right.hash(left.hash(hash));
+        }
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof BytesToken)) {
+            return false;
+        }
+        BytesToken bytesToken = (BytesToken) object;
+        return length == bytesToken.length
+                && hashCode() == bytesToken.hashCode()
+                && bytesToken.regionMatches(0, this);
+    }
+
+    /**
+     * Returns whether the bytes of this token from the given position on start with the bytes of
+     * the given token, comparing their slices without copying them.
+     */
+    private boolean regionMatches(int position, BytesToken other) {
+        if (other.bytes == null) {
+            return regionMatches(position, other.left)
+                    && regionMatches(position + other.left.length, other.right);
+        }
+        return regionMatches(position, other.bytes, other.offset, other.length);
+    }
+
+    /**
+     * Returns whether the bytes of this token from the given position on start with the bytes of
+     * {@code array[from, from + length)}.
+     */
+    private boolean regionMatches(int position, byte[] array, int from, int length) {
+        if (bytes != null) {
+            for (int i = 0; i < length; i++) {
+                if (bytes[offset + position + i] != array[from + i]) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (position + length <= left.length) {
+            return left.regionMatches(position, array, from, length);
+        } else if (position >= left.length) {
+            return right.regionMatches(position - left.length, array, from, length);
+        } else {
+            int leftLength = left.length - position;
+            return left.regionMatches(position, array, from, leftLength)
+                    && right.regionMatches(0, array, from + leftLength, length - leftLength);
+        }
+    }
+
+    @Override
+    public ASTNode accept(Transformer transformer) {
+        return transformer.transform((Token) this);
+    }
+
+    @Override
+    public void accept(Visitor visitor) {
+        visitor.visit((Token) this);
+    }
+
+}
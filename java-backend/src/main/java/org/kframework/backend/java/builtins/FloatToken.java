@@ -1,6 +1,7 @@
 // Copyright (c) 2014-2016 K Team. All Rights Reserved.
 package org.kframework.backend.java.builtins;
 
+import com.google.common.collect.MapMaker;
 import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.backend.java.kil.Sort;
 import org.kframework.backend.java.kil.Token;
@@ -19,7 +20,7 @@ public class FloatToken extends Token {
 
     public static final Sort SORT = Sort.FLOAT;
 
-    /* Token cache */
+    /* Token cache; weak values, so that the tokens which are no longer used can be collected */
     private static final Map<Integer, Map<BigFloat, FloatToken>> cache = new ConcurrentHashMap<>();
 
     private final BigFloat value;
@@ -37,7 +38,7 @@ public class FloatToken extends Token {
      * and {@code int} exponent return the same {@code FloatToken} object).
      */
     public static FloatToken of(BigFloat value, int exponent) {
-        Map<BigFloat, FloatToken> exponentCache = cache.computeIfAbsent(exponent, ConcurrentHashMap::new);
+        Map<BigFloat, FloatToken> exponentCache = cache.computeIfAbsent(exponent, e -> new MapMaker().weakValues().makeMap());
         return exponentCache.computeIfAbsent(value, v -> new FloatToken(v, exponent));
     }
 
@@ -46,6 +47,14 @@ public class FloatToken extends Token {
         return of(pair.getLeft(), pair.getRight());
     }
 
+    /**
+     * Returns the number of cached {@code FloatToken}s (including the ones not yet removed after
+     * being collected).
+     */
+    public static int cacheSize() {
+        return cache.values().stream().mapToInt(Map::size).sum();
+    }
+
     /**
      * Returns a {@link BigFloat} representation of the (interpreted) javaBackendValue of this FloatToken.
      */
@@ -131,7 +140,7 @@ public class FloatToken extends Token {
      * instance.
      */
     private Object readResolve() {
-        Map<BigFloat, FloatToken> exponentCache = cache.computeIfAbsent(exponent, ConcurrentHashMap::new);
+        Map<BigFloat, FloatToken> exponentCache = cache.computeIfAbsent(exponent, e -> new MapMaker().weakValues().makeMap());
         return exponentCache.computeIfAbsent(value, v -> this);
     }
 
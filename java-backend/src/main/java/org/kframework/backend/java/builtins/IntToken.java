@@ -6,8 +6,11 @@ import org.kframework.backend.java.kil.Token;
 import org.kframework.backend.java.symbolic.Transformer;
 import org.kframework.backend.java.symbolic.Visitor;
 import org.kframework.kil.ASTNode;
+import org.kframework.krun.KRunOptions;
+import org.kframework.utils.errorsystem.KEMException;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 
 /**
@@ -19,25 +22,85 @@ public final class IntToken extends Token {
 
     public static final Sort SORT = Sort.INT;
 
-    /* BigInteger javaBackendValue wrapped by this IntToken */
-    private final BigInteger value;
+    /**
+     * Default upper bound (exclusive) of the range of preallocated {@code IntToken}s.
+     */
+    public static final int DEFAULT_CACHE_HIGH = KRunOptions.Experimental.DEFAULT_INT_CACHE_LIMIT;
+
+    /**
+     * Lower bound (inclusive) of the range of preallocated {@code IntToken}s.
+     */
+    private static final int CACHE_LOW = -128;
+
+    /* preallocated IntTokens for the values in [CACHE_LOW, CACHE_LOW + cache.length) */
+    private static volatile IntToken[] cache = newCache(DEFAULT_CACHE_HIGH);
+
+    /* javaBackendValue of this IntToken if it fits in a long */
+    private final long smallValue;
+
+    /* javaBackendValue of this IntToken if it does not fit in a long, or null otherwise */
+    private final BigInteger bigValue;
+
+    private IntToken(long value) {
+        this.smallValue = value;
+        this.bigValue = null;
+    }
 
     private IntToken(BigInteger value) {
-        this.value = value;
+        this.smallValue = 0;
+        this.bigValue = value;
+    }
+
+    private static IntToken[] newCache(int high) {
+        return growCache(new IntToken[0], high);
+    }
+
+    /* returns a cache up to the given high bound which shares the IntTokens of the given cache */
+    private static IntToken[] growCache(IntToken[] cache, int high) {
+        IntToken[] result = Arrays.copyOf(cache, high - CACHE_LOW);
+        for (int i = cache.length; i < result.length; i++) {
+            result[i] = new IntToken(CACHE_LOW + i);
+        }
+        return result;
+    }
+
+    /**
+     * Preallocates the {@code IntToken}s of the values in {@code [-128, high)}, which
+     * {@link #of(long)} and {@link #of(BigInteger)} then return instead of allocating new ones.
+     * <p>
+     * The cache is shared by all the runs of the process, which may ask for different limits
+     * when run by the K server, so it only ever grows: it covers the largest limit requested so
+     * far, and the {@code IntToken}s it already holds stay shared.
+     *
+     * @param high between 0 and {@link KRunOptions.Experimental#MAX_INT_CACHE_LIMIT}
+     */
+    public static synchronized void ensureCacheHigh(int high) {
+        if (high < 0 || high > KRunOptions.Experimental.MAX_INT_CACHE_LIMIT) {
+            throw KEMException.criticalError("The limit of the integer token cache should be between 0 and "
+                    + KRunOptions.Experimental.MAX_INT_CACHE_LIMIT + " (found " + high + ")");
+        }
+        if (cache.length < high - CACHE_LOW) {
+            cache = growCache(cache, high);
+        }
     }
 
     /**
-     * Returns a {@code IntToken} representation of the given {@link BigInteger} javaBackendValue. The
-     * {@code IntToken} instances are cached to ensure uniqueness (subsequent invocations of this
-     * method with the same {@code BigInteger} javaBackendValue return the same {@code IntToken} object).
+     * Returns a {@code IntToken} representation of the given {@link BigInteger} javaBackendValue.
+     * Values that fit in a {@code long} are stored unboxed, and values in the preallocated range
+     * (see {@link #ensureCacheHigh}) are shared.
      */
     public static IntToken of(BigInteger value) {
         assert value != null;
-        return new IntToken(value);
+        return value.bitLength() < Long.SIZE ? of(value.longValue()) : new IntToken(value);
     }
 
     public static IntToken of(long value) {
-        return of(BigInteger.valueOf(value));
+        IntToken[] cache = IntToken.cache;
+        long index = value - CACHE_LOW;
+        if (index >= 0 && index < cache.length) {
+            return cache[(int) index];
+        }
+        return new IntToken(value);
     }
 
     public static IntToken of(String value) {
@@ -58,7 +121,14 @@ public final class IntToken extends Token {
      * Returns a {@link BigInteger} representation of the (interpreted) javaBackendValue of this IntToken.
      */
     public BigInteger bigIntegerValue() {
-        return value;
+        return bigValue != null ? bigValue : BigInteger.valueOf(smallValue);
+    }
+
+    /**
+     * Returns true if the (interpreted) javaBackendValue of this IntToken fits in a {@code long}.
+     */
+    public boolean isLong() {
+        return bigValue == null;
     }
 
     /**
@@ -67,13 +137,13 @@ public final class IntToken extends Token {
      * @throws ArithmeticException Integer does not fit in an int.
      */
     public int intValue() {
-        if (value.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) > 0) {
+        if (bigValue != null ? bigValue.signum() > 0 : smallValue > Integer.MAX_VALUE) {
             throw new ArithmeticException("IntToken too large for Int");
         }
-        if (value.compareTo(BigInteger.valueOf(Integer.MIN_VALUE)) < 0) {
+        if (bigValue != null || smallValue < Integer.MIN_VALUE) {
             throw new ArithmeticException("IntToken too low for Int");
         }
-        return (int)value.longValue();
+        return (int) smallValue;
     }
 
     /**
@@ -82,13 +152,10 @@ public final class IntToken extends Token {
      * @throws ArithmeticException Integer does not fit in a long.
      */
     public long longValue() {
-        if (value.compareTo(BigInteger.valueOf(Long.MAX_VALUE)) > 0) {
-            throw new ArithmeticException("IntToken too large for Long");
+        if (bigValue != null) {
+            throw new ArithmeticException(bigValue.signum() > 0 ? "IntToken too large for Long" : "IntToken too low for Long");
         }
-        if (value.compareTo(BigInteger.valueOf(Long.MIN_VALUE)) < 0) {
-            throw new ArithmeticException("IntToken too low for Long");
-        }
-        return value.longValue();
+        return smallValue;
     }
 
     /**
@@ -97,13 +164,23 @@ public final class IntToken extends Token {
      * @throws ArithmeticException Integer is not in the range of an unsigned byte.
      */
     public byte unsignedByteValue() {
-        if (value.compareTo(BigInteger.valueOf(255)) > 0) {
+        if (bigValue != null ? bigValue.signum() > 0 : smallValue > 255) {
             throw new ArithmeticException("IntToken too large for byte");
         }
-        if (value.compareTo(BigInteger.valueOf(0)) < 0) {
+        if (bigValue != null || smallValue < 0) {
             throw new ArithmeticException("IntToken too low for byte");
         }
-        return (byte)value.longValue();
+        return (byte) smallValue;
+    }
+
+    /**
+     * Compares the (interpreted) javaBackendValues of this IntToken and the given one.
+     */
+    public int compareTo(IntToken other) {
+        if (bigValue == null && other.bigValue == null) {
+            return Long.compare(smallValue, other.smallValue);
+        }
+        return bigIntegerValue().compareTo(other.bigIntegerValue());
     }
 
     @Override
@@ -116,12 +193,12 @@ public final class IntToken extends Token {
      */
     @Override
     public String javaBackendValue() {
-        return value.toString();
+        return bigValue != null ? bigValue.toString() : Long.toString(smallValue);
     }
 
     @Override
     protected int computeHash() {
-        return value.hashCode();
+        return bigValue != null ? bigValue.hashCode() : Long.hashCode(smallValue);
     }
 
     @Override
@@ -131,7 +208,8 @@ public final class IntToken extends Token {
 
         IntToken intToken = (IntToken) o;
 
-        return value.equals(intToken.value);
+        /* values that fit in a long are never stored as a BigInteger */
+        return bigValue != null ? bigValue.equals(intToken.bigValue) : intToken.bigValue == null && smallValue == intToken.smallValue;
 
     }
 
@@ -1,6 +1,7 @@
 // Copyright (c) 2013-2016 K Team. All Rights Reserved.
 package org.kframework.backend.java.builtins;
 
+import com.google.common.collect.MapMaker;
 import org.kframework.backend.java.kil.Sort;
 import org.kframework.backend.java.kil.Token;
 import org.kframework.backend.java.symbolic.Transformer;
@@ -15,7 +16,6 @@ import java.nio.charset.CharacterCodingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CodingErrorAction;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A string token. String tokens represent a sequence of unicode code points.
@@ -28,8 +28,8 @@ public final class StringToken extends Token {
 
     public static final Sort SORT = Sort.STRING;
 
-    /* StringToken cache */
-    private static final Map<String, StringToken> cache = new ConcurrentHashMap<>();
+    /* StringToken cache; weak values, so that the tokens which are no longer used can be collected */
+    private static final Map<String, StringToken> cache = new MapMaker().weakValues().makeMap();
 
     /* String javaBackendValue wrapped by this StringToken */
     private final String value;
@@ -91,6 +91,14 @@ public final class StringToken extends Token {
         return SORT;
     }
 
+    /**
+     * Returns the number of cached {@code StringToken}s (including the ones not yet removed after
+     * being collected).
+     */
+    public static int cacheSize() {
+        return cache.size();
+    }
+
     /**
      * Returns a {@code String} representation of the uninterpreted textual
      * javaBackendValue of this StringToken.
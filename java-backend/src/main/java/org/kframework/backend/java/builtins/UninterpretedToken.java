@@ -1,6 +1,7 @@
 // Copyright (c) 2013-2016 K Team. All Rights Reserved.
 package org.kframework.backend.java.builtins;
 
+import com.google.common.collect.MapMaker;
 import org.kframework.backend.java.kil.Sort;
 import org.kframework.backend.java.kil.Token;
 import org.kframework.backend.java.symbolic.Transformer;
@@ -20,7 +21,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public final class UninterpretedToken extends Token {
 
-    /* Token cache */
+    /* Token cache; weak values, so that the tokens which are no longer used can be collected */
     private static final Map<Sort, Map<String, UninterpretedToken>> cache = new ConcurrentHashMap<>();
 
     private final Sort sort;
@@ -37,7 +38,7 @@ public final class UninterpretedToken extends Token {
      * this method with the same sort and javaBackendValue return the same {@code UninterpretedToken} object).
      */
     public static UninterpretedToken of(Sort sort, String value) {
-        Map<String, UninterpretedToken> sortCache = cache.computeIfAbsent(sort, p -> new ConcurrentHashMap<>());
+        Map<String, UninterpretedToken> sortCache = cache.computeIfAbsent(sort, p -> new MapMaker().weakValues().makeMap());
         return sortCache.computeIfAbsent(value, v -> new UninterpretedToken(sort, v));
     }
 
@@ -46,6 +47,14 @@ public final class UninterpretedToken extends Token {
         return sort;
     }
 
+    /**
+     * Returns the number of cached {@code UninterpretedToken}s (including the ones not yet removed
+     * after being collected).
+     */
+    public static int cacheSize() {
+        return cache.values().stream().mapToInt(Map::size).sum();
+    }
+
     /**
      * Returns a {@code String} representation of the javaBackendValue of this UninterpretedToken.
      */
@@ -83,7 +92,7 @@ public final class UninterpretedToken extends Token {
      * instance.
      */
     private Object readResolve() {
-        Map<String, UninterpretedToken> sortCache = cache.computeIfAbsent(sort, p -> new ConcurrentHashMap<>());
+        Map<String, UninterpretedToken> sortCache = cache.computeIfAbsent(sort, p -> new MapMaker().weakValues().makeMap());
         return sortCache.computeIfAbsent(value, v -> this);
     }
 
@@ -0,0 +1,37 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins.primitives;
+
+/**
+ * Overflow-checked arithmetic on {@code long} values.
+ */
+public final class Longs {
+
+    private Longs() { }
+
+    public static OverflowArithmeticResult<Long> checkedAdd(long a, long b) {
+        long result = a + b;
+        /* overflow iff both operands have the sign opposite to that of the result */
+        return new OverflowArithmeticResult<>(result, ((a ^ result) & (b ^ result)) < 0);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedSub(long a, long b) {
+        long result = a - b;
+        /* overflow iff the operands have different signs and the result has the sign of b */
+        return new OverflowArithmeticResult<>(result, ((a ^ b) & (a ^ result)) < 0);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedMul(long a, long b) {
+        long result = a * b;
+        boolean overflow = false;
+        /* the product of two values whose absolute values fit in 31 bits never overflows */
+        if (((Math.abs(a) | Math.abs(b)) >>> 31) != 0) {
+            overflow = (b != 0 && result / b != a) || (a == Long.MIN_VALUE && b == -1);
+        }
+        return new OverflowArithmeticResult<>(result, overflow);
+    }
+
+    public static OverflowArithmeticResult<Long> checkedDiv(long a, long b) {
+        return new OverflowArithmeticResult<>(a / b, a == Long.MIN_VALUE && b == -1);
+    }
+
+}
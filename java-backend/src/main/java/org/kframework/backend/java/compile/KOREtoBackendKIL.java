@@ -87,7 +87,8 @@ public class KOREtoBackendKIL extends org.kframework.frontend.AbstractConstructo
 
     @Override
     public Token KToken(String s, org.kframework.frontend.Sort sort, Att att) {
-        return !sort.name().equals("KBoolean") ? Token.of(Sort(sort.name()), s) : Token.of(Sort("Bool"), s);
+        Token token = !sort.name().equals("KBoolean") ? Token.of(Sort(sort.name()), s) : Token.of(Sort("Bool"), s);
+        return global.termInterner != null ? global.termInterner.intern(token) : token;
     }
 
     @Override
@@ -5,35 +5,43 @@ import com.google.common.collect.ImmutableList;
 import org.kframework.backend.java.symbolic.Transformer;
 import org.kframework.backend.java.symbolic.Visitor;
 import org.kframework.backend.java.util.Constants;
+import org.kframework.backend.java.util.RopeVector;
 import org.kframework.builtin.KLabels;
 import org.kframework.kil.ASTNode;
 import org.kframework.utils.BitSet;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 
 /**
  * Class representing an associative list.
+ * <p>
+ * The children are kept in a persistent {@link RopeVector}, so that appending, prepending,
+ * updating a position and taking a range of the list share structure with the original list.
  */
 public class BuiltinList extends Collection implements CollectionInternalRepresentation, HasGlobalContext {
 
     /**
      * Flattened list of children.
      */
-    public final ImmutableList<Term> children;
+    public final RopeVector<Term> children;
     public final Sort sort;
     public final KLabelConstant operatorKLabel;
     public final KLabelConstant unitKLabel;
     private final GlobalContext global;
 
-    private final ElementTailSplit elementTailSplits[];
+    /**
+     * Lazily allocated cache of {@link #splitElementTail} results; only list patterns need it.
+     */
+    private transient ElementTailSplit elementTailSplits[];
 
     /**
      * Private constructor used by {@link BuiltinList.Builder}.
      */
     private BuiltinList(
-            ImmutableList<Term> children,
+            RopeVector<Term> children,
             Sort sort,
             KLabelConstant operatorKLabel,
             KLabelConstant unitKLabel,
@@ -44,8 +52,6 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
         this.operatorKLabel = operatorKLabel;
         this.unitKLabel = unitKLabel;
         this.global = global;
-
-        elementTailSplits = new ElementTailSplit[children.size()];
     }
 
     /**
@@ -77,12 +83,16 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
      * Returns the element component and the tail component of the list child on position index.
      */
     public ElementTailSplit splitElementTail(int index, int bitSetLength) {
+        if (elementTailSplits == null) {
+            elementTailSplits = new ElementTailSplit[children.size()];
+        }
         if (elementTailSplits[index] == null) {
             BitSet emptyListMask = BitSet.apply(bitSetLength);
             emptyListMask.makeOnes(bitSetLength);
-            for (int i = index + 1; i < children.size(); i++) {
-                if (children.get(i) instanceof RuleAutomatonDisjunction) {
-                    emptyListMask.and(((RuleAutomatonDisjunction) children.get(i)).assocDisjunctionArray[sort.ordinal()].stream()
+            for (Iterator<Term> iterator = children.iterator(index + 1); iterator.hasNext(); ) {
+                Term child = iterator.next();
+                if (child instanceof RuleAutomatonDisjunction) {
+                    emptyListMask.and(((RuleAutomatonDisjunction) child).assocDisjunctionArray[sort.ordinal()].stream()
                             .filter(p -> p.getLeft().isEmpty())
                             .map(p -> p.getRight())
                             .findAny().orElseGet(() -> BitSet.apply(bitSetLength)));
@@ -163,9 +173,24 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
         return term instanceof Variable && (term.sort().equals(sort) || term.sort().equals(Sort.KSEQUENCE));
     }
 
+    /**
+     * Returns the sublist between the given positions; the children are shared, not copied.
+     */
     public Term range(int beginIndex, int endIndex) {
         return BuiltinList.builder(sort, operatorKLabel, unitKLabel, global)
-                .addAll(children.subList(beginIndex, endIndex))
+                .concatenate(children.subList(beginIndex, endIndex))
+                .build();
+    }
+
+    /**
+     * Returns the list obtained by replacing the child on the given position with the given term.
+     * If the term is a list of the same sort, its children are spliced in.
+     */
+    public Term with(int index, Term term) {
+        return BuiltinList.builder(sort, operatorKLabel, unitKLabel, global)
+                .concatenate(children.subList(0, index))
+                .add(term)
+                .concatenate(children.subList(index + 1, children.size()))
                 .build();
     }
 
@@ -289,7 +314,7 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
 
     public static class Builder {
 
-        private final ImmutableList.Builder<Term> childrenBuilder = new ImmutableList.Builder<>();
+        private RopeVector<Term> children = RopeVector.empty();
         private final Sort sort;
         private final KLabelConstant operatorKLabel;
         private final KLabelConstant unitKLabel;
@@ -306,15 +331,24 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
             if (term instanceof BuiltinList && sort.equals(term.sort())
                     && operatorKLabel.equals(((BuiltinList) term).operatorKLabel)
                     && unitKLabel.equals(((BuiltinList) term).unitKLabel)) {
-                return addAll(((BuiltinList) term).children);
+                return concatenate(((BuiltinList) term).children);
             } else {
                 //assert global.getDefinition().subsorts().isSubsortedEq(sort, term.sort()) :
                 //        "unexpected term: " + term + " of sort " + term.sort() + " added to list of sort " + sort;
-                childrenBuilder.add(term);
+                children = children.plus(term);
                 return this;
             }
         }
 
+        /**
+         * Appends children that are already flattened, i.e., the children of a list of the same sort,
+         * without copying them.
+         */
+        private Builder concatenate(RopeVector<Term> flattenedChildren) {
+            children = children.concat(flattenedChildren);
+            return this;
+        }
+
         public Builder addAll(List<Term> terms) {
             terms.forEach(this::add);
             return this;
@@ -329,7 +363,7 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
 
         public Term build() {
             BuiltinList builtinList = new BuiltinList(
-                    childrenBuilder.build(),
+                    children,
                     sort,
                     operatorKLabel,
                     unitKLabel,
@@ -353,7 +387,7 @@ public class BuiltinList extends Collection implements CollectionInternalReprese
      */
     public static class SingletonBuiltinList extends BuiltinList {
         private SingletonBuiltinList(Term child, GlobalContext global, Sort sort, KLabelConstant operatorKLabel, KLabelConstant unitKLabel) {
-            super(ImmutableList.of(child), sort, operatorKLabel, unitKLabel, global);
+            super(RopeVector.singleton(child), sort, operatorKLabel, unitKLabel, global);
         }
     }
 
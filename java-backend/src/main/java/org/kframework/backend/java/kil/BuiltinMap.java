@@ -9,6 +9,12 @@ import org.kframework.kil.ASTNode;
 import org.kframework.kil.DataStructureSort;
 import org.kframework.utils.errorsystem.KEMException;
 
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -16,33 +22,44 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import org.apache.commons.collections4.map.UnmodifiableMap;
-
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Lists;
+import org.pcollections.HashPMap;
+import org.pcollections.HashTreePMap;
 
 
 /**
  * Class representing a map.
+ * <p>
+ * The concrete entries are kept in a persistent hash map, so that a single-key update or
+ * removal shares structure with the original map and costs O(log n) instead of a full copy.
+ * The hash code of the entries is maintained incrementally alongside.
  *
  * @author AndreiS
  */
 public class BuiltinMap extends AssociativeCommutativeCollection {
 
-    private final UnmodifiableMap<Term, Term> entries;
+    private final HashPMap<Term, Term> entries;
+
+    /**
+     * Sum of the hash codes of all entries, as specified by {@link Map#hashCode()}.
+     */
+    private final int entriesHashCode;
 
     /**
      * Private efficient constructor used by {@link BuiltinMap.Builder}.
      */
     private BuiltinMap(
-            UnmodifiableMap<Term, Term> entries,
+            HashPMap<Term, Term> entries,
+            int entriesHashCode,
             ImmutableMultiset<KItem> collectionPatterns,
             ImmutableMultiset<Term> collectionFunctions,
             ImmutableMultiset<Variable> collectionVariables,
             GlobalContext global) {
         super(collectionPatterns, collectionFunctions, collectionVariables, global);
         this.entries = entries;
+        this.entriesHashCode = entriesHashCode;
     }
 
     public static Term concatenate(GlobalContext global, Term... maps) {
@@ -66,7 +83,7 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         return entries.get(key);
     }
 
-    public UnmodifiableMap<Term, Term> getEntries() {
+    public Map<Term, Term> getEntries() {
         return entries;
     }
 
@@ -100,7 +117,8 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         }
 
         BuiltinMap map = (BuiltinMap) object;
-        return entries.equals(map.entries)
+        return entriesHashCode == map.entriesHashCode
+                && entries.equals(map.entries)
                 && collectionPatterns.equals(map.collectionPatterns)
                 && collectionFunctions.equals(map.collectionFunctions)
                 && collectionVariables.equals(map.collectionVariables);
@@ -109,7 +127,7 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
     @Override
     protected int computeHash() {
         int hashCode = 1;
-        hashCode = hashCode * Constants.HASH_PRIME + entries.hashCode();
+        hashCode = hashCode * Constants.HASH_PRIME + entriesHashCode;
         hashCode = hashCode * Constants.HASH_PRIME + collectionPatterns.hashCode();
         hashCode = hashCode * Constants.HASH_PRIME + collectionFunctions.hashCode();
         hashCode = hashCode * Constants.HASH_PRIME + collectionVariables.hashCode();
@@ -169,9 +187,45 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         return new Builder(global);
     }
 
+    private static int entryHashCode(Term key, Term value) {
+        return key.hashCode() ^ value.hashCode();
+    }
+
+    private static int entriesHashCode(Map<Term, Term> entries) {
+        int hashCode = 0;
+        for (Map.Entry<Term, Term> entry : entries.entrySet()) {
+            hashCode += entryHashCode(entry.getKey(), entry.getValue());
+        }
+        return hashCode;
+    }
+
+    private void writeObject(final ObjectOutputStream out) throws IOException {
+        out.writeObject(new HashMap<>(entries));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(final ObjectInputStream in) throws IOException, ClassNotFoundException {
+        try {
+            Map<Term, Term> map = (Map<Term, Term>) in.readObject();
+            Field entriesField = BuiltinMap.class.getDeclaredField("entries");
+            entriesField.setAccessible(true);
+            entriesField.set(this, HashTreePMap.from(map));
+            Field entriesHashCodeField = BuiltinMap.class.getDeclaredField("entriesHashCode");
+            entriesHashCodeField.setAccessible(true);
+            entriesHashCodeField.setInt(this, entriesHashCode(map));
+        } catch (IllegalAccessException | NoSuchFieldException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private void readObjectNoData() throws ObjectStreamException {
+        throw new InvalidObjectException("Stream data required");
+    }
+
     public static class Builder {
 
-        private final Map<Term, Term> entries = new HashMap<>();
+        private HashPMap<Term, Term> entries = HashTreePMap.empty();
+        private int entriesHashCode = 0;
         private final ImmutableMultiset.Builder<KItem> patternsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Term> functionsBuilder = new ImmutableMultiset.Builder<>();
         private final ImmutableMultiset.Builder<Variable> variablesBuilder = new ImmutableMultiset.Builder<>();
@@ -182,7 +236,12 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         }
 
         public void put(Term key, Term value) {
-            entries.put(key, value);
+            Term oldValue = entries.get(key);
+            if (oldValue != null) {
+                entriesHashCode -= entryHashCode(key, oldValue);
+            }
+            entries = entries.plus(key, value);
+            entriesHashCode += entryHashCode(key, value);
         }
 
         /**
@@ -190,15 +249,22 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
          * built.
          */
         public void putAll(Map<? extends Term, ? extends Term> map) {
-            entries.putAll(map);
+            for (Map.Entry<? extends Term, ? extends Term> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
         }
 
         public Term remove(Term key) {
-            return entries.remove(key);
+            Term oldValue = entries.get(key);
+            if (oldValue != null) {
+                entries = entries.minus(key);
+                entriesHashCode -= entryHashCode(key, oldValue);
+            }
+            return oldValue;
         }
 
         public Map<Term, Term> getEntries() {
-            return UnmodifiableMap.unmodifiableMap(entries);
+            return entries;
         }
 
         private void concatenate(Term term, boolean update) {
@@ -211,13 +277,16 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
             if (term instanceof BuiltinMap) {
                 BuiltinMap map = (BuiltinMap) term;
 
-                if (!update && entries.keySet().stream().anyMatch(key -> map.entries.containsKey(key) && !entries.get(key).equals(map.entries.get(key)))) {
-                    List<Triple<Term, Term, Term>> clashingKeys = entries.keySet().stream().filter(map.entries::containsKey).map(k -> Triple.of(k, entries.get(k), map.entries.get(k))).collect(Collectors.toList());
-                    throw KEMException.criticalError("failed to concatenate maps with common keys: "
-                            + clashingKeys);
+                if (entries.isEmpty()) {
+                    /* share the persistent entries of the concatenated map instead of copying them */
+                    entries = map.entries;
+                    entriesHashCode = map.entriesHashCode;
+                } else if (update) {
+                    updateEntries(map);
+                } else {
+                    concatenateEntries(map);
                 }
 
-                entries.putAll(map.entries);
                 patternsBuilder.addAll(map.collectionPatterns);
                 functionsBuilder.addAll(map.collectionFunctions);
                 variablesBuilder.addAll(map.collectionVariables);
@@ -232,6 +301,52 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
             }
         }
 
+        /**
+         * Overrides the entries of this builder with the entries of the given map. The smaller of
+         * the two maps is inserted into the larger one.
+         */
+        private void updateEntries(BuiltinMap map) {
+            if (map.entries.size() <= entries.size()) {
+                putAll(map.entries);
+            } else {
+                HashPMap<Term, Term> updatedEntries = map.entries;
+                int updatedEntriesHashCode = map.entriesHashCode;
+                for (Map.Entry<Term, Term> entry : entries.entrySet()) {
+                    if (!updatedEntries.containsKey(entry.getKey())) {
+                        updatedEntries = updatedEntries.plus(entry.getKey(), entry.getValue());
+                        updatedEntriesHashCode += entryHashCode(entry.getKey(), entry.getValue());
+                    }
+                }
+                entries = updatedEntries;
+                entriesHashCode = updatedEntriesHashCode;
+            }
+        }
+
+        /**
+         * Merges the entries of the given map into this builder, failing on keys bound to
+         * different values. The smaller of the two maps is inserted into the larger one.
+         */
+        private void concatenateEntries(BuiltinMap map) {
+            HashPMap<Term, Term> smaller = map.entries.size() <= entries.size() ? map.entries : entries;
+            HashPMap<Term, Term> larger = smaller == entries ? map.entries : entries;
+            int largerHashCode = larger == entries ? entriesHashCode : map.entriesHashCode;
+
+            if (smaller.entrySet().stream().anyMatch(e -> larger.containsKey(e.getKey()) && !larger.get(e.getKey()).equals(e.getValue()))) {
+                List<Triple<Term, Term, Term>> clashingKeys = entries.keySet().stream().filter(map.entries::containsKey).map(k -> Triple.of(k, entries.get(k), map.entries.get(k))).collect(Collectors.toList());
+                throw KEMException.criticalError("failed to concatenate maps with common keys: "
+                        + clashingKeys);
+            }
+
+            entries = larger;
+            entriesHashCode = largerHashCode;
+            for (Map.Entry<Term, Term> entry : smaller.entrySet()) {
+                if (!larger.containsKey(entry.getKey())) {
+                    entries = entries.plus(entry.getKey(), entry.getValue());
+                    entriesHashCode += entryHashCode(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
         /**
          * Concatenates terms of sort Map to this builder.
          */
@@ -260,12 +375,9 @@ public class BuiltinMap extends AssociativeCommutativeCollection {
         }
 
         public Term build() {
-            // YilongL: Guava's ImmutableMap.copyOf(entries) is not smart enough
-            // to avoid actually copying the entries, because entries is not an
-            // ImmutableMap yet; using Apache's decorate method because it would
-            // avoid creating nesting wrappers
             BuiltinMap builtinMap = new BuiltinMap(
-                    (UnmodifiableMap<Term, Term>) UnmodifiableMap.unmodifiableMap(entries),
+                    entries,
+                    entriesHashCode,
                     patternsBuilder.build(),
                     functionsBuilder.build(),
                     variablesBuilder.build(),
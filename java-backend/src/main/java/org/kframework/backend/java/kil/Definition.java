@@ -12,6 +12,9 @@ import com.google.common.collect.SetMultimap;
 import org.kframework.attributes.Att;
 import org.kframework.backend.java.MiniKoreUtils;
 import org.kframework.backend.java.compile.KOREtoBackendKIL;
+import org.kframework.backend.java.symbolic.BuiltinFunction;
+import org.kframework.backend.java.symbolic.BuiltinFunctionTables;
+import org.kframework.backend.java.symbolic.Stage;
 import org.kframework.backend.java.symbolic.Transformer;
 import org.kframework.backend.java.symbolic.Visitor;
 import org.kframework.backend.java.util.Subsorts;
@@ -29,6 +32,7 @@ import scala.collection.JavaConversions;
 import scala.collection.JavaConverters;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,6 +42,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.kframework.Collections.*;
@@ -79,6 +84,7 @@ public class Definition extends JavaSymbolicObject {
     private final List<Rule> rules = Lists.newArrayList();
     private final List<Rule> macros = Lists.newArrayList();
     private final Multimap<KLabelConstant, Rule> functionRules = ArrayListMultimap.create();
+    private final Map<KLabelConstant, FunctionRuleIndex> functionRuleIndices = new HashMap<>();
     private final Multimap<KLabelConstant, Rule> sortPredicateRules = HashMultimap.create();
     private final Multimap<KLabelConstant, Rule> anywhereRules = HashMultimap.create();
     private final Multimap<KLabelConstant, Rule> patternRules = ArrayListMultimap.create();
@@ -105,6 +111,9 @@ public class Definition extends JavaSymbolicObject {
 
     private final Map<KItem.CacheTableColKey, KItem.CacheTableValue> sortCacheTable = new HashMap<>();
 
+    /* the builtin function tables of this definition, possibly shared with other definitions of its module */
+    private transient BuiltinFunctionTables builtinFunctions;
+
     public Definition(org.kframework.definition.Module module, KExceptionManager kem) {
         kLabels = new HashSet<>();
         this.kem = kem;
@@ -339,6 +348,7 @@ public class Definition extends JavaSymbolicObject {
     public void addRule(Rule rule) {
         if (rule.isFunction()) {
             functionRules.put(rule.definedKLabel(), rule);
+            functionRuleIndices.computeIfAbsent(rule.definedKLabel(), l -> new FunctionRuleIndex()).add(rule);
             if (rule.isSortPredicate()) {
                 sortPredicateRules.put((KLabelConstant) rule.sortPredicateArgument().kLabel(), rule);
             }
@@ -384,14 +394,49 @@ public class Definition extends JavaSymbolicObject {
         this.context = context;
     }
 
-    public void setKem(KExceptionManager kem) {
-        this.kem = kem;
+    /**
+     * Returns the builtin function table of this definition for the given hook provider and stage,
+     * creating it with the given supplier the first time, so that the global contexts using this
+     * definition share it.
+     */
+    public BuiltinFunction builtinFunction(
+            Map<String, MethodHandle> hookProvider,
+            Stage stage,
+            Supplier<BuiltinFunction> supplier) {
+        if (hookProvider == null) {
+            return supplier.get();
+        }
+        return builtinFunctionTables().get(hookProvider, stage, supplier);
+    }
+
+    /**
+     * Returns the builtin function tables of this definition, which another definition built from
+     * the same module may share with {@link #setBuiltinFunctionTables}.
+     */
+    public synchronized BuiltinFunctionTables builtinFunctionTables() {
+        if (builtinFunctions == null) {
+            builtinFunctions = new BuiltinFunctionTables();
+        }
+        return builtinFunctions;
+    }
+
+    public synchronized void setBuiltinFunctionTables(BuiltinFunctionTables builtinFunctions) {
+        this.builtinFunctions = builtinFunctions;
     }
 
     public Multimap<KLabelConstant, Rule> functionRules() {
         return functionRules;
     }
 
+    /**
+     * Returns, in definition order, the rules of the given function whose top-level argument
+     * shapes are compatible with the given arguments. See {@link FunctionRuleIndex}.
+     */
+    public List<Rule> functionRulesFor(KLabelConstant kLabel, KList kList) {
+        FunctionRuleIndex index = functionRuleIndices.get(kLabel);
+        return index != null ? index.rulesFor(kList) : Collections.emptyList();
+    }
+
     public Multimap<KLabelConstant, Rule> anywhereRules() {
         return anywhereRules;
     }
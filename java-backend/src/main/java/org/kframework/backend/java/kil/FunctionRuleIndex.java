@@ -0,0 +1,139 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Discrimination index over the top-level arguments of the rules defining a function.
+ * <p>
+ * For each argument position, the index records which rules expect a constructor with a given
+ * {@link KLabelConstant} or a given {@link Token} at that position, and which rules accept
+ * anything there (e.g., a variable). Given the arguments of a function call, {@link #rulesFor}
+ * returns, in the order in which they were added, only the rules whose top-level argument
+ * shapes are compatible with the call; the remaining rules cannot match.
+ */
+public class FunctionRuleIndex implements Serializable {
+
+    private final List<Rule> rules = new ArrayList<>();
+
+    /**
+     * Rules whose arguments cannot be indexed (e.g., the left-hand side contains a KList variable).
+     */
+    private final BitSet unindexedRules = new BitSet();
+
+    private final Map<Integer, BitSet> rulesByArity = new HashMap<>();
+
+    /**
+     * For each position, the rules expecting a given shape at that position.
+     */
+    private final List<Map<Term, BitSet>> rulesByShape = new ArrayList<>();
+
+    /**
+     * For each position, the rules accepting any argument at that position.
+     */
+    private final List<BitSet> rulesWithoutShape = new ArrayList<>();
+
+    public void add(Rule rule) {
+        int ruleIndex = rules.size();
+        rules.add(rule);
+
+        List<Term> arguments = arguments(rule.leftHandSide());
+        if (arguments == null) {
+            unindexedRules.set(ruleIndex);
+            return;
+        }
+
+        rulesByArity.computeIfAbsent(arguments.size(), n -> new BitSet()).set(ruleIndex);
+        for (int i = 0; i < arguments.size(); i++) {
+            if (rulesByShape.size() == i) {
+                rulesByShape.add(new HashMap<>());
+                rulesWithoutShape.add(new BitSet());
+            }
+            Term shape = shapeOf(arguments.get(i));
+            if (shape != null) {
+                rulesByShape.get(i).computeIfAbsent(shape, s -> new BitSet()).set(ruleIndex);
+            } else {
+                rulesWithoutShape.get(i).set(ruleIndex);
+            }
+        }
+    }
+
+    /**
+     * Returns the rules that may match a call of the function with the given arguments.
+     */
+    public List<Rule> rulesFor(KList kList) {
+        List<Term> arguments = arguments(kList);
+        if (arguments == null) {
+            return Collections.unmodifiableList(rules);
+        }
+
+        BitSet candidates = (BitSet) rulesByArity.getOrDefault(arguments.size(), new BitSet()).clone();
+        for (int i = 0; i < arguments.size() && !candidates.isEmpty(); i++) {
+            Term shape = shapeOf(arguments.get(i));
+            if (shape != null) {
+                BitSet compatible = (BitSet) rulesWithoutShape.get(i).clone();
+                BitSet sameShape = rulesByShape.get(i).get(shape);
+                if (sameShape != null) {
+                    compatible.or(sameShape);
+                }
+                candidates.and(compatible);
+            }
+        }
+        candidates.or(unindexedRules);
+
+        if (candidates.cardinality() == rules.size()) {
+            return Collections.unmodifiableList(rules);
+        }
+        List<Rule> result = new ArrayList<>(candidates.cardinality());
+        candidates.stream().forEach(i -> result.add(rules.get(i)));
+        return Collections.unmodifiableList(result);
+    }
+
+    public List<Rule> rules() {
+        return Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Returns the top-level arguments of the given left-hand side or KList, or {@code null} if
+     * their number is not fixed.
+     */
+    private static List<Term> arguments(Term term) {
+        if (term instanceof KItem) {
+            term = ((KItem) term).kList();
+        }
+        if (!(term instanceof KList) || ((KList) term).hasFrame()) {
+            return null;
+        }
+        List<Term> arguments = ((KList) term).getContents();
+        for (Term argument : arguments) {
+            if (argument instanceof KList || argument instanceof Variable && argument.sort().equals(Sort.KLIST)) {
+                return null;
+            }
+        }
+        return arguments;
+    }
+
+    /**
+     * Returns the head {@link KLabelConstant} of a constructor term, the {@link Token} itself,
+     * or {@code null} if the term may be equal to terms of other shapes.
+     */
+    private static Term shapeOf(Term term) {
+        if (term instanceof Token) {
+            return term;
+        }
+        if (term instanceof KItem && ((KItem) term).kLabel() instanceof KLabelConstant) {
+            KLabelConstant kLabel = (KLabelConstant) ((KItem) term).kLabel();
+            if (kLabel.isConstructor() && !kLabel.isPattern()) {
+                return kLabel;
+            }
+        }
+        return null;
+    }
+
+}
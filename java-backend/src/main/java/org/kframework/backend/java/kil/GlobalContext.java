@@ -3,11 +3,14 @@
 package org.kframework.backend.java.kil;
 
 import org.kframework.KapiGlobal;
+import org.kframework.backend.java.builtins.IntToken;
 import org.kframework.backend.java.kil.KItem.KItemOperations;
 import org.kframework.backend.java.symbolic.BuiltinFunction;
 import org.kframework.backend.java.symbolic.Equality.EqualityOperations;
 import org.kframework.backend.java.symbolic.SMTOperations;
 import org.kframework.backend.java.symbolic.Stage;
+import org.kframework.backend.java.util.MemoTable;
+import org.kframework.backend.java.util.RuleProfiler;
 import org.kframework.backend.java.util.Z3Wrapper;
 import org.kframework.kast.Kast;
 import org.kframework.krun.KRunOptions;
@@ -34,6 +37,14 @@ public class GlobalContext implements Serializable {
     private final transient Map<String, MethodHandle> hookProvider;
     public final transient FileUtil files;
     public final transient GlobalOptions globalOptions;
+    /**
+     * The intern table of ground terms with {@code --hash-cons}, or {@code null}.
+     */
+    public final transient TermInterner termInterner;
+    /**
+     * The profiler of the rules with {@code --profile-rules}, or {@code null}.
+     */
+    public final transient RuleProfiler ruleProfiler;
 
     public GlobalContext(
             FileSystem fs,
@@ -52,8 +63,14 @@ public class GlobalContext implements Serializable {
         this.hookProvider = hookProvider;
         this.files = files;
         this.equalityOps = new EqualityOperations(() -> def);
-        this.constraintOps = new SMTOperations(() -> def, smtOptions, new Z3Wrapper(smtOptions, kem, globalOptions, files), kem, globalOptions);
-        this.kItemOps = new KItemOperations(stage, deterministicFunctions, kem, this::builtins, globalOptions);
+        this.constraintOps = new SMTOperations(() -> def, smtOptions, new Z3Wrapper(smtOptions, kem, globalOptions, files), kem, globalOptions, files);
+        this.kItemOps = new KItemOperations(stage, deterministicFunctions, kem, this::builtins, globalOptions,
+                new MemoTable(krunOptions != null ? krunOptions.experimental.memoTableSize : MemoTable.DEFAULT_MAXIMUM_SIZE));
+        this.termInterner = krunOptions != null && krunOptions.experimental.hashCons ? new TermInterner() : null;
+        this.ruleProfiler = krunOptions != null && krunOptions.experimental.profileRules != null ? new RuleProfiler() : null;
+        if (krunOptions != null) {
+            IntToken.ensureCacheHigh(krunOptions.experimental.intCacheLimit);
+        }
         this.stage = stage;
     }
 
@@ -68,12 +85,22 @@ public class GlobalContext implements Serializable {
     private BuiltinFunction builtins() {
         BuiltinFunction b = builtinFunction;
         if (b == null) {
-            b = new BuiltinFunction(def, hookProvider, kem, stage);
+            b = def.builtinFunction(hookProvider, stage, () -> new BuiltinFunction(def, hookProvider, kem, stage));
             builtinFunction = b;
         }
         return b;
     }
 
+    /**
+     * Releases the resources kept between the queries of a run, e.g. the Z3 sessions, once it is
+     * done. The context can still be used afterwards.
+     */
+    public void close() {
+        if (constraintOps != null) {
+            constraintOps.close();
+        }
+    }
+
     public void setDefinition(Definition def) {
         this.def = def;
     }
@@ -10,8 +10,9 @@ public class IsNormalFieldInitializer extends BasicVisitor {
 
     @Override
     public void visitNode(JavaSymbolicObject node) {
-        if (node.isNormal != null) {
-            isNormal = isNormal && node.isNormal;
+        Boolean cached = node.cachedIsNormal();
+        if (cached != null) {
+            isNormal = isNormal && cached;
             return;
         }
 
@@ -20,7 +21,7 @@ public class IsNormalFieldInitializer extends BasicVisitor {
         if (!(node instanceof KLabelConstant || node instanceof Token || node instanceof Variable)) {
             super.visitNode(node);
         }
-        node.isNormal = isNormal;
+        node.setNormal(isNormal);
         isNormal = parentIsNormal && isNormal;
     }
 
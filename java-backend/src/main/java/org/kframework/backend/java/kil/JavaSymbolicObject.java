@@ -20,6 +20,8 @@ import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import org.pcollections.HashTreePSet;
 import org.pcollections.PSet;
@@ -47,11 +49,39 @@ public abstract class JavaSymbolicObject<T extends JavaSymbolicObject<T>> extend
      * adopt the same pattern used for hashCode, which is also safe and potentially a tiny bit faster.
      */
     volatile transient PSet<Variable> variableSet = null;
-    volatile transient Boolean isGround = null;
-    volatile transient Boolean isNormal = null;
-    volatile transient Set<ConjunctiveFormula> isEvaluated = Sets.newHashSet();
     volatile transient Set<Term> userVariableSet = null;
 
+    /**
+     * Whether {@link #isGround()} and {@link #isNormal()} have been computed, their values, and
+     * whether this object has been interned, packed in one field; see {@link #GROUND_KNOWN} and
+     * friends.
+     */
+    private volatile transient int flags = 0;
+
+    /**
+     * The constraints under which this object has been evaluated: {@code null} if none, the
+     * constraint itself (or {@link #NO_CONSTRAINT}) if only one, or a {@code PSet} otherwise.
+     * Most objects are never evaluated, or are evaluated under a single constraint, so the set is
+     * only allocated when needed.
+     */
+    private volatile transient Object evaluatedUnder = null;
+
+    private static final int GROUND_KNOWN = 1;
+    private static final int GROUND = 1 << 1;
+    private static final int NORMAL_KNOWN = 1 << 2;
+    private static final int NORMAL = 1 << 3;
+    private static final int INTERNED = 1 << 4;
+
+    /**
+     * Stands for the {@code null} constraint in {@link #evaluatedUnder}.
+     */
+    private static final Object NO_CONSTRAINT = new Object();
+
+    private static final AtomicIntegerFieldUpdater<JavaSymbolicObject> FLAGS_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(JavaSymbolicObject.class, "flags");
+    private static final AtomicReferenceFieldUpdater<JavaSymbolicObject, Object> EVALUATED_UNDER_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(JavaSymbolicObject.class, Object.class, "evaluatedUnder");
+
     protected JavaSymbolicObject() {
         super();
     }
@@ -106,7 +136,7 @@ public abstract class JavaSymbolicObject<T extends JavaSymbolicObject<T>> extend
      */
     public PSet<Variable> variableSet() {
         if (variableSet == null) {
-            if (isGround == null || !isGround) {
+            if ((flags & (GROUND_KNOWN | GROUND)) != (GROUND_KNOWN | GROUND)) {
                 new VariableSetFieldInitializer().visitNode(this);
             } else {
                 variableSet = HashTreePSet.empty();
@@ -119,14 +149,26 @@ public abstract class JavaSymbolicObject<T extends JavaSymbolicObject<T>> extend
      * Returns {@code true} if this JavaSymbolicObject does not contain any variables.
      */
     public boolean isGround() {
-        if (isGround == null) {
+        if ((flags & GROUND_KNOWN) == 0) {
             if (variableSet == null) {
                 new IsGroundFieldInitializer().visitNode(this);
             } else {
-                isGround = variableSet.isEmpty();
+                setGround(variableSet.isEmpty());
             }
         }
-        return isGround;
+        return (flags & GROUND) != 0;
+    }
+
+    /**
+     * Returns the cached value of {@link #isGround()}, or {@code null} if it has not been computed.
+     */
+    Boolean cachedIsGround() {
+        int flags = this.flags;
+        return (flags & GROUND_KNOWN) == 0 ? null : (flags & GROUND) != 0;
+    }
+
+    void setGround(boolean isGround) {
+        setFlags(GROUND_KNOWN | (isGround ? GROUND : 0));
     }
 
     /**
@@ -134,10 +176,41 @@ public abstract class JavaSymbolicObject<T extends JavaSymbolicObject<T>> extend
      * patterns, false otherwise.
      */
     public boolean isNormal() {
-        if (isNormal == null) {
+        if ((flags & NORMAL_KNOWN) == 0) {
             new IsNormalFieldInitializer().visitNode(this);
         }
-        return isNormal;
+        return (flags & NORMAL) != 0;
+    }
+
+    /**
+     * Returns the cached value of {@link #isNormal()}, or {@code null} if it has not been computed.
+     */
+    Boolean cachedIsNormal() {
+        int flags = this.flags;
+        return (flags & NORMAL_KNOWN) == 0 ? null : (flags & NORMAL) != 0;
+    }
+
+    void setNormal(boolean isNormal) {
+        setFlags(NORMAL_KNOWN | (isNormal ? NORMAL : 0));
+    }
+
+    /**
+     * Returns {@code true} if this object is the canonical instance of its
+     * {@link TermInterner}.
+     */
+    boolean isInterned() {
+        return (flags & INTERNED) != 0;
+    }
+
+    void setInterned() {
+        setFlags(INTERNED);
+    }
+
+    private void setFlags(int newFlags) {
+        int current;
+        do {
+            current = flags;
+        } while (!FLAGS_UPDATER.compareAndSet(this, current, current | newFlags));
     }
 
     public boolean isConcrete() {
@@ -150,7 +223,39 @@ public abstract class JavaSymbolicObject<T extends JavaSymbolicObject<T>> extend
      * {@code ConjunctiveFormula}, false otherwise.
      */
     public boolean isEvaluated(ConjunctiveFormula constraint) {
-        return isEvaluated.contains(constraint);
+        Object evaluatedUnder = this.evaluatedUnder;
+        Object key = constraint != null ? constraint : NO_CONSTRAINT;
+        if (evaluatedUnder instanceof PSet) {
+            return ((PSet<?>) evaluatedUnder).contains(key);
+        }
+        return key.equals(evaluatedUnder);
+    }
+
+    /**
+     * Records that the function and anywhere symbols in this {@code JavaSymbolicObject} have been
+     * evaluated under the given {@code ConjunctiveFormula}.
+     */
+    void setEvaluated(ConjunctiveFormula constraint) {
+        Object key = constraint != null ? constraint : NO_CONSTRAINT;
+        Object current;
+        Object next;
+        do {
+            current = evaluatedUnder;
+            if (current == null) {
+                next = key;
+            } else if (current instanceof PSet) {
+                if (((PSet<?>) current).contains(key)) {
+                    return;
+                }
+                @SuppressWarnings("unchecked")
+                PSet<Object> evaluated = (PSet<Object>) current;
+                next = evaluated.plus(key);
+            } else if (current.equals(key)) {
+                return;
+            } else {
+                next = HashTreePSet.empty().plus(current).plus(key);
+            }
+        } while (!EVALUATED_UNDER_UPDATER.compareAndSet(this, current, next));
     }
 
     /**
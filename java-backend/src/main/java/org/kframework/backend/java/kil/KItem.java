@@ -10,8 +10,10 @@ import org.kframework.backend.java.builtins.MetaK;
 import org.kframework.backend.java.builtins.SortMembership;
 import org.kframework.backend.java.symbolic.*;
 import org.kframework.backend.java.util.ImpureFunctionException;
+import org.kframework.backend.java.util.MemoTable;
 import org.kframework.backend.java.util.Profiler;
 import org.kframework.backend.java.util.RewriteEngineUtils;
+import org.kframework.backend.java.util.RuleProfiler;
 import org.kframework.backend.java.util.Subsorts;
 import org.kframework.backend.java.util.Constants;
 import org.kframework.builtin.KLabels;
@@ -26,6 +28,7 @@ import org.kframework.utils.errorsystem.KEMException;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -83,8 +86,18 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
          * following conversion is necessary */
         kList = KCollection.upKind(kList, Kind.KLIST);
 
+        /* with --hash-cons, share the ground terms which carry no position-specific data */
+        TermInterner interner = global.termInterner;
+        if (interner != null) {
+            kList = interner.intern(kList);
+        }
+
         // TODO(yilongli): break the dependency on the Tool object
-        return new KItem(kLabel, kList, global, global.stage, source, location, childrenDontCareRuleMask);
+        KItem kItem = new KItem(kLabel, kList, global, global.stage, source, location, childrenDontCareRuleMask);
+        if (interner != null && source == null && location == null && childrenDontCareRuleMask == null) {
+            kItem = interner.intern(kItem);
+        }
+        return kItem;
     }
 
     public KItem(Term kLabel, Term kList, Sort sort, boolean isExactSort) {
@@ -274,13 +287,13 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
 
     public Term evaluateFunction(TermContext context) {
         Term result = global.kItemOps.evaluateFunction(this, context);
-        result.isEvaluated.add(context.getTopConstraint());
+        result.setEvaluated(context.getTopConstraint());
         return result;
     }
 
     public Term resolveFunctionAndAnywhere(TermContext context) {
         Term result = global.kItemOps.resolveFunctionAndAnywhere(this, context);
-        result.isEvaluated.add(context.getTopConstraint());
+        result.setEvaluated(context.getTopConstraint());
         return result;
     }
 
@@ -308,18 +321,21 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
         private final KExceptionManager kem;
         private final Provider<BuiltinFunction> builtins;
         private final GlobalOptions options;
+        private final MemoTable memoTable;
 
         public KItemOperations(
                 Stage stage,
                 boolean deterministicFunctions,
                 KExceptionManager kem,
                 Provider<BuiltinFunction> builtins,
-                GlobalOptions options) {
+                GlobalOptions options,
+                MemoTable memoTable) {
             this.stage = stage;
             this.deterministicFunctions = deterministicFunctions;
             this.kem = kem;
             this.builtins = builtins;
             this.options = options;
+            this.memoTable = memoTable;
         }
 
         private static final String TRACE_MSG = "Function evaluation triggered infinite recursion. Trace:";
@@ -398,6 +414,25 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                 return kItem;
             }
 
+            KLabelConstant kLabelConstant = (KLabelConstant) kItem.kLabel;
+            KList kList = (KList) kItem.kList;
+            if (!kLabelConstant.isMemo() || !kList.isGround() || !kList.isNormal()) {
+                return evaluateFunctionWithoutMemo(kItem, context);
+            }
+
+            /* the result of a [memo] function on concrete arguments only depends on the arguments */
+            Term result = memoTable.get(kLabelConstant, kList);
+            if (result == null) {
+                result = evaluateFunctionWithoutMemo(kItem, context);
+                // results containing fresh variables must not be shared between calls
+                if (result != kItem && result.isGround()) {
+                    memoTable.put(kLabelConstant, kList, result);
+                }
+            }
+            return result;
+        }
+
+        private Term evaluateFunctionWithoutMemo(KItem kItem, TermContext context) {
             Definition definition = context.definition();
             KLabelConstant kLabelConstant = (KLabelConstant) kItem.kLabel;
 
@@ -408,8 +443,7 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
 
                 if (builtins.get().isBuiltinKLabel(kLabelConstant)) {
                     try {
-                        Term[] arguments = kList.getContents().toArray(new Term[kList.getContents().size()]);
-                        Term result = builtins.get().invoke(context, kLabelConstant, arguments);
+                        Term result = builtins.get().invoke(context, kLabelConstant, kList.getContents());
                         if (result != null && !result.equals(kItem)) {
                             return result.evaluate(context);
                         }
@@ -449,10 +483,17 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                 if (!definition.functionRules().get(kLabelConstant).isEmpty()) {
                     Term result = null;
                     Term owiseResult = null;
+                    Rule owiseRule = null;
+                    RuleProfiler profiler = context.global().ruleProfiler;
 
                     // an argument is concrete if it doesn't contain variables or unresolved functions
                     boolean isConcrete = kList.getContents().stream().filter(elem -> !elem.isGround() || !elem.isNormal()).collect(Collectors.toList()).isEmpty();
-                    for (Rule rule : definition.functionRules().get(kLabelConstant)) {
+                    // only try the rules whose top-level argument shapes are compatible, unless auditing
+                    Collection<Rule> rules = RuleAuditing.getAuditingRule() == null && !RuleAuditing.isAuditBegun() ?
+                            definition.functionRulesFor(kLabelConstant, kList) :
+                            definition.functionRules().get(kLabelConstant);
+                    for (Rule rule : rules) {
+                        boolean profiled = false;
                         try {
                             if (rule == RuleAuditing.getAuditingRule()) {
                                 RuleAuditing.beginAudit();
@@ -465,6 +506,10 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                                 continue;
                             }
 
+                            if (profiler != null) {
+                                profiler.enterAttempt(rule);
+                                profiled = true;
+                            }
                             Substitution<Variable, Term> solution;
                             List<Substitution<Variable, Term>> matches = PatternMatcher.match(kItem, rule, context);
                             if (matches.isEmpty()) {
@@ -498,6 +543,7 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                                 }
                                 RuleAuditing.succeed(rule);
                                 owiseResult = rightHandSide;
+                                owiseRule = rule;
                             } else {
                                 if (stage == Stage.REWRITING) {
                                     if (result != null && !result.equals(rightHandSide)) {
@@ -506,6 +552,9 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                                 }
                                 RuleAuditing.succeed(rule);
                                 result = rightHandSide;
+                                if (profiler != null) {
+                                    profiler.applied(rule);
+                                }
                             }
 
                             /*
@@ -516,6 +565,9 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                                 return result;
                             }
                         } finally {
+                            if (profiled) {
+                                profiler.exit();
+                            }
                             if (RuleAuditing.isAuditBegun()) {
                                 if (RuleAuditing.getAuditingRule() == rule) {
                                     RuleAuditing.endAudit();
@@ -559,6 +611,9 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                                 }
                             }
                         }
+                        if (profiler != null) {
+                            profiler.applied(owiseRule);
+                        }
                         return owiseResult;
                     }
                 }
@@ -604,7 +659,11 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
         /* apply [anywhere] rules */
         /* TODO(YilongL): make KLabelConstant dependent on Definition and store
          * anywhere rules in KLabelConstant */
+        RuleProfiler profiler = context.global().ruleProfiler;
         for (Rule rule : definition.anywhereRules().get(kLabelConstant)) {
+            if (profiler != null) {
+                profiler.enterAttempt(rule);
+            }
             try {
                 if (rule == RuleAuditing.getAuditingRule()) {
                     RuleAuditing.beginAudit();
@@ -624,8 +683,14 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
                 RuleAuditing.succeed(rule);
                 Term rightHandSide = rule.rightHandSide();
                 rightHandSide = rightHandSide.substituteAndEvaluate(solution, context);
+                if (profiler != null) {
+                    profiler.applied(rule);
+                }
                 return rightHandSide;
             } finally {
+                if (profiler != null) {
+                    profiler.exit();
+                }
                 if (RuleAuditing.isAuditBegun()) {
                     if (RuleAuditing.getAuditingRule() == rule) {
                         RuleAuditing.endAudit();
@@ -695,6 +760,10 @@ public class KItem extends Term implements KItemRepresentation, HasGlobalContext
         }
 
         KItem kItem = (KItem) object;
+        if (isInterned() && kItem.isInterned() && global == kItem.global) {
+            /* distinct canonical instances of the same intern table */
+            return false;
+        }
         return kLabel.equals(kItem.kLabel) && kList.equals(kItem.kList);
     }
 
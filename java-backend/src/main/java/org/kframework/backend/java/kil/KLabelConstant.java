@@ -27,6 +27,11 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public class KLabelConstant extends KLabel implements org.kframework.frontend.KLabel {
 
+    /*
+     * Unlike the token caches, this cache holds its instances strongly: the rule automaton
+     * indexes arrays by the ordinals of the labels, sized when it is built, so a collected label
+     * must not be recreated with a new ordinal.
+     */
     private static final ConcurrentMap<Pair<Set<SortSignature>, Attributes>,
             ConcurrentMap<String, KLabelConstant>> cache = new ConcurrentHashMap<>();
 
@@ -62,6 +67,11 @@ public class KLabelConstant extends KLabel implements org.kframework.frontend.KL
      */
     private final boolean isPattern;
 
+    /*
+     * boolean flag set iff a production tagged with "memo" generates this {@code KLabelConstant}
+     */
+    private final boolean isMemo;
+
     private final boolean isSortPredicate;
 
     private final Sort predicateSort;
@@ -100,6 +110,7 @@ public class KLabelConstant extends KLabel implements org.kframework.frontend.KL
         this.isSortPredicate = predicateSort != null;
         this.isFunction = isFunction;
         this.isPattern = isPattern;
+        this.isMemo = productionAttributes.containsKey(Attribute.keyOf(Attribute.MEMO_KEY));
         this.smtlib = smtlib;
     }
 
@@ -121,6 +132,13 @@ public class KLabelConstant extends KLabel implements org.kframework.frontend.KL
                         definition.kLabelAttributesOf(l)));
     }
 
+    /**
+     * Returns the number of cached {@code KLabelConstant}s.
+     */
+    public static int cacheSize() {
+        return cache.values().stream().mapToInt(Map::size).sum();
+    }
+
     /**
      * Returns true iff no production tagged with "function" or "predicate" or "pattern"
      * generates this {@code KLabelConstant}.
@@ -148,6 +166,14 @@ public class KLabelConstant extends KLabel implements org.kframework.frontend.KL
         return isPattern;
     }
 
+    /**
+     * Returns true iff a production tagged with "memo" generates this {@code KLabelConstant};
+     * the results of evaluating such a function on concrete arguments are cached.
+     */
+    public boolean isMemo() {
+        return isMemo;
+    }
+
     /**
      * Returns true if this {@code KLabelConstant} is a sort membership
      * predicate; otherwise, false.
@@ -22,6 +22,11 @@ import org.kframework.utils.errorsystem.KEMException;
  */
 public final class Sort extends org.kframework.frontend.AbstractSort implements Serializable {
 
+    /*
+     * Unlike the token caches, this cache holds its instances strongly: the rule automaton
+     * indexes arrays by the ordinals of the sorts, sized when it is built, so a collected sort
+     * must not be recreated with a new ordinal.
+     */
     private static final ConcurrentMap<String, Sort> cache = new ConcurrentHashMap<>();
 
     /**
@@ -46,6 +51,7 @@ public final class Sort extends org.kframework.frontend.AbstractSort implements
     public static final Sort FLOAT          =   Sort.of("Float@FLOAT-SYNTAX");
     public static final Sort STRING         =   Sort.of("String@STRING-SYNTAX");
     public static final Sort BIT_VECTOR     =   Sort.of("MInt@MINT");
+    public static final Sort BYTES          =   Sort.of("Bytes@BYTES");
 
     public static final Sort KVARIABLE      =   Sort.of("KVariable@SUBSTITUTION");
 
@@ -73,6 +79,13 @@ public final class Sort extends org.kframework.frontend.AbstractSort implements
         return cache.computeIfAbsent(name, s -> new Sort(name, maxOrdinal.getAndIncrement()));
     }
 
+    /**
+     * Returns the number of cached {@code Sort}s.
+     */
+    public static int cacheSize() {
+        return cache.size();
+    }
+
     public static Sort of(org.kframework.kil.Sort sort) {
         return of(sort.getName());
     }
@@ -71,7 +71,31 @@ public class TermContext extends JavaSymbolicObject {
      * Forks an identical {@link TermContext}.
      */
     public TermContext fork() {
-        return counter != null ? new TermContext(global, new FreshCounter(counter.value)) : this;
+        return fork(BigInteger.ZERO);
+    }
+
+    /**
+     * Forks an identical {@link TermContext}, except that its fresh counter starts the given
+     * offset ahead of the counter of this context, so that the fork generates the fresh constants
+     * of its own range.
+     */
+    public TermContext fork(BigInteger offset) {
+        if (counter == null) {
+            return this;
+        }
+        TermContext fork = new TermContext(global, new FreshCounter(counter.value.add(offset)));
+        fork.initialVariables = initialVariables;
+        return fork;
+    }
+
+    /**
+     * Advances the fresh counter of this {@link TermContext} past the fresh constants generated
+     * by the given fork of it, so that this context never generates them again.
+     */
+    public void join(TermContext fork) {
+        if (counter != null && fork != this) {
+            counter.value = counter.value.max(fork.counter.value);
+        }
     }
 
     public BigInteger freshConstant() {
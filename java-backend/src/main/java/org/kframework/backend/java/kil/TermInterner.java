@@ -0,0 +1,47 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.kframework.backend.java.util.Profiler;
+
+/**
+ * Weak, thread-safe intern table of ground terms, used with {@code --hash-cons} so that
+ * structurally equal ground terms built through the same {@link GlobalContext} share one
+ * instance. The table does not keep its terms alive.
+ * <p>
+ * Two distinct interned {@link KItem}s of the same {@link GlobalContext} are never equal, so
+ * {@link KItem#equals} compares them in constant time.
+ * <p>
+ * Shared instances and released duplicates are counted by {@link Profiler}.
+ */
+public class TermInterner {
+
+    private final Interner<Term> interner = Interners.newWeakInterner();
+
+    /**
+     * Returns the canonical instance of the given term if it is ground, or the term itself
+     * otherwise.
+     */
+    public <T extends Term> T intern(T term) {
+        if (term.isInterned() || !term.isGround()) {
+            return term;
+        }
+
+        Term canonical = interner.intern(term);
+        if (canonical == term) {
+            term.setInterned();
+            Profiler.HASH_CONS_MISS_COUNTER.increment();
+            return term;
+        } else if (canonical.getClass() == term.getClass()) {
+            Profiler.HASH_CONS_HIT_COUNTER.increment();
+            /* safe, as the canonical term has the class of the given one */
+            @SuppressWarnings("unchecked")
+            T result = (T) canonical;
+            return result;
+        } else {
+            return term;
+        }
+    }
+
+}
@@ -3,6 +3,7 @@ package org.kframework.backend.java.kil;
 
 import org.kframework.backend.java.builtins.BitVector;
 import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.builtins.BytesToken;
 import org.kframework.backend.java.builtins.FloatToken;
 import org.kframework.backend.java.builtins.IntToken;
 import org.kframework.backend.java.builtins.StringToken;
@@ -30,6 +31,8 @@ public abstract class Token extends Term implements KoreRepresentation, KToken {
             return FloatToken.of(value);
         } else if (sort.equals(StringToken.SORT)) {
             return StringToken.of(StringUtil.unquoteKString(value));
+        } else if (sort.equals(BytesToken.SORT)) {
+            return BytesToken.parse(value);
         } else if (sort.equals(BitVector.SORT)) {
             String[] values = value.split("'");
             return BitVector.of(Long.parseLong(values[1]), Integer.parseInt(values[0]));
@@ -15,10 +15,14 @@ import org.kframework.utils.errorsystem.KExceptionManager;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Utility class that handles the builtin (hooked) operations and their Java
@@ -32,7 +36,99 @@ public class BuiltinFunction {
      * Map of {@link KLabelConstant} representation of builtin (hooked) operations to
      * {@link Method} representation of Java implementation of said operations.
      */
-    private final Map<KLabelConstant, MethodHandle> table = new HashMap<>();
+    private final Map<KLabelConstant, Hook> table = new HashMap<>();
+
+    /**
+     * The hooks looked up in {@link #table}, indexed by the ordinals of their labels, which spares
+     * the lookup in the table. Each table caches its own hooks, so the tables of the different
+     * stages and sessions do not replace each other's hooks. The labels that are not builtin
+     * operations have a hook without implementation.
+     */
+    private volatile AtomicReferenceArray<Hook> hooks = new AtomicReferenceArray<>(KLabelConstant.maxOrdinal.get());
+
+    /**
+     * Hooks with at most this many arguments (besides the {@link TermContext}) are invoked
+     * through an exact-typed adapter.
+     */
+    private static final int MAX_EXACT_ARITY = 5;
+
+    /**
+     * The Java implementation of a builtin operation, as looked up by a {@link BuiltinFunction}.
+     * <p>
+     * Hooks of up to {@link #MAX_EXACT_ARITY} arguments are adapted to the type
+     * {@code (Term, ..., Term, TermContext)Term} once, so that they are invoked with
+     * {@link MethodHandle#invokeExact} rather than boxing their arguments into an array and
+     * adapting the handle on every call.
+     */
+    static final class Hook {
+
+        private final KLabelConstant label;
+
+        /* the implementation as provided by the hook provider, or null if there is none */
+        private final MethodHandle handle;
+
+        /* the implementation adapted to its exact type, or null if it is not adapted */
+        private final MethodHandle exactHandle;
+
+        private final int arity;
+
+        private Hook(KLabelConstant label, MethodHandle handle) {
+            this.label = label;
+            this.handle = handle;
+            this.exactHandle = exactHandle(handle);
+            this.arity = exactHandle != null ? handle.type().parameterCount() - 1 : -1;
+        }
+
+        /**
+         * Returns the given handle adapted to {@code (Term, ..., Term, TermContext)Term}, or
+         * {@code null} if it cannot be adapted.
+         */
+        private static MethodHandle exactHandle(MethodHandle handle) {
+            if (handle == null || handle.isVarargsCollector()
+                    || handle.type().parameterCount() < 1
+                    || handle.type().parameterCount() - 1 > MAX_EXACT_ARITY) {
+                return null;
+            }
+            try {
+                return handle.asType(MethodType.methodType(
+                        Term.class,
+                        Collections.<Class<?>>nCopies(handle.type().parameterCount() - 1, Term.class))
+                        .appendParameterTypes(TermContext.class));
+            } catch (WrongMethodTypeException e) {
+                /* e.g. a hook taking primitive arguments; invoked with invokeWithArguments instead */
+                return null;
+            }
+        }
+
+        // DISABLE EXCEPTION CHECKSTYLE
+        private Term invoke(TermContext context, List<Term> arguments) throws Throwable {
+        // ENABLE EXCEPTION CHECKSTYLE
+            if (arguments.size() != arity) {
+                Object[] args = arguments.toArray(new Object[arguments.size() + 1]);
+                args[arguments.size()] = context;
+                return (Term) handle.invokeWithArguments(args);
+            }
+            switch (arity) {
+            case 0:
+                return (Term) exactHandle.invokeExact(context);
+            case 1:
+                return (Term) exactHandle.invokeExact(arguments.get(0), context);
+            case 2:
+                return (Term) exactHandle.invokeExact(arguments.get(0), arguments.get(1), context);
+            case 3:
+                return (Term) exactHandle.invokeExact(arguments.get(0), arguments.get(1), arguments.get(2), context);
+            case 4:
+                return (Term) exactHandle.invokeExact(arguments.get(0), arguments.get(1), arguments.get(2),
+                        arguments.get(3), context);
+            case 5:
+                return (Term) exactHandle.invokeExact(arguments.get(0), arguments.get(1), arguments.get(2),
+                        arguments.get(3), arguments.get(4), context);
+            default:
+                throw new AssertionError("unexpected arity " + arity);
+            }
+        }
+
+    }
 
 
     /**
@@ -63,7 +159,8 @@ public class BuiltinFunction {
                 // TODO(KORE): removed check to allow the rewrite engine to execute impure functions when the Stage flag is incorrectly set.
                 // this allows impure function to execute statically so we need to figure out an alternate solution soon.
 //                if (stage == Stage.INITIALIZING && entry.getValue().getAttr(Attribute.IMPURE_KEY) != null) {
-//                    table.put(KLabelConstant.of(entry.getKey(), definition), throwImpureExceptionHandle);
+//                    KLabelConstant label = KLabelConstant.of(entry.getKey(), definition);
+//                    table.put(label, new Hook(label, throwImpureExceptionHandle));
 //                    continue;
 //                }
 
@@ -74,7 +171,8 @@ public class BuiltinFunction {
                     continue;
                 }
 
-                table.put(KLabelConstant.of(entry.getKey(), definition), hookProvider.get(hookAttribute));
+                KLabelConstant label = KLabelConstant.of(entry.getKey(), definition);
+                table.put(label, new Hook(label, hookProvider.get(hookAttribute)));
             }
         }
     }
@@ -100,12 +198,54 @@ public class BuiltinFunction {
     public Term invoke(TermContext context, KLabelConstant label, Term... arguments)
             throws Throwable {
     // ENABLE EXCEPTION CHECKSTYLE
-        Object[] args = Arrays.copyOf(arguments, arguments.length + 1, Object[].class);
-        args[arguments.length] = context;
-        // TODO(YilongL): is reflection/exception really the best way to
-        // deal with builtin functions? builtin functions are supposed to be
-        // super-fast...
-        return (Term) table.get(label).invokeWithArguments(args);
+        return invoke(context, label, Arrays.asList(arguments));
+    }
+
+    /**
+     * Invokes the Java implementation of a builtin (hooked) operation on the given list of
+     * arguments, without copying it.
+     *
+     * @see #invoke(TermContext, KLabelConstant, Term...)
+     */
+    // DISABLE EXCEPTION CHECKSTYLE
+    public Term invoke(TermContext context, KLabelConstant label, List<Term> arguments)
+            throws Throwable {
+    // ENABLE EXCEPTION CHECKSTYLE
+        return hook(label).invoke(context, arguments);
+    }
+
+    /**
+     * Returns the hook of the given label, caching it by the ordinal of the label.
+     */
+    Hook hook(KLabelConstant label) {
+        int ordinal = label.ordinal();
+        AtomicReferenceArray<Hook> hooks = this.hooks;
+        if (ordinal >= hooks.length()) {
+            hooks = growHooks(ordinal);
+        }
+        Hook hook = hooks.get(ordinal);
+        /* the ordinals of deserialized labels may overlap with those of new labels */
+        if (hook == null || hook.label != label) {
+            hook = table.get(label);
+            if (hook == null) {
+                hook = new Hook(label, null);
+            }
+            hooks.set(ordinal, hook);
+        }
+        return hook;
+    }
+
+    /**
+     * Replaces the cache of the hooks by one large enough for the labels created since it was
+     * allocated. The hooks cached so far are looked up again.
+     */
+    private synchronized AtomicReferenceArray<Hook> growHooks(int ordinal) {
+        AtomicReferenceArray<Hook> hooks = this.hooks;
+        if (ordinal >= hooks.length()) {
+            hooks = new AtomicReferenceArray<>(Math.max(ordinal + 1, KLabelConstant.maxOrdinal.get()));
+            this.hooks = hooks;
+        }
+        return hooks;
     }
 
     /**
@@ -117,7 +257,7 @@ public class BuiltinFunction {
      *         otherwise, false
      */
     public boolean isBuiltinKLabel(KLabelConstant label) {
-        return table.containsKey(label);
+        return hook(label).handle != null;
     }
 
 }
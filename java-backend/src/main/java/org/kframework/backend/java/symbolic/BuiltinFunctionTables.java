@@ -0,0 +1,39 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * The {@link BuiltinFunction} tables of the definitions built from one module, by hook provider
+ * (compared by identity) and stage. The tables depend on the module and on the hook provider
+ * only, so the definitions built for the different requests of the K server share them.
+ */
+public class BuiltinFunctionTables {
+
+    private final Cache<Map<String, MethodHandle>, Map<Stage, BuiltinFunction>> tables = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * Returns the table for the given hook provider and stage, creating it with the given
+     * supplier the first time.
+     */
+    public synchronized BuiltinFunction get(
+            Map<String, MethodHandle> hookProvider,
+            Stage stage,
+            Supplier<BuiltinFunction> supplier) {
+        Map<Stage, BuiltinFunction> stageTables = tables.getIfPresent(hookProvider);
+        if (stageTables == null) {
+            stageTables = new EnumMap<>(Stage.class);
+            tables.put(hookProvider, stageTables);
+        }
+        return stageTables.computeIfAbsent(stage, s -> supplier.get());
+    }
+
+}
@@ -21,6 +21,7 @@ import org.kframework.backend.java.kil.Term;
 import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.kil.Token;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.RuleProfiler;
 import org.kframework.builtin.KLabels;
 import org.kframework.frontend.KApply;
 import org.kframework.utils.BitSet;
@@ -125,14 +126,29 @@ public class FastRuleMatcher {
             } else {
                 patternConstraint = patternConstraint.addAll(rule.requires());
             }
-            List<Triple<ConjunctiveFormula, Boolean, Map<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>>> ruleResults = ConstrainedTerm.evaluateConstraints(
-                    constraints[i],
-                    subject.constraint(),
-                    patternConstraint,
-                    Sets.union(getLeftHandSide(pattern, i).variableSet(), patternConstraint.variableSet()).stream()
-                            .filter(v -> !v.name().equals(KOREtoBackendKIL.THE_VARIABLE))
-                            .collect(Collectors.toSet()),
-                    context);
+            RuleProfiler profiler = global.ruleProfiler;
+            if (profiler != null) {
+                profiler.enter(rule);
+                profiler.matched(rule);
+            }
+            List<Triple<ConjunctiveFormula, Boolean, Map<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>>> ruleResults;
+            try {
+                ruleResults = ConstrainedTerm.evaluateConstraints(
+                        constraints[i],
+                        subject.constraint(),
+                        patternConstraint,
+                        Sets.union(getLeftHandSide(pattern, i).variableSet(), patternConstraint.variableSet()).stream()
+                                .filter(v -> !v.name().equals(KOREtoBackendKIL.THE_VARIABLE))
+                                .collect(Collectors.toSet()),
+                        context);
+                if (profiler != null && ruleResults.isEmpty()) {
+                    profiler.sideConditionFailed(rule);
+                }
+            } finally {
+                if (profiler != null) {
+                    profiler.exit();
+                }
+            }
             for (Triple<ConjunctiveFormula, Boolean, Map<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>> triple : ruleResults) {
                 RuleMatchResult result = new RuleMatchResult(triple.getLeft(), triple.getMiddle(), triple.getRight(), i);
                 if (transitions.stream().anyMatch(rule::containsAttribute)) {
@@ -220,6 +236,11 @@ public class FastRuleMatcher {
     private BitSet match(Term subject, Term pattern, BitSet ruleMask, scala.collection.immutable.List<Pair<Integer, Integer>> path) {
         assert !ruleMask.isEmpty();
 
+        // a shared concrete subterm (e.g., with --hash-cons) matches itself without a traversal
+        if (subject == pattern && subject.isConcrete()) {
+            return ruleMask;
+        }
+
         // if the pattern is a variable, try to add its binding to the current solution
         if (pattern instanceof Variable) {
             return addSubstitution((Variable) pattern, subject, ruleMask);
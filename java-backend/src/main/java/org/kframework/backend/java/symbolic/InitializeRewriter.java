@@ -1,6 +1,9 @@
 // Copyright (c) 2015-2016 K Team. All Rights Reserved.
 package org.kframework.backend.java.symbolic;
 
+import com.google.common.base.Stopwatch;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.KapiGlobal;
 import org.kframework.RewriterResult;
@@ -25,6 +28,7 @@ import org.kframework.krun.api.io.FileSystem;
 import org.kframework.main.GlobalOptions;
 import org.kframework.minikore.converters.MiniToKore;
 import org.kframework.rewriter.Rewriter;
+import org.kframework.rewriter.RewriterSession;
 import org.kframework.rewriter.SearchType;
 import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.file.FileUtil;
@@ -34,11 +38,13 @@ import scala.collection.JavaConversions;
 
 import java.lang.invoke.MethodHandle;
 import java.math.BigInteger;
+import java.io.IOException;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -100,6 +106,7 @@ public class InitializeRewriter implements Function<Pair<Module, org.kframework.
         } else {
             definition = initializeDefinition.invoke(modulePair.getKey(), kem, initializingContext.global());
         }
+        initializingContext.global().close();
         GlobalContext rewritingContext = new GlobalContext(fs, deterministicFunctions, globalOptions, krunOptions, kem, smtOptions, hookProvider, files, Stage.REWRITING);
         rewritingContext.setDefinition(definition);
         Kast kastParser = new Kast(files);
@@ -144,8 +151,25 @@ public class InitializeRewriter implements Function<Pair<Module, org.kframework.
             termContext.setKOREtoBackendKILConverter(converter);
             Term backendKil = MacroExpander.expandAndEvaluate(termContext, kem, converter.convert(k));
             this.rewriter = new SymbolicRewriter(rewritingContext, transitions, new KRunState.Counter(), converter);
-            JavaKRunState result = (JavaKRunState) rewriter.rewrite(new ConstrainedTerm(backendKil, termContext), depth.orElse(-1));
-            return new RewriterResult(result.getStepsTaken(), result.getJavaKilTerm());
+            try {
+                JavaKRunState result = (JavaKRunState) rewriter.rewrite(new ConstrainedTerm(backendKil, termContext), depth.orElse(-1));
+                return new RewriterResult(result.getStepsTaken(), result.getJavaKilTerm());
+            } finally {
+                flushFileSystem();
+                rewritingContext.close();
+            }
+        }
+
+        /**
+         * Writes the output that the program buffered in the file system, so that it precedes
+         * whatever is printed after rewriting.
+         */
+        private void flushFileSystem() {
+            try {
+                rewritingContext.fs.flush();
+            } catch (IOException e) {
+                kem.registerCriticalWarning("Failed to write the buffered output of the program: " + e.getMessage(), e);
+            }
         }
 
         @Override
@@ -162,7 +186,12 @@ public class InitializeRewriter implements Function<Pair<Module, org.kframework.
             Term javaTerm = MacroExpander.expandAndEvaluate(termContext, kem, converter.convert(initialConfiguration));
             org.kframework.backend.java.kil.Rule javaPattern = converter.convert(Optional.empty(), pattern);
             this.rewriter = new SymbolicRewriter(rewritingContext, transitions, new KRunState.Counter(), converter);
-            return rewriter.search(javaTerm, javaPattern, bound.orElse(NEGATIVE_VALUE), depth.orElse(NEGATIVE_VALUE), searchType, termContext, resultsAsSubstitution);
+            try {
+                return rewriter.search(javaTerm, javaPattern, bound.orElse(NEGATIVE_VALUE), depth.orElse(NEGATIVE_VALUE), searchType, termContext, resultsAsSubstitution);
+            } finally {
+                flushFileSystem();
+                rewritingContext.close();
+            }
         }
 
 
@@ -171,6 +200,84 @@ public class InitializeRewriter implements Function<Pair<Module, org.kframework.
             return Tuple2.apply(res, match(res.k(), rule));
         }
 
+        @Override
+        public RewriterSession session(K k) {
+            return new Session(k);
+        }
+
+        /**
+         * A session that keeps the configuration as a backend {@link ConstrainedTerm}, so that it
+         * is converted from KORE and expanded only once, when the session starts.
+         */
+        private class Session implements RewriterSession {
+
+            private final KOREtoBackendKIL converter;
+            private final SymbolicRewriter rewriter;
+            /* the backend patterns of the rules matched so far, e.g. the watches of the debugger */
+            private final Map<Rule, org.kframework.backend.java.kil.Rule> patterns = new IdentityHashMap<>();
+            private ConstrainedTerm term;
+
+            Session(K k) {
+                TermContext termContext = TermContext.builder(rewritingContext).freshCounter(initCounterValue).build();
+                converter = new KOREtoBackendKIL(module, definition, termContext.global(), false);
+                termContext.setKOREtoBackendKILConverter(converter);
+                rewriter = new SymbolicRewriter(rewritingContext, transitions, new KRunState.Counter(), converter);
+                term = new ConstrainedTerm(MacroExpander.expandAndEvaluate(termContext, kem, converter.convert(k)), termContext);
+            }
+
+            @Override
+            public int step(int steps) {
+                try {
+                    JavaKRunState result = (JavaKRunState) rewriter.rewrite(term, steps);
+                    term = result.getConstrainedTerm();
+                    return result.getStepsTaken().get();
+                } finally {
+                    flushFileSystem();
+                }
+            }
+
+            @Override
+            public Checkpoint checkpoint() {
+                return new BackendCheckpoint(fork(term));
+            }
+
+            @Override
+            public void restore(Checkpoint checkpoint) {
+                term = fork(((BackendCheckpoint) checkpoint).term);
+            }
+
+            @Override
+            public K match(Rule rule) {
+                org.kframework.backend.java.kil.Rule pattern = patterns.computeIfAbsent(rule, r -> converter.convert(Optional.empty(), r));
+                ConstrainedTerm subject = fork(term);
+                return rewriter.search(subject.term(), pattern, NEGATIVE_VALUE, 0, SearchType.STAR, subject.termContext(), true);
+            }
+
+            /**
+             * Copies the given term with a fork of its context, so that the fresh constants
+             * generated from the copy do not advance the counter of the original.
+             */
+            private ConstrainedTerm fork(ConstrainedTerm term) {
+                TermContext termContext = term.termContext().fork();
+                termContext.setKOREtoBackendKILConverter(converter);
+                return new ConstrainedTerm(term.term(), term.constraint(), termContext);
+            }
+        }
+
+        private static class BackendCheckpoint implements RewriterSession.Checkpoint {
+
+            private final ConstrainedTerm term;
+
+            BackendCheckpoint(ConstrainedTerm term) {
+                this.term = term;
+            }
+
+            @Override
+            public K k() {
+                return term.term();
+            }
+        }
+
         @Override
         public List<K> prove(List<Rule> rules) {
             TermContext termContext = TermContext.builder(rewritingContext).freshCounter(initCounterValue).build();
@@ -199,16 +306,30 @@ public class InitializeRewriter implements Function<Pair<Module, org.kframework.
                     .map(org.kframework.backend.java.kil.Rule::renameVariables)
                     .collect(Collectors.toList());
 
-            this.rewriter = new SymbolicRewriter(rewritingContext, transitions, new KRunState.Counter(), converter);
-
-            List<ConstrainedTerm> proofResults = javaRules.stream()
+            List<org.kframework.backend.java.kil.Rule> claims = javaRules.stream()
                     .filter(r -> !r.containsAttribute(Attribute.TRUSTED_KEY))
-                    .map(r -> {
-                        ConstrainedTerm lhs = r.createLhsPattern(termContext);
-                        ConstrainedTerm rhs = r.createRhsPattern();
-                        termContext.setInitialVariables(lhs.variableSet());
-                        return rewriter.proveRule(lhs, rhs, allRules);
-                    })
+                    .collect(Collectors.toList());
+
+            // independent claims are proved in parallel, each with its own rewriter and TermContext
+            int proveThreads = rewritingContext.krunOptions.experimental.proveThreads;
+            ForkJoinPool pool = proveThreads > 1 ? new ForkJoinPool(proveThreads) : null;
+            List<List<ConstrainedTerm>> claimResults;
+            try {
+                claimResults = pool != null ?
+                        SymbolicRewriter.parallelMap(claims, r -> proveClaim(r, termContext.fork(), allRules, converter, pool), pool) :
+                        claims.stream().map(r -> proveClaim(r, termContext, allRules, converter, null)).collect(Collectors.toList());
+                // written once all the claims are proved, as the threads proving them record the profile
+                if (rewritingContext.ruleProfiler != null) {
+                    rewritingContext.ruleProfiler.write(definition, rewritingContext.files, rewritingContext.krunOptions.experimental.profileRules);
+                }
+            } finally {
+                if (pool != null) {
+                    pool.shutdown();
+                }
+                flushFileSystem();
+                rewritingContext.close();
+            }
+            List<ConstrainedTerm> proofResults = claimResults.stream()
                     .flatMap(List::stream)
                     .collect(Collectors.toList());
 
@@ -218,21 +339,43 @@ public class InitializeRewriter implements Function<Pair<Module, org.kframework.
                     .collect(Collectors.toList());
         }
 
+        private List<ConstrainedTerm> proveClaim(
+                org.kframework.backend.java.kil.Rule claim,
+                TermContext termContext,
+                List<org.kframework.backend.java.kil.Rule> specRules,
+                KOREtoBackendKIL converter,
+                ForkJoinPool pool) {
+            Stopwatch stopwatch = Stopwatch.createStarted();
+            SymbolicRewriter rewriter = new SymbolicRewriter(rewritingContext, transitions, new KRunState.Counter(), converter);
+            ConstrainedTerm lhs = claim.createLhsPattern(termContext);
+            ConstrainedTerm rhs = claim.createRhsPattern();
+            termContext.setInitialVariables(lhs.variableSet());
+            List<ConstrainedTerm> results = rewriter.proveRule(lhs, rhs, specRules, pool);
+            stopwatch.stop();
+            if (rewritingContext.krunOptions.experimental.statistics) {
+                System.err.println("[" + claim.getSource() + ":" + claim.getLocation() + ", "
+                        + results.size() + " remaining, " + stopwatch + "]");
+            }
+            return results;
+        }
+
     }
 
 
     public static class InitializeDefinition {
 
-        private final Map<Module, Definition> cache = new LinkedHashMap<Module, Definition>() {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<Module, Definition> eldest) {
-                return this.size() > 20;
-            }
-        };
+        /*
+         * the cached definitions keep the global context which built their rules, so they are
+         * only reused by requests of the same options and kem, e.g. those of one Kapi
+         */
+        private final Cache<Module, Definition> cache = CacheBuilder.newBuilder()
+                .maximumSize(20)
+                .build();
 
         public Definition invoke(Module module, KExceptionManager kem, GlobalContext global) {
-            if (cache.containsKey(module)) {
-                return cache.get(module);
+            Definition cached = cache.getIfPresent(module);
+            if (cached != null) {
+                return cached;
             }
             Definition definition = new Definition(module, kem);
 
@@ -247,9 +390,39 @@ public class InitializeRewriter implements Function<Pair<Module, org.kframework.
         }
 
 
+        /**
+         * What a backend definition built from a mini-KORE module depends on, besides the request:
+         * the rules of the definition are built again for each request, as their terms evaluate
+         * through the {@link GlobalContext} of the request which built them.
+         */
+        private static class MiniKoreModule {
+            final MiniKoreUtils.ModuleUtils moduleUtils;
+            final Module koreModule;
+            final BuiltinFunctionTables builtinFunctions = new BuiltinFunctionTables();
+
+            MiniKoreModule(MiniKoreUtils.ModuleUtils moduleUtils, Module koreModule) {
+                this.moduleUtils = moduleUtils;
+                this.koreModule = koreModule;
+            }
+        }
+
+        /* keyed by identity, so that the entries are released with their modules */
+        private final Cache<org.kframework.kore.Module, MiniKoreModule> miniKoreCache = CacheBuilder.newBuilder()
+                .weakKeys()
+                .build();
+
         public Definition invoke(KExceptionManager kem, GlobalContext global, org.kframework.kore.Module miniKoreModule, org.kframework.kore.Definition miniKoreDefinition) {
-            MiniKoreUtils.ModuleUtils moduleUtils = new MiniKoreUtils.ModuleUtils(miniKoreModule, miniKoreDefinition);
+            MiniKoreModule cached = miniKoreCache.getIfPresent(miniKoreModule);
+            if (cached == null) {
+                MiniKoreUtils.ModuleUtils moduleUtils = new MiniKoreUtils.ModuleUtils(miniKoreModule, miniKoreDefinition);
+                //Todo: Bypass Conversion to Kore
+                Module koreModule = MiniToKore.apply(MiniKoreUtils.getOriginalModuleMap(miniKoreDefinition), JavaConversions.mapAsScalaMap(new HashMap<String, Module>()), miniKoreModule);
+                cached = new MiniKoreModule(moduleUtils, koreModule);
+                miniKoreCache.put(miniKoreModule, cached);
+            }
+            MiniKoreUtils.ModuleUtils moduleUtils = cached.moduleUtils;
             Definition definition = new Definition(moduleUtils, kem);
+            definition.setBuiltinFunctionTables(cached.builtinFunctions);
 
             global.setDefinition(definition);
 
@@ -257,11 +430,8 @@ public class InitializeRewriter implements Function<Pair<Module, org.kframework.
                     .map(l -> KLabelConstant.of(l, definition))
                     .forEach(definition::addKLabel);
 
-            //Todo: Bypass Conversion to Kore
-            Module koreModule = MiniToKore.apply(MiniKoreUtils.getOriginalModuleMap(miniKoreDefinition), JavaConversions.mapAsScalaMap(new HashMap<String, Module>()), miniKoreModule);
-
             //TODO: Change add KoreRules and the converter to use MiniKore
-            definition.addKoreRules(koreModule, global);
+            definition.addKoreRules(cached.koreModule, global);
             return definition;
         }
 
@@ -4,6 +4,7 @@ package org.kframework.backend.java.symbolic;
 import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.backend.java.builtins.BitVector;
 import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.builtins.BytesToken;
 import org.kframework.backend.java.builtins.FloatToken;
 import org.kframework.backend.java.builtins.IntToken;
 import org.kframework.backend.java.builtins.UninterpretedToken;
@@ -19,6 +20,7 @@ import org.kframework.backend.java.kil.SMTLibTerm;
 import org.kframework.backend.java.kil.Sort;
 import org.kframework.backend.java.kil.SortSignature;
 import org.kframework.backend.java.kil.Term;
+import org.kframework.backend.java.kil.Token;
 import org.kframework.backend.java.kil.Variable;
 import org.kframework.builtin.Sorts;
 import org.kframework.kil.ASTNode;
@@ -29,12 +31,17 @@ import org.kframework.kil.UserList;
 
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -117,6 +124,12 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
             "bv2int",
             /* bit vector extras */
             "mint_signed_of_unsigned",
+            /* z3 sequence theory, used for bytes */
+            "seq.++",
+            "seq.len",
+            "seq.unit",
+            "seq.extract",
+            "seq.nth",
             /* string theory */
             "string_lt",
             "string_le",
@@ -171,26 +184,85 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
             "smt_bool2int");
 
     public static String translateConstraint(ConjunctiveFormula constraint) {
-        KILtoSMTLib kil2SMT = new KILtoSMTLib(true, constraint.globalContext());
+        return translateConstraint(constraint, false);
+    }
+
+    /**
+     * Translates the given constraint into an SMT-LIB query.
+     *
+     * @param renameVariables if {@code true}, the variables are renamed in the order in which they
+     *                        occur, so that alpha-equivalent constraints have the same translation
+     */
+    public static String translateConstraint(ConjunctiveFormula constraint, boolean renameVariables) {
+        return translateConstraint(constraint, renameVariables, null).toString();
+    }
+
+    /**
+     * Translates the given constraint into an SMT-LIB query.
+     *
+     * @param renameVariables        if {@code true}, the variables are renamed in the order in
+     *                               which they occur, so that alpha-equivalent constraints have the
+     *                               same translation
+     * @param definitionDeclarations if not {@code null}, the query omits these declarations, which
+     *                               must be sent to the solver separately
+     */
+    public static SMTLibQuery translateConstraint(
+            ConjunctiveFormula constraint,
+            boolean renameVariables,
+            DefinitionDeclarations definitionDeclarations) {
+        KILtoSMTLib kil2SMT = new KILtoSMTLib(true, constraint.globalContext(), renameVariables ? new HashMap<>() : null, definitionDeclarations);
         String expression = kil2SMT.translate(constraint).expression();
-        return kil2SMT.getSortAndFunctionDeclarations(kil2SMT.variables())
-                + kil2SMT.getAxioms()
-                + kil2SMT.getConstantDeclarations(kil2SMT.variables())
-                + "(assert " + expression + ")";
+        return new SMTLibQuery(
+                kil2SMT.getDeclarations(kil2SMT.variables()),
+                kil2SMT.getConstantDeclarations(kil2SMT.variables()) + "(assert " + expression + ")");
     }
 
     public static String translateImplication(
             ConjunctiveFormula leftHandSide,
             ConjunctiveFormula rightHandSide,
             Set<Variable> rightHandSideOnlyVariables) {
-        KILtoSMTLib leftTransformer = new KILtoSMTLib(true, leftHandSide.globalContext());
-        KILtoSMTLib rightTransformer = new KILtoSMTLib(false, rightHandSide.globalContext());
+        return translateImplication(leftHandSide, rightHandSide, rightHandSideOnlyVariables, false);
+    }
+
+    /**
+     * Translates the implication {@code leftHandSide => rightHandSide} into an SMT-LIB query which
+     * is unsatisfiable iff the implication holds.
+     *
+     * @param renameVariables if {@code true}, the variables are renamed in the order in which they
+     *                        occur, so that alpha-equivalent implications have the same translation
+     */
+    public static String translateImplication(
+            ConjunctiveFormula leftHandSide,
+            ConjunctiveFormula rightHandSide,
+            Set<Variable> rightHandSideOnlyVariables,
+            boolean renameVariables) {
+        return translateImplication(leftHandSide, rightHandSide, rightHandSideOnlyVariables, renameVariables, null).toString();
+    }
+
+    /**
+     * Translates the implication {@code leftHandSide => rightHandSide} into an SMT-LIB query which
+     * is unsatisfiable iff the implication holds.
+     *
+     * @param renameVariables        if {@code true}, the variables are renamed in the order in
+     *                               which they occur, so that alpha-equivalent implications have
+     *                               the same translation
+     * @param definitionDeclarations if not {@code null}, the query omits these declarations, which
+     *                               must be sent to the solver separately
+     */
+    public static SMTLibQuery translateImplication(
+            ConjunctiveFormula leftHandSide,
+            ConjunctiveFormula rightHandSide,
+            Set<Variable> rightHandSideOnlyVariables,
+            boolean renameVariables,
+            DefinitionDeclarations definitionDeclarations) {
+        Map<Variable, String> variableNames = renameVariables ? new HashMap<>() : null;
+        KILtoSMTLib leftTransformer = new KILtoSMTLib(true, leftHandSide.globalContext(), variableNames, definitionDeclarations);
+        KILtoSMTLib rightTransformer = new KILtoSMTLib(false, rightHandSide.globalContext(), variableNames, definitionDeclarations);
         String leftExpression = leftTransformer.translate(leftHandSide).expression();
         String rightExpression = rightTransformer.translate(rightHandSide).expression();
+        String declarations = leftTransformer.getDeclarations(
+                Sets.union(leftTransformer.variables(), rightTransformer.variables()));
         StringBuilder sb = new StringBuilder();
-        sb.append(leftTransformer.getSortAndFunctionDeclarations(
-                Sets.union(leftTransformer.variables(), rightTransformer.variables())));
-        sb.append(leftTransformer.getAxioms());
         sb.append(leftTransformer.getConstantDeclarations(Sets.difference(
                 Sets.union(leftTransformer.variables(), rightTransformer.variables()),
                 rightHandSideOnlyVariables)));
@@ -210,7 +282,63 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
             sb.append(")");
         }
         sb.append(")))");
-        return sb.toString();
+        return new SMTLibQuery(declarations, sb.toString());
+    }
+
+    /**
+     * Translates the SMT-LIB declarations of the sorts and functions of the definition of the
+     * given context, and its lemmas, so that they can be sent once to a solver session instead of
+     * with every query.
+     */
+    public static DefinitionDeclarations translateDefinition(GlobalContext global) {
+        KILtoSMTLib kil2SMT = new KILtoSMTLib(false, global.getDefinition(), global.krunOptions, null, null);
+        List<KLabelConstant> functions = kil2SMT.getFunctions();
+        Set<Sort> sorts = kil2SMT.getFunctionSorts(functions);
+        String declarations = kil2SMT.getSortDeclarations(sorts)
+                + kil2SMT.getFunctionDeclarations(functions)
+                + kil2SMT.getAxioms();
+        return new DefinitionDeclarations(declarations, sorts);
+    }
+
+    /**
+     * An SMT-LIB query, split into the declarations of the sorts, functions and lemmas it needs,
+     * which are mostly the same for all the queries on a definition, and the declarations of its
+     * variables followed by its assertions.
+     */
+    public static class SMTLibQuery {
+
+        public final String declarations;
+        public final String assertions;
+
+        private SMTLibQuery(String declarations, String assertions) {
+            this.declarations = declarations;
+            this.assertions = assertions;
+        }
+
+        @Override
+        public String toString() {
+            return declarations + assertions;
+        }
+    }
+
+    /**
+     * The SMT-LIB declarations shared by all the queries on a definition, together with a cache
+     * of the translations of the ground function applications which recur across queries.
+     */
+    public static class DefinitionDeclarations {
+
+        private static final int TERM_CACHE_SIZE = 1 << 16;
+
+        public final String declarations;
+        private final Set<Sort> declaredSorts;
+        private final Cache<KItem, String> termTranslations = CacheBuilder.newBuilder()
+                .maximumSize(TERM_CACHE_SIZE)
+                .build();
+
+        private DefinitionDeclarations(String declarations, Set<Sort> declaredSorts) {
+            this.declarations = declarations;
+            this.declaredSorts = declaredSorts;
+        }
     }
 
     private final Definition definition;
@@ -224,20 +352,83 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
     private final HashSet<Variable> variables;
     private final HashMap<Term, Variable> termAbstractionMap = Maps.newHashMap();
     private final HashMap<UninterpretedToken, Integer> tokenEncoding;
+    /**
+     * The names given to the variables in the translation, or {@code null} if the variables keep
+     * their own names.
+     */
+    private final Map<Variable, String> variableNames;
+    /**
+     * The declarations omitted from the translation, or {@code null} if the translation is
+     * self-contained.
+     */
+    private final DefinitionDeclarations definitionDeclarations;
+    /**
+     * Number of uninterpreted tokens translated so far; the translation of a term containing
+     * uninterpreted tokens depends on the other terms in the query, so it is not cached.
+     */
+    private int uninterpretedTokenCount = 0;
 
     public KILtoSMTLib(boolean skipEqualities, GlobalContext global) {
-        this(skipEqualities, global.getDefinition(), global.krunOptions);
+        this(skipEqualities, global, null, null);
+    }
+
+    private KILtoSMTLib(
+            boolean skipEqualities,
+            GlobalContext global,
+            Map<Variable, String> variableNames,
+            DefinitionDeclarations definitionDeclarations) {
+        this(skipEqualities, global.getDefinition(), global.krunOptions, variableNames, definitionDeclarations);
     }
 
-    private KILtoSMTLib(boolean skipEqualities, Definition definition, KRunOptions krunOptions) {
+    private KILtoSMTLib(
+            boolean skipEqualities,
+            Definition definition,
+            KRunOptions krunOptions,
+            Map<Variable, String> variableNames,
+            DefinitionDeclarations definitionDeclarations) {
         this.definition = definition;
         this.krunOptions = krunOptions;
         this.skipEqualities = skipEqualities;
+        this.variableNames = variableNames;
+        this.definitionDeclarations = definitionDeclarations;
         variables = new HashSet<>();
         tokenEncoding = new HashMap<>();
     }
 
+    private String name(Variable variable) {
+        if (variableNames == null) {
+            return variable.name();
+        }
+        return variableNames.computeIfAbsent(variable, v -> "__v" + variableNames.size());
+    }
+
+    /**
+     * Returns the given variables ordered by their names in the translation.
+     */
+    private List<Variable> sortedByName(Set<Variable> variables) {
+        return variables.stream()
+                .sorted(Comparator.comparing(this::name))
+                .collect(Collectors.toList());
+    }
+
     private SMTLibTerm translate(JavaSymbolicObject object) {
+        if (definitionDeclarations != null && object instanceof KItem && ((KItem) object).isGround()) {
+            KItem kItem = (KItem) object;
+            String expression = definitionDeclarations.termTranslations.getIfPresent(kItem);
+            if (expression != null) {
+                return new SMTLibTerm(expression);
+            }
+            int count = uninterpretedTokenCount;
+            SMTLibTerm result = translateWithoutCache(kItem);
+            if (uninterpretedTokenCount == count) {
+                definitionDeclarations.termTranslations.put(kItem, result.expression());
+            }
+            return result;
+        }
+        return translateWithoutCache(object);
+    }
+
+    private SMTLibTerm translateWithoutCache(JavaSymbolicObject object) {
         ASTNode astNode = object.accept(this);
         if (astNode instanceof SMTLibTerm) {
             return (SMTLibTerm) astNode;
@@ -246,30 +437,67 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
         }
     }
 
-    private String getSortAndFunctionDeclarations(Set<Variable> variables) {
-        Set<Sort> sorts = new HashSet<>();
+    /**
+     * Returns the declarations needed by a query over the given variables, other than the
+     * declarations of the variables themselves.
+     */
+    private String getDeclarations(Set<Variable> variables) {
+        if (definitionDeclarations != null) {
+            return getSortDeclarations(Sets.difference(getVariableSorts(variables), definitionDeclarations.declaredSorts));
+        }
+        List<KLabelConstant> functions = getFunctions();
+        return getSortDeclarations(Sets.union(getFunctionSorts(functions), getVariableSorts(variables)))
+                + getFunctionDeclarations(functions)
+                + getAxioms();
+    }
+
+    /**
+     * Returns the functions of the definition which are translated into uninterpreted SMT-LIB
+     * functions.
+     */
+    private List<KLabelConstant> getFunctions() {
         List<KLabelConstant> functions = new ArrayList<>();
         for (KLabelConstant kLabel : definition.kLabels()) {
             String smtlib = kLabel.getAttr(Attribute.SMTLIB_KEY);
             if (smtlib != null && !SMTLIB_BUILTIN_FUNCTIONS.contains(smtlib) && !smtlib.startsWith("(")) {
                 functions.add(kLabel);
-                assert kLabel.signatures().size() == 1;
-                SortSignature signature = kLabel.signatures().iterator().next();
-                sorts.add(renameSort(signature.result()));
-                signature.parameters().stream()
-                        .map(this::renameSort)
-                        .forEach(sorts::add);
             }
         }
+        return functions;
+    }
+
+    private Set<Sort> getFunctionSorts(List<KLabelConstant> functions) {
+        Set<Sort> sorts = new HashSet<>();
+        for (KLabelConstant kLabel : functions) {
+            assert kLabel.signatures().size() == 1;
+            SortSignature signature = kLabel.signatures().iterator().next();
+            sorts.add(renameSort(signature.result()));
+            signature.parameters().stream()
+                    .map(this::renameSort)
+                    .forEach(sorts::add);
+        }
+        return sorts;
+    }
+
+    private Set<Sort> getVariableSorts(Set<Variable> variables) {
+        Set<Sort> sorts = new HashSet<>();
         for (Variable variable : variables) {
             sorts.add(renameSort(variable.sort()));
         }
+        return sorts;
+    }
 
+    private String getSortDeclarations(Set<Sort> sorts) {
         StringBuilder sb = new StringBuilder();
 
-        for (Sort sort : Sets.difference(sorts, SMTLIB_BUILTIN_SORTS)) {
+        List<Sort> declaredSorts = Sets.difference(sorts, SMTLIB_BUILTIN_SORTS).stream()
+                .sorted(Comparator.comparing(Sort::name))
+                .collect(Collectors.toList());
+        for (Sort sort : declaredSorts) {
             if (sort.name().equals("Map@MAP") && krunOptions.experimental.smt.mapAsIntArray) {
                 sb.append("(define-sort Map () (Array Int Int))");
+            } else if (sort == Sort.BYTES) {
+                sb.append("(define-sort Bytes () (Seq (_ BitVec 8)))\n");
             } else {
                 sb.append("(declare-sort ");
                 sb.append(renameSort(sort).localName());
@@ -277,6 +505,12 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
             }
         }
 
+        return sb.toString();
+    }
+
+    private String getFunctionDeclarations(List<KLabelConstant> functions) {
+        StringBuilder sb = new StringBuilder();
+
         for (KLabelConstant kLabel : functions) {
             sb.append("(declare-fun ");
             sb.append(kLabel.getAttr(Attribute.SMTLIB_KEY));
@@ -299,7 +533,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
         for (Rule rule : definition.functionRules().values()) {
             if (rule.containsAttribute(Attribute.SMT_LEMMA_KEY)) {
                 try {
-                    KILtoSMTLib kil2SMT = new KILtoSMTLib(false, definition, krunOptions);
+                    KILtoSMTLib kil2SMT = new KILtoSMTLib(false, definition, krunOptions, variableNames != null ? new HashMap<>() : null, null);
                     String leftExpression = kil2SMT.translate(rule.leftHandSide()).expression();
                     String rightExpression = kil2SMT.translate(rule.rightHandSide()).expression();
                     sb.append("(assert ");
@@ -329,10 +563,10 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
 
     private String getConstantDeclarations(Set<Variable> variables) {
         StringBuilder sb = new StringBuilder();
-        for (Variable variable : variables) {
+        for (Variable variable : sortedByName(variables)) {
             sb.append("(declare-fun ");
             // TODO(AndreiS): make sure variable names are SMTLib compliant
-            sb.append(variable.name());
+            sb.append(name(variable));
             sb.append(" () ");
             String sortName;
             sortName = getSortName(variable);
@@ -344,10 +578,10 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
 
     private String getQuantifiedVariables(Set<Variable> variables) {
         StringBuilder sb = new StringBuilder();
-        for (Variable variable : variables) {
+        for (Variable variable : sortedByName(variables)) {
             sb.append("(");
             // TODO(AndreiS): make sure variable names are SMTLib compliant
-            sb.append(variable.name());
+            sb.append(name(variable));
             sb.append(" ");
             String sortName;
             sortName = getSortName(variable);
@@ -408,7 +642,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
     @Override
     public ASTNode transform(ConjunctiveFormula constraint) {
         assert constraint.disjunctions().isEmpty() : "disjunctions are not supported by SMT translation";
-        Set<Equality> equalities = Sets.newHashSet(constraint.equalities());
+        Set<Equality> equalities = Sets.newLinkedHashSet(constraint.equalities());
         if (!skipEqualities) {
             constraint.substitution().entrySet().stream()
                     .map(entry -> new Equality(entry.getKey(), entry.getValue(), constraint.globalContext()))
@@ -459,7 +693,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
                     variable = Variable.getAnonVariable(term.sort());
                     termAbstractionMap.put(term, variable);
                 }
-                return variable.name();
+                return name(variable);
             } else {
                 throw e;
             }
@@ -538,7 +772,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
         switch (label) {
             case "exists":
                 Variable variable = (Variable) kList.get(0);
-                label = "exists ((" + variable.name() + " " + variable.sort() + ")) ";
+                label = "exists ((" + name(variable) + " " + variable.sort() + ")) ";
                 arguments = ImmutableList.of(kList.get(1));
                 break;
             case "extract":
@@ -601,8 +835,27 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
         return new SMTLibTerm(sb.toString());
     }
 
+    @Override
+    public ASTNode transform(Token token) {
+        if (!(token instanceof BytesToken)) {
+            return super.transform(token);
+        }
+        BytesToken bytesToken = (BytesToken) token;
+        if (bytesToken.length() == 0) {
+            return new SMTLibTerm("(as seq.empty Bytes)");
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(bytesToken.length() > 1 ? "(seq.++" : "");
+        for (int i = 0; i < bytesToken.length(); i++) {
+            sb.append(String.format(" (seq.unit #x%02x)", bytesToken.get(i)));
+        }
+        sb.append(bytesToken.length() > 1 ? ")" : "");
+        return new SMTLibTerm(sb.toString().trim());
+    }
+
     @Override
     public ASTNode transform(UninterpretedToken uninterpretedToken) {
+        uninterpretedTokenCount++;
         if (tokenEncoding.get(uninterpretedToken) == null) {
             tokenEncoding.put(uninterpretedToken, tokenEncoding.size());
         }
@@ -617,7 +870,7 @@ public class KILtoSMTLib extends CopyOnWriteTransformer {
     @Override
     public ASTNode transform(Variable variable) {
         variables.add(variable);
-        return new SMTLibTerm(variable.name());
+        return new SMTLibTerm(name(variable));
     }
 
 }
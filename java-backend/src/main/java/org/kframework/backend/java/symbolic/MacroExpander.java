@@ -11,6 +11,7 @@ import org.kframework.backend.java.kil.Rule;
 import org.kframework.backend.java.kil.Term;
 import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.RuleProfiler;
 import org.kframework.utils.errorsystem.KExceptionManager;
 
 import com.google.common.collect.Lists;
@@ -122,17 +123,30 @@ public class MacroExpander extends CopyOnWriteTransformer {
     }
 
     private Term applyMacroRule(Term term) {
+        RuleProfiler profiler = context.global().ruleProfiler;
         for (Rule rule : context.definition().macros()) {
-            Map<Variable, Term> solution;
-            List<Substitution<Variable, Term>> matches = PatternMatcher.match(term, rule, context);
-            if (matches.isEmpty()) {
-                continue;
-            } else {
-                assert matches.size() == 1 : "unexpected non-deterministic macro " + rule;
-                solution = matches.get(0);
+            if (profiler != null) {
+                profiler.enterAttempt(rule);
             }
-            if (solution != null) {
-                return rule.rightHandSide().substituteAndEvaluate(solution, context);
+            try {
+                Map<Variable, Term> solution;
+                List<Substitution<Variable, Term>> matches = PatternMatcher.match(term, rule, context);
+                if (matches.isEmpty()) {
+                    continue;
+                } else {
+                    assert matches.size() == 1 : "unexpected non-deterministic macro " + rule;
+                    solution = matches.get(0);
+                }
+                if (solution != null) {
+                    if (profiler != null) {
+                        profiler.applied(rule);
+                    }
+                    return rule.rightHandSide().substituteAndEvaluate(solution, context);
+                }
+            } finally {
+                if (profiler != null) {
+                    profiler.exit();
+                }
             }
         }
 
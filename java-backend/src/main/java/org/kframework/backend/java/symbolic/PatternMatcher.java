@@ -8,6 +8,7 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.kframework.backend.java.kil.*;
 import org.kframework.backend.java.util.RewriteEngineUtils;
+import org.kframework.backend.java.util.RuleProfiler;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -115,7 +116,16 @@ public class PatternMatcher extends AbstractUnifier {
             return Collections.emptyList();
         }
 
-        return RewriteEngineUtils.evaluateConditions(rule, matcher.substitutions(), context);
+        RuleProfiler profiler = context.global().ruleProfiler;
+        if (profiler == null) {
+            return RewriteEngineUtils.evaluateConditions(rule, matcher.substitutions(), context);
+        }
+        profiler.matched(rule);
+        List<Substitution<Variable, Term>> results = RewriteEngineUtils.evaluateConditions(rule, matcher.substitutions(), context);
+        if (results.isEmpty()) {
+            profiler.sideConditionFailed(rule);
+        }
+        return results;
     }
 
     public PatternMatcher(boolean matchOnFunctionSymbol, boolean disjointVariables, TermContext context) {
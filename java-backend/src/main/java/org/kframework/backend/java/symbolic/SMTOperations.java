@@ -1,16 +1,25 @@
 // Copyright (c) 2015-2016 K Team. All Rights Reserved.
 package org.kframework.backend.java.symbolic;
 
+import org.kframework.kil.Attribute;
 import org.kframework.main.GlobalOptions;
 import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.GlobalContext;
+import org.kframework.backend.java.kil.Rule;
 import org.kframework.backend.java.kil.Variable;
+import org.kframework.backend.java.util.SMTQueryCache;
 import org.kframework.backend.java.util.Z3Wrapper;
+import org.kframework.utils.BinaryLoader;
 import org.kframework.utils.errorsystem.KExceptionManager;
+import org.kframework.utils.file.FileUtil;
 import org.kframework.utils.options.SMTOptions;
 import org.kframework.utils.options.SMTSolver;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Set;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.inject.Provider;
 
 public class SMTOperations {
@@ -19,17 +28,28 @@ public class SMTOperations {
     private final Z3Wrapper         z3;
     private final GlobalOptions     global;
     private final KExceptionManager kem;
+    private final FileUtil          files;
+    private final Provider<Definition> definitionProvider;
+
+    private final SMTQueryCache     cache;
+    private volatile boolean        cacheFileLoaded = false;
+    private String                  cacheFileFingerprint;
+    private volatile KILtoSMTLib.DefinitionDeclarations definitionDeclarations;
 
     public SMTOperations(
             Provider<Definition> definitionProvider,
             SMTOptions smtOptions,
             Z3Wrapper z3,
             KExceptionManager kem,
-            GlobalOptions global) {
+            GlobalOptions global,
+            FileUtil files) {
+        this.definitionProvider = definitionProvider;
         this.smtOptions = smtOptions;
         this.z3         = z3;
         this.kem        = kem;
         this.global     = global;
+        this.files      = files;
+        this.cache      = new SMTQueryCache(smtOptions.smtCacheSize);
     }
 
     public boolean checkUnsat(ConjunctiveFormula constraint) {
@@ -43,8 +63,9 @@ public class SMTOperations {
 
         boolean result = false;
         try {
-            String query = KILtoSMTLib.translateConstraint(constraint);
-            result = z3.isUnsat(query, smtOptions.z3CnstrTimeout);
+            KILtoSMTLib.DefinitionDeclarations declarations = definitionDeclarations(constraint.globalContext());
+            KILtoSMTLib.SMTLibQuery query = KILtoSMTLib.translateConstraint(constraint, true, declarations);
+            result = isUnsat(declarations, query, smtOptions.z3CnstrTimeout);
             if (result && RuleAuditing.isAuditBegun()) {
                 System.err.println("SMT query returned unsat: " + query);
             }
@@ -63,8 +84,10 @@ public class SMTOperations {
             Set<Variable> rightOnlyVariables) {
         if (smtOptions.smt == SMTSolver.Z3) {
             try {
-                return z3.isUnsat(
-                        KILtoSMTLib.translateImplication(left, right, rightOnlyVariables),
+                KILtoSMTLib.DefinitionDeclarations declarations = definitionDeclarations(left.globalContext());
+                return isUnsat(
+                        declarations,
+                        KILtoSMTLib.translateImplication(left, right, rightOnlyVariables, true, declarations),
                         smtOptions.z3ImplTimeout);
             } catch (UnsupportedOperationException | SMTTranslationFailure e) {
                 if (!smtOptions.ignoreMissingSMTLibWarning) {
@@ -77,4 +100,93 @@ public class SMTOperations {
         }
         return false;
     }
+
+    /**
+     * Returns the SMT-LIB declarations of the definition with {@code --smt-incremental}, or
+     * {@code null} if each query carries its own declarations.
+     */
+    private KILtoSMTLib.DefinitionDeclarations definitionDeclarations(GlobalContext global) {
+        if (!smtOptions.smtIncremental) {
+            return null;
+        }
+        if (definitionDeclarations == null) {
+            synchronized (this) {
+                if (definitionDeclarations == null) {
+                    definitionDeclarations = KILtoSMTLib.translateDefinition(global);
+                }
+            }
+        }
+        return definitionDeclarations;
+    }
+
+    /**
+     * Checks the given query with Z3, reusing the result of an earlier identical query if any.
+     * The results of the queries on a definition are only reused for the same definition, so the
+     * declarations omitted from the query are not part of the key, and the declarations of the
+     * query, which are mostly those of the definition, are only part of it through their hash.
+     * Only the queries found sat or unsat are cached: an unknown result, e.g. of a timeout or of
+     * a crash of Z3, is not reused.
+     */
+    private boolean isUnsat(KILtoSMTLib.DefinitionDeclarations declarations, KILtoSMTLib.SMTLibQuery query, int timeout) {
+        if (smtOptions.smtCacheFile != null && !cacheFileLoaded) {
+            loadCacheFile();
+        }
+        String key = Hashing.sha256().hashString(query.declarations, StandardCharsets.UTF_8) + "\n" + query.assertions;
+        Boolean result = cache.get(key, timeout);
+        if (result == null) {
+            Z3Wrapper.Result z3Result = z3.check(declarations != null ? declarations.declarations : "", query.toString(), timeout);
+            result = z3Result == Z3Wrapper.Result.UNSAT;
+            if (z3Result != Z3Wrapper.Result.UNKNOWN) {
+                cache.put(key, timeout, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the results saved by previous runs from the file given by {@code --smt-cache-file}.
+     * They are saved back to it by {@link #close}.
+     */
+    private synchronized void loadCacheFile() {
+        if (cacheFileLoaded) {
+            return;
+        }
+        cacheFileFingerprint = fingerprint(definitionProvider.get());
+        cache.load(files.resolveWorkingDirectory(smtOptions.smtCacheFile), cacheFileFingerprint, new BinaryLoader(kem));
+        cacheFileLoaded = true;
+    }
+
+    /**
+     * Saves the results to the file given by {@code --smt-cache-file}, if it was loaded, and
+     * releases the Z3 sessions kept between the queries of a run, once it is done. The file is
+     * replaced at once, so that the runs saving it concurrently do not corrupt it.
+     */
+    public void close() {
+        synchronized (this) {
+            if (cacheFileLoaded) {
+                cache.save(files.resolveWorkingDirectory(smtOptions.smtCacheFile), cacheFileFingerprint, new BinaryLoader(kem));
+            }
+        }
+        z3.close();
+    }
+
+    /**
+     * Returns a hash of the SMT prelude and of the SMT-LIB declarations and lemmas of the given
+     * definition, on which the results of the queries depend.
+     */
+    private String fingerprint(Definition definition) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(z3.SMT_PRELUDE, StandardCharsets.UTF_8);
+        definition.kLabels().stream()
+                .filter(kLabel -> kLabel.getAttr(Attribute.SMTLIB_KEY) != null)
+                .map(kLabel -> kLabel + " " + kLabel.getAttr(Attribute.SMTLIB_KEY))
+                .sorted()
+                .forEach(s -> hasher.putString(s, StandardCharsets.UTF_8));
+        definition.functionRules().values().stream()
+                .filter(rule -> rule.containsAttribute(Attribute.SMT_LEMMA_KEY))
+                .map(Rule::toString)
+                .sorted()
+                .forEach(s -> hasher.putString(s, StandardCharsets.UTF_8));
+        return hasher.hash().toString();
+    }
 }
@@ -24,6 +24,8 @@ import org.kframework.backend.java.kil.TermContext;
 import org.kframework.backend.java.kil.Variable;
 import org.kframework.backend.java.strategies.TransitionCompositeStrategy;
 import org.kframework.backend.java.util.JavaKRunState;
+import org.kframework.backend.java.util.Profiler;
+import org.kframework.backend.java.util.RuleProfiler;
 import org.kframework.builtin.KLabels;
 import org.kframework.kil.ASTNode;
 import org.kframework.frontend.FindK;
@@ -33,7 +35,9 @@ import org.kframework.frontend.KORE;
 import org.kframework.krun.api.KRunState;
 import org.kframework.rewriter.SearchType;
 import org.kframework.utils.BitSet;
+import org.kframework.utils.errorsystem.KEMException;
 
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -42,7 +46,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * @author AndreiS
@@ -54,10 +64,14 @@ public class SymbolicRewriter {
     private final Stopwatch stopwatch = Stopwatch.createUnstarted();
     private final KOREtoBackendKIL constructor;
     private boolean transition;
-    private final Set<ConstrainedTerm> superheated = Sets.newHashSet();
-    private final Set<ConstrainedTerm> newSuperheated = Sets.newHashSet();
+    private final Set<ConstrainedTerm> superheated = Sets.newConcurrentHashSet();
+    private final Set<ConstrainedTerm> newSuperheated = Sets.newConcurrentHashSet();
     private final KRunState.Counter counter;
     private final FastRuleMatcher theFastMatcher;
+    /**
+     * {@link FastRuleMatcher} is stateful, so each worker thread of a parallel search gets its own.
+     */
+    private final ThreadLocal<FastRuleMatcher> workerFastMatchers;
     private final Definition definition;
     private final BitSet allRuleBits;
 
@@ -71,9 +85,20 @@ public class SymbolicRewriter {
         this.strategy = new TransitionCompositeStrategy(transitions);
         this.transitions = transitions;
         this.theFastMatcher = new FastRuleMatcher(global, definition.ruleTable.size());
+        this.workerFastMatchers = ThreadLocal.withInitial(() -> new FastRuleMatcher(global, definition.ruleTable.size()));
         this.transition = true;
     }
 
+    /**
+     * Stops the rewriting if its thread was interrupted, e.g. on a timeout of ktest or of the API.
+     * This is only checked between steps, so a step which does not terminate is not stopped.
+     */
+    private static void checkInterrupted(int step) {
+        if (Thread.interrupted()) {
+            throw new CancellationException("Rewriting was interrupted after " + step + " steps");
+        }
+    }
+
     public KOREtoBackendKIL getConstructor() {
         return constructor;
     }
@@ -86,6 +111,7 @@ public class SymbolicRewriter {
             /* get the first solution */
             constrainedTerm = results.get(0);
             step++;
+            checkInterrupted(step);
         }
 
         ConstrainedTerm afterVariableRename = new ConstrainedTerm(new RenameAnonymousVariables().apply(constrainedTerm.term()), constrainedTerm.termContext());
@@ -95,11 +121,32 @@ public class SymbolicRewriter {
         stopwatch.stop();
         if (afterVariableRename.termContext().global().krunOptions.experimental.statistics) {
             System.err.println("[" + step + ", " + stopwatch + " ]");
+            if (Profiler.MEMO_HIT_COUNTER.sum() + Profiler.MEMO_MISS_COUNTER.sum() > 0) {
+                System.err.println(Profiler.memoStatistics());
+            }
+            if (Profiler.SMT_CACHE_HIT_COUNTER.sum() + Profiler.SMT_CACHE_MISS_COUNTER.sum() > 0) {
+                System.err.println(Profiler.smtCacheStatistics());
+            }
+            if (Profiler.HASH_CONS_HIT_COUNTER.sum() + Profiler.HASH_CONS_MISS_COUNTER.sum() > 0) {
+                System.err.println(Profiler.hashConsStatistics());
+            }
+            System.err.println(Profiler.internPoolStatistics());
         }
+        writeRuleProfile(afterVariableRename.termContext().global());
 
         return finalState;
     }
 
+    /**
+     * Writes the profile of the rules applied so far with {@code --profile-rules}, replacing the
+     * one written by the previous execution, if any, since the profile accumulates.
+     */
+    private void writeRuleProfile(GlobalContext global) {
+        if (global.ruleProfiler != null) {
+            global.ruleProfiler.write(definition, global.files, global.krunOptions.experimental.profileRules);
+        }
+    }
+
     private List<ConstrainedTerm> computeRewriteStep(ConstrainedTerm constrainedTerm, int step, boolean computeOne) {
         return fastComputeRewriteStep(constrainedTerm, computeOne, false, false);
     }
@@ -155,78 +202,210 @@ public class SymbolicRewriter {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * The number of fresh constants reserved for each term of a level expanded in parallel.
+     */
+    private static final BigInteger FRESH_CONSTANTS_PER_TERM = BigInteger.valueOf(1 << 10);
+
+    /**
+     * The successors of a term computed by {@link #computeRewriteSteps}, in a fork of its
+     * {@link TermContext}.
+     */
+    private static class ForkedRewriteStep {
+        final TermContext fork;
+        /* the value of the fresh counter when the context was forked, or null if it has none */
+        final BigInteger initialCounter;
+        final List<ConstrainedTerm> results;
+
+        ForkedRewriteStep(TermContext fork, BigInteger initialCounter, List<ConstrainedTerm> results) {
+            this.fork = fork;
+            this.initialCounter = initialCounter;
+            this.results = results;
+        }
+    }
+
+    /**
+     * Computes in parallel the given step of each of the given terms, and returns the results in
+     * the order of the terms. The step of each term is computed in a fork of its
+     * {@link TermContext} which generates the fresh constants of its own range, so the results
+     * computed in parallel never share a fresh constant, although they may not be the ones the
+     * sequential exploration generates. The {@link TermContext} of each term is then advanced past
+     * the constants generated by its fork. The step of a term which runs out of its range is
+     * computed again, sequentially, once the counters are past all the ranges.
+     *
+     * @param step computes the step of a term with the given {@link FastRuleMatcher}; it may
+     *             return {@code null}
+     */
+    private List<List<ConstrainedTerm>> computeRewriteSteps(
+            List<ConstrainedTerm> terms,
+            BiFunction<ConstrainedTerm, FastRuleMatcher, List<ConstrainedTerm>> step,
+            ForkJoinPool pool) {
+        List<ConstrainedTerm> indexedTerms = new ArrayList<>(terms);
+        List<ForkedRewriteStep> forkedSteps = parallelMap(
+                IntStream.range(0, indexedTerms.size()).boxed().collect(Collectors.toList()),
+                index -> {
+                    ConstrainedTerm term = indexedTerms.get(index);
+                    TermContext fork = term.termContext().fork(
+                            FRESH_CONSTANTS_PER_TERM.multiply(BigInteger.valueOf(index)));
+                    BigInteger initialCounter = fork != term.termContext() ? fork.getCounterValue() : null;
+                    return new ForkedRewriteStep(fork, initialCounter, step.apply(
+                            new ConstrainedTerm(term.term(), term.constraint(), fork),
+                            workerFastMatchers.get()));
+                },
+                pool);
+
+        List<List<ConstrainedTerm>> results = new ArrayList<>(forkedSteps.size());
+        List<Integer> overflows = new ArrayList<>();
+        for (int i = 0; i < forkedSteps.size(); i++) {
+            ForkedRewriteStep forkedStep = forkedSteps.get(i);
+            if (forkedStep.initialCounter == null) {
+                results.add(forkedStep.results);
+                continue;
+            }
+
+            TermContext context = indexedTerms.get(i).termContext();
+            context.join(forkedStep.fork);
+            if (forkedStep.fork.getCounterValue().subtract(forkedStep.initialCounter)
+                    .compareTo(FRESH_CONSTANTS_PER_TERM) > 0) {
+                /* the constants of the fork may belong to the range of the next term */
+                overflows.add(i);
+                results.add(null);
+            } else if (forkedStep.results != null) {
+                results.add(forkedStep.results.stream()
+                        .map(result -> result.termContext() == forkedStep.fork ?
+                                new ConstrainedTerm(result.term(), result.constraint(), context) :
+                                result)
+                        .collect(Collectors.toList()));
+            } else {
+                results.add(null);
+            }
+        }
+        for (int i : overflows) {
+            results.set(i, step.apply(indexedTerms.get(i), theFastMatcher));
+        }
+        return results;
+    }
+
+    /**
+     * Applies the given function to the given elements in parallel on the given pool, and returns
+     * the results in the order of the elements.
+     */
+    static <T, R> List<R> parallelMap(List<T> elements, Function<T, R> function, ForkJoinPool pool) {
+        try {
+            return pool.submit(() -> elements.parallelStream()
+                    .map(function)
+                    .collect(Collectors.toList()))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw KEMException.criticalError("Interrupted during parallel rewriting", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw KEMException.criticalError("Error during parallel rewriting", e.getCause());
+        }
+    }
+
     public List<ConstrainedTerm> fastComputeRewriteStep(ConstrainedTerm subject, boolean computeOne, boolean narrowing, boolean proofFlag) {
+        return fastComputeRewriteStep(subject, computeOne, narrowing, proofFlag, theFastMatcher);
+    }
+
+    private List<ConstrainedTerm> fastComputeRewriteStep(ConstrainedTerm subject, boolean computeOne, boolean narrowing, boolean proofFlag, FastRuleMatcher fastMatcher) {
         List<ConstrainedTerm> results = new ArrayList<>();
         if (definition.automaton == null) {
             return results;
         }
-        List<FastRuleMatcher.RuleMatchResult> matches = theFastMatcher.matchRulePattern(
-                subject,
-                definition.automaton.leftHandSide(),
-                allRuleBits,
-                narrowing,
-                computeOne,
-                transitions,
-                proofFlag,
-                subject.termContext());
+        RuleProfiler profiler = subject.termContext().global().ruleProfiler;
+        if (profiler != null) {
+            profiler.enterMatch();
+        }
+        List<FastRuleMatcher.RuleMatchResult> matches;
+        try {
+            matches = fastMatcher.matchRulePattern(
+                    subject,
+                    definition.automaton.leftHandSide(),
+                    allRuleBits,
+                    narrowing,
+                    computeOne,
+                    transitions,
+                    proofFlag,
+                    subject.termContext());
+        } finally {
+            if (profiler != null) {
+                profiler.exit();
+            }
+        }
         for (FastRuleMatcher.RuleMatchResult matchResult : matches) {
             Rule rule = definition.ruleTable.get(matchResult.ruleIndex);
-            Substitution<Variable, Term> substitution =
-                    rule.containsAttribute(Att.refers_THIS_CONFIGURATION()) ?
-                            matchResult.constraint.substitution().plus(new Variable(KLabels.THIS_CONFIGURATION, Sort.KSEQUENCE), filterOurStrategyCell(subject.term())) :
-                            matchResult.constraint.substitution();
-            // start the optimized substitution
-
-            // get a map from AST paths to (fine-grained, inner) rewrite RHSs
-            assert (matchResult.rewrites.size() > 0);
-            Term theNew;
-            if (matchResult.rewrites.size() == 1)
-            // use the more efficient implementation if we only have one rewrite
-            {
-                theNew = buildRHS(subject.term(), substitution, matchResult.rewrites.keySet().iterator().next(),
-                        matchResult.rewrites.values().iterator().next(), subject.termContext());
-            } else {
-                theNew = buildRHS(subject.term(), substitution,
-                        matchResult.rewrites.entrySet().stream().map(e -> Pair.of(e.getKey(), e.getValue())).collect(Collectors.toList()),
-                        subject.termContext());
+            if (profiler != null) {
+                profiler.enter(rule);
             }
+            try {
+                Substitution<Variable, Term> substitution =
+                        rule.containsAttribute(Att.refers_THIS_CONFIGURATION()) ?
+                                matchResult.constraint.substitution().plus(new Variable(KLabels.THIS_CONFIGURATION, Sort.KSEQUENCE), filterOurStrategyCell(subject.term())) :
+                                matchResult.constraint.substitution();
+                // start the optimized substitution
+
+                // get a map from AST paths to (fine-grained, inner) rewrite RHSs
+                assert (matchResult.rewrites.size() > 0);
+                Term theNew;
+                if (matchResult.rewrites.size() == 1)
+                // use the more efficient implementation if we only have one rewrite
+                {
+                    theNew = buildRHS(subject.term(), substitution, matchResult.rewrites.keySet().iterator().next(),
+                            matchResult.rewrites.values().iterator().next(), subject.termContext());
+                } else {
+                    theNew = buildRHS(subject.term(), substitution,
+                            matchResult.rewrites.entrySet().stream().map(e -> Pair.of(e.getKey(), e.getValue())).collect(Collectors.toList()),
+                            subject.termContext());
+                }
 
-            if (!matchResult.isMatching) {
-                theNew = theNew.substituteAndEvaluate(substitution, subject.termContext());
-            }
+                if (!matchResult.isMatching) {
+                    theNew = theNew.substituteAndEvaluate(substitution, subject.termContext());
+                }
 
-            subject.termContext().setTopConstraint(null);
+                subject.termContext().setTopConstraint(null);
 
-            theNew = restoreConfigurationIfNecessary(subject, rule, theNew);
+                theNew = restoreConfigurationIfNecessary(subject, rule, theNew);
 
-            /* eliminate bindings of the substituted variables */
-            ConjunctiveFormula constraint = matchResult.constraint;
-            constraint = constraint.removeBindings(rule.variableSet());
+                /* eliminate bindings of the substituted variables */
+                ConjunctiveFormula constraint = matchResult.constraint;
+                constraint = constraint.removeBindings(rule.variableSet());
 
-            /* get fresh substitutions of rule variables */
-            Map<Variable, Variable> renameSubst = Variable.rename(rule.variableSet());
+                /* get fresh substitutions of rule variables */
+                Map<Variable, Variable> renameSubst = Variable.rename(rule.variableSet());
 
-            /* rename rule variables in both the term and the constraint */
-            theNew = theNew.substituteWithBinders(renameSubst);
-            constraint = ((ConjunctiveFormula) constraint.substituteWithBinders(renameSubst)).simplify(subject.termContext());
+                /* rename rule variables in both the term and the constraint */
+                theNew = theNew.substituteWithBinders(renameSubst);
+                constraint = ((ConjunctiveFormula) constraint.substituteWithBinders(renameSubst)).simplify(subject.termContext());
+
+                ConstrainedTerm result = new ConstrainedTerm(theNew, constraint, subject.termContext());
+                if (!matchResult.isMatching) {
+                    // TODO(AndreiS): move these some other place
+                    result = result.expandPatterns(true);
+                    if (result.constraint().isFalse() || result.constraint().checkUnsat()) {
+                        continue;
+                    }
+                }
 
-            ConstrainedTerm result = new ConstrainedTerm(theNew, constraint, subject.termContext());
-            if (!matchResult.isMatching) {
-                // TODO(AndreiS): move these some other place
-                result = result.expandPatterns(true);
-                if (result.constraint().isFalse() || result.constraint().checkUnsat()) {
+                /* TODO(AndreiS): remove this hack for super strictness after strategies work */
+                if (rule.containsAttribute(Att.heat()) && transitions.stream().anyMatch(rule::containsAttribute)) {
+                    newSuperheated.add(result);
+                } else if (rule.containsAttribute(Att.cool()) && transitions.stream().anyMatch(rule::containsAttribute) && superheated.contains(subject)) {
                     continue;
                 }
-            }
 
-            /* TODO(AndreiS): remove this hack for super strictness after strategies work */
-            if (rule.containsAttribute(Att.heat()) && transitions.stream().anyMatch(rule::containsAttribute)) {
-                newSuperheated.add(result);
-            } else if (rule.containsAttribute(Att.cool()) && transitions.stream().anyMatch(rule::containsAttribute) && superheated.contains(subject)) {
-                continue;
+                if (profiler != null) {
+                    profiler.applied(rule);
+                }
+                results.add(result);
+            } finally {
+                if (profiler != null) {
+                    profiler.exit();
+                }
             }
-
-            results.add(result);
         }
 
         if (results.isEmpty()) {
@@ -303,12 +482,8 @@ public class SymbolicRewriter {
                 return KItem.of(kItemSubject.kLabel(), KList.concatenate(newContents), context.global()).applyAnywhereRules(context);
             } else if (subject instanceof BuiltinList) {
                 BuiltinList builtinListSubject = (BuiltinList) subject;
-                List<Term> newContents = new ArrayList<>(builtinListSubject.children);
-                newContents.set(path.head().getLeft(), buildRHS(newContents.get(path.head().getLeft()), substitution, (scala.collection.immutable.List<Pair<Integer, Integer>>) path.tail(), rhs, context));
-                return BuiltinList
-                        .builder(builtinListSubject.sort, builtinListSubject.operatorKLabel, builtinListSubject.unitKLabel, builtinListSubject.globalContext())
-                        .addAll(newContents)
-                        .build();
+                int index = path.head().getLeft();
+                return builtinListSubject.with(index, buildRHS(builtinListSubject.get(index), substitution, (scala.collection.immutable.List<Pair<Integer, Integer>>) path.tail(), rhs, context));
             } else {
                 throw new AssertionError("unexpected rewrite in subject: " + subject);
             }
@@ -326,14 +501,31 @@ public class SymbolicRewriter {
 
         Map<Pair<Integer, Integer>, List<Pair<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>>> commonPath = rewrites.stream().collect(Collectors.groupingBy(rw -> rw.getLeft().head()));
 
-        List<Term> contents;
-        if (subject instanceof KItem) {
-            contents = ((KList) ((KItem) subject).kList()).getContents();
-        } else if (subject instanceof BuiltinList) {
-            contents = ((BuiltinList) subject).children;
-        } else {
+        if (subject instanceof BuiltinList) {
+            /* only rebuild the rewritten positions; the rest of the list is shared */
+            BuiltinList builtinListSubject = (BuiltinList) subject;
+            BuiltinList.Builder builder = BuiltinList.builder(builtinListSubject.sort, builtinListSubject.operatorKLabel, builtinListSubject.unitKLabel, builtinListSubject.globalContext());
+            List<Pair<Integer, Integer>> positions = commonPath.keySet().stream()
+                    .filter(pair -> pair.getRight() == pair.getLeft() + 1)
+                    .sorted()
+                    .collect(Collectors.toList());
+            int unchangedBegin = 0;
+            for (Pair<Integer, Integer> pair : positions) {
+                int i = pair.getLeft();
+                List<Pair<scala.collection.immutable.List<Pair<Integer, Integer>>, Term>> theInnerRewrites = commonPath.get(pair).stream().map(p -> Pair.of(
+                        (scala.collection.immutable.List<Pair<Integer, Integer>>) p.getLeft().tail(), p.getRight())).collect(Collectors.toList());
+                builder.add(builtinListSubject.range(unchangedBegin, i));
+                builder.add(buildRHS(builtinListSubject.get(i), substitution, theInnerRewrites, context));
+                unchangedBegin = i + 1;
+            }
+            builder.add(builtinListSubject.range(unchangedBegin, builtinListSubject.size()));
+            return builder.build();
+        }
+
+        if (!(subject instanceof KItem)) {
             throw new AssertionError("unexpected rewrite in subject: " + subject);
         }
+        List<Term> contents = ((KList) ((KItem) subject).kList()).getContents();
         List<Term> newContents = new ArrayList<>();
 
         for (int i = 0; i < contents.size(); i++) {
@@ -347,16 +539,7 @@ public class SymbolicRewriter {
             }
         }
 
-        if (subject instanceof KItem) {
-            return KItem.of(((KItem) subject).kLabel(), KList.concatenate(newContents), context.global()).applyAnywhereRules(context);
-        } else if (subject instanceof BuiltinList) {
-            return BuiltinList
-                    .builder(((BuiltinList) subject).sort, ((BuiltinList) subject).operatorKLabel, ((BuiltinList) subject).unitKLabel, ((BuiltinList) subject).globalContext())
-                    .addAll(newContents)
-                    .build();
-        } else {
-            throw new AssertionError("unexpected rewrite in subject: " + subject);
-        }
+        return KItem.of(((KItem) subject).kLabel(), KList.concatenate(newContents), context.global()).applyAnywhereRules(context);
     }
 
     /**
@@ -456,6 +639,11 @@ public class SymbolicRewriter {
      * @param depth       a negative javaBackendValue specifies no bound
      * @param searchType  defines when we will attempt to match the pattern
      * @return a list of substitution mappings for results that matched the pattern
+     * <p>
+     * If {@code --search-threads} is greater than 1, the terms of each level of the search are
+     * rewritten in parallel, but their successors are visited in the same order and with the
+     * same fresh constants as in the sequential search, so the results are the same as with a
+     * single thread.
      */
 
     public K search(
@@ -503,57 +691,84 @@ public class SymbolicRewriter {
             }
         }
 
+        int searchThreads = context.global().krunOptions.experimental.searchThreads;
+        ForkJoinPool pool = searchThreads > 1 ? new ForkJoinPool(searchThreads) : null;
+
         int step;
-    label:
-        for (step = 0; !queue.isEmpty(); ++step) {
-            superheated.clear();
-            superheated.addAll(newSuperheated);
-            newSuperheated.clear();
-            for (Map.Entry<ConstrainedTerm, Integer> entry : queue.entrySet()) {
-                ConstrainedTerm term = entry.getKey();
-                Integer currentDepth = entry.getValue();
-
-                List<ConstrainedTerm> results = computeRewriteStep(term, step, false);
-
-                if (results.isEmpty() && searchType == SearchType.FINAL) {
-                    if (addSearchResult(searchResults, term, pattern, bound, context, substitution)) {
-                        break label;
+        try {
+        label:
+            for (step = 0; !queue.isEmpty(); ++step) {
+                checkInterrupted(step);
+                superheated.clear();
+                superheated.addAll(newSuperheated);
+                newSuperheated.clear();
+                List<List<ConstrainedTerm>> successors = pool != null ?
+                        computeRewriteSteps(
+                                new ArrayList<>(queue.keySet()),
+                                (term, fastMatcher) -> fastComputeRewriteStep(term, false, false, false, fastMatcher),
+                                pool) :
+                        null;
+                int index = 0;
+                for (Map.Entry<ConstrainedTerm, Integer> entry : queue.entrySet()) {
+                    ConstrainedTerm term = entry.getKey();
+                    Integer currentDepth = entry.getValue();
+
+                    List<ConstrainedTerm> results = successors != null ?
+                            successors.get(index++) :
+                            computeRewriteStep(term, step, false);
+
+                    if (results.isEmpty() && searchType == SearchType.FINAL) {
+                        if (addSearchResult(searchResults, term, pattern, bound, context, substitution)) {
+                            break label;
+                        }
                     }
-                }
 
-                for (ConstrainedTerm result : results) {
-                    if (!transition) {
-                        nextQueue.put(result, currentDepth);
-                        break;
-                    } else {
-                        // Continue searching if we haven't reached our target
-                        // depth and we haven't already visited this state.
-                        if (currentDepth + 1 != depth && visited.add(result)) {
-                            nextQueue.put(result, currentDepth + 1);
-                        }
-                        // If we aren't searching for only final results, then
-                        // also add this as a result if it matches the pattern.
-                        if (searchType != SearchType.FINAL || currentDepth + 1 == depth) {
-                            if (addSearchResult(searchResults, result, pattern, bound, context, substitution)) {
-                                break label;
+                    for (ConstrainedTerm result : results) {
+                        if (!transition) {
+                            nextQueue.put(result, currentDepth);
+                            break;
+                        } else {
+                            // Continue searching if we haven't reached our target
+                            // depth and we haven't already visited this state.
+                            if (currentDepth + 1 != depth && visited.add(result)) {
+                                nextQueue.put(result, currentDepth + 1);
+                            }
+                            // If we aren't searching for only final results, then
+                            // also add this as a result if it matches the pattern.
+                            if (searchType != SearchType.FINAL || currentDepth + 1 == depth) {
+                                if (addSearchResult(searchResults, result, pattern, bound, context, substitution)) {
+                                    break label;
+                                }
                             }
                         }
                     }
                 }
-            }
 
-            /* swap the queues */
-            Map<ConstrainedTerm, Integer> temp;
-            temp = queue;
-            queue = nextQueue;
-            nextQueue = temp;
-            nextQueue.clear();
+                /* swap the queues */
+                Map<ConstrainedTerm, Integer> temp;
+                temp = queue;
+                queue = nextQueue;
+                nextQueue = temp;
+                nextQueue.clear();
+            }
+        } finally {
+            if (pool != null) {
+                pool.shutdown();
+            }
         }
 
         stopwatch.stop();
         if (context.global().krunOptions.experimental.statistics) {
             System.err.println("[" + visited.size() + "states, " + step + "steps, " + stopwatch + "]");
+            if (Profiler.SMT_CACHE_HIT_COUNTER.sum() + Profiler.SMT_CACHE_MISS_COUNTER.sum() > 0) {
+                System.err.println(Profiler.smtCacheStatistics());
+            }
+            if (Profiler.HASH_CONS_HIT_COUNTER.sum() + Profiler.HASH_CONS_MISS_COUNTER.sum() > 0) {
+                System.err.println(Profiler.hashConsStatistics());
+            }
+            System.err.println(Profiler.internPoolStatistics());
         }
+        writeRuleProfile(context.global());
         return disjunctResults(searchResults);
     }
 
@@ -595,86 +810,55 @@ public class SymbolicRewriter {
             ConstrainedTerm initialTerm,
             ConstrainedTerm targetTerm,
             List<Rule> specRules) {
+        return proveRule(initialTerm, targetTerm, specRules, null);
+    }
+
+    /**
+     * Proves the reachability rule from {@code initialTerm} to {@code targetTerm}, returning the
+     * final terms which do not imply {@code targetTerm}. If {@code pool} is not {@code null},
+     * the terms of each level of the proof are expanded in parallel on it, as described in
+     * {@link #computeRewriteSteps}; the successors are still visited in the same order as in the
+     * sequential exploration.
+     */
+    public List<ConstrainedTerm> proveRule(
+            ConstrainedTerm initialTerm,
+            ConstrainedTerm targetTerm,
+            List<Rule> specRules,
+            ForkJoinPool pool) {
         List<ConstrainedTerm> proofResults = new ArrayList<>();
         Set<ConstrainedTerm> visited = new HashSet<>();
         List<ConstrainedTerm> queue = new ArrayList<>();
         List<ConstrainedTerm> nextQueue = new ArrayList<>();
 
-        initialTerm = initialTerm.expandPatterns(true);
+        ConstrainedTerm expandedInitialTerm = initialTerm.expandPatterns(true);
 
-        visited.add(initialTerm);
-        queue.add(initialTerm);
+        visited.add(expandedInitialTerm);
+        queue.add(expandedInitialTerm);
         boolean guarded = false;
         int step = 0;
         while (!queue.isEmpty()) {
+            checkInterrupted(step);
             step++;
-            for (ConstrainedTerm term : queue) {
-                if (term.implies(targetTerm)) {
-                    continue;
-                }
-
-                /* TODO(AndreiS): terminate the proof with failure based on the klabel _~>_
-                List<Term> leftKContents = term.term().getCellContentsByName("<k>");
-                List<Term> rightKContents = targetTerm.term().getCellContentsByName("<k>");
-                // TODO(YilongL): the `get(0)` seems hacky
-                if (leftKContents.size() == 1 && rightKContents.size() == 1) {
-                    Pair<Term, Variable> leftKPattern = KSequence.splitContentAndFrame(leftKContents.get(0));
-                    Pair<Term, Variable> rightKPattern = KSequence.splitContentAndFrame(rightKContents.get(0));
-                    if (leftKPattern.getRight() != null && rightKPattern.getRight() != null
-                            && leftKPattern.getRight().equals(rightKPattern.getRight())) {
-                        BoolToken matchable = MetaK.matchable(
-                                leftKPattern.getLeft(),
-                                rightKPattern.getLeft(),
-                                term.termContext());
-                        if (matchable != null && matchable.booleanValue()) {
-                            proofResults.add(term);
-                            continue;
-                        }
-                    }
-                }*/
-
-                if (guarded) {
-                    ConstrainedTerm result = applySpecRules(term, specRules);
-                    if (result != null) {
-                        if (visited.add(result))
-                            nextQueue.add(result);
-                        continue;
-                    }
-                }
-
-                List<ConstrainedTerm> results = fastComputeRewriteStep(term, false, true, true);
-                if (results.isEmpty()) {
+            boolean applySpecRules = guarded;
+            List<List<ConstrainedTerm>> successors = pool != null ?
+                    computeRewriteSteps(
+                            queue,
+                            (term, fastMatcher) -> proofStep(
+                                    term, expandedInitialTerm, targetTerm, specRules, applySpecRules, fastMatcher),
+                            pool) :
+                    null;
+            for (int i = 0; i < queue.size(); i++) {
+                ConstrainedTerm term = queue.get(i);
+                List<ConstrainedTerm> results = successors != null ?
+                        successors.get(i) :
+                        proofStep(term, expandedInitialTerm, targetTerm, specRules, applySpecRules, theFastMatcher);
+                if (results == null) {
                     /* final term */
                     proofResults.add(term);
-                } else {
-//                    for (Rule rule : appliedRules) {
-//                        System.err.println(rule.getLocation() + " " + rule.getSource());
-//                    }
-
-                    /* add helper rule */
-                    HashSet<Variable> ruleVariables = new HashSet<>(initialTerm.variableSet());
-                    ruleVariables.addAll(targetTerm.variableSet());
-
-                    /*
-                    rules.add(new Rule(
-                            term.term().substitute(freshSubstitution, definition),
-                            targetTerm.term().substitute(freshSubstitution, definition),
-                            term.constraint().substitute(freshSubstitution, definition),
-                            Collections.<Variable>emptyList(),
-                            new SymbolicConstraint(definition).substitute(freshSubstitution, definition),
-                            IndexingPair.getIndexingPair(term.term()),
-                            new Attributes()));
-                     */
+                    continue;
                 }
 
-                for (ConstrainedTerm cterm : results) {
-                    ConstrainedTerm result = new ConstrainedTerm(
-                            cterm.term(),
-                            cterm.constraint().removeBindings(
-                                    Sets.difference(
-                                            cterm.constraint().substitution().keySet(),
-                                            initialTerm.variableSet())),
-                            cterm.termContext());
+                for (ConstrainedTerm result : results) {
                     if (visited.add(result)) {
                         nextQueue.add(result);
                     }
@@ -693,6 +877,85 @@ public class SymbolicRewriter {
         return proofResults;
     }
 
+    /**
+     * Computes the successors of a term during the proof of a reachability rule.
+     *
+     * @return an empty list if the term implies the target term, {@code null} if the term is
+     * final, or the successors of the term otherwise
+     */
+    private List<ConstrainedTerm> proofStep(
+            ConstrainedTerm term,
+            ConstrainedTerm initialTerm,
+            ConstrainedTerm targetTerm,
+            List<Rule> specRules,
+            boolean guarded,
+            FastRuleMatcher fastMatcher) {
+        if (term.implies(targetTerm)) {
+            return Collections.emptyList();
+        }
+
+        /* TODO(AndreiS): terminate the proof with failure based on the klabel _~>_
+        List<Term> leftKContents = term.term().getCellContentsByName("<k>");
+        List<Term> rightKContents = targetTerm.term().getCellContentsByName("<k>");
+        // TODO(YilongL): the `get(0)` seems hacky
+        if (leftKContents.size() == 1 && rightKContents.size() == 1) {
+            Pair<Term, Variable> leftKPattern = KSequence.splitContentAndFrame(leftKContents.get(0));
+            Pair<Term, Variable> rightKPattern = KSequence.splitContentAndFrame(rightKContents.get(0));
+            if (leftKPattern.getRight() != null && rightKPattern.getRight() != null
+                    && leftKPattern.getRight().equals(rightKPattern.getRight())) {
+                BoolToken matchable = MetaK.matchable(
+                        leftKPattern.getLeft(),
+                        rightKPattern.getLeft(),
+                        term.termContext());
+                if (matchable != null && matchable.booleanValue()) {
+                    proofResults.add(term);
+                    continue;
+                }
+            }
+        }*/
+
+        if (guarded) {
+            ConstrainedTerm result = applySpecRules(term, specRules);
+            if (result != null) {
+                return Collections.singletonList(result);
+            }
+        }
+
+        List<ConstrainedTerm> results = fastComputeRewriteStep(term, false, true, true, fastMatcher);
+        if (results.isEmpty()) {
+            return null;
+        }
+
+//        for (Rule rule : appliedRules) {
+//            System.err.println(rule.getLocation() + " " + rule.getSource());
+//        }
+
+        /* add helper rule */
+        HashSet<Variable> ruleVariables = new HashSet<>(initialTerm.variableSet());
+        ruleVariables.addAll(targetTerm.variableSet());
+
+        /*
+        rules.add(new Rule(
+                term.term().substitute(freshSubstitution, definition),
+                targetTerm.term().substitute(freshSubstitution, definition),
+                term.constraint().substitute(freshSubstitution, definition),
+                Collections.<Variable>emptyList(),
+                new SymbolicConstraint(definition).substitute(freshSubstitution, definition),
+                IndexingPair.getIndexingPair(term.term()),
+                new Attributes()));
+         */
+
+        return results.stream()
+                .map(cterm -> new ConstrainedTerm(
+                        cterm.term(),
+                        cterm.constraint().removeBindings(
+                                Sets.difference(
+                                        cterm.constraint().substitution().keySet(),
+                                        initialTerm.variableSet())),
+                        cterm.termContext()))
+                .collect(Collectors.toList());
+    }
+
     /**
      * Applies the first applicable specification rule and returns the result.
      */
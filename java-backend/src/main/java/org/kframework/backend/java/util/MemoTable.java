@@ -0,0 +1,58 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import org.apache.commons.lang3.tuple.Pair;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Term;
+import org.kframework.krun.KRunOptions;
+
+/**
+ * Bounded table of the results of evaluating functions tagged with the "memo" attribute
+ * on concrete arguments. When the table is full, the least recently used entries are evicted.
+ * <p>
+ * Hits, misses and evictions are counted by {@link Profiler}.
+ */
+public class MemoTable {
+
+    public static final int DEFAULT_MAXIMUM_SIZE = KRunOptions.Experimental.DEFAULT_MEMO_TABLE_SIZE;
+
+    private final Cache<Pair<KLabelConstant, KList>, Term> cache;
+
+    public MemoTable(long maximumSize) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .<Pair<KLabelConstant, KList>, Term>removalListener(notification -> {
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        Profiler.MEMO_EVICTION_COUNTER.increment();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the cached result of applying the given function to the given arguments, or
+     * {@code null} if there is none.
+     */
+    public Term get(KLabelConstant kLabel, KList kList) {
+        Term result = cache.getIfPresent(Pair.of(kLabel, kList));
+        if (result != null) {
+            Profiler.MEMO_HIT_COUNTER.increment();
+        } else {
+            Profiler.MEMO_MISS_COUNTER.increment();
+        }
+        return result;
+    }
+
+    public void put(KLabelConstant kLabel, KList kList, Term result) {
+        cache.put(Pair.of(kLabel, kList), result);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+}
@@ -7,9 +7,14 @@ import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.commons.collections4.comparators.ReverseComparator;
+import org.kframework.backend.java.builtins.FloatToken;
+import org.kframework.backend.java.builtins.StringToken;
+import org.kframework.backend.java.builtins.UninterpretedToken;
 import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.Sort;
 
 import com.google.common.base.Stopwatch;
 
@@ -44,6 +49,25 @@ public class Profiler {
 
     public static final ReentrantStopwatch DEEP_CLONE_TIMER                 =   new ReentrantStopwatch("Deep clone");
 
+    /**
+     * Counters of the {@link MemoTable} of functions tagged with "memo"; always enabled.
+     */
+    public static final LongAdder MEMO_HIT_COUNTER = new LongAdder();
+    public static final LongAdder MEMO_MISS_COUNTER = new LongAdder();
+    public static final LongAdder MEMO_EVICTION_COUNTER = new LongAdder();
+
+    /**
+     * Counters of the {@link SMTQueryCache}; always enabled.
+     */
+    public static final LongAdder SMT_CACHE_HIT_COUNTER = new LongAdder();
+    public static final LongAdder SMT_CACHE_MISS_COUNTER = new LongAdder();
+
+    /**
+     * Counters of the {@link org.kframework.backend.java.kil.TermInterner}; always enabled.
+     */
+    public static final LongAdder HASH_CONS_HIT_COUNTER = new LongAdder();
+    public static final LongAdder HASH_CONS_MISS_COUNTER = new LongAdder();
+
     private static final Map<KLabelConstant, ReentrantStopwatch> FUNCTION_PROFILING_TIMERS = new HashMap<>();
 
     public static ReentrantStopwatch getTimerForFunction(KLabelConstant klabel) {
@@ -89,6 +113,10 @@ public class Profiler {
                     REWRITE_WITH_UNKOMPILED_RULES_TIMER);
             System.err.println(QUERY_RULE_INDEXING_TIMER);
             System.err.println(DEEP_CLONE_TIMER);
+            System.err.println(memoStatistics());
+            System.err.println(smtCacheStatistics());
+            System.err.println(hashConsStatistics());
+            System.err.println(internPoolStatistics());
             System.err.println("Top 10 most expensive functions:");
             SortedSet<ReentrantStopwatch> sorted = new TreeSet<>(new ReverseComparator<>());
             synchronized (FUNCTION_PROFILING_TIMERS) {
@@ -102,6 +130,40 @@ public class Profiler {
         }
     }
 
+    public static String memoStatistics() {
+        return String.format("Memoized functions: %d hits, %d misses, %d evictions",
+                MEMO_HIT_COUNTER.sum(), MEMO_MISS_COUNTER.sum(), MEMO_EVICTION_COUNTER.sum());
+    }
+
+    public static String smtCacheStatistics() {
+        long hits = SMT_CACHE_HIT_COUNTER.sum();
+        long misses = SMT_CACHE_MISS_COUNTER.sum();
+        return String.format("SMT query cache: %d hits, %d misses, %.1f%% hit rate",
+                hits, misses, hits + misses > 0 ? 100.0 * hits / (hits + misses) : 0.0);
+    }
+
+    /**
+     * Reports the sizes of the pools of unique tokens, labels and sorts. The token pools release
+     * the tokens which are no longer used, so their sizes show the live interned tokens (and the
+     * collected ones not yet removed).
+     */
+    public static String internPoolStatistics() {
+        return String.format("Intern pools: %d strings, %d floats, %d uninterpreted tokens, %d klabels, %d sorts",
+                StringToken.cacheSize(), FloatToken.cacheSize(), UninterpretedToken.cacheSize(),
+                KLabelConstant.cacheSize(), Sort.cacheSize());
+    }
+
+    /**
+     * Reports how many ground terms were interned, and how many of them were duplicates of an
+     * already shared instance, which were released instead of being kept in the configuration.
+     */
+    public static String hashConsStatistics() {
+        long hits = HASH_CONS_HIT_COUNTER.sum();
+        long misses = HASH_CONS_MISS_COUNTER.sum();
+        return String.format("Hash-consing: %d shared terms, %d duplicates released, %.1f%% sharing ratio",
+                misses, hits, hits + misses > 0 ? 100.0 * hits / (hits + misses) : 0.0);
+    }
+
     private static class ReentrantStopwatch implements Comparable<ReentrantStopwatch> {
 
         private final String name;
@@ -0,0 +1,423 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable list represented as a height-balanced binary tree whose leaves are small arrays
+ * (a rope). All modifications return a new {@code RopeVector} that shares structure with the
+ * original one:
+ * <ul>
+ * <li>{@link #get}, {@link #with}, {@link #plus} and {@link #plusFirst} take O(log n) time</li>
+ * <li>{@link #concat} and {@link #subList} take O(log n) time and do not copy the elements</li>
+ * <li>iteration takes O(n) time</li>
+ * </ul>
+ * The hash code follows the contract of {@link List#hashCode()} and is cached per tree node, so
+ * that the hash code of an updated list is computed in O(log n) time.
+ *
+ * @param <E> the type of the elements
+ */
+public final class RopeVector<E> extends AbstractList<E> implements Serializable {
+
+    /**
+     * Maximum number of elements stored in a single leaf.
+     */
+    private static final int CHUNK_SIZE = 32;
+
+    private static final RopeVector<?> EMPTY = new RopeVector<>(new Leaf(new Object[0]));
+
+    @SuppressWarnings("unchecked")
+    public static <E> RopeVector<E> empty() {
+        return (RopeVector<E>) EMPTY;
+    }
+
+    public static <E> RopeVector<E> singleton(E e) {
+        return new RopeVector<>(new Leaf(new Object[]{e}));
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E> RopeVector<E> from(Collection<? extends E> collection) {
+        if (collection instanceof RopeVector) {
+            return (RopeVector<E>) collection;
+        }
+        return fromArray(collection.toArray());
+    }
+
+    private static <E> RopeVector<E> fromArray(Object[] elements) {
+        if (elements.length == 0) {
+            return empty();
+        }
+        return new RopeVector<>(build(elements, 0, elements.length));
+    }
+
+    private static Node build(Object[] elements, int begin, int end) {
+        if (end - begin <= CHUNK_SIZE) {
+            return new Leaf(Arrays.copyOfRange(elements, begin, end));
+        }
+        int middle = (begin + end) >>> 1;
+        return new Concat(build(elements, begin, middle), build(elements, middle, end));
+    }
+
+    private final Node root;
+
+    private RopeVector(Node root) {
+        this.root = root;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkElementIndex(index);
+        Node node = root;
+        while (node instanceof Concat) {
+            Concat concat = (Concat) node;
+            if (index < concat.left.size) {
+                node = concat.left;
+            } else {
+                index -= concat.left.size;
+                node = concat.right;
+            }
+        }
+        return (E) ((Leaf) node).elements[index];
+    }
+
+    @Override
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * Returns a new list with the element at the given position replaced by {@code e}.
+     */
+    public RopeVector<E> with(int index, E e) {
+        checkElementIndex(index);
+        return new RopeVector<>(with(root, index, e));
+    }
+
+    private static Node with(Node node, int index, Object e) {
+        if (node instanceof Leaf) {
+            Object[] elements = ((Leaf) node).elements.clone();
+            elements[index] = e;
+            return new Leaf(elements);
+        }
+        Concat concat = (Concat) node;
+        if (index < concat.left.size) {
+            return new Concat(with(concat.left, index, e), concat.right);
+        } else {
+            return new Concat(concat.left, with(concat.right, index - concat.left.size, e));
+        }
+    }
+
+    /**
+     * Returns a new list with {@code e} appended at the end.
+     */
+    public RopeVector<E> plus(E e) {
+        return new RopeVector<>(concat(root, new Leaf(new Object[]{e})));
+    }
+
+    /**
+     * Returns a new list with {@code e} inserted at the beginning.
+     */
+    public RopeVector<E> plusFirst(E e) {
+        return new RopeVector<>(concat(new Leaf(new Object[]{e}), root));
+    }
+
+    /**
+     * Returns a new list with all the elements of the given collection appended at the end.
+     */
+    public RopeVector<E> plusAll(Collection<? extends E> collection) {
+        return concat(RopeVector.<E>from(collection));
+    }
+
+    /**
+     * Returns the concatenation of this list and the given list.
+     */
+    public RopeVector<E> concat(RopeVector<? extends E> other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            @SuppressWarnings("unchecked")
+            RopeVector<E> result = (RopeVector<E>) other;
+            return result;
+        }
+        return new RopeVector<>(concat(root, other.root));
+    }
+
+    @Override
+    public RopeVector<E> subList(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size());
+        }
+        if (fromIndex == toIndex) {
+            return empty();
+        }
+        if (fromIndex == 0 && toIndex == size()) {
+            return this;
+        }
+        return new RopeVector<>(slice(root, fromIndex, toIndex));
+    }
+
+    private static Node slice(Node node, int fromIndex, int toIndex) {
+        if (fromIndex == 0 && toIndex == node.size) {
+            return node;
+        }
+        if (node instanceof Leaf) {
+            return new Leaf(Arrays.copyOfRange(((Leaf) node).elements, fromIndex, toIndex));
+        }
+        Concat concat = (Concat) node;
+        int leftSize = concat.left.size;
+        if (toIndex <= leftSize) {
+            return slice(concat.left, fromIndex, toIndex);
+        } else if (fromIndex >= leftSize) {
+            return slice(concat.right, fromIndex - leftSize, toIndex - leftSize);
+        } else {
+            return concat(
+                    slice(concat.left, fromIndex, leftSize),
+                    slice(concat.right, 0, toIndex - leftSize));
+        }
+    }
+
+    /**
+     * Returns an iterator over the elements of this list starting at the given position.
+     */
+    public Iterator<E> iterator(int fromIndex) {
+        return subList(fromIndex, size()).iterator();
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final Deque<Node> stack = new ArrayDeque<>();
+            private Object[] leaf;
+            private int index;
+
+            {
+                pushLeftmost(root);
+            }
+
+            private void pushLeftmost(Node node) {
+                while (node instanceof Concat) {
+                    stack.push(((Concat) node).right);
+                    node = ((Concat) node).left;
+                }
+                leaf = ((Leaf) node).elements;
+                index = 0;
+            }
+
+            @Override
+            public boolean hasNext() {
+                while (index == leaf.length) {
+                    if (stack.isEmpty()) {
+                        return false;
+                    }
+                    pushLeftmost(stack.pop());
+                }
+                return true;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (E) leaf[index++];
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object instanceof RopeVector) {
+            RopeVector<?> vector = (RopeVector<?>) object;
+            if (root == vector.root) {
+                return true;
+            }
+            if (size() != vector.size() || hashCode() != vector.hashCode()) {
+                return false;
+            }
+        }
+        return super.equals(object);
+    }
+
+    @Override
+    public int hashCode() {
+        return root.hashCode();
+    }
+
+    private void checkElementIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + size());
+        }
+    }
+
+    private static int height(Node node) {
+        return node instanceof Concat ? ((Concat) node).height : 0;
+    }
+
+    /**
+     * Concatenates two trees, rebalancing along the spine of the taller one.
+     */
+    private static Node concat(Node left, Node right) {
+        if (left.size == 0) {
+            return right;
+        }
+        if (right.size == 0) {
+            return left;
+        }
+        if (left instanceof Leaf && right instanceof Leaf && left.size + right.size <= CHUNK_SIZE) {
+            Object[] elements = Arrays.copyOf(((Leaf) left).elements, left.size + right.size);
+            System.arraycopy(((Leaf) right).elements, 0, elements, left.size, right.size);
+            return new Leaf(elements);
+        }
+
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            Concat concat = (Concat) left;
+            return balance(concat.left, concat(concat.right, right));
+        } else if (rightHeight > leftHeight + 1) {
+            Concat concat = (Concat) right;
+            return balance(concat(left, concat.left), concat.right);
+        } else {
+            return new Concat(left, right);
+        }
+    }
+
+    /**
+     * Creates a tree from two subtrees whose heights differ by at most two.
+     */
+    private static Node balance(Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            Concat concat = (Concat) left;
+            if (height(concat.left) >= height(concat.right)) {
+                return new Concat(concat.left, new Concat(concat.right, right));
+            } else {
+                Concat inner = (Concat) concat.right;
+                return new Concat(new Concat(concat.left, inner.left), new Concat(inner.right, right));
+            }
+        } else if (rightHeight > leftHeight + 1) {
+            Concat concat = (Concat) right;
+            if (height(concat.right) >= height(concat.left)) {
+                return new Concat(new Concat(left, concat.left), concat.right);
+            } else {
+                Concat inner = (Concat) concat.left;
+                return new Concat(new Concat(left, inner.left), new Concat(inner.right, concat.right));
+            }
+        } else {
+            return new Concat(left, right);
+        }
+    }
+
+    private static abstract class Node {
+        final int size;
+
+        /**
+         * Cached {@link List#hashCode()} of the elements of this node, and 31 to the power of
+         * {@code size}; both are computed lazily.
+         */
+        private int hashCode;
+        private int power;
+        private volatile boolean hashed;
+
+        Node(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public final int hashCode() {
+            if (!hashed) {
+                computeHash();
+            }
+            return hashCode;
+        }
+
+        final int power() {
+            if (!hashed) {
+                computeHash();
+            }
+            return power;
+        }
+
+        private void computeHash() {
+            int[] hashAndPower = computeHashAndPower();
+            hashCode = hashAndPower[0];
+            power = hashAndPower[1];
+            hashed = true;
+        }
+
+        abstract int[] computeHashAndPower();
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] elements;
+
+        Leaf(Object[] elements) {
+            super(elements.length);
+            this.elements = elements;
+        }
+
+        @Override
+        int[] computeHashAndPower() {
+            int hashCode = 1;
+            int power = 1;
+            for (Object element : elements) {
+                hashCode = 31 * hashCode + (element == null ? 0 : element.hashCode());
+                power = 31 * power;
+            }
+            return new int[]{hashCode, power};
+        }
+    }
+
+    private static final class Concat extends Node {
+        final Node left;
+        final Node right;
+        final int height;
+
+        Concat(Node left, Node right) {
+            super(left.size + right.size);
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+
+        @Override
+        int[] computeHashAndPower() {
+            /* hash(l ++ r) = hash(l) * 31^|r| + hash(r) - 31^|r| */
+            int rightPower = right.power();
+            return new int[]{
+                    left.hashCode() * rightPower + right.hashCode() - rightPower,
+                    left.power() * rightPower};
+        }
+    }
+
+    private Object writeReplace() {
+        return new SerializedForm(toArray());
+    }
+
+    private static class SerializedForm implements Serializable {
+        private final Object[] elements;
+
+        SerializedForm(Object[] elements) {
+            this.elements = elements;
+        }
+
+        private Object readResolve() {
+            return fromArray(elements);
+        }
+    }
+}
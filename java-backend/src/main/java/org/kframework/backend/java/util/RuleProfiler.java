@@ -0,0 +1,322 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.kframework.attributes.Location;
+import org.kframework.attributes.Source;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.Rule;
+import org.kframework.utils.file.FileUtil;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profiles the rules of a definition with {@code --profile-rules}: counts, for every rule, the
+ * attempts to apply it, the matches of its left-hand side, the failures of its side conditions and
+ * its applications, and measures the time spent in it.
+ * <p>
+ * The rules of the automaton are matched against a configuration all at once, so each step is an
+ * attempt of each of them; the time of that match is reported separately, as {@code [match]}, and
+ * the time of such a rule is that of its side conditions and of building its right-hand side. The
+ * time of a function rule is that of matching it, of its side conditions and of building its
+ * right-hand side, including the functions evaluated meanwhile.
+ * <p>
+ * Each thread records into counters and a call tree of its own, so that profiling does not
+ * synchronize the threads of a parallel search. The results are read once the rewriting is done,
+ * with {@link #csv} and {@link #collapsedStacks}.
+ */
+public class RuleProfiler {
+
+    /**
+     * The frame of matching the rules of the automaton against a configuration.
+     */
+    private static final String MATCH = "[match]";
+
+    /**
+     * Frames nested deeper than this, e.g. by recursive functions, are merged into their ancestor
+     * at this depth, so that the collapsed stacks stay readable.
+     */
+    private static final int MAX_DEPTH = 64;
+
+    private static class Counters {
+        long attempts;
+        long matches;
+        long sideConditionFailures;
+        long applications;
+        /**
+         * The time spent in the outermost activations of the rule, which include the nested ones.
+         */
+        long totalNanos;
+        /**
+         * The time spent in the rule itself, outside of the rules nested in it.
+         */
+        long selfNanos;
+        int active;
+
+        void add(Counters other) {
+            attempts += other.attempts;
+            matches += other.matches;
+            sideConditionFailures += other.sideConditionFailures;
+            applications += other.applications;
+            totalNanos += other.totalNanos;
+            selfNanos += other.selfNanos;
+        }
+    }
+
+    private static class Frame {
+        final Object key;
+        final Map<Object, Frame> children = new IdentityHashMap<>();
+        long selfNanos;
+
+        Frame(Object key) {
+            this.key = key;
+        }
+    }
+
+    private static class ThreadState {
+        final Map<Object, Counters> counters = new IdentityHashMap<>();
+        final Frame root = new Frame(null);
+        long automatonAttempts;
+
+        int depth;
+        Object[] keys = new Object[MAX_DEPTH];
+        Counters[] activeCounters = new Counters[MAX_DEPTH];
+        Frame[] frames = new Frame[MAX_DEPTH];
+        long[] starts = new long[MAX_DEPTH];
+        long[] childNanos = new long[MAX_DEPTH];
+
+        Counters counters(Object key) {
+            if (depth > 0 && keys[depth - 1] == key) {
+                return activeCounters[depth - 1];
+            }
+            return counters.computeIfAbsent(key, k -> new Counters());
+        }
+
+        Counters attempted(Object key) {
+            return depth > 0 && keys[depth - 1] == key ? activeCounters[depth - 1] : null;
+        }
+
+        void enter(Object key) {
+            if (depth == keys.length) {
+                keys = Arrays.copyOf(keys, depth * 2);
+                activeCounters = Arrays.copyOf(activeCounters, depth * 2);
+                frames = Arrays.copyOf(frames, depth * 2);
+                starts = Arrays.copyOf(starts, depth * 2);
+                childNanos = Arrays.copyOf(childNanos, depth * 2);
+            }
+            Frame parent = depth == 0 ? root : frames[depth - 1];
+            Frame frame = depth < MAX_DEPTH ? parent.children.computeIfAbsent(key, Frame::new) : parent;
+            Counters c = counters(key);
+            c.active++;
+            keys[depth] = key;
+            activeCounters[depth] = c;
+            frames[depth] = frame;
+            childNanos[depth] = 0;
+            starts[depth] = System.nanoTime();
+            depth++;
+        }
+
+        void exit() {
+            long elapsed = System.nanoTime() - starts[--depth];
+            long self = elapsed - childNanos[depth];
+            Counters c = activeCounters[depth];
+            if (--c.active == 0) {
+                c.totalNanos += elapsed;
+            }
+            c.selfNanos += self;
+            frames[depth].selfNanos += self;
+            keys[depth] = null;
+            activeCounters[depth] = null;
+            frames[depth] = null;
+            if (depth > 0) {
+                childNanos[depth - 1] += elapsed;
+            }
+        }
+    }
+
+    private final Collection<ThreadState> threads = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<ThreadState> state = ThreadLocal.withInitial(() -> {
+        ThreadState s = new ThreadState();
+        threads.add(s);
+        return s;
+    });
+
+    /**
+     * Starts matching the rules of the automaton against a configuration, which is an attempt of
+     * each of them. Must be followed by {@link #exit}.
+     */
+    public void enterMatch() {
+        ThreadState s = state.get();
+        s.automatonAttempts++;
+        s.enter(MATCH);
+    }
+
+    /**
+     * Starts attempting the given function, anywhere or macro rule. Must be followed by
+     * {@link #exit}.
+     */
+    public void enterAttempt(Rule rule) {
+        ThreadState s = state.get();
+        s.enter(rule);
+        s.activeCounters[s.depth - 1].attempts++;
+    }
+
+    /**
+     * Starts evaluating the side conditions of, or applying, the given rule of the automaton, whose
+     * attempts are counted by {@link #enterMatch}. Must be followed by {@link #exit}.
+     */
+    public void enter(Rule rule) {
+        state.get().enter(rule);
+    }
+
+    public void exit() {
+        state.get().exit();
+    }
+
+    /**
+     * Records that the left-hand side of the given rule matched, if it is the rule being attempted,
+     * rather than e.g. a pattern folding rule matched meanwhile.
+     */
+    public void matched(Rule rule) {
+        Counters c = state.get().attempted(rule);
+        if (c != null) {
+            c.matches++;
+        }
+    }
+
+    /**
+     * Records that the side conditions of the given rule failed, if it is the rule being attempted.
+     */
+    public void sideConditionFailed(Rule rule) {
+        Counters c = state.get().attempted(rule);
+        if (c != null) {
+            c.sideConditionFailures++;
+        }
+    }
+
+    public void applied(Rule rule) {
+        state.get().counters(rule).applications++;
+    }
+
+    private Map<Rule, Counters> merge(Collection<Rule> automatonRules) {
+        Map<Rule, Counters> merged = new IdentityHashMap<>();
+        long automatonAttempts = 0;
+        for (ThreadState s : threads) {
+            automatonAttempts += s.automatonAttempts;
+            for (Map.Entry<Object, Counters> entry : s.counters.entrySet()) {
+                if (entry.getKey() instanceof Rule) {
+                    merged.computeIfAbsent((Rule) entry.getKey(), k -> new Counters()).add(entry.getValue());
+                }
+            }
+        }
+        for (Rule rule : automatonRules) {
+            merged.computeIfAbsent(rule, k -> new Counters()).attempts += automatonAttempts;
+        }
+        return merged;
+    }
+
+    /**
+     * @param automatonRules the rules of the automaton, attempted at each step
+     * @param otherRules     the other rules to report, even if they were never attempted
+     * @return the counters and times of the rules, one line per rule, by decreasing total time
+     */
+    public String csv(Collection<Rule> automatonRules, Collection<Rule> otherRules) {
+        Map<Rule, Counters> merged = merge(automatonRules);
+        otherRules.forEach(rule -> merged.computeIfAbsent(rule, k -> new Counters()));
+        List<Map.Entry<Rule, Counters>> rows = new ArrayList<>(merged.entrySet());
+        rows.sort(Comparator.comparing((Map.Entry<Rule, Counters> e) -> e.getValue().totalNanos).reversed()
+                .thenComparing(e -> e.getValue().attempts, Comparator.reverseOrder()));
+
+        StringBuilder sb = new StringBuilder("rule,location,attempts,matches,side_condition_failures,applications,total_ms,self_ms\n");
+        for (Map.Entry<Rule, Counters> row : rows) {
+            Counters c = row.getValue();
+            sb.append(csvField(name(row.getKey()))).append(',')
+                    .append(csvField(location(row.getKey()))).append(',')
+                    .append(c.attempts).append(',')
+                    .append(c.matches).append(',')
+                    .append(c.sideConditionFailures).append(',')
+                    .append(c.applications).append(',')
+                    .append(String.format("%.3f,%.3f", c.totalNanos / 1e6, c.selfNanos / 1e6)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the call tree of the rules, in the collapsed stack format of flame graph tools: one
+     * line per path of nested rules, with the time spent in the last of them, in microseconds
+     */
+    public String collapsedStacks() {
+        StringBuilder sb = new StringBuilder();
+        for (ThreadState s : threads) {
+            for (Frame child : s.root.children.values()) {
+                appendStacks(child, "", sb);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void appendStacks(Frame frame, String prefix, StringBuilder sb) {
+        String stack = prefix + frameName(frame.key);
+        long micros = TimeUnit.NANOSECONDS.toMicros(frame.selfNanos);
+        if (micros > 0) {
+            sb.append(stack).append(' ').append(micros).append('\n');
+        }
+        for (Frame child : frame.children.values()) {
+            appendStacks(child, stack + ";", sb);
+        }
+    }
+
+    /**
+     * Writes {@link #csv} of all the rules of the given definition to {@code <prefix>.csv}, and
+     * {@link #collapsedStacks} to {@code <prefix>.folded}.
+     */
+    public void write(Definition definition, FileUtil files, String prefix) {
+        Set<Rule> otherRules = new LinkedHashSet<>();
+        otherRules.addAll(definition.functionRules().values());
+        otherRules.addAll(definition.anywhereRules().values());
+        otherRules.addAll(definition.macros());
+        FileUtil.save(files.resolveWorkingDirectory(prefix + ".csv"), csv(definition.ruleTable.values(), otherRules));
+        FileUtil.save(files.resolveWorkingDirectory(prefix + ".folded"), collapsedStacks());
+    }
+
+    private static String frameName(Object key) {
+        if (key instanceof Rule) {
+            // frames are separated by semicolons and followed by a space
+            return (name((Rule) key) + "@" + location((Rule) key)).replace(';', ',').replace(' ', '_');
+        }
+        return key.toString();
+    }
+
+    private static String name(Rule rule) {
+        if (rule.isFunction()) {
+            return rule.definedKLabel().label();
+        }
+        return rule.label() != null && !rule.label().isEmpty() ? rule.label() : "rule";
+    }
+
+    private static String location(Rule rule) {
+        Source source = rule.getSource();
+        Location location = rule.getLocation();
+        if (source == null || location == null) {
+            return "<unknown>";
+        }
+        return new File(source.source()).getName() + ":" + location.startLine() + ":" + location.startColumn();
+    }
+
+    private static String csvField(String field) {
+        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        return field;
+    }
+}
@@ -0,0 +1,90 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.kframework.utils.BinaryLoader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * Bounded, thread-safe cache of the results of SMT queries, keyed on the SMT-LIB text of the
+ * query and its timeout. When the cache is full, the least recently used entries are evicted.
+ * <p>
+ * The cache can be saved to and loaded from a file, so that the results are reused across runs.
+ * The file records a fingerprint of everything the results depend on besides the queries
+ * (e.g., the SMT prelude); entries saved with a different fingerprint are discarded on load.
+ * <p>
+ * Hits and misses are counted by {@link Profiler}.
+ */
+public class SMTQueryCache {
+
+    private final Cache<String, Boolean> cache;
+
+    public SMTQueryCache(long maximumSize) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    private static String key(String query, int timeout) {
+        return timeout + "\n" + query;
+    }
+
+    /**
+     * Returns the cached result of the given query, or {@code null} if there is none.
+     */
+    public Boolean get(String query, int timeout) {
+        Boolean result = cache.getIfPresent(key(query, timeout));
+        if (result != null) {
+            Profiler.SMT_CACHE_HIT_COUNTER.increment();
+        } else {
+            Profiler.SMT_CACHE_MISS_COUNTER.increment();
+        }
+        return result;
+    }
+
+    public void put(String query, int timeout, boolean result) {
+        cache.put(key(query, timeout), result);
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * Adds to this cache the entries saved in the given file with the given fingerprint. Does
+     * nothing if the file does not exist or was saved with another fingerprint.
+     */
+    public void load(File file, String fingerprint, BinaryLoader loader) {
+        if (!file.exists()) {
+            return;
+        }
+        try {
+            SavedCache saved = loader.load(SavedCache.class, file);
+            if (saved.fingerprint.equals(fingerprint)) {
+                cache.putAll(saved.entries);
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            /* an unreadable cache file is treated as an empty one */
+        }
+    }
+
+    public void save(File file, String fingerprint, BinaryLoader loader) {
+        loader.saveOrDie(file, new SavedCache(fingerprint, new HashMap<>(cache.asMap())));
+    }
+
+    private static class SavedCache implements Serializable {
+        private final String fingerprint;
+        private final HashMap<String, Boolean> entries;
+
+        private SavedCache(String fingerprint, HashMap<String, Boolean> entries) {
+            this.fingerprint = fingerprint;
+            this.entries = entries;
+        }
+    }
+
+}
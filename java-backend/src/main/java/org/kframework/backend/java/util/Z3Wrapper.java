@@ -1,6 +1,7 @@
 // Copyright (c) 2013-2016 K Team. All Rights Reserved.
 package org.kframework.backend.java.util;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.microsoft.z3.Params;
 import com.microsoft.z3.Solver;
@@ -17,56 +18,177 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
+ * Checks the satisfiability of SMT-LIB queries with Z3.
+ * <p>
+ * Solvers are kept in a pool of long-lived sessions, so that concurrent queries are checked by
+ * different solvers, and consecutive queries reuse the same solver. With {@code --z3-executable},
+ * each session is a {@code z3 -in} process which loads the SMT prelude once and checks each
+ * query between {@code (push)} and {@code (pop)}; a crashed process is replaced by a new one, and
+ * a process which does not answer within {@link #Z3_TIMEOUT_GRACE} milliseconds after the
+ * timeout of the query is destroyed and the query is unknown. Otherwise, each session is a Z3
+ * library context with its own solver.
+ * <p>
+ * Queries may be checked against declarations shared by many queries (e.g., the declarations of a
+ * definition); a process loads these declarations once, after the SMT prelude, and is only reused
+ * for queries against the same declarations.
+ *
  * @author Traian
  */
 public class Z3Wrapper {
 
     private static final int Z3_RESTART_LIMIT = 3;
 
+    /**
+     * Milliseconds a Z3 process may take beyond the (soft) timeout of a query to answer it, or to
+     * load the SMT prelude and declarations when it starts.
+     */
+    static final int Z3_TIMEOUT_GRACE = 1000;
+
     private static final Set<String> Z3_QUERY_RESULTS = ImmutableSet.of("unknown", "sat", "unsat");
 
+    /**
+     * Echoed by a Z3 process after each command batch, to find the end of the output of the batch.
+     */
+    private static final String END_OF_OUTPUT = "k-end-of-output";
+
     public final String SMT_PRELUDE;
     private final SMTOptions options;
     private final GlobalOptions globalOptions;
     private final KExceptionManager kem;
     private final FileUtil files;
+    private final List<String> z3Command;
+
+    /**
+     * Limits the number of queries checked concurrently, and thereby the number of sessions.
+     */
+    private final Semaphore sessionPermits;
+    private final Deque<Z3Process> idleProcesses = new ConcurrentLinkedDeque<>();
+    private final Deque<LibrarySession> idleLibrarySessions = new ConcurrentLinkedDeque<>();
+
+    /**
+     * Incremented by {@link #close}. The sessions started before are released when they are
+     * returned to the pool, so that close also releases the sessions checked out at the time.
+     */
+    private volatile int generation = 0;
 
     public Z3Wrapper(
             SMTOptions options,
             KExceptionManager kem,
             GlobalOptions globalOptions,
             FileUtil files) {
+        this(options, kem, globalOptions, files, null);
+    }
+
+    /**
+     * @param z3Command the command starting a Z3 process in {@code --z3-executable} mode, or
+     *                  {@code null} for the native Z3 executable
+     */
+    Z3Wrapper(
+            SMTOptions options,
+            KExceptionManager kem,
+            GlobalOptions globalOptions,
+            FileUtil files,
+            List<String> z3Command) {
         this.options = options;
         this.kem = kem;
         this.globalOptions = globalOptions;
         this.files = files;
+        this.z3Command = z3Command;
+        this.sessionPermits = new Semaphore(Math.max(1, options.z3PoolSize));
 
         SMT_PRELUDE = options.smtPrelude == null ? "" : files.loadFromWorkingDirectory(options.smtPrelude);
     }
 
-    public synchronized boolean isUnsat(String query, int timeout) {
-        if (options.z3Executable) {
-            return checkQueryWithExternalProcess(query, timeout);
+    /**
+     * The satisfiability of a query. A query is {@link #UNKNOWN} if Z3 could not decide it in
+     * time, or could not check it at all, e.g. because it crashed.
+     */
+    public enum Result {
+        SAT, UNSAT, UNKNOWN
+    }
+
+    public boolean isUnsat(String query, int timeout) {
+        return isUnsat("", query, timeout);
+    }
+
+    public boolean isUnsat(String declarations, String query, int timeout) {
+        return check(declarations, query, timeout) == Result.UNSAT;
+    }
+
+    /**
+     * Checks the given query in the context of the given declarations.
+     */
+    public Result check(String declarations, String query, int timeout) {
+        sessionPermits.acquireUninterruptibly();
+        try {
+            if (options.z3Executable) {
+                return checkQueryWithExternalProcess(declarations, query, timeout);
+            } else {
+                return checkQueryWithLibrary(declarations + query, timeout);
+            }
+        } finally {
+            sessionPermits.release();
+        }
+    }
+
+    /**
+     * Destroys the idle Z3 processes and disposes of the idle library sessions, once a run is
+     * done; the sessions checking a query are released once they are done with it. The wrapper
+     * can still be used afterwards, starting new sessions.
+     */
+    public synchronized void close() {
+        generation++;
+        Z3Process z3Process;
+        while ((z3Process = idleProcesses.poll()) != null) {
+            z3Process.destroy();
+        }
+        LibrarySession session;
+        while ((session = idleLibrarySessions.poll()) != null) {
+            session.dispose();
+        }
+    }
+
+    private synchronized void release(Z3Process z3Process) {
+        if (z3Process.generation == generation) {
+            idleProcesses.push(z3Process);
+        } else {
+            z3Process.destroy();
+        }
+    }
+
+    private synchronized void release(LibrarySession session) {
+        if (session.generation == generation) {
+            idleLibrarySessions.push(session);
         } else {
-            return checkQueryWithLibrary(query, timeout);
+            session.dispose();
         }
     }
 
-    private boolean checkQueryWithLibrary(String query, int timeout) {
-        boolean result = false;
+    private Result checkQueryWithLibrary(String query, int timeout) {
+        Result result = Result.UNKNOWN;
+        LibrarySession session = idleLibrarySessions.poll();
         try {
-            com.microsoft.z3.Context context = new com.microsoft.z3.Context();
-            Solver solver = context.mkSolver();
-            Params params = context.mkParams();
-            params.add("timeout", timeout);
-            solver.setParameters(params);
-            solver.add(context.parseSMTLIB2String(SMT_PRELUDE + query, null, null, null, null));
-            result = solver.check() == Status.UNSATISFIABLE;
-            context.dispose();
+            if (session == null) {
+                session = new LibrarySession();
+            }
+            result = session.check(query, timeout);
+            release(session);
         } catch (Z3Exception e) {
+            if (session != null) {
+                session.dispose();
+            }
             kem.registerCriticalWarning(
                     "failed to translate smtlib expression:\n" + SMT_PRELUDE + query);
         } catch (UnsatisfiedLinkError e) {
@@ -76,37 +198,47 @@ public class Z3Wrapper {
         return result;
     }
 
-    private boolean checkQueryWithExternalProcess(String query, int timeout) {
-        String result = "";
-        try {
-            for (int i = 0; i < Z3_RESTART_LIMIT; i++) {
-                ProcessBuilder pb = files.getProcessBuilder().command(
-                        OS.current().getNativeExecutable("z3"),
-                        "-in",
-                        "-smt2",
-                        "-t:" + timeout);
-                pb.redirectInput(ProcessBuilder.Redirect.PIPE);
-                pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
-                Process z3Process = pb.start();
-                BufferedWriter input = new BufferedWriter(new OutputStreamWriter(
-                    z3Process.getOutputStream()));
-                BufferedReader output = new BufferedReader(new InputStreamReader(
-                    z3Process.getInputStream()));
-                input.write(SMT_PRELUDE + query + "(check-sat)\n");
-                input.flush();
-                result = output.readLine();
-                z3Process.destroy();
-                if (result != null) {
-                    break;
+    private Result checkQueryWithExternalProcess(String declarations, String query, int timeout) {
+        String result = null;
+        for (int i = 0; i < Z3_RESTART_LIMIT; i++) {
+            Z3Process z3Process = idleProcesses.poll();
+            try {
+                if (z3Process != null && !z3Process.declarations.equals(declarations)) {
+                    z3Process.destroy();
+                    z3Process = null;
+                }
+                if (z3Process == null) {
+                    z3Process = new Z3Process(declarations);
+                }
+                result = z3Process.check(query, timeout);
+                release(z3Process);
+                break;
+            } catch (TimeoutException | InterruptedException e) {
+                /* Z3 hung, or the rewriting was interrupted; a new process may hang as well */
+                if (z3Process != null) {
+                    z3Process.destroy();
+                }
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                if (globalOptions.debug) {
+                    System.err.println("Z3 did not answer in time on query:\n" + SMT_PRELUDE + declarations + query + "(check-sat)\n");
+                }
+                return Result.UNKNOWN;
+            } catch (IOException e) {
+                /* Z3 crashed or could not be started; retry with a new process */
+                if (z3Process != null) {
+                    z3Process.destroy();
+                }
+                if (globalOptions.debug) {
+                    e.printStackTrace();
                 }
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
         if (result == null) {
             result = "unknown";
             if (globalOptions.debug) {
-                System.err.println("Z3 crashed on query:\n" + SMT_PRELUDE + query + "(check-sat)\n");
+                System.err.println("Z3 crashed on query:\n" + SMT_PRELUDE + declarations + query + "(check-sat)\n");
             }
         } else if (globalOptions.debug && !Z3_QUERY_RESULTS.contains(result)) {
             System.err.println("==== Z3: Unexpected query result ===========");
@@ -115,7 +247,132 @@ public class Z3Wrapper {
             System.err.println("== Result:");
             System.err.println(result + "\n");
         }
-        return result.equals("unsat");
+        switch (result) {
+        case "unsat":
+            return Result.UNSAT;
+        case "sat":
+            return Result.SAT;
+        default:
+            return Result.UNKNOWN;
+        }
     }
-}
 
+    /**
+     * A Z3 library context with a solver. The SMT prelude is parsed together with each query,
+     * because the library cannot parse a query that refers to previously parsed declarations.
+     */
+    private final class LibrarySession {
+        private final int generation = Z3Wrapper.this.generation;
+        private final com.microsoft.z3.Context context;
+        private final Solver solver;
+
+        private LibrarySession() {
+            context = new com.microsoft.z3.Context();
+            solver = context.mkSolver();
+        }
+
+        private Result check(String query, int timeout) {
+            Params params = context.mkParams();
+            params.add("timeout", timeout);
+            solver.setParameters(params);
+            solver.push();
+            try {
+                solver.add(context.parseSMTLIB2String(SMT_PRELUDE + query, null, null, null, null));
+                Status status = solver.check();
+                return status == Status.UNSATISFIABLE ? Result.UNSAT :
+                        status == Status.SATISFIABLE ? Result.SAT :
+                        Result.UNKNOWN;
+            } finally {
+                solver.pop();
+            }
+        }
+
+        private void dispose() {
+            context.dispose();
+        }
+    }
+
+    /**
+     * A {@code z3 -in} process which has loaded the SMT prelude and the given declarations. Its
+     * output is read by a daemon thread, so that reading it can time out.
+     */
+    private final class Z3Process {
+        private final int generation = Z3Wrapper.this.generation;
+        private final String declarations;
+        private final Process process;
+        private final BufferedWriter input;
+        /* the lines printed by Z3, followed by an empty Optional once it terminated */
+        private final BlockingQueue<Optional<String>> output = new LinkedBlockingQueue<>();
+
+        private Z3Process(String declarations) throws IOException, TimeoutException, InterruptedException {
+            this.declarations = declarations;
+            ProcessBuilder pb = files.getProcessBuilder().command(z3Command != null ?
+                    z3Command :
+                    ImmutableList.of(OS.current().getNativeExecutable("z3"), "-in", "-smt2"));
+            pb.redirectInput(ProcessBuilder.Redirect.PIPE);
+            pb.redirectOutput(ProcessBuilder.Redirect.PIPE);
+            process = pb.start();
+            input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+            Thread reader = new Thread(this::readOutput, "z3-output");
+            reader.setDaemon(true);
+            reader.start();
+            try {
+                run(SMT_PRELUDE + declarations, Z3_TIMEOUT_GRACE);
+            } catch (IOException | TimeoutException | InterruptedException e) {
+                destroy();
+                throw e;
+            }
+        }
+
+        private void readOutput() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.add(Optional.of(line));
+                }
+            } catch (IOException e) {
+                /* the process was destroyed */
+            }
+            output.add(Optional.empty());
+        }
+
+        /**
+         * Returns the first line printed by Z3 for the given query.
+         */
+        private String check(String query, int timeout) throws IOException, TimeoutException, InterruptedException {
+            return run("(push)\n(set-option :timeout " + timeout + ")\n" + query + "\n(check-sat)\n(pop)\n",
+                    timeout + Z3_TIMEOUT_GRACE);
+        }
+
+        /**
+         * Sends the given commands to Z3 and returns the first line of their output, or
+         * {@code null} if there was none.
+         *
+         * @throws IOException if Z3 terminated
+         * @throws TimeoutException if Z3 did not finish the commands within the given milliseconds
+         */
+        private String run(String commands, int timeout) throws IOException, TimeoutException, InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            input.write(commands);
+            input.write("\n(echo \"" + END_OF_OUTPUT + "\")\n");
+            input.flush();
+            String firstLine = null;
+            while (true) {
+                Optional<String> line = output.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (line == null) {
+                    throw new TimeoutException("Z3 did not answer within " + timeout + " ms");
+                } else if (!line.isPresent()) {
+                    throw new IOException("Z3 terminated unexpectedly");
+                } else if (line.get().equals(END_OF_OUTPUT)) {
+                    return firstLine;
+                } else if (firstLine == null) {
+                    firstLine = line.get();
+                }
+            }
+        }
+
+        private void destroy() {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BytesTokenTest {
+
+    private static BytesToken range(int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            bytes[i - from] = (byte) i;
+        }
+        return BytesToken.of(bytes);
+    }
+
+    @Test
+    public void testSliceAndConcatenate() {
+        BytesToken rope = BytesToken.EMPTY;
+        for (int i = 0; i < 200; i += 50) {
+            rope = rope.concatenate(range(i, i + 50));
+        }
+        assertEquals(range(0, 200), rope);
+        assertEquals(range(0, 200).hashCode(), rope.hashCode());
+        assertEquals(range(30, 170), rope.slice(30, 170));
+        assertEquals(range(60, 70), rope.slice(30, 170).slice(30, 40));
+        assertEquals(123, rope.get(123));
+        assertSame(BytesToken.EMPTY, rope.slice(10, 10));
+    }
+
+    @Test
+    public void testRopesOfDifferentShapesAreCompared() {
+        BytesToken rope = range(0, 100).concatenate(range(100, 200));
+        BytesToken otherRope = range(0, 70).concatenate(range(70, 130).concatenate(range(130, 200)));
+        assertEquals(rope, otherRope);
+        assertEquals(rope.hashCode(), otherRope.hashCode());
+        assertEquals(Arrays.hashCode(rope.toByteArray()), rope.hashCode());
+
+        BytesToken differentRope = range(0, 70).concatenate(range(70, 129).concatenate(range(128, 199)));
+        assertEquals(rope.length(), differentRope.length());
+        assertNotEquals(rope, differentRope);
+    }
+
+    @Test
+    public void testDeepRopesAreBalanced() {
+        Random random = new Random(0);
+        Deque<Byte> expected = new ArrayDeque<>();
+        BytesToken rope = BytesToken.EMPTY;
+        for (int i = 0; i < 20000; i++) {
+            int length = random.nextInt(100);
+            BytesToken piece = range(i, i + length);
+            if (random.nextBoolean()) {
+                for (byte b : piece.toByteArray()) {
+                    expected.addLast(b);
+                }
+                rope = rope.concatenate(piece);
+            } else {
+                byte[] bytes = piece.toByteArray();
+                for (int j = bytes.length - 1; j >= 0; j--) {
+                    expected.addFirst(bytes[j]);
+                }
+                rope = piece.concatenate(rope);
+            }
+        }
+        byte[] expectedBytes = new byte[expected.size()];
+        int i = 0;
+        for (byte b : expected) {
+            expectedBytes[i++] = b;
+        }
+        assertArrayEquals(expectedBytes, rope.toByteArray());
+        assertEquals(BytesToken.of(expectedBytes), rope);
+        assertEquals(expectedBytes[expectedBytes.length / 2] & 0xff, rope.get(expectedBytes.length / 2));
+        assertTrue(rope.height() <= 2 * (32 - Integer.numberOfLeadingZeros(rope.length())));
+
+        BytesToken doubled = rope;
+        for (int j = 0; j < 10; j++) {
+            doubled = doubled.concatenate(doubled);
+        }
+        assertEquals(rope.length() << 10, doubled.length());
+        assertEquals(rope.get(rope.length() - 1), doubled.get(doubled.length() - 1));
+    }
+
+    @Test
+    public void testIntegerConversions() {
+        BytesToken bytes = BytesToken.of(BigInteger.valueOf(-2), 4, false);
+        assertArrayEquals(new byte[] {-1, -1, -1, -2}, bytes.toByteArray());
+        assertEquals(BigInteger.valueOf(-2), bytes.bigIntegerValue(false, true));
+        assertEquals(BigInteger.valueOf(0xfffffffeL), bytes.bigIntegerValue(false, false));
+
+        bytes = BytesToken.of(BigInteger.valueOf(0x0102), 3, true);
+        assertArrayEquals(new byte[] {2, 1, 0}, bytes.toByteArray());
+        assertEquals(BigInteger.valueOf(0x0102), bytes.bigIntegerValue(true, true));
+
+        bytes = BytesToken.of(BigInteger.valueOf(0x010203), 2, false);
+        assertArrayEquals(new byte[] {2, 3}, bytes.toByteArray());
+    }
+
+    @Test
+    public void testLiteral() {
+        BytesToken bytes = BytesToken.parse("b\"a\\x00\\xff\"");
+        assertArrayEquals(new byte[] {'a', 0, -1}, bytes.toByteArray());
+        assertEquals(bytes, BytesToken.parse(bytes.javaBackendValue()));
+    }
+}
@@ -0,0 +1,99 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.builtins;
+
+import org.junit.Test;
+import org.kframework.utils.errorsystem.KEMException;
+
+import java.math.BigInteger;
+
+import static org.junit.Assert.*;
+
+public class IntTokenTest {
+
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+
+    @Test
+    public void testSmallValuesAreShared() {
+        assertSame(IntToken.of(42), IntToken.of(42));
+        assertSame(IntToken.of(-128), IntToken.of(BigInteger.valueOf(-128)));
+        assertNotSame(IntToken.of(1 << 20), IntToken.of(1 << 20));
+    }
+
+    @Test
+    public void testOutOfRangeCacheLimitsAreRejected() {
+        for (int high : new int[] {-1, Integer.MAX_VALUE}) {
+            try {
+                IntToken.ensureCacheHigh(high);
+                fail("cache limit " + high + " should be rejected");
+            } catch (KEMException e) {
+            }
+        }
+        assertSame(IntToken.of(42), IntToken.of(42));
+    }
+
+    @Test
+    public void testCacheOnlyGrows() {
+        IntToken small = IntToken.of(42);
+        IntToken.ensureCacheHigh(IntToken.DEFAULT_CACHE_HIGH + 1000);
+        assertSame(small, IntToken.of(42));
+        assertSame(IntToken.of(IntToken.DEFAULT_CACHE_HIGH + 500), IntToken.of(IntToken.DEFAULT_CACHE_HIGH + 500));
+        IntToken.ensureCacheHigh(0);
+        assertSame(small, IntToken.of(42));
+        assertSame(IntToken.of(IntToken.DEFAULT_CACHE_HIGH + 500), IntToken.of(IntToken.DEFAULT_CACHE_HIGH + 500));
+    }
+
+    @Test
+    public void testRepresentationsAreEqual() {
+        IntToken small = IntToken.of(LONG_MAX);
+        assertTrue(small.isLong());
+        assertEquals(IntToken.of(Long.MAX_VALUE), small);
+        assertEquals(IntToken.of(Long.MAX_VALUE).hashCode(), small.hashCode());
+
+        IntToken big = IntToken.of(LONG_MAX.add(BigInteger.ONE));
+        assertFalse(big.isLong());
+        assertEquals(IntToken.of(LONG_MIN.negate()), big);
+        assertNotEquals(small, big);
+        assertEquals("9223372036854775808", big.javaBackendValue());
+    }
+
+    @Test
+    public void testArithmeticOverflowsToBigInteger() {
+        IntToken max = IntToken.of(Long.MAX_VALUE);
+        IntToken min = IntToken.of(Long.MIN_VALUE);
+        IntToken minusOne = IntToken.of(-1);
+        assertEquals(IntToken.of(LONG_MAX.add(BigInteger.ONE)), BuiltinIntOperations.add(max, IntToken.of(1), null));
+        assertEquals(IntToken.of(LONG_MIN.subtract(BigInteger.ONE)), BuiltinIntOperations.sub(min, IntToken.of(1), null));
+        assertEquals(IntToken.of(LONG_MAX.multiply(LONG_MAX)), BuiltinIntOperations.mul(max, max, null));
+        assertEquals(IntToken.of(LONG_MIN.negate()), BuiltinIntOperations.mul(min, minusOne, null));
+        assertEquals(IntToken.of(LONG_MIN.negate()), BuiltinIntOperations.div(min, minusOne, null));
+        assertEquals(IntToken.of(LONG_MIN.negate()), BuiltinIntOperations.abs(min, null));
+        assertEquals(IntToken.of(0), BuiltinIntOperations.rem(min, minusOne, null));
+        assertNull(BuiltinIntOperations.div(max, IntToken.of(0), null));
+    }
+
+    @Test
+    public void testLongOperationsMatchBigInteger() {
+        long[] values = {0, 1, -1, 7, -7, 1 << 20, -(1L << 40), Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long a : values) {
+            for (long b : values) {
+                IntToken x = IntToken.of(a);
+                IntToken y = IntToken.of(b);
+                BigInteger bigA = BigInteger.valueOf(a);
+                BigInteger bigB = BigInteger.valueOf(b);
+                assertEquals(bigA.add(bigB), BuiltinIntOperations.add(x, y, null).bigIntegerValue());
+                assertEquals(bigA.subtract(bigB), BuiltinIntOperations.sub(x, y, null).bigIntegerValue());
+                assertEquals(bigA.multiply(bigB), BuiltinIntOperations.mul(x, y, null).bigIntegerValue());
+                assertEquals(bigA.and(bigB), BuiltinIntOperations.and(x, y, null).bigIntegerValue());
+                assertEquals(bigA.compareTo(bigB) < 0, BuiltinIntOperations.lt(x, y, null).booleanValue());
+                if (b > 0) {
+                    assertEquals(bigA.mod(bigB), BuiltinIntOperations.mod(x, y, null).bigIntegerValue());
+                }
+                if (b != 0) {
+                    assertEquals(bigA.divide(bigB), BuiltinIntOperations.div(x, y, null).bigIntegerValue());
+                    assertEquals(bigA.remainder(bigB), BuiltinIntOperations.rem(x, y, null).bigIntegerValue());
+                }
+            }
+        }
+    }
+}
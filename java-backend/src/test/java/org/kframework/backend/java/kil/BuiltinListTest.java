@@ -54,4 +54,28 @@ public class BuiltinListTest {
 
         Assert.assertEquals(builtinList.children, ImmutableList.of(new Variable("L", Sort.LIST), IntToken.of(9), IntToken.of(9)));
     }
+
+    @Test
+    public void testListWith() throws Exception {
+        BuiltinList.Builder builder = BuiltinList.builder(Sort.LIST, null, null, globalContext);
+        for (int i = 0; i < 100; ++i) {
+            builder.add(IntToken.of(i));
+        }
+        BuiltinList builtinList = (BuiltinList) builder.build();
+
+        BuiltinList updatedList = (BuiltinList) builtinList.with(42, IntToken.of(-1));
+        BuiltinList splicedList = (BuiltinList) builtinList.with(
+                99,
+                BuiltinList.builder(Sort.LIST, null, null, globalContext)
+                        .addAll(IntToken.of(99), IntToken.of(100))
+                        .build());
+
+        Assert.assertEquals(IntToken.of(42), builtinList.get(42));
+        Assert.assertEquals(IntToken.of(-1), updatedList.get(42));
+        Assert.assertEquals(100, updatedList.size());
+        Assert.assertEquals(101, splicedList.size());
+        Assert.assertEquals(IntToken.of(100), splicedList.get(100));
+        Assert.assertEquals(builtinList.range(0, 99), splicedList.range(0, 99));
+        Assert.assertEquals(builtinList.range(0, 99).hashCode(), splicedList.range(0, 99).hashCode());
+    }
 }
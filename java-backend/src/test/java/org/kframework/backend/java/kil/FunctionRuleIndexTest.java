@@ -0,0 +1,93 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.BaseTestCase;
+import org.mockito.Mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class FunctionRuleIndexTest extends BaseTestCase {
+
+    private static final Sort SORT = Sort.of("Nat@NAT");
+
+    @Mock
+    Definition definition;
+
+    private Term zero;
+    private FunctionRuleIndex index;
+    private Rule zeroAny;
+    private Rule succZero;
+    private Rule anyAny;
+    private Rule oneAny;
+    private Rule kListRule;
+    private Rule zeroOnly;
+
+    @Before
+    public void setUp() {
+        when(definition.signaturesOf(anyString())).thenReturn(Collections.emptySet());
+        when(definition.kLabelAttributesOf(anyString())).thenReturn(new Attributes());
+        when(definition.allSorts()).thenReturn(Collections.singleton(SORT));
+        zero = kItem("zero");
+
+        zeroAny = rule(zero, new Variable("X", SORT));
+        succZero = rule(kItem("succ", new Variable("Y", SORT)), zero);
+        anyAny = rule(new Variable("X", SORT), new Variable("Y", SORT));
+        oneAny = rule(IntToken.of(1), new Variable("X", SORT));
+        kListRule = rule(new Variable("L", Sort.KLIST));
+        zeroOnly = rule(zero);
+
+        index = new FunctionRuleIndex();
+        for (Rule rule : Arrays.asList(zeroAny, succZero, anyAny, oneAny, kListRule, zeroOnly)) {
+            index.add(rule);
+        }
+    }
+
+    private static Term kList(Term... arguments) {
+        return arguments.length == 1 && !(arguments[0] instanceof Variable && arguments[0].sort().equals(Sort.KLIST)) ?
+                KList.singleton(arguments[0]) :
+                KList.concatenate(arguments);
+    }
+
+    private KItem kItem(String label, Term... arguments) {
+        return new KItem(KLabelConstant.of(label, definition), kList(arguments), SORT, true);
+    }
+
+    private Rule rule(Term... arguments) {
+        Rule rule = mock(Rule.class);
+        when(rule.leftHandSide()).thenReturn(kItem("f", arguments));
+        return rule;
+    }
+
+    @Test
+    public void testGroundArguments() {
+        assertEquals(Arrays.asList(zeroAny, anyAny, kListRule), index.rulesFor((KList) kList(zero, zero)));
+        assertEquals(Arrays.asList(anyAny, oneAny, kListRule), index.rulesFor((KList) kList(IntToken.of(1), zero)));
+        assertEquals(Arrays.asList(anyAny, kListRule), index.rulesFor((KList) kList(IntToken.of(2), zero)));
+        assertEquals(Arrays.asList(kListRule, zeroOnly), index.rulesFor((KList) kList(zero)));
+    }
+
+    @Test
+    public void testNonGroundArguments() {
+        assertEquals(Arrays.asList(succZero, anyAny, kListRule),
+                index.rulesFor((KList) kList(kItem("succ", new Variable("N", SORT)), zero)));
+        assertEquals(Arrays.asList(anyAny, kListRule),
+                index.rulesFor((KList) kList(kItem("succ", new Variable("N", SORT)), kItem("succ", zero))));
+    }
+
+    @Test
+    public void testVariableArguments() {
+        assertEquals(Arrays.asList(zeroAny, succZero, anyAny, oneAny, kListRule),
+                index.rulesFor((KList) kList(new Variable("N", SORT), zero)));
+        assertEquals(Arrays.asList(zeroAny, succZero, anyAny, oneAny, kListRule),
+                index.rulesFor((KList) kList(new Variable("N", SORT), new Variable("M", SORT))));
+        assertEquals(index.rules(), index.rulesFor((KList) kList(zero, new Variable("L", Sort.KLIST))));
+    }
+}
@@ -0,0 +1,116 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import com.google.common.collect.ArrayListMultimap;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.symbolic.BuiltinFunction;
+import org.kframework.backend.java.symbolic.Stage;
+import org.kframework.backend.java.util.Profiler;
+import org.kframework.kil.Attribute;
+import org.kframework.kil.Attributes;
+import org.kframework.krun.KRunOptions;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.BaseTestCase;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+import org.mockito.Mock;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the memoization of the functions tagged with {@code [memo]} by
+ * {@link KItem#evaluateFunction}, on functions implemented by a mocked hook.
+ */
+public class KItemTest extends BaseTestCase {
+
+    @Mock
+    Definition definition;
+
+    @Mock
+    BuiltinFunction builtins;
+
+    private GlobalContext global;
+    private TermContext termContext;
+    private KLabelConstant memo;
+    private KLabelConstant notMemo;
+    private KLabelConstant memoReturningVariable;
+
+    @Before
+    public void setUp() throws Throwable {
+        Attributes memoAttributes = new Attributes();
+        memoAttributes.add(Attribute.of(Attribute.MEMO_KEY, ""));
+        when(definition.signaturesOf(anyString())).thenReturn(Collections.emptySet());
+        when(definition.kLabelAttributesOf(anyString())).thenReturn(new Attributes());
+        when(definition.kLabelAttributesOf("memo")).thenReturn(memoAttributes);
+        when(definition.kLabelAttributesOf("memoReturningVariable")).thenReturn(memoAttributes);
+        when(definition.allSorts()).thenReturn(Collections.singleton(Sort.INT));
+        when(definition.functionRules()).thenReturn(ArrayListMultimap.create());
+        when(definition.sortPredicateRulesOn(any(KLabelConstant.class))).thenReturn(Collections.emptyList());
+        when(definition.builtinFunction(any(), any(), any())).thenReturn(builtins);
+
+        global = new GlobalContext(null, false, new GlobalOptions(), new KRunOptions(), kem, new SMTOptions(), null,
+                FileUtil.testFileUtil(), Stage.REWRITING);
+        global.setDefinition(definition);
+        termContext = TermContext.builder(global).build();
+
+        memo = KLabelConstant.of("memo", definition);
+        notMemo = KLabelConstant.of("notMemo", definition);
+        memoReturningVariable = KLabelConstant.of("memoReturningVariable", definition);
+        assertTrue(memo.isMemo());
+        assertFalse(notMemo.isMemo());
+        for (KLabelConstant label : new KLabelConstant[] {memo, notMemo, memoReturningVariable}) {
+            when(builtins.isBuiltinKLabel(label)).thenReturn(true);
+        }
+        when(builtins.invoke(any(TermContext.class), eq(memo), anyListOf(Term.class))).thenReturn(IntToken.of(2));
+        when(builtins.invoke(any(TermContext.class), eq(notMemo), anyListOf(Term.class))).thenReturn(IntToken.of(2));
+        when(builtins.invoke(any(TermContext.class), eq(memoReturningVariable), anyListOf(Term.class)))
+                .thenReturn(new Variable("Y", Sort.INT));
+    }
+
+    private Term evaluate(KLabelConstant label, Term argument) {
+        return KItem.of(label, KList.singleton(argument), global).evaluateFunction(termContext);
+    }
+
+    @Test
+    public void testMemoFunctionIsStoredAndLookedUp() throws Throwable {
+        long hits = Profiler.MEMO_HIT_COUNTER.sum();
+        assertEquals(IntToken.of(2), evaluate(memo, IntToken.of(1)));
+        assertEquals(IntToken.of(2), evaluate(memo, IntToken.of(1)));
+        verify(builtins, times(1)).invoke(any(TermContext.class), eq(memo), anyListOf(Term.class));
+        assertEquals(hits + 1, Profiler.MEMO_HIT_COUNTER.sum());
+
+        assertEquals(IntToken.of(2), evaluate(memo, IntToken.of(3)));
+        verify(builtins, times(2)).invoke(any(TermContext.class), eq(memo), anyListOf(Term.class));
+    }
+
+    @Test
+    public void testMemoFunctionOnNonGroundArgumentsIsNotStored() throws Throwable {
+        Variable x = new Variable("X", Sort.INT);
+        assertEquals(IntToken.of(2), evaluate(memo, x));
+        assertEquals(IntToken.of(2), evaluate(memo, x));
+        verify(builtins, times(2)).invoke(any(TermContext.class), eq(memo), anyListOf(Term.class));
+    }
+
+    @Test
+    public void testMemoFunctionWithNonGroundResultIsNotStored() throws Throwable {
+        evaluate(memoReturningVariable, IntToken.of(1));
+        evaluate(memoReturningVariable, IntToken.of(1));
+        verify(builtins, times(2)).invoke(any(TermContext.class), eq(memoReturningVariable), anyListOf(Term.class));
+    }
+
+    @Test
+    public void testFunctionWithoutMemoIsNotStored() throws Throwable {
+        long hits = Profiler.MEMO_HIT_COUNTER.sum();
+        long misses = Profiler.MEMO_MISS_COUNTER.sum();
+        assertEquals(IntToken.of(2), evaluate(notMemo, IntToken.of(1)));
+        assertEquals(IntToken.of(2), evaluate(notMemo, IntToken.of(1)));
+        verify(builtins, times(2)).invoke(any(TermContext.class), eq(notMemo), anyListOf(Term.class));
+        assertEquals(hits, Profiler.MEMO_HIT_COUNTER.sum());
+        assertEquals(misses, Profiler.MEMO_MISS_COUNTER.sum());
+    }
+}
@@ -0,0 +1,56 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.BaseTestCase;
+import org.mockito.Mock;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class TermInternerTest extends BaseTestCase {
+
+    @Mock
+    Definition definition;
+
+    private final TermInterner interner = new TermInterner();
+
+    @Before
+    public void setUp() {
+        when(definition.signaturesOf("foo")).thenReturn(Collections.emptySet());
+        when(definition.allSorts()).thenReturn(Collections.singleton(Sort.of("Foo@FOO")));
+        when(definition.kLabelAttributesOf("foo")).thenReturn(new Attributes());
+    }
+
+    private KItem foo(Term argument) {
+        return new KItem(KLabelConstant.of("foo", definition), KList.singleton(argument), Sort.of("Foo@FOO"), true);
+    }
+
+    @Test
+    public void testGroundTermsAreShared() {
+        KItem k1 = interner.intern(foo(IntToken.of(1)));
+        KItem k2 = interner.intern(foo(IntToken.of(1)));
+        KItem k3 = interner.intern(foo(IntToken.of(2)));
+        assertSame(k1, k2);
+        assertNotSame(k1, k3);
+        assertTrue(k1.isInterned());
+        assertNotEquals(k1, k3);
+        assertEquals(k1, foo(IntToken.of(1)));
+    }
+
+    @Test
+    public void testNonGroundTermsAreNotShared() {
+        Variable x = new Variable("X", Sort.of("Foo@FOO"));
+        KItem k1 = foo(x);
+        KItem k2 = foo(x);
+        assertSame(k1, interner.intern(k1));
+        assertSame(k2, interner.intern(k2));
+        assertFalse(k1.isInterned());
+        assertEquals(k1, k2);
+    }
+}
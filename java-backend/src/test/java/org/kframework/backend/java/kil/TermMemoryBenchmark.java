@@ -0,0 +1,91 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.kil;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.BaseTestCase;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures the heap footprint of a large configuration, in bytes per term, after the cached
+ * properties of its terms have been computed and some of its terms have been evaluated.
+ * <p>
+ * For comparison, it also measures the evaluation markers that the terms used to carry before
+ * they were allocated lazily: an empty {@code HashSet} per term, holding the constraint under
+ * which the term was evaluated, if any. The terms used to take this much more memory.
+ * <p>
+ * Not part of the regular test suite; run with {@code mvn test -Dtest=TermMemoryBenchmark}.
+ */
+public class TermMemoryBenchmark extends BaseTestCase {
+
+    private static final int SIZE = 200000;
+
+    @Mock
+    Definition definition;
+
+    @Before
+    public void setUp() {
+        when(definition.signaturesOf("foo")).thenReturn(Collections.emptySet());
+        when(definition.allSorts()).thenReturn(Collections.singleton(Sort.of("Foo@FOO")));
+        when(definition.kLabelAttributesOf("foo")).thenReturn(new Attributes());
+    }
+
+    @Test
+    public void measureBytesPerTerm() {
+        KLabelConstant foo = KLabelConstant.of("foo", definition);
+        long before = usedMemory();
+
+        List<Term> items = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            items.add(new KItem(foo, KList.singleton(IntToken.of(i)), Sort.of("Foo@FOO"), true));
+        }
+        Term configuration = KList.concatenate(items);
+        configuration.isGround();
+        configuration.isNormal();
+        for (int i = 0; i < SIZE; i += 2) {
+            ((KItem) items.get(i)).setEvaluated(null);
+        }
+
+        long after = usedMemory();
+        /* each item consists of a KItem, a KList and an IntToken */
+        int terms = 3 * SIZE + 1;
+        System.out.printf("%d terms, %.1f bytes per term%n", terms, (after - before) / (double) terms);
+
+        Object constraint = new Object();
+        List<Set<Object>> legacyMarkers = new ArrayList<>(terms);
+        for (int i = 0; i < terms; i++) {
+            Set<Object> marker = new HashSet<>();
+            /* as many evaluated terms as above */
+            if (i < SIZE && i % 2 == 0) {
+                marker.add(constraint);
+            }
+            legacyMarkers.add(marker);
+        }
+        long legacy = usedMemory();
+        System.out.printf("%.1f bytes per term saved by the lazy evaluation markers%n", (legacy - after) / (double) terms);
+
+        /* keeps the configuration and the markers reachable until after the measurements */
+        items.clear();
+        items.add(configuration);
+        legacyMarkers.clear();
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+}
@@ -0,0 +1,91 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.symbolic;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.BoolToken;
+import org.kframework.backend.java.builtins.BuiltinIntOperations;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.backend.java.kil.TermContext;
+import org.kframework.kil.Attribute;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.BaseTestCase;
+import org.mockito.Mock;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BuiltinFunctionTest extends BaseTestCase {
+
+    @Mock
+    Definition definition;
+
+    private Map<String, MethodHandle> hookProvider;
+
+    @Before
+    public void setUp() throws ReflectiveOperationException {
+        Attributes plusAttributes = new Attributes();
+        plusAttributes.add(Attribute.of(Attribute.HOOK_KEY, "INT.add"));
+        Attributes fooAttributes = new Attributes();
+        Map<String, Attributes> attributes = ImmutableMap.of("_+Int_", plusAttributes, "foo", fooAttributes);
+        when(definition.kLabelAttributes()).thenReturn(attributes);
+        for (Map.Entry<String, Attributes> entry : attributes.entrySet()) {
+            when(definition.signaturesOf(entry.getKey())).thenReturn(Collections.emptySet());
+            when(definition.kLabelAttributesOf(entry.getKey())).thenReturn(entry.getValue());
+        }
+        when(definition.allSorts()).thenReturn(Collections.singleton(Sort.INT));
+
+        hookProvider = ImmutableMap.of("INT.add", MethodHandles.lookup().findStatic(BuiltinIntOperations.class, "add",
+                MethodType.methodType(IntToken.class, IntToken.class, IntToken.class, TermContext.class)));
+    }
+
+    // DISABLE EXCEPTION CHECKSTYLE
+    @Test
+    public void testHooksAreInvokedAndCachedByTheirTables() throws Throwable {
+    // ENABLE EXCEPTION CHECKSTYLE
+        BuiltinFunction builtins = new BuiltinFunction(definition, hookProvider, kem, Stage.REWRITING);
+        KLabelConstant plus = KLabelConstant.of("_+Int_", definition);
+        KLabelConstant foo = KLabelConstant.of("foo", definition);
+
+        assertTrue(builtins.isBuiltinKLabel(plus));
+        assertFalse(builtins.isBuiltinKLabel(foo));
+        assertEquals(IntToken.of(5), builtins.invoke(null, plus, Arrays.asList(IntToken.of(2), IntToken.of(3))));
+        assertEquals(IntToken.of(5), builtins.invoke(null, plus, IntToken.of(2), IntToken.of(3)));
+        BuiltinFunction.Hook hook = builtins.hook(plus);
+        builtins.invoke(null, plus, IntToken.of(1), IntToken.of(1));
+        assertSame(hook, builtins.hook(plus));
+
+        /* another table, e.g. of another stage, caches its own hooks */
+        BuiltinFunction otherBuiltins = new BuiltinFunction(definition, hookProvider, kem, Stage.INITIALIZING);
+        assertTrue(otherBuiltins.isBuiltinKLabel(plus));
+        assertNotSame(hook, otherBuiltins.hook(plus));
+        assertSame(hook, builtins.hook(plus));
+    }
+
+    // DISABLE EXCEPTION CHECKSTYLE
+    @Test(expected = ClassCastException.class)
+    public void testArgumentsOfTheWrongSortAreRejected() throws Throwable {
+    // ENABLE EXCEPTION CHECKSTYLE
+        BuiltinFunction builtins = new BuiltinFunction(definition, hookProvider, kem, Stage.REWRITING);
+        builtins.invoke(null, KLabelConstant.of("_+Int_", definition), IntToken.of(2), BoolToken.TRUE);
+    }
+
+    // DISABLE EXCEPTION CHECKSTYLE
+    @Test(expected = java.lang.invoke.WrongMethodTypeException.class)
+    public void testArgumentsOfTheWrongArityAreRejected() throws Throwable {
+    // ENABLE EXCEPTION CHECKSTYLE
+        BuiltinFunction builtins = new BuiltinFunction(definition, hookProvider, kem, Stage.REWRITING);
+        builtins.invoke(null, KLabelConstant.of("_+Int_", definition), IntToken.of(2));
+    }
+}
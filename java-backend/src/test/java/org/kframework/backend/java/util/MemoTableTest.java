@@ -0,0 +1,67 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.backend.java.builtins.IntToken;
+import org.kframework.backend.java.kil.Definition;
+import org.kframework.backend.java.kil.KLabelConstant;
+import org.kframework.backend.java.kil.KList;
+import org.kframework.backend.java.kil.Sort;
+import org.kframework.kil.Attributes;
+import org.kframework.utils.BaseTestCase;
+import org.mockito.Mock;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class MemoTableTest extends BaseTestCase {
+
+    @Mock
+    Definition definition;
+
+    private KLabelConstant f;
+    private KLabelConstant g;
+
+    @Before
+    public void setUp() {
+        when(definition.signaturesOf(anyString())).thenReturn(Collections.emptySet());
+        when(definition.kLabelAttributesOf(anyString())).thenReturn(new Attributes());
+        when(definition.allSorts()).thenReturn(Collections.singleton(Sort.INT));
+        f = KLabelConstant.of("f", definition);
+        g = KLabelConstant.of("g", definition);
+    }
+
+    @Test
+    public void testHit() {
+        MemoTable table = new MemoTable(16);
+        long hits = Profiler.MEMO_HIT_COUNTER.sum();
+        table.put(f, KList.singleton(IntToken.of(1)), IntToken.of(2));
+        assertEquals(IntToken.of(2), table.get(f, KList.singleton(IntToken.of(1))));
+        assertEquals(hits + 1, Profiler.MEMO_HIT_COUNTER.sum());
+    }
+
+    @Test
+    public void testMiss() {
+        MemoTable table = new MemoTable(16);
+        long misses = Profiler.MEMO_MISS_COUNTER.sum();
+        table.put(f, KList.singleton(IntToken.of(1)), IntToken.of(2));
+        assertNull(table.get(f, KList.singleton(IntToken.of(2))));
+        assertNull(table.get(g, KList.singleton(IntToken.of(1))));
+        assertEquals(misses + 2, Profiler.MEMO_MISS_COUNTER.sum());
+    }
+
+    @Test
+    public void testEviction() {
+        MemoTable table = new MemoTable(16);
+        long evictions = Profiler.MEMO_EVICTION_COUNTER.sum();
+        for (int i = 0; i < 100; i++) {
+            table.put(f, KList.singleton(IntToken.of(i)), IntToken.of(i + 1));
+        }
+        assertTrue(table.size() <= 16);
+        assertTrue(Profiler.MEMO_EVICTION_COUNTER.sum() - evictions >= 100 - 16);
+        assertEquals(IntToken.of(100), table.get(f, KList.singleton(IntToken.of(99))));
+    }
+}
@@ -0,0 +1,134 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RopeVectorTest {
+
+    /* around the size of the leaves of the rope */
+    private static final int[] SIZES = {0, 1, 2, 31, 32, 33, 63, 64, 65, 100};
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+
+    private static void assertSameList(List<Integer> expected, RopeVector<Integer> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+        assertEquals(expected, new ArrayList<>(actual));
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+    }
+
+    @Test
+    public void testGet() {
+        List<Integer> expected = range(0, 1000);
+        RopeVector<Integer> vector = RopeVector.from(expected);
+        assertSameList(expected, vector);
+        try {
+            vector.get(1000);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+        }
+    }
+
+    @Test
+    public void testConcatenation() {
+        for (int leftSize : SIZES) {
+            for (int rightSize : SIZES) {
+                List<Integer> expected = range(0, leftSize + rightSize);
+                RopeVector<Integer> left = RopeVector.from(range(0, leftSize));
+                RopeVector<Integer> right = RopeVector.from(range(leftSize, leftSize + rightSize));
+                assertSameList(expected, left.concat(right));
+            }
+        }
+    }
+
+    @Test
+    public void testSubList() {
+        List<Integer> expected = range(0, 130);
+        RopeVector<Integer> vector = RopeVector.empty();
+        for (int size : SIZES) {
+            vector = vector.concat(RopeVector.from(expected.subList(vector.size(), Math.min(vector.size() + size, 130))));
+        }
+        vector = vector.concat(RopeVector.from(expected.subList(vector.size(), 130)));
+        assertSameList(expected, vector);
+        for (int from = 0; from <= 130; from++) {
+            for (int to = from; to <= 130; to++) {
+                assertSameList(expected.subList(from, to), vector.subList(from, to));
+            }
+        }
+    }
+
+    @Test
+    public void testEqualsAndHashCodeOfDifferentShapes() {
+        List<Integer> expected = range(0, 200);
+        RopeVector<Integer> balanced = RopeVector.from(expected);
+        RopeVector<Integer> appended = RopeVector.empty();
+        for (Integer i : expected) {
+            appended = appended.plus(i);
+        }
+        RopeVector<Integer> prepended = RopeVector.empty();
+        for (int i = expected.size() - 1; i >= 0; i--) {
+            prepended = prepended.plusFirst(i);
+        }
+        RopeVector<Integer> sliced = RopeVector.from(range(-50, 250)).subList(50, 250);
+
+        for (RopeVector<Integer> vector : Arrays.asList(appended, prepended, sliced)) {
+            assertEquals(balanced, vector);
+            assertEquals(vector, balanced);
+            assertEquals(balanced.hashCode(), vector.hashCode());
+        }
+        assertNotEquals(balanced, appended.with(100, -1));
+        assertNotEquals(balanced, appended.subList(0, 199));
+        assertSameList(expected, appended.with(100, -1).with(100, 100));
+    }
+
+    @Test
+    public void testDeepConcatenation() {
+        Random random = new Random(0);
+        Deque<Integer> elements = new ArrayDeque<>();
+        RopeVector<Integer> vector = RopeVector.empty();
+        for (int i = 0; i < 100000; i++) {
+            if (random.nextBoolean()) {
+                elements.addLast(i);
+                vector = vector.concat(RopeVector.singleton(i));
+            } else {
+                elements.addFirst(i);
+                vector = RopeVector.singleton(i).concat(vector);
+            }
+        }
+        List<Integer> expected = new ArrayList<>(elements);
+        assertEquals(expected.size(), vector.size());
+        for (int i = 0; i < 1000; i++) {
+            int index = random.nextInt(expected.size());
+            assertEquals(expected.get(index), vector.get(index));
+        }
+        assertEquals(expected, new ArrayList<>(vector));
+        assertEquals(expected.hashCode(), vector.hashCode());
+        assertEquals(vector, RopeVector.from(expected));
+
+        RopeVector<Integer> doubled = vector;
+        for (int i = 0; i < 10; i++) {
+            doubled = doubled.concat(doubled);
+        }
+        assertEquals(expected.size() << 10, doubled.size());
+        assertEquals(expected.get(expected.size() - 1), doubled.get(doubled.size() - 1));
+    }
+}
@@ -0,0 +1,138 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.junit.Test;
+import org.kframework.backend.java.kil.Rule;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RuleProfilerTest {
+
+    private static Rule rule(String label) {
+        Rule rule = mock(Rule.class);
+        when(rule.label()).thenReturn(label);
+        return rule;
+    }
+
+    private static String row(String csv, String rule) {
+        return Arrays.stream(csv.split("\n")).filter(line -> line.startsWith(rule + ",")).findFirst().get();
+    }
+
+    private static String counts(String row) {
+        // drop the times, the last two columns
+        return row.substring(0, row.lastIndexOf(',', row.lastIndexOf(',') - 1));
+    }
+
+    @Test
+    public void testCountsOutcomesOfAttempts() {
+        RuleProfiler profiler = new RuleProfiler();
+        Rule f = rule("f");
+        Rule g = rule("g");
+        Rule h = rule("h");
+        profiler.enterAttempt(f);
+        profiler.matched(f);
+        profiler.enterAttempt(g);
+        profiler.matched(g);
+        profiler.sideConditionFailed(g);
+        profiler.exit();
+        profiler.applied(f);
+        profiler.exit();
+        profiler.enterAttempt(g);
+        profiler.exit();
+
+        String csv = profiler.csv(Collections.emptyList(), Arrays.asList(f, g, h));
+        assertTrue(csv.startsWith("rule,location,attempts,matches,side_condition_failures,applications,total_ms,self_ms\n"));
+        assertEquals("f,<unknown>,1,1,0,1", counts(row(csv, "f")));
+        assertEquals("g,<unknown>,2,1,1,0", counts(row(csv, "g")));
+        assertEquals("h,<unknown>,0,0,0,0,0.000,0.000", row(csv, "h"));
+    }
+
+    @Test
+    public void testAutomatonRulesAreAttemptedAtEachStep() {
+        RuleProfiler profiler = new RuleProfiler();
+        Rule a = rule("a");
+        Rule b = rule("b");
+        for (int i = 0; i < 3; i++) {
+            profiler.enterMatch();
+            profiler.exit();
+        }
+        profiler.enter(a);
+        profiler.matched(a);
+        profiler.applied(a);
+        profiler.exit();
+
+        String csv = profiler.csv(Arrays.asList(a, b), Collections.emptyList());
+        assertEquals("a,<unknown>,3,1,0,1", counts(row(csv, "a")));
+        assertEquals("b,<unknown>,3,0,0,0", counts(row(csv, "b")));
+    }
+
+    @Test
+    public void testIgnoresOutcomesOfRulesNotAttempted() {
+        RuleProfiler profiler = new RuleProfiler();
+        Rule f = rule("f");
+        Rule folding = rule("folding");
+        profiler.enterAttempt(f);
+        profiler.matched(folding);
+        profiler.sideConditionFailed(folding);
+        profiler.exit();
+
+        String csv = profiler.csv(Collections.emptyList(), Arrays.asList(f, folding));
+        assertEquals("folding,<unknown>,0,0,0,0", counts(row(csv, "folding")));
+    }
+
+    @Test
+    public void testMergesThreads() throws InterruptedException {
+        RuleProfiler profiler = new RuleProfiler();
+        Rule f = rule("f");
+        Runnable attempt = () -> {
+            profiler.enterAttempt(f);
+            profiler.applied(f);
+            profiler.exit();
+        };
+        Thread thread = new Thread(attempt);
+        thread.start();
+        thread.join();
+        attempt.run();
+
+        assertEquals("f,<unknown>,2,0,0,2", counts(row(profiler.csv(Collections.emptyList(), Collections.emptyList()), "f")));
+    }
+
+    @Test
+    public void testCollapsedStacks() throws InterruptedException {
+        RuleProfiler profiler = new RuleProfiler();
+        Rule f = rule("f");
+        Rule g = rule("g");
+        profiler.enterAttempt(f);
+        profiler.enterAttempt(g);
+        Thread.sleep(2);
+        profiler.exit();
+        profiler.exit();
+
+        String[] lines = profiler.collapsedStacks().split("\n");
+        assertTrue(Arrays.stream(lines).anyMatch(line -> line.matches("f@<unknown>;g@<unknown> [0-9]+")));
+    }
+
+    @Test
+    public void testCollapsedStacksOfDeepRecursionAreBounded() throws InterruptedException {
+        RuleProfiler profiler = new RuleProfiler();
+        Rule f = rule("f");
+        for (int i = 0; i < 1000; i++) {
+            profiler.enterAttempt(f);
+        }
+        Thread.sleep(2);
+        for (int i = 0; i < 1000; i++) {
+            profiler.exit();
+        }
+
+        String stacks = profiler.collapsedStacks();
+        assertFalse(stacks.isEmpty());
+        for (String line : stacks.split("\n")) {
+            assertTrue(line.split(";").length <= 64);
+        }
+        assertEquals("f,<unknown>,1000,0,0,0", counts(row(profiler.csv(Collections.emptyList(), Collections.emptyList()), "f")));
+    }
+}
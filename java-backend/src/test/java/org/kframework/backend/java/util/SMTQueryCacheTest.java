@@ -0,0 +1,52 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kframework.utils.BinaryLoader;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class SMTQueryCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetPut() {
+        SMTQueryCache cache = new SMTQueryCache(16);
+        assertNull(cache.get("(assert false)", 50));
+        cache.put("(assert false)", 50, true);
+        assertEquals(Boolean.TRUE, cache.get("(assert false)", 50));
+        assertNull(cache.get("(assert false)", 5000));
+    }
+
+    @Test
+    public void testBounded() {
+        SMTQueryCache cache = new SMTQueryCache(16);
+        for (int i = 0; i < 100; i++) {
+            cache.put("(assert (= x " + i + "))", 50, false);
+        }
+        assertTrue(cache.size() <= 16);
+    }
+
+    @Test
+    public void testSaveLoad() {
+        File file = new File(folder.getRoot(), "smt.cache");
+        BinaryLoader loader = new BinaryLoader(null);
+        SMTQueryCache cache = new SMTQueryCache(16);
+        cache.put("(assert false)", 50, true);
+        cache.save(file, "definition", loader);
+
+        SMTQueryCache sameDefinition = new SMTQueryCache(16);
+        sameDefinition.load(file, "definition", loader);
+        assertEquals(Boolean.TRUE, sameDefinition.get("(assert false)", 50));
+
+        SMTQueryCache otherDefinition = new SMTQueryCache(16);
+        otherDefinition.load(file, "other definition", loader);
+        assertNull(otherDefinition.get("(assert false)", 50));
+    }
+}
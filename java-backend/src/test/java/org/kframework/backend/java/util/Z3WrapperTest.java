@@ -0,0 +1,153 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.backend.java.util;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kframework.main.GlobalOptions;
+import org.kframework.utils.OS;
+import org.kframework.utils.file.FileUtil;
+import org.kframework.utils.options.SMTOptions;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+/**
+ * Tests the pool of Z3 processes against a stand-in solver script, which answers {@code unsat}
+ * to the queries asserting {@code false}, {@code sat} to the other queries, terminates on
+ * {@code (crash)}, hangs on {@code (hang)}, pauses for half a second on {@code (slow)}, and logs
+ * each start in a file.
+ */
+public class Z3WrapperTest {
+
+    private static final String SOLVER_SCRIPT = "" +
+            "echo started >> \"$1\"\n" +
+            "while IFS= read -r line; do\n" +
+            "  case \"$line\" in\n" +
+            "    '(push)') result=sat ;;\n" +
+            "    *'(assert false)'*) result=unsat ;;\n" +
+            "    *'(crash)'*) exit 1 ;;\n" +
+            "    *'(hang)'*) exec sleep 60 ;;\n" +
+            "    *'(slow)'*) sleep 0.5 ;;\n" +
+            "    '(check-sat)') echo \"$result\" ;;\n" +
+            "    '(echo '*) echo \"$line\" | sed 's/^(echo \"\\(.*\\)\")$/\\1/' ;;\n" +
+            "  esac\n" +
+            "done\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File log;
+    private Z3Wrapper z3;
+
+    @Before
+    public void setUp() throws IOException {
+        assumeTrue(OS.current().isPosix);
+        File script = folder.newFile("z3.sh");
+        FileUtils.writeStringToFile(script, SOLVER_SCRIPT);
+        log = folder.newFile("z3.log");
+        SMTOptions options = new SMTOptions();
+        options.z3Executable = true;
+        options.z3PoolSize = 4;
+        z3 = new Z3Wrapper(options, null, new GlobalOptions(), FileUtil.testFileUtil(),
+                ImmutableList.of("sh", script.getAbsolutePath(), log.getAbsolutePath()));
+    }
+
+    private int solverStarts() throws IOException {
+        return FileUtils.readLines(log).size();
+    }
+
+    @Test
+    public void testSessionIsReused() throws IOException {
+        assertTrue(z3.isUnsat("(assert false)", 50));
+        assertFalse(z3.isUnsat("(assert true)", 50));
+        assertTrue(z3.isUnsat("(assert false)", 50));
+        assertEquals(1, solverStarts());
+    }
+
+    @Test
+    public void testSessionIsReusedForSameDeclarations() throws IOException {
+        assertTrue(z3.isUnsat("(declare-sort A)\n", "(assert false)", 50));
+        assertFalse(z3.isUnsat("(declare-sort A)\n", "(assert true)", 50));
+        assertEquals(1, solverStarts());
+        assertTrue(z3.isUnsat("(declare-sort B)\n", "(assert false)", 50));
+        assertEquals(2, solverStarts());
+    }
+
+    @Test
+    public void testCrashedSolverIsRestarted() throws IOException {
+        assertFalse(z3.isUnsat("(crash)", 50));
+        assertTrue(z3.isUnsat("(assert false)", 50));
+        assertFalse(z3.isUnsat("(assert true)", 50));
+    }
+
+    @Test
+    public void testCrashedQueryIsUnknown() {
+        assertEquals(Z3Wrapper.Result.UNSAT, z3.check("", "(assert false)", 50));
+        assertEquals(Z3Wrapper.Result.SAT, z3.check("", "(assert true)", 50));
+        assertEquals(Z3Wrapper.Result.UNKNOWN, z3.check("", "(crash)", 50));
+    }
+
+    @Test
+    public void testCloseReleasesSessions() throws IOException {
+        assertTrue(z3.isUnsat("(assert false)", 50));
+        z3.close();
+        assertFalse(z3.isUnsat("(assert true)", 50));
+        assertEquals(2, solverStarts());
+    }
+
+    @Test
+    public void testHungSolverIsReplaced() throws IOException {
+        long start = System.nanoTime();
+        assertEquals(Z3Wrapper.Result.UNKNOWN, z3.check("", "(hang)", 50));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+        assertTrue(z3.isUnsat("(assert false)", 50));
+        assertEquals(2, solverStarts());
+    }
+
+    @Test
+    public void testCloseReleasesCheckedOutSessions() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> result = executor.submit(() -> z3.isUnsat("(slow)\n(assert false)", 50));
+            while (solverStarts() == 0) {
+                Thread.sleep(10);
+            }
+            z3.close();
+            assertTrue(result.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(z3.isUnsat("(assert false)", 50));
+        assertEquals(2, solverStarts());
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = IntStream.range(0, 100)
+                    .mapToObj(i -> executor.submit(() -> z3.isUnsat(i % 2 == 0 ? "(assert false)" : "(assert true)", 50)))
+                    .collect(Collectors.toList());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0, results.get(i).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(solverStarts() <= 4);
+    }
+}
@@ -3,6 +3,7 @@ package org.kframework.debugger;
 
 import com.google.common.collect.Maps;
 import org.kframework.frontend.K;
+import org.kframework.rewriter.RewriterSession.Checkpoint;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -24,30 +25,37 @@ import java.util.TreeMap;
  */
 public class DebuggerState {
 
-    private final NavigableMap<Integer, K> checkpointMap;
+    private final NavigableMap<Integer, Checkpoint> checkpointMap;
 
     private final List<DebuggerMatchResult> watchList;
 
-    private final K currentK;
+    private final Checkpoint current;
 
     private final int stepNum;
 
-    public DebuggerState(K currentK, int stepNum, NavigableMap<Integer, K> checkpointMap, List<DebuggerMatchResult> watchList) {
+    public DebuggerState(Checkpoint current, int stepNum, NavigableMap<Integer, Checkpoint> checkpointMap, List<DebuggerMatchResult> watchList) {
         this.checkpointMap = new TreeMap<>(checkpointMap);
         this.watchList = new ArrayList<>(watchList);
-        this.currentK = currentK;
+        this.current = current;
         this.stepNum = stepNum;
     }
 
     public DebuggerState(DebuggerState copyState) {
-        this.checkpointMap = new TreeMap<>(copyState.getCheckpointMap());
+        this.checkpointMap = new TreeMap<>(copyState.checkpointMap);
         this.watchList = new ArrayList<>(copyState.getWatchList());
-        this.currentK = copyState.getCurrentK();
+        this.current = copyState.getCurrent();
         this.stepNum = copyState.getStepNum();
     }
 
     public K getCurrentK() {
-        return currentK;
+        return current.k();
+    }
+
+    /**
+     * @return The current configuration, as kept by the rewriter.
+     */
+    public Checkpoint getCurrent() {
+        return current;
     }
 
     public int getStepNum() {
@@ -69,6 +77,13 @@ public class DebuggerState {
     }
 
     public NavigableMap<Integer, K> getCheckpointMap() {
+        return Maps.unmodifiableNavigableMap(Maps.transformValues(checkpointMap, Checkpoint::k));
+    }
+
+    /**
+     * @return The checkpoints of the history, as kept by the rewriter.
+     */
+    public NavigableMap<Integer, Checkpoint> getCheckpoints() {
         return Maps.unmodifiableNavigableMap(checkpointMap);
     }
 }
@@ -3,7 +3,8 @@ package org.kframework.debugger;
 
 
 import org.kframework.rewriter.Rewriter;
-import org.kframework.RewriterResult;
+import org.kframework.rewriter.RewriterSession;
+import org.kframework.rewriter.RewriterSession.Checkpoint;
 import org.kframework.attributes.Source;
 import org.kframework.definition.Rule;
 import org.kframework.kompile.CompiledDefinition;
@@ -24,6 +25,10 @@ import java.util.stream.Collectors;
 
 /**
  * Kore Based Debugger Implementation.
+ * <p>
+ * The configurations are stepped through a {@link RewriterSession}, and the states and their
+ * checkpoints are kept as {@link Checkpoint}s of the session, so that they stay in the
+ * representation of the rewriter between the commands.
  */
 public class KoreKDebug implements KDebug {
 
@@ -31,6 +36,7 @@ public class KoreKDebug implements KDebug {
     private List<DebuggerState> stateList;
     private int activeStateIndex;
     private Rewriter rewriter;
+    private final RewriterSession session;
     private int checkpointInterval;
     private FileUtil files;
     private final KExceptionManager kem;
@@ -57,10 +63,12 @@ public class KoreKDebug implements KDebug {
         this.kem = kem;
         this.options = options;
         this.compiledDef = compiledDef;
-        NavigableMap<Integer, K> checkpointMap = new TreeMap<>();
-        checkpointMap.put(DEFAULT_ID, initialK);
+        this.session = rewriter.session(initialK);
+        Checkpoint initialCheckpoint = session.checkpoint();
+        NavigableMap<Integer, Checkpoint> checkpointMap = new TreeMap<>();
+        checkpointMap.put(DEFAULT_ID, initialCheckpoint);
         List<DebuggerMatchResult> watchList = new ArrayList<>();
-        DebuggerState initialState = new DebuggerState(initialK, DEFAULT_ID, checkpointMap, watchList);
+        DebuggerState initialState = new DebuggerState(initialCheckpoint, DEFAULT_ID, checkpointMap, watchList);
         stateList.add(initialState);
         activeStateIndex = DEFAULT_ID;
     }
@@ -73,16 +81,15 @@ public class KoreKDebug implements KDebug {
     @Override
     public DebuggerState step(int currentStateIndex, int steps) {
         DebuggerState currentState = stateList.get(currentStateIndex);
-        K currentK = currentState.getCurrentK();
         int activeStateCheckpoint = currentState.getStepNum();
-        RewriterResult result;
-        NavigableMap<Integer, K> checkpointMap = new TreeMap<>(currentState.getCheckpointMap());
+        NavigableMap<Integer, Checkpoint> checkpointMap = new TreeMap<>(currentState.getCheckpoints());
         List<DebuggerMatchResult> origWatchList = currentState.getWatchList();
+        session.restore(currentState.getCurrent());
         while (steps >= checkpointInterval) {
-            result = rewriter.execute(currentK, Optional.of(checkpointInterval));
-            if (isFinalState(checkpointInterval, result)) {
-                return processStateData(result.k(),
-                        activeStateCheckpoint + result.rewriteSteps().get(),
+            int stepsTaken = session.step(checkpointInterval);
+            if (stepsTaken < checkpointInterval) {
+                return processStateData(session.checkpoint(),
+                        activeStateCheckpoint + stepsTaken,
                         currentStateIndex,
                         checkpointMap,
                         origWatchList
@@ -90,21 +97,12 @@ public class KoreKDebug implements KDebug {
             }
             steps -= checkpointInterval;
             activeStateCheckpoint += checkpointInterval;
-            checkpointMap.put(activeStateCheckpoint, result.k());
-            currentK = result.k();
+            checkpointMap.put(activeStateCheckpoint, session.checkpoint());
         }
-        result = rewriter.execute(currentK, Optional.of(steps));
-        if (isFinalState(steps, result)) {
-            return processStateData(result.k(),
-                    activeStateCheckpoint + result.rewriteSteps().get(),
-                    currentStateIndex,
-                    checkpointMap,
-                    origWatchList
-            );
-
+        if (steps > 0) {
+            activeStateCheckpoint += session.step(steps);
         }
-        activeStateCheckpoint += steps;
-        return processStateData(result.k(),
+        return processStateData(session.checkpoint(),
                 activeStateCheckpoint,
                 currentStateIndex,
                 checkpointMap,
@@ -112,12 +110,12 @@ public class KoreKDebug implements KDebug {
         );
     }
 
-    /* Private Helper function to do make a new state with the requested data */
-    private DebuggerState processStateData(K finalK, int stepNum, int stateNum, NavigableMap<Integer, K> checkpointMap, List<DebuggerMatchResult> watchList) {
-        List<DebuggerMatchResult> updatedWatchList = updateWatchList(watchList, finalK);
+    /* Private Helper function to do make a new state with the requested data. The session must be at the final checkpoint. */
+    private DebuggerState processStateData(Checkpoint finalCheckpoint, int stepNum, int stateNum, NavigableMap<Integer, Checkpoint> checkpointMap, List<DebuggerMatchResult> watchList) {
+        List<DebuggerMatchResult> updatedWatchList = updateWatchList(watchList);
         stateList.remove(stateNum);
         DebuggerState nextState = new DebuggerState(
-                finalK,
+                finalCheckpoint,
                 stepNum,
                 checkpointMap,
                 updatedWatchList
@@ -126,12 +124,12 @@ public class KoreKDebug implements KDebug {
         return nextState;
     }
 
-    private List<DebuggerMatchResult> updateWatchList(List<DebuggerMatchResult> originalList, K finalK) {
-        List<DebuggerMatchResult> modifiableList = new ArrayList<>(originalList);
-        return modifiableList.stream()
+    /* Matches the watches against the current configuration of the session */
+    private List<DebuggerMatchResult> updateWatchList(List<DebuggerMatchResult> originalList) {
+        return originalList.stream()
                 .map(x -> {
                     return new DebuggerMatchResult(
-                            rewriter.match(finalK, x.getCompiledRule()),
+                            session.match(x.getCompiledRule()),
                             x.getParsedRule(),
                             x.getCompiledRule(),
                             x.getPattern());
@@ -139,32 +137,25 @@ public class KoreKDebug implements KDebug {
                 .collect(Collectors.toCollection(ArrayList::new));
     }
 
-    private boolean isFinalState(int steps, RewriterResult result) {
-        return result.rewriteSteps().isPresent() && result.rewriteSteps().get() < steps;
-    }
-
-    private boolean isFinalConfiguration(K config) {
-        return rewriter.execute(config, Optional.of(1)).equals(config);
-    }
-
     @Override
     public DebuggerState backStep(int initialStateNum, int steps) {
         DebuggerState currentState = stateList.get(initialStateNum);
         int currentCheckpoint = currentState.getStepNum();
         int target = currentCheckpoint - steps;
-        NavigableMap<Integer, K> currMap = new TreeMap<>(currentState.getCheckpointMap());
-        Map.Entry<Integer, K> relevantEntry = currMap.floorEntry(target);
+        NavigableMap<Integer, Checkpoint> currMap = new TreeMap<>(currentState.getCheckpoints());
+        Map.Entry<Integer, Checkpoint> relevantEntry = currMap.floorEntry(target);
         if (relevantEntry == null) {
             /* Invalid Operation, no need to change the state */
             return null;
         }
 
         int floorKey = relevantEntry.getKey();
-        processStateData(relevantEntry.getValue(),
+        /* the watches are matched once the target is reached */
+        stateList.set(initialStateNum, new DebuggerState(
+                relevantEntry.getValue(),
                 floorKey,
-                initialStateNum,
                 currMap.headMap(floorKey, true),
-                updateWatchList(currentState.getWatchList(), relevantEntry.getValue()));
+                currentState.getWatchList()));
         return step(initialStateNum, target - floorKey);
     }
 
@@ -196,7 +187,7 @@ public class KoreKDebug implements KDebug {
             activeState = steppedState;
             steppedState = step(activeStateIndex, checkpointInterval);
         }
-        while (steppedState.getStepNum() - activeState.getStepNum() >= checkpointInterval && !isFinalConfiguration(steppedState.getCurrentK()));
+        while (steppedState.getStepNum() - activeState.getStepNum() >= checkpointInterval);
         return steppedState;
     }
 
@@ -244,7 +235,8 @@ public class KoreKDebug implements KDebug {
         String DebuggerSource = source;
         Rule compiledPattern = KRun.compilePattern(files, kem, pattern, options, compiledDef, Source.apply(DebuggerSource));
         Rule parsedPattern = KRun.parsePattern(files, kem, pattern, compiledDef, Source.apply(DebuggerSource));
-        K subst = rewriter.match(getActiveState().getCurrentK(), compiledPattern);
+        session.restore(getActiveState().getCurrent());
+        K subst = session.match(compiledPattern);
         return new DebuggerMatchResult(subst, parsedPattern, compiledPattern, pattern);
     }
 
@@ -255,9 +247,9 @@ public class KoreKDebug implements KDebug {
         List<DebuggerMatchResult> watchList = new ArrayList<>(activeState.getWatchList());
         watchList.add(matchResult);
         DebuggerState nextState = new DebuggerState(
-                activeState.getCurrentK(),
+                activeState.getCurrent(),
                 activeState.getStepNum(),
-                new TreeMap<>(activeState.getCheckpointMap()),
+                new TreeMap<>(activeState.getCheckpoints()),
                 watchList);
         stateList.add(activeStateIndex, nextState);
     }
@@ -274,9 +266,9 @@ public class KoreKDebug implements KDebug {
         updatedList.remove(watchNum);
         stateList.add(activeStateIndex,
                 new DebuggerState(
-                        currActiveState.getCurrentK(),
+                        currActiveState.getCurrent(),
                         currActiveState.getStepNum(),
-                        new TreeMap<>(currActiveState.getCheckpointMap()),
+                        new TreeMap<>(currActiveState.getCheckpoints()),
                         updatedList)
 
         );
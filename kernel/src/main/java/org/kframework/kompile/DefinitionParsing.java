@@ -22,6 +22,7 @@ import org.kframework.frontend.Sort;
 import org.kframework.parser.TreeNodesToKORE;
 import org.kframework.parser.concrete2kore.ParseCache;
 import org.kframework.parser.concrete2kore.ParseCache.ParsedSentence;
+import org.kframework.parser.concrete2kore.ParseCacheStore;
 import org.kframework.parser.concrete2kore.ParseInModule;
 import org.kframework.parser.concrete2kore.ParserUtils;
 import org.kframework.parser.concrete2kore.generator.RuleGrammarGenerator;
@@ -38,8 +39,6 @@ import scala.util.Left;
 import scala.util.Right;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -62,7 +61,7 @@ import static org.kframework.frontend.KORE.*;
  */
 public class DefinitionParsing {
     public static final Sort START_SYMBOL = Sort("RuleContent", ModuleName.apply("REQUIRES-ENSURES"));
-    private final File cacheFile;
+    private final File cacheDirectory;
     private boolean autoImportDomains;
 
     private final KExceptionManager kem;
@@ -81,13 +80,13 @@ public class DefinitionParsing {
             KExceptionManager kem,
             ParserUtils parser,
             boolean cacheParses,
-            File cacheFile,
+            File cacheDirectory,
             boolean autoImportDomains) {
         this.lookupDirectories = lookupDirectories;
         this.kem = kem;
         this.parser = parser;
         this.cacheParses = cacheParses;
-        this.cacheFile = cacheFile;
+        this.cacheDirectory = cacheDirectory;
         this.autoImportDomains = autoImportDomains;
         this.loader = new BinaryLoader(this.kem);
         this.isStrict = isStrict;
@@ -108,37 +107,24 @@ public class DefinitionParsing {
         Module module = modules.iterator().next();
 
         errors = java.util.Collections.synchronizedSet(Sets.newHashSet());
-        caches = new HashMap<>();
-
-        if (cacheParses) {
-            try {
-                caches = loader.load(Map.class, cacheFile);
-            } catch (FileNotFoundException e) {
-            } catch (IOException | ClassNotFoundException e) {
-                kem.registerInternalHiddenWarning("Invalidating serialized cache due to corruption.", e);
-            }
-        }
+        caches = new ParseCacheStore(cacheParses ? cacheDirectory : null, loader, kem);
 
         ResolveConfig resolveConfig = new ResolveConfig(definition.getParsedDefinition(), isStrict, this::parseBubble, this::getParser);
         Module modWithConfig = resolveConfig.apply(module);
 
-        Module parsedMod = resolveNonConfigBubbles(modWithConfig, s -> definition.getParsedDefinition().getModule(s).get(), isStrict);
+        Map<String, Map<Bubble, Either<java.util.Set<ParseFailedException>, K>>> parses =
+                parseNonConfigBubbles(Stream.of(modWithConfig), s -> definition.getParsedDefinition().getModule(s).get());
+        Module parsedMod = resolveNonConfigBubbles(modWithConfig, parses);
 
         saveCachesAndReportParsingErrors();
         return parsedMod;
     }
 
     private void saveCachesAndReportParsingErrors() {
-        saveCaches();
+        caches.save();
         throwExceptionIfThereAreErrors();
     }
 
-    private void saveCaches() {
-        if (cacheParses) {
-            loader.saveOrDie(cacheFile, caches);
-        }
-    }
-
     public Definition parseDefinitionAndResolveBubbles(File definitionFile, String mainModuleName, String mainProgramsModule) {
 
         List<File> allLookupDirectories = ListUtils.union(
@@ -153,6 +139,7 @@ public class DefinitionParsing {
         Definition parsedDefinition = RuleGrammarGenerator.autoGenerateBaseKCasts(parseDefinition(definitionString, mainModuleName, mainProgramsModule, source, allLookupDirectories));
         Definition afterResolvingConfigBubbles = resolveConfigBubbles(parsedDefinition);
         Definition afterResolvingAllOtherBubbles = resolveNonConfigBubbles(afterResolvingConfigBubbles);
+        caches.prune();
         saveCachesAndReportParsingErrors();
         return afterResolvingAllOtherBubbles;
     }
@@ -196,16 +183,7 @@ public class DefinitionParsing {
         }
 
         errors = java.util.Collections.synchronizedSet(Sets.newHashSet());
-        caches = new HashMap<>();
-
-        if (cacheParses) {
-            try {
-                caches = loader.load(Map.class, cacheFile);
-            } catch (FileNotFoundException e) {
-            } catch (IOException | ClassNotFoundException e) {
-                kem.registerInternalHiddenWarning("Invalidating serialized cache due to corruption.", e);
-            }
-        }
+        caches = new ParseCacheStore(cacheParses ? cacheDirectory : null, loader, kem);
 
         ResolveConfig resolveConfig = new ResolveConfig(definitionWithConfigBubble, isStrict, this::parseBubble, this::getParser);
         Definition defWithConfig = DefinitionTransformer.fromHybrid(resolveConfig::apply, "parsing configurations").apply(definitionWithConfigBubble);
@@ -213,7 +191,7 @@ public class DefinitionParsing {
         return defWithConfig;
     }
 
-    Map<String, ParseCache> caches;
+    ParseCacheStore caches;
     private java.util.Set<KEMException> errors;
     Definition definitionWithConfigBubble;
 
@@ -221,11 +199,24 @@ public class DefinitionParsing {
         return errors;
     }
 
+    /**
+     * @return the cache store of the last definition or module parsed, whose counters tell how many
+     * grammars had their parses loaded from disk and saved back.
+     */
+    public ParseCacheStore caches() {
+        return caches;
+    }
+
     public Definition resolveNonConfigBubbles(Definition defWithConfig) {
+        // the rule grammars only depend on the syntax of the modules, which resolving their bubbles does not change,
+        // so the bubbles of all modules can be parsed at once, before any module is processed
+        Map<String, Map<Bubble, Either<java.util.Set<ParseFailedException>, K>>> parses =
+                parseNonConfigBubbles(stream(defWithConfig.modules()), s -> defWithConfig.getModule(s).get());
+
         HybridMemoizingModuleTransformer resolveNonConfigBubbles = new HybridMemoizingModuleTransformer() {
             @Override
             public Module processHybridModule(Module hybridModule) {
-                return resolveNonConfigBubbles(hybridModule, s -> apply(defWithConfig.getModule(s).get()), isStrict);
+                return resolveNonConfigBubbles(hybridModule, parses);
             }
         };
 
@@ -233,25 +224,57 @@ public class DefinitionParsing {
         return parsedDef;
     }
 
-    private Module resolveNonConfigBubbles(Module module, Function<String, Module> getProcessedModule, boolean isStrict) {
-        if (stream(module.localSentences())
+    private static Stream<Bubble> nonConfigBubbles(Module module) {
+        return stream(module.localSentences())
                 .filter(s -> s instanceof Bubble)
                 .map(b -> (Bubble) b)
-                .filter(b -> !b.sentenceType().equals("config")).count() == 0)
-            return module;
-        Module ruleParserModule = RuleGrammarGenerator.getRuleGrammar(module, getProcessedModule);
+                .filter(b -> !b.sentenceType().equals("config"));
+    }
 
-        ParseCache cache = loadCache(ruleParserModule);
-        ParseInModule parser = RuleGrammarGenerator.getCombinedGrammar(cache.getModule(), isStrict);
+    /**
+     * Parses the rule and context bubbles of the given modules in parallel on the common fork/join pool,
+     * interleaving the bubbles of all modules so that one large module does not hold up the others.
+     *
+     * @return the parse of each bubble, by module name.
+     */
+    private Map<String, Map<Bubble, Either<java.util.Set<ParseFailedException>, K>>> parseNonConfigBubbles(Stream<Module> modules, Function<String, Module> getModule) {
+        List<RuleParser> parsers = modules
+                .filter(m -> nonConfigBubbles(m).findAny().isPresent())
+                .collect(Collectors.toList()).parallelStream()
+                .map(m -> new RuleParser(m, loadCache(RuleGrammarGenerator.getRuleGrammar(m, getModule))))
+                .collect(Collectors.toList());
+
+        List<Tuple2<RuleParser, Bubble>> bubbles = parsers.stream()
+                .flatMap(p -> nonConfigBubbles(p.module).distinct().map(b -> Tuple2.apply(p, b)))
+                .collect(Collectors.toList());
+
+        return bubbles.parallelStream().collect(Collectors.groupingByConcurrent(pb -> pb._1().module.name(),
+                Collectors.toConcurrentMap(Tuple2::_2, pb -> performParse(pb._1().cache.getCache(), pb._1().parser, pb._2()))));
+    }
 
-        java.util.Set<Bubble> bubbles = stream(module.localSentences())
-                .parallel()
-                .filter(s -> s instanceof Bubble)
-                .map(b -> (Bubble) b).collect(Collectors.toSet());
+    /**
+     * The rule grammar of a module with bubbles, and its parse cache.
+     */
+    private class RuleParser {
+        final Module module;
+        final ParseCache cache;
+        final ParseInModule parser;
+
+        RuleParser(Module module, ParseCache cache) {
+            this.module = module;
+            this.cache = cache;
+            this.parser = RuleGrammarGenerator.getCombinedGrammar(cache.getModule(), isStrict);
+        }
+    }
 
-        Set<Sentence> ruleSet = bubbles.stream()
-                .filter(b -> b.sentenceType().equals("rule"))
-                .map(b -> performParse(cache.getCache(), parser, b))
+    private Module resolveNonConfigBubbles(Module module, Map<String, Map<Bubble, Either<java.util.Set<ParseFailedException>, K>>> parses) {
+        Map<Bubble, Either<java.util.Set<ParseFailedException>, K>> moduleParses = parses.get(module.name());
+        if (moduleParses == null)
+            return module;
+
+        Set<Sentence> ruleSet = moduleParses.entrySet().stream()
+                .filter(e -> e.getKey().sentenceType().equals("rule"))
+                .map(Map.Entry::getValue)
                 .flatMap(r -> {
                     if (r.isRight()) {
                         return Stream.of(this.upRule(r.right().get()));
@@ -261,9 +284,9 @@ public class DefinitionParsing {
                     }
                 }).collect(Collections.toSet());
 
-        Set<Sentence> contextSet = bubbles.stream()
-                .filter(b -> b.sentenceType().equals("context"))
-                .map(b -> performParse(cache.getCache(), parser, b))
+        Set<Sentence> contextSet = moduleParses.entrySet().stream()
+                .filter(e -> e.getKey().sentenceType().equals("context"))
+                .map(Map.Entry::getValue)
                 .flatMap(r -> {
                     if (r.isRight()) {
                         return Stream.of(this.upContext(r.right().get()));
@@ -319,20 +342,7 @@ public class DefinitionParsing {
     }
 
     private ParseCache loadCache(Module parser) {
-        ParseCache cachedParser = caches.get(parser.name());
-        if (cachedParser == null || !equalsSyntax(cachedParser.getModule(), parser) || cachedParser.isStrict() != isStrict) {
-            cachedParser = new ParseCache(parser, isStrict, java.util.Collections.synchronizedMap(new HashMap<>()));
-            caches.put(parser.name(), cachedParser);
-        }
-        return cachedParser;
-    }
-
-    private boolean equalsSyntax(Module _this, Module that) {
-        if (!_this.productions().equals(that.productions())) return false;
-        if (!_this.priorities().equals(that.priorities())) return false;
-        if (!_this.leftAssoc().equals(that.leftAssoc())) return false;
-        if (!_this.rightAssoc().equals(that.rightAssoc())) return false;
-        return _this.sortDeclarations().equals(that.sortDeclarations());
+        return caches.get(parser, isStrict);
     }
 
     private Either<java.util.Set<ParseFailedException>, K> parseBubble(Module module, Function<String, Module> getModule, Bubble b) {
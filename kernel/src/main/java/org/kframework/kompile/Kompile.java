@@ -38,6 +38,7 @@ import org.kframework.frontend.compile.checks.CheckRHSVariables;
 import org.kframework.frontend.compile.checks.CheckSortTopUniqueness;
 import org.kframework.frontend.compile.checks.CheckStreams;
 import org.kframework.main.GlobalOptions;
+import org.kframework.parser.concrete2kore.ParseCacheStore;
 import org.kframework.parser.concrete2kore.ParserUtils;
 import org.kframework.parser.concrete2kore.generator.RuleGrammarGenerator;
 import org.kframework.utils.Stopwatch;
@@ -97,7 +98,7 @@ public class Kompile {
         List<File> lookupDirectories = kompileOptions.outerParsing.includes.stream().map(files::resolveWorkingDirectory).collect(Collectors.toList());
         this.definitionParsing = new DefinitionParsing(
                 lookupDirectories, kompileOptions.strict(), kem,
-                parser, cacheParses, files.resolveKompiled(FileUtil.CACHE_BIN), !kompileOptions.outerParsing.noPrelude);
+                parser, cacheParses, files.resolveKompiled(FileUtil.CACHE_DIR), !kompileOptions.outerParsing.noPrelude);
         this.sw = sw;
     }
 
@@ -120,7 +121,6 @@ public class Kompile {
      */
     public CompiledDefinition run(File definitionFile, String mainModuleName, String mainProgramsModuleName, Function<Definition, Definition> pipeline) {
         Definition parsedDef = parseDefinition(definitionFile, mainModuleName, mainProgramsModuleName);
-        sw.printIntermediate("Parse definition [" + definitionParsing.parsedBubbles.get() + "/" + (definitionParsing.parsedBubbles.get() + definitionParsing.cachedBubbles.get()) + " rules]");
 
         return compile(parsedDef, pipeline);
     }
@@ -137,7 +137,11 @@ public class Kompile {
     }
 
     public Definition parseDefinition(File definitionFile, String mainModuleName, String mainProgramsModule) {
-        return definitionParsing.parseDefinitionAndResolveBubbles(definitionFile, mainModuleName, mainProgramsModule);
+        Definition parsedDef = definitionParsing.parseDefinitionAndResolveBubbles(definitionFile, mainModuleName, mainProgramsModule);
+        ParseCacheStore caches = definitionParsing.caches();
+        sw.printIntermediate("Parse definition [" + definitionParsing.parsedBubbles.get() + "/" + (definitionParsing.parsedBubbles.get() + definitionParsing.cachedBubbles.get()) + " rules, "
+                + caches.loadedShards.get() + "/" + caches.size() + " grammar caches loaded, " + caches.savedShards.get() + " saved]");
+        return parsedDef;
     }
 
     public static Function<Definition, Definition> defaultSteps(KompileOptions kompileOptions, KExceptionManager kem) {
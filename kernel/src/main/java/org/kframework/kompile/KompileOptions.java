@@ -107,5 +107,8 @@ public class KompileOptions implements Serializable {
         @Parameter(names="--legacy-kast", description="Compile with settings based on the old KAST structure")
         public boolean legacyKast = false;
 
+        @Parameter(names="--compact-binaries", description="Save the binary files of the kompiled definition in a compact format, in which equal strings, labels and sorts are stored once. Such definitions are faster to load, but cannot be loaded by older versions of K.")
+        public boolean compactBinaries = false;
+
     }
 }
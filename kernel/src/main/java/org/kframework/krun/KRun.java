@@ -1,6 +1,7 @@
 // Copyright (c) 2015-2016 K Team. All Rights Reserved.
 package org.kframework.krun;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.RewriterResult;
@@ -46,9 +47,15 @@ import org.kframework.utils.file.FileUtil;
 import scala.Some;
 import scala.Tuple2;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -212,7 +219,11 @@ public class KRun {
             outputFile("No Search Results\n", options);
             return;
         }
-        outputFile(filterAnonVarsAndPrint(result, patternVariables, compiledDef, options).toString(), options);
+        if (result instanceof KApply && ((KApply) result).klabel().toString().equals(KLabels.ML_AND)) {
+            outputFile(filterAnonVarsAndPrint(result, patternVariables, compiledDef, options).toString(), options);
+            return;
+        }
+        outputFile(compiledDef, result, options, files);
     }
 
     /**
@@ -261,6 +272,24 @@ public class KRun {
         outputFile(output, options, files);
     }
 
+    /**
+     * Prints the given term to the output file, or to the standard output if there is none, as it
+     * is printed, so that huge terms are not held in memory as a whole once more.
+     */
+    public static void outputFile(CompiledDefinition compiledDef, K result, KRunOptions options, FileUtil files) {
+        if (options.outputFile == null) {
+            prettyPrint(compiledDef, options.output, System.out, result);
+            System.out.flush();
+        } else {
+            File file = files.resolveWorkingDirectory(options.outputFile);
+            try (OutputStream out = FileUtils.openOutputStream(file)) {
+                prettyPrint(compiledDef, options.output, out, result);
+            } catch (IOException e) {
+                throw KEMException.criticalError("Could not write to file " + file.getAbsolutePath(), e);
+            }
+        }
+    }
+
     public static void outputFile(byte[] output, KRunOptions options, FileUtil files) {
         if (options.outputFile == null) {
             try {
@@ -302,23 +331,47 @@ public class KRun {
     }
 
     public static void prettyPrint(CompiledDefinition compiledDef, OutputModes output, Consumer<byte[]> print, K result) {
-        switch (output) {
-        case KAST:
-            print.accept((ToKast.apply(result) + "\n").getBytes());
-            break;
-        case NONE:
-            print.accept("".getBytes());
-            break;
-        case PRETTY:
-        case NOWRAP:
-            Module unparsingModule = compiledDef.getExtensionModule(compiledDef.languageParsingModule());
-            print.accept((unparseTerm(result, unparsingModule, output == OutputModes.NOWRAP) + "\n").getBytes());
-            break;
-        case BINARY:
-            print.accept(ToBinary.apply(result));
-            break;
-        default:
-            throw KEMException.criticalError("Unsupported output mode: " + output);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        prettyPrint(compiledDef, output, out, result);
+        print.accept(out.toByteArray());
+    }
+
+    /**
+     * Writes the given term to the given stream as it is printed, buffering the writes; the stream
+     * is flushed but not closed.
+     */
+    public static void prettyPrint(CompiledDefinition compiledDef, OutputModes output, OutputStream out, K result) {
+        try {
+            switch (output) {
+            case KAST: {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+                ToKast.apply(writer, result);
+                writer.write('\n');
+                writer.flush();
+                break;
+            }
+            case NONE:
+                break;
+            case PRETTY:
+            case NOWRAP: {
+                Module unparsingModule = compiledDef.getExtensionModule(compiledDef.languageParsingModule());
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out));
+                unparseTerm(writer, result, unparsingModule, output == OutputModes.NOWRAP);
+                writer.write('\n');
+                writer.flush();
+                break;
+            }
+            case BINARY: {
+                OutputStream buffered = new BufferedOutputStream(out);
+                ToBinary.apply(buffered, result);
+                buffered.flush();
+                break;
+            }
+            default:
+                throw KEMException.criticalError("Unsupported output mode: " + output);
+            }
+        } catch (IOException e) {
+            throw KEMException.internalError(e.getMessage(), e);
         }
     }
 
@@ -427,11 +480,12 @@ public class KRun {
         return KORE.KApply(compiledDef.topCellInitializer, output.entrySet().stream().map(e -> KORE.KApply(KLabel("_|->_"), e.getKey(), e.getValue())).reduce(KORE.KApply(KLabel(".Map")), (a, b) -> KORE.KApply(KLabel("_Map_"), a, b)));
     }
 
-    private static String unparseTerm(K input, Module test, Boolean noWrap) {
-        if (noWrap){
-            return KOREToTreeNodes.toString(KOREToTreeNodes.apply(KOREToTreeNodes.up(test, input), test));
+    private static void unparseTerm(Appendable out, K input, Module test, boolean noWrap) throws IOException {
+        if (noWrap) {
+            KOREToTreeNodes.print(out, input, test);
+            return;
         }
-        return KOREToTreeNodes.toString(
+        KOREToTreeNodes.print(out,
                 new AddBrackets(test).addBrackets((ProductionReference)
                         KOREToTreeNodes.apply(KOREToTreeNodes.up(test, input), test)));
     }
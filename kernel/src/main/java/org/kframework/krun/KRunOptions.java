@@ -2,6 +2,7 @@
 package org.kframework.krun;
 
 import com.beust.jcommander.DynamicParameter;
+import com.beust.jcommander.IValueValidator;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
 import com.beust.jcommander.ParametersDelegate;
@@ -148,6 +149,16 @@ public final class KRunOptions {
             description="How to display krun results. <mode> is either [pretty|sound|kast|binary|none|nowrap].")
     public OutputModes output = OutputModes.PRETTY;
 
+    public static class IntCacheLimitValidator implements IValueValidator<Integer> {
+        @Override
+        public void validate(String name, Integer value) throws ParameterException {
+            if (value < 0 || value > Experimental.MAX_INT_CACHE_LIMIT) {
+                throw new ParameterException("Parameter " + name + " should be between 0 and "
+                        + Experimental.MAX_INT_CACHE_LIMIT + " (found " + value + ")");
+            }
+        }
+    }
+
     public static class OutputModeConverter extends BaseEnumConverter<OutputModes> {
 
         public OutputModeConverter(String optionName) {
@@ -283,5 +294,41 @@ public final class KRunOptions {
 
         @Parameter(names="--profile", description="Run krun multiple times to gather better performance metrics.")
         public int profile = 1;
+
+        public static final int DEFAULT_MEMO_TABLE_SIZE = 1 << 16;
+
+        @Parameter(names="--memo-table-size", description="Maximum number of cached results of functions tagged with [memo].")
+        public int memoTableSize = DEFAULT_MEMO_TABLE_SIZE;
+
+        @Parameter(names="--search-threads", description="Number of threads used to explore each level of the "
+                + "state space during search in the Java backend. 1 disables parallel search.")
+        public int searchThreads = 1;
+
+        @Parameter(names="--prove-threads", description="Number of threads used to prove independent claims and "
+                + "to explore each level of their proofs in the Java backend. 1 disables parallel proving.")
+        public int proveThreads = 1;
+
+        @Parameter(names="--hash-cons", description="Share one instance among the structurally equal ground "
+                + "terms built by the Java backend.")
+        public boolean hashCons = false;
+
+        public static final int DEFAULT_INT_CACHE_LIMIT = 1024;
+
+        public static final int MAX_INT_CACHE_LIMIT = 1 << 20;
+
+        @Parameter(names="--int-cache-limit", description="The Java backend preallocates and shares the integer "
+                + "tokens in [-128, N), for N between 0 and " + MAX_INT_CACHE_LIMIT + ". The K server keeps the largest "
+                + "N requested so far.",
+                validateValueWith=IntCacheLimitValidator.class)
+        public int intCacheLimit = DEFAULT_INT_CACHE_LIMIT;
+
+        @Parameter(names="--map-input-files", description="Map the large files that the program opens read-only "
+                + "into memory instead of reading them through a buffer.")
+        public boolean mapInputFiles = false;
+
+        @Parameter(names="--profile-rules", description="Profile the rules applied by the Java backend. Writes the "
+                + "attempts, matches, side condition failures, applications and time of each rule to <file>.csv, "
+                + "and the time of the nested rules, in the collapsed stack format of flame graphs, to <file>.folded.")
+        public String profileRules;
     }
 }
@@ -36,5 +36,12 @@ public interface FileSystem {
     */
     public void close(long fd) throws IOException;
 
+    /**
+    Write the buffered output of all open files.
+    @exception IOException Thrown if the underlying system call returns an error code. The message
+    is expected to be a mnemonic from errno.h.
+    */
+    public void flush() throws IOException;
+
     //TODO(dwightguth): getcwd, chdir, opendir, remove, rename, mkdir, stat, lstat
 }
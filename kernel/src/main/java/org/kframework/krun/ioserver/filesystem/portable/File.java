@@ -12,5 +12,10 @@ public abstract class File implements org.kframework.krun.api.io.File {
     public abstract byte[] read(int n) throws IOException;
     public abstract void write(byte[] b) throws IOException;
 
+    /**
+     * Writes the buffered output of this file, if any.
+     */
+    void flush() throws IOException { }
+
     abstract void close() throws IOException;
 }
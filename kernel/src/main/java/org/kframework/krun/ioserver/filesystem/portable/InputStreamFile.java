@@ -4,18 +4,49 @@ package org.kframework.krun.ioserver.filesystem.portable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.kframework.utils.errorsystem.KExceptionManager;
 
+/**
+ * An input-only file. Before a read that may block, the output of the given files is flushed,
+ * so that for instance a prompt written to stdout is visible before reading from stdin.
+ */
 public class InputStreamFile extends File {
 
     protected InputStream is;
 
     private final KExceptionManager kem;
 
-    public InputStreamFile(InputStream is, KExceptionManager kem) {
+    private final List<? extends File> outputsToFlush;
+
+    public InputStreamFile(InputStream is, KExceptionManager kem, List<? extends File> outputsToFlush) {
         this.is = is;
         this.kem = kem;
+        this.outputsToFlush = outputsToFlush;
+    }
+
+    public InputStreamFile(InputStream is, KExceptionManager kem) {
+        this(is, kem, Collections.emptyList());
+    }
+
+    private void flushBeforeRead() throws IOException {
+        if (outputsToFlush.isEmpty()) {
+            return;
+        }
+        int available;
+        try {
+            available = is.available();
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+            throw e; //unreachable
+        }
+        if (available == 0) {
+            for (File file : outputsToFlush) {
+                file.flush();
+            }
+        }
     }
 
     public long tell() throws IOException {
@@ -64,6 +95,7 @@ public class InputStreamFile extends File {
 
     public byte getc() throws IOException {
         int read;
+        flushBeforeRead();
         try {
             read = is.read();
         } catch (IOException e) {
@@ -79,6 +111,7 @@ public class InputStreamFile extends File {
     public byte[] read(int n) throws IOException {
         int read;
         byte[] bytes;
+        flushBeforeRead();
         try {
             bytes = new byte[n];
             read = is.read(bytes);
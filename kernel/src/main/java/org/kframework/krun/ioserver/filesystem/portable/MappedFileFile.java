@@ -0,0 +1,89 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.krun.ioserver.filesystem.portable;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file opened read-only whose contents are mapped into memory, so that reading it does not
+ * issue system calls. The contents of the file past the size it had when it was opened are not
+ * visible.
+ */
+public class MappedFileFile extends File {
+
+    protected RandomAccessFile raf;
+
+    private final MappedByteBuffer buffer;
+
+    private long position = 0;
+
+    public MappedFileFile(RandomAccessFile raf) throws IOException {
+        this.raf = raf;
+        try {
+            this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+            throw e; //unreachable
+        }
+    }
+
+    public long tell() throws IOException {
+        return position;
+    }
+
+    public void seek(long pos) throws IOException {
+        if (pos < 0) {
+            throw new IOException("EINVAL");
+        }
+        position = pos;
+    }
+
+    public void putc(byte b) throws IOException {
+        //the file is read-only, so this fails in the same way as an unmapped file
+        try {
+            raf.writeByte(b);
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+        }
+    }
+
+    public byte getc() throws IOException {
+        if (position >= buffer.limit()) {
+            throw new IOException("EOF");
+        }
+        return buffer.get((int) position++);
+    }
+
+    public byte[] read(int n) throws IOException {
+        if (n == 0) {
+            return new byte[0];
+        }
+        if (position >= buffer.limit()) {
+            throw new IOException("EOF");
+        }
+        byte[] bytes = new byte[(int) Math.min(n, buffer.limit() - position)];
+        buffer.position((int) position);
+        buffer.get(bytes);
+        position += bytes.length;
+        return bytes;
+    }
+
+    public void write(byte[] b) throws IOException {
+        //see comment on putc
+        try {
+            raf.write(b);
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+        }
+    }
+
+    void close() throws IOException {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+        }
+    }
+}
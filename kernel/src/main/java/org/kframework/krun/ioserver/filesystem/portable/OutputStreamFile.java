@@ -6,15 +6,27 @@ import java.io.OutputStream;
 
 import org.kframework.utils.errorsystem.KExceptionManager;
 
+/**
+ * An output-only file. If the file is line-buffered, each {@link #putc} of a newline and each
+ * {@link #write} flushes the buffered output to the underlying stream; otherwise, the output is
+ * only flushed by {@link #flush} and {@link #close}.
+ */
 public class OutputStreamFile extends File {
 
     protected OutputStream os;
 
     private final KExceptionManager kem;
 
-    public OutputStreamFile(OutputStream os, KExceptionManager kem) {
+    private final boolean lineBuffered;
+
+    public OutputStreamFile(OutputStream os, KExceptionManager kem, boolean lineBuffered) {
         this.os = os;
         this.kem = kem;
+        this.lineBuffered = lineBuffered;
+    }
+
+    public OutputStreamFile(OutputStream os, KExceptionManager kem) {
+        this(os, kem, true);
     }
 
     public long tell() throws IOException {
@@ -56,7 +68,9 @@ public class OutputStreamFile extends File {
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
         } finally {
-            os.flush();
+            if (lineBuffered && b == '\n') {
+                os.flush();
+            }
         }
     }
 
@@ -84,7 +98,17 @@ public class OutputStreamFile extends File {
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
         } finally {
+            if (lineBuffered) {
+                os.flush();
+            }
+        }
+    }
+
+    void flush() throws IOException {
+        try {
             os.flush();
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
         }
     }
 
@@ -9,12 +9,14 @@ import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.errorsystem.KExceptionManager;
 import org.kframework.utils.file.FileUtil;
 
+import java.io.BufferedOutputStream;
 import java.io.EOFException;
 import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,18 +26,37 @@ public class PortableFileSystem implements FileSystem {
 
     private Map<FileDescriptor, File> files = new HashMap<FileDescriptor, File>();
 
+    /**
+     * Files opened read-only that are at least this large are mapped into memory if
+     * {@link #mapInputFiles} is set.
+     */
+    static final long MAP_THRESHOLD = 1 << 20;
+
     private final FileUtil fileUtil;
     private final KExceptionManager kem;
+    private final boolean mapInputFiles;
 
-    public PortableFileSystem(KExceptionManager kem, FileUtil fileUtil) {
+    /**
+     * @param mapInputFiles whether to map large files opened read-only into memory
+     */
+    public PortableFileSystem(KExceptionManager kem, FileUtil fileUtil, boolean mapInputFiles) {
         this.fileUtil = fileUtil;
         this.kem = kem;
+        this.mapInputFiles = mapInputFiles;
         descriptors.put(0L, FileDescriptor.in);
         descriptors.put(1L, FileDescriptor.out);
         descriptors.put(2L, FileDescriptor.err);
-        files.put(FileDescriptor.in, new InputStreamFile(System.in, kem));
-        files.put(FileDescriptor.out, new OutputStreamFile(System.out, kem));
-        files.put(FileDescriptor.err, new OutputStreamFile(System.err, kem));
+        OutputStreamFile out = new OutputStreamFile(new BufferedOutputStream(System.out), kem, true);
+        OutputStreamFile err = new OutputStreamFile(new BufferedOutputStream(System.err), kem, true);
+        //stdin is not buffered: the file systems of a process all read from it, and bytes read ahead
+        //by one of them would be lost to the others
+        files.put(FileDescriptor.in, new InputStreamFile(System.in, kem, Arrays.asList(out, err)));
+        files.put(FileDescriptor.out, out);
+        files.put(FileDescriptor.err, err);
+    }
+
+    public PortableFileSystem(KExceptionManager kem, FileUtil fileUtil) {
+        this(kem, fileUtil, false);
     }
 
     public File get(long fd) throws IOException {
@@ -60,11 +81,15 @@ public class PortableFileSystem implements FileSystem {
             if (mode.equals("w")) {
                 FileOutputStream f = new FileOutputStream(path);
                 fileFD = f.getFD();
-                file = new OutputStreamFile(f, kem);
+                file = new OutputStreamFile(new BufferedOutputStream(f, RandomAccessFileFile.BUFFER_SIZE), kem, false);
             } else {
                 RandomAccessFile f = new RandomAccessFile(fileUtil.resolveWorkingDirectory(path), mode);
                 fileFD = f.getFD();
-                file = new RandomAccessFileFile(f);
+                if (mapInputFiles && mode.equals("r") && f.length() >= MAP_THRESHOLD && f.length() <= Integer.MAX_VALUE) {
+                    file = new MappedFileFile(f);
+                } else {
+                    file = new RandomAccessFileFile(f, !mode.equals("r"));
+                }
             }
             long fd = fdCounter++;
             descriptors.put(fd, fileFD);
@@ -88,6 +113,12 @@ public class PortableFileSystem implements FileSystem {
         }
     }
 
+    public void flush() throws IOException {
+        for (File file : files.values()) {
+            ((org.kframework.krun.ioserver.filesystem.portable.File) file).flush();
+        }
+    }
+
     public void close(long fd) throws IOException {
         File f = get(fd);
         assert f instanceof org.kframework.krun.ioserver.filesystem.portable.File;
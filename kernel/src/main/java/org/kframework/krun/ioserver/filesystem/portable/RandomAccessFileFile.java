@@ -5,67 +5,146 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.Arrays;
 
+/**
+ * A random access file with a buffer that serves both as a read-ahead and as a write-behind
+ * buffer, so that {@link #getc} and {@link #putc} only issue a system call once per
+ * {@link #BUFFER_SIZE} bytes. The buffer stays coherent with {@link #seek} and {@link #tell}.
+ * <p>
+ * Like a C stdio stream, the buffer is not coherent with other descriptors of the same file, and
+ * the errors of buffered writes are reported by the operation that writes them to the file.
+ */
 public class RandomAccessFileFile extends File {
 
+    static final int BUFFER_SIZE = 8192;
+
     protected RandomAccessFile raf;
 
-    public RandomAccessFileFile(RandomAccessFile raf) {
+    /* false if the file is opened read-only, in which case writes are not buffered so that they fail immediately */
+    private final boolean writable;
+
+    /* the contents of the file in [bufferStart, bufferStart + bufferLength), as read or written */
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private long bufferStart = 0;
+    private int bufferLength = 0;
+
+    /* the file pointer is at bufferStart + index, and index <= bufferLength */
+    private int index = 0;
+
+    /* the bytes of the buffer in [dirtyFrom, dirtyTo) have not been written to the file yet */
+    private int dirtyFrom = 0;
+    private int dirtyTo = 0;
+
+    public RandomAccessFileFile(RandomAccessFile raf, boolean writable) {
         this.raf = raf;
+        this.writable = writable;
     }
 
     public long tell() throws IOException {
-        try {
-            return raf.getFilePointer();
-        } catch (IOException e) {
-            PortableFileSystem.processIOException(e);
-            throw e; //unreachable
-        }
+        return bufferStart + index;
     }
 
     public void seek(long pos) throws IOException {
+        if (pos >= bufferStart && pos <= bufferStart + bufferLength) {
+            index = (int) (pos - bufferStart);
+            return;
+        }
         try {
+            flushBuffer();
             raf.seek(pos);
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
         }
+        moveBuffer(pos);
     }
 
     public void putc(byte b) throws IOException {
-        try {
-            raf.writeByte(b);
-        } catch (IOException e) {
-            PortableFileSystem.processIOException(e);
+        if (!writable) {
+            try {
+                raf.writeByte(b);
+            } catch (IOException e) {
+                PortableFileSystem.processIOException(e);
+            }
+            return;
+        }
+        if (index == BUFFER_SIZE) {
+            try {
+                flushBuffer();
+            } catch (IOException e) {
+                PortableFileSystem.processIOException(e);
+            }
+            moveBuffer(bufferStart + index);
         }
+        buffer[index] = b;
+        markDirty(index, index + 1);
+        index++;
+        bufferLength = Math.max(bufferLength, index);
     }
 
     public byte getc() throws IOException {
-        try {
-            return raf.readByte();
-        } catch (IOException e) {
-            PortableFileSystem.processIOException(e);
-            throw e; //unreachable
+        if (index == bufferLength && !fillBuffer()) {
+            throw new IOException("EOF");
         }
+        return buffer[index++];
     }
 
     public byte[] read(int n) throws IOException {
+        if (n == 0) {
+            return new byte[0];
+        }
+        if (index == bufferLength && n < BUFFER_SIZE && !fillBuffer()) {
+            throw new IOException("EOF");
+        }
+        int count = Math.min(n, bufferLength - index);
+        if (count == n) {
+            byte[] bytes = Arrays.copyOfRange(buffer, index, index + count);
+            index += count;
+            return bytes;
+        }
+
+        /* read the rest directly from the file */
+        byte[] bytes = new byte[n];
+        System.arraycopy(buffer, index, bytes, 0, count);
+        index += count;
+        long position = bufferStart + index;
         int read;
-        byte[] bytes;
         try {
-            bytes = new byte[n];
-            read = raf.read(bytes);
+            flushBuffer();
+            raf.seek(position);
+            read = raf.read(bytes, count, n - count);
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
             throw e; //unreachable
         }
-        if (read == -1) {
+        read = Math.max(read, 0);
+        moveBuffer(position + read);
+        if (count + read == 0) {
             throw new IOException("EOF");
         }
-        return Arrays.copyOfRange(bytes, 0, read);
+        return count + read == n ? bytes : Arrays.copyOfRange(bytes, 0, count + read);
     }
 
     public void write(byte[] b) throws IOException {
+        if (!writable || b.length > BUFFER_SIZE - index) {
+            long position = bufferStart + index;
+            try {
+                flushBuffer();
+                raf.seek(position);
+                raf.write(b);
+            } catch (IOException e) {
+                PortableFileSystem.processIOException(e);
+            }
+            moveBuffer(position + b.length);
+            return;
+        }
+        System.arraycopy(b, 0, buffer, index, b.length);
+        markDirty(index, index + b.length);
+        index += b.length;
+        bufferLength = Math.max(bufferLength, index);
+    }
+
+    void flush() throws IOException {
         try {
-            raf.write(b);
+            flushBuffer();
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
         }
@@ -73,9 +152,69 @@ public class RandomAccessFileFile extends File {
 
     void close() throws IOException {
         try {
-            raf.close();
+            try {
+                flushBuffer();
+            } finally {
+                raf.close();
+            }
+        } catch (IOException e) {
+            PortableFileSystem.processIOException(e);
+        }
+    }
+
+    /**
+     * Reads the contents of the file at the file pointer into the buffer.
+     * @return false if the file pointer is at the end of the file.
+     */
+    private boolean fillBuffer() throws IOException {
+        long position = bufferStart + index;
+        int read;
+        try {
+            flushBuffer();
+            raf.seek(position);
+            read = raf.read(buffer, 0, BUFFER_SIZE);
         } catch (IOException e) {
             PortableFileSystem.processIOException(e);
+            throw e; //unreachable
+        }
+        moveBuffer(position);
+        if (read <= 0) {
+            return false;
+        }
+        bufferLength = read;
+        return true;
+    }
+
+    /**
+     * Empties the buffer, which must not be dirty, and moves it to the given file pointer.
+     */
+    private void moveBuffer(long position) {
+        assert dirtyFrom == dirtyTo;
+        bufferStart = position;
+        bufferLength = 0;
+        index = 0;
+    }
+
+    private void markDirty(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        if (dirtyFrom == dirtyTo) {
+            dirtyFrom = from;
+            dirtyTo = to;
+        } else {
+            /* the bytes in between are valid contents of the file, so they can be written back */
+            dirtyFrom = Math.min(dirtyFrom, from);
+            dirtyTo = Math.max(dirtyTo, to);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (dirtyFrom != dirtyTo) {
+            raf.seek(bufferStart + dirtyFrom);
+            raf.write(buffer, dirtyFrom, dirtyTo - dirtyFrom);
+            dirtyFrom = 0;
+            dirtyTo = 0;
         }
     }
 }
@@ -0,0 +1,103 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.kserver;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cache of the definitions loaded by the K server, keyed by kompiled directory, so that the
+ * requests against the same definition do not load it again.
+ * <p>
+ * An entry is valid as long as the names, sizes and modification times of the files of its
+ * kompiled directory are unchanged, so re-kompiling a definition invalidates it. The entries are
+ * weighed by the size of these files and the least recently used ones are evicted once their total
+ * weight exceeds the given bound.
+ */
+public class DefinitionCache<T> {
+
+    private static class Entry<T> {
+        final Map<String, Pair<Long, Long>> fingerprint;
+        final long size;
+        final T value;
+
+        Entry(Map<String, Pair<Long, Long>> fingerprint, long size, T value) {
+            this.fingerprint = fingerprint;
+            this.size = size;
+            this.value = value;
+        }
+    }
+
+    private final Cache<File, Entry<T>> cache;
+
+    /**
+     * @param maximumSize bound, in bytes, on the total size of the kompiled files of the cached
+     *                    definitions; 0 disables the cache
+     */
+    public DefinitionCache(long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maximumSize >> 10)
+                .weigher((File dir, Entry<T> entry) -> (int) Math.min(Integer.MAX_VALUE, entry.size >> 10))
+                .build();
+    }
+
+    /**
+     * Returns the cached definition of the given kompiled directory, or loads it with the given
+     * function and caches it if there is none or the directory has changed since it was cached.
+     */
+    public T get(File kompiledDir, Function<File, T> loader) {
+        File dir = canonical(kompiledDir);
+        Map<String, Pair<Long, Long>> fingerprint = fingerprint(dir);
+        Entry<T> entry = cache.getIfPresent(dir);
+        if (entry != null && entry.fingerprint.equals(fingerprint)) {
+            return entry.value;
+        }
+
+        T value = loader.apply(dir);
+        /* do not cache a definition that was re-kompiled while it was being loaded */
+        if (fingerprint(dir).equals(fingerprint)) {
+            long size = fingerprint.values().stream().mapToLong(Pair::getRight).sum();
+            cache.put(dir, new Entry<>(fingerprint, size, value));
+        } else {
+            cache.invalidate(dir);
+        }
+        return value;
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static File canonical(File dir) {
+        try {
+            return dir.getCanonicalFile();
+        } catch (IOException e) {
+            return dir.getAbsoluteFile();
+        }
+    }
+
+    /**
+     * Returns the modification time and size of each file of the given directory, by name.
+     */
+    private static Map<String, Pair<Long, Long>> fingerprint(File dir) {
+        ImmutableMap.Builder<String, Pair<Long, Long>> builder = ImmutableMap.builder();
+        File[] files = dir.listFiles(File::isFile);
+        if (files != null) {
+            for (File file : files) {
+                builder.put(file.getName(), Pair.of(file.lastModified(), file.length()));
+            }
+        }
+        return builder.build();
+    }
+
+}
@@ -13,4 +13,8 @@ public class KServerOptions {
 
     @Parameter(names={"--port", "-p"}, description="The port to start the server on.")
     public int port = 2113;
+
+    @Parameter(names="--definition-cache-size", description="Maximum total size, in MB, of the kompiled files of "
+            + "the definitions that the server keeps loaded between requests. 0 disables the cache.")
+    public long definitionCacheSize = 1024;
 }
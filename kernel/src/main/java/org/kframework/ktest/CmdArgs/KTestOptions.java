@@ -147,6 +147,20 @@ public class KTestOptions {
     @Parameter(names="--timeout", description="Time limit for each process (milliseconds).")
     private int timeout = 900000;
 
+    /**
+     * Run krun steps in worker threads of the ktest process.
+     */
+    @Parameter(names="--in-process", description="Run the krun steps inside the ktest process instead of " +
+            "spawning a krun process for each program. Each thread keeps the definitions it ran loaded.")
+    private boolean inProcess = false;
+
+    /**
+     * Bound on the definitions kept loaded by each thread with --in-process. (in megabytes)
+     */
+    @Parameter(names="--definition-cache-size", description="Maximum total size, in MB, of the kompiled files " +
+            "of the definitions that each thread keeps loaded with --in-process. 0 disables the cache.")
+    private long definitionCacheSize = 1024;
+
     /**
      * Update existing .out files.
      */
@@ -211,6 +225,8 @@ public class KTestOptions {
         this.global = obj.global;
         this.color = obj.color;
         this.timeout = obj.timeout;
+        this.inProcess = obj.inProcess;
+        this.definitionCacheSize = obj.definitionCacheSize;
         this.updateOut = obj.updateOut;
         this.generateOut = obj.generateOut;
         this.ignoreWS = obj.ignoreWS;
@@ -309,6 +325,14 @@ public class KTestOptions {
         return timeout;
     }
 
+    public boolean isInProcess() {
+        return inProcess;
+    }
+
+    public long getDefinitionCacheSize() {
+        return definitionCacheSize;
+    }
+
     public boolean getUpdateOut() {
         return updateOut;
     }
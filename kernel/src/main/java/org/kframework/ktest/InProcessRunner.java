@@ -0,0 +1,378 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.ktest;
+
+import com.martiansoftware.nailgun.ThreadLocalPrintStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * Runs K tools inside the ktest process rather than spawning a process for each of them.
+ *
+ * Each ktest worker thread runs the tools on a thread of its own, so that a run which times out
+ * can be abandoned without blocking the worker, and so that the tool can keep state for the worker
+ * (e.g. its loaded definitions) in thread locals of that thread. The standard streams of the
+ * process are redirected by each run for its own thread, so the runs of the different workers do
+ * not mix their outputs: under the K server, through the streams nailgun installed for its
+ * sessions, and otherwise through streams installed by the first runner and restored once the
+ * last one is shut down.
+ */
+public class InProcessRunner {
+
+    /**
+     * The entry point of the tools, e.g. {@code Main.runApplication}.
+     */
+    public interface Application {
+        int run(String tool, String[] args, File workingDir, Map<String, String> env);
+    }
+
+    /**
+     * How long a run which timed out is given to stop after being interrupted, before its thread
+     * is abandoned.
+     */
+    private static final long INTERRUPTED_RUN_GRACE_MILLIS = 10000;
+
+    /**
+     * Set the standard streams of the current thread, or reset them to the default ones with null.
+     */
+    private static class Redirections {
+        final Consumer<PrintStream> out;
+        final Consumer<PrintStream> err;
+        final Consumer<InputStream> in;
+
+        Redirections(Consumer<PrintStream> out, Consumer<PrintStream> err, Consumer<InputStream> in) {
+            this.out = out;
+            this.err = err;
+            this.in = in;
+        }
+    }
+
+    private static int runners;
+    private static PrintStream originalOut;
+    private static PrintStream originalErr;
+    private static InputStream originalIn;
+    private static volatile Redirections redirections;
+
+    private final Application application;
+    private final ThreadLocal<ExecutorService> executors = new ThreadLocal<>();
+    private final List<ExecutorService> allExecutors = new ArrayList<>();
+    private boolean shutdown;
+
+    public InProcessRunner(Application application) {
+        this.application = application;
+        installStreams();
+    }
+
+    private static synchronized void installStreams() {
+        if (runners++ > 0) {
+            return;
+        }
+        originalOut = System.out;
+        originalErr = System.err;
+        originalIn = System.in;
+        if (System.out instanceof ThreadLocalPrintStream && System.err instanceof ThreadLocalPrintStream
+                && System.in instanceof com.martiansoftware.nailgun.ThreadLocalInputStream) {
+            // the K server relies on the streams of nailgun staying in place
+            ThreadLocalPrintStream out = (ThreadLocalPrintStream) System.out;
+            ThreadLocalPrintStream err = (ThreadLocalPrintStream) System.err;
+            com.martiansoftware.nailgun.ThreadLocalInputStream in = (com.martiansoftware.nailgun.ThreadLocalInputStream) System.in;
+            redirections = new Redirections(out::init, err::init, in::init);
+        } else {
+            PerThreadOutputStream out = new PerThreadOutputStream(System.out);
+            PerThreadOutputStream err = new PerThreadOutputStream(System.err);
+            PerThreadInputStream in = new PerThreadInputStream(System.in);
+            System.setOut(new PrintStream(out, true));
+            System.setErr(new PrintStream(err, true));
+            System.setIn(in);
+            redirections = new Redirections(out::init, err::init, in::init);
+        }
+    }
+
+    private static synchronized void restoreStreams() {
+        if (--runners > 0) {
+            return;
+        }
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+        System.setIn(originalIn);
+        originalOut = null;
+        originalErr = null;
+        originalIn = null;
+        redirections = null;
+    }
+
+    /**
+     * Runs the given tool on the thread of the calling worker, with the given input and a standard
+     * output and error of its own. If it does not finish within the timeout, it is interrupted,
+     * which stops the rewriting at its next step, and reported as killed.
+     *
+     * @param input null or empty string to not pass anything to the tool's input
+     * @return the outputs and return code of the tool, like those of a process running it
+     */
+    ProcOutput run(String tool, String[] args, File workingDir, Map<String, String> env, String input, long timeout) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        RunOutputStream runOut = new RunOutputStream(out);
+        RunOutputStream runErr = new RunOutputStream(err);
+        RunInputStream runIn = new RunInputStream(new ByteArrayInputStream(input == null ? new byte[0] : input.getBytes()));
+        Map<String, String> toolEnv = new HashMap<>(env);
+        // the tool's streams are not terminals, as for a process whose streams are piped
+        toolEnv.put("NAILGUN_TTY_0", "0");
+        toolEnv.put("NAILGUN_TTY_1", "0");
+        toolEnv.put("NAILGUN_TTY_2", "0");
+
+        Redirections streams = redirections;
+        Future<Integer> result = executor().submit(() -> {
+            streams.out.accept(new PrintStream(runOut, true));
+            streams.err.accept(new PrintStream(runErr, true));
+            streams.in.accept(runIn);
+            try {
+                return application.run(tool, args, workingDir, toolEnv);
+            } finally {
+                System.out.flush();
+                System.err.flush();
+                streams.out.accept(null);
+                streams.err.accept(null);
+                streams.in.accept(null);
+            }
+        });
+
+        try {
+            int returnCode = result.get(timeout, TimeUnit.MILLISECONDS);
+            return new ProcOutput(out.toString(), err.toString(), returnCode, false);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            if (!awaitInterruptedRun()) {
+                // the run does not respond to the interruption, e.g. because it is stuck in a
+                // single step, so leave its thread, and the state it keeps, to it and run the
+                // next ones of this worker on a new thread
+                executors.get().shutdownNow();
+                executors.remove();
+            }
+            return new ProcOutput(out.toString(), err.toString(), -1, true);
+        } catch (ExecutionException e) {
+            // an uncaught exception ends the tool as it would end its process
+            e.getCause().printStackTrace(new PrintStream(err, true));
+            return new ProcOutput(out.toString(), err.toString(), 1, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.cancel(true);
+            return new ProcOutput(out.toString(), err.toString(), -1, false);
+        } finally {
+            // threads started by the run may inherit its streams; they must not write into the
+            // outputs of the next runs
+            runOut.end();
+            runErr.end();
+            runIn.end();
+        }
+    }
+
+    /**
+     * @return whether the thread of the worker finished the interrupted run within the grace period
+     */
+    private boolean awaitInterruptedRun() {
+        try {
+            return executors.get().submit(() -> { }).get(INTERRUPTED_RUN_GRACE_MILLIS, TimeUnit.MILLISECONDS) == null;
+        } catch (TimeoutException | ExecutionException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private ExecutorService executor() {
+        ExecutorService executor = executors.get();
+        if (executor == null) {
+            String name = Thread.currentThread().getName() + "-in-process";
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+            executors.set(executor);
+            synchronized (allExecutors) {
+                allExecutors.add(executor);
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Stops the threads of the workers, once they are done running tools, and restores the
+     * standard streams if this is the last runner.
+     */
+    public void shutdown() {
+        synchronized (allExecutors) {
+            allExecutors.forEach(ExecutorService::shutdown);
+            allExecutors.clear();
+            if (shutdown) {
+                return;
+            }
+            shutdown = true;
+        }
+        restoreStreams();
+    }
+
+    /**
+     * The output of a single run, which drops what is written to it once the run is done.
+     */
+    private static class RunOutputStream extends OutputStream {
+        private volatile OutputStream target;
+
+        RunOutputStream(OutputStream target) {
+            this.target = target;
+        }
+
+        void end() {
+            target = null;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            OutputStream t = target;
+            if (t != null) {
+                t.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            OutputStream t = target;
+            if (t != null) {
+                t.write(b, off, len);
+            }
+        }
+    }
+
+    /**
+     * The input of a single run, which is at its end once the run is done.
+     */
+    private static class RunInputStream extends InputStream {
+        private volatile InputStream source;
+
+        RunInputStream(InputStream source) {
+            this.source = source;
+        }
+
+        void end() {
+            source = null;
+        }
+
+        @Override
+        public int read() throws IOException {
+            InputStream s = source;
+            return s == null ? -1 : s.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            InputStream s = source;
+            return s == null ? -1 : s.read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            InputStream s = source;
+            return s == null ? 0 : s.available();
+        }
+    }
+
+    /**
+     * An output stream which writes to the stream set for the current thread, or to the default
+     * one if there is none. Threads started by a thread do not inherit its stream.
+     */
+    private static class PerThreadOutputStream extends OutputStream {
+        private final OutputStream defaultStream;
+        private final ThreadLocal<OutputStream> streams = new ThreadLocal<>();
+
+        PerThreadOutputStream(OutputStream defaultStream) {
+            this.defaultStream = defaultStream;
+        }
+
+        void init(OutputStream stream) {
+            if (stream == null) {
+                streams.remove();
+            } else {
+                streams.set(stream);
+            }
+        }
+
+        private OutputStream current() {
+            OutputStream stream = streams.get();
+            return stream == null ? defaultStream : stream;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            current().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            current().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            current().flush();
+        }
+    }
+
+    /**
+     * An input stream which reads from the stream set for the current thread, or from the default
+     * one if there is none. Threads started by a thread do not inherit its stream.
+     */
+    private static class PerThreadInputStream extends InputStream {
+        private final InputStream defaultStream;
+        private final ThreadLocal<InputStream> streams = new ThreadLocal<>();
+
+        PerThreadInputStream(InputStream defaultStream) {
+            this.defaultStream = defaultStream;
+        }
+
+        void init(InputStream stream) {
+            if (stream == null) {
+                streams.remove();
+            } else {
+                streams.set(stream);
+            }
+        }
+
+        private InputStream current() {
+            InputStream stream = streams.get();
+            return stream == null ? defaultStream : stream;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return current().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return current().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return current().available();
+        }
+    }
+}
@@ -34,13 +34,19 @@ public class KTestFrontEnd extends FrontEnd {
     private final KExceptionManager kem;
     private final Map<String, String> env;
     private final FileUtil files;
+    private final InProcessRunner inProcessRunner;
 
+    /**
+     * @param inProcessRunner runner of the krun steps inside the ktest process, or null to spawn a
+     *                        krun process for each of them
+     */
     public KTestFrontEnd(
             KTestOptions options,
             KExceptionManager kem,
             GlobalOptions globalOptions,
             Map<String, String> env,
-            FileUtil files) {
+            FileUtil files,
+            InProcessRunner inProcessRunner) {
         super(kem, globalOptions, files);
         this.options = options;
         this.options.setDebug(globalOptions.debug);
@@ -48,6 +54,7 @@ public class KTestFrontEnd extends FrontEnd {
         this.kem = kem;
         this.env = env;
         this.files = files;
+        this.inProcessRunner = inProcessRunner;
     }
 
     public int run() {
@@ -69,14 +76,14 @@ public class KTestFrontEnd extends FrontEnd {
         switch (FilenameUtils.getExtension(targetFile)) {
         case "xml":
             ret = new TestSuite(new ConfigFileParser(
-                    new File(cmdArgs.getTargetFile()), cmdArgs, env, kem, files).parse(), cmdArgs, files);
+                    new File(cmdArgs.getTargetFile()), cmdArgs, env, kem, files).parse(), cmdArgs, files, inProcessRunner);
             break;
         case "k":
             TestCase tc = TestCase.makeTestCaseFromK(cmdArgs, kem, files, env);
             tc.validate();
             List<TestCase> tcs = new LinkedList<>();
             tcs.add(tc);
-            ret = new TestSuite(tcs, cmdArgs, files);
+            ret = new TestSuite(tcs, cmdArgs, files, inProcessRunner);
             break;
         default:
             // this code should be unreacable, because `validateArgs' should ensure that
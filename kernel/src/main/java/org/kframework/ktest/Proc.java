@@ -112,6 +112,18 @@ public class Proc<T> implements Runnable {
     private final KExceptionManager kem;
     private final Map<String, String> env;
 
+    /**
+     * Tool and arguments to run with {@link #inProcessRunner} instead of spawning a process.
+     * null if the process can only be spawned.
+     */
+    private String inProcessTool;
+    private String[] inProcessArgs;
+
+    /**
+     * Runner to run the tool in, or null to spawn a process.
+     */
+    private InProcessRunner inProcessRunner;
+
     /**
      *
      * @param obj this is basically an arbitrary object to keep in a process,
@@ -164,6 +176,23 @@ public class Proc<T> implements Runnable {
                 options, null, null, kem, env, warnings2errors);
     }
 
+    /**
+     * Makes this process runnable inside the ktest process, as the given tool of
+     * {@link InProcessRunner.Application} with the given arguments, which are the arguments
+     * of the process without its executable and without any shell escaping.
+     */
+    public void setInProcessCommand(String tool, String[] args) {
+        this.inProcessTool = tool;
+        this.inProcessArgs = args;
+    }
+
+    /**
+     * Runs this process with the given runner, if it is runnable inside the ktest process.
+     */
+    public void setInProcessRunner(InProcessRunner runner) {
+        this.inProcessRunner = runner;
+    }
+
     @Override
     public void run() {
         // pass the --warnings-to-errors flag to all processes if specified to ktest
@@ -213,6 +242,22 @@ public class Proc<T> implements Runnable {
                 dryStr.append(" <").append(inputFile);
             System.out.println(dryStr.toString());
             return null;
+        } else if (inProcessRunner != null && inProcessTool != null) {
+            // the flags ktest appends to the arguments of the process
+            String[] extraArgs = Arrays.copyOfRange(args, this.args.length, args.length);
+            String[] toolArgs = Arrays.copyOf(inProcessArgs, inProcessArgs.length + extraArgs.length);
+            System.arraycopy(extraArgs, 0, toolArgs, inProcessArgs.length, extraArgs.length);
+
+            Map<String, String> toolEnv = new HashMap<>(env);
+            toolEnv.put("kompile", ExecNames.getKompile());
+            toolEnv.put("krun", ExecNames.getKrun());
+            toolEnv.put("kast", ExecNames.getKast());
+
+            printRunningMsg(toLogString(args));
+            long startTime = System.currentTimeMillis();
+            ProcOutput output = inProcessRunner.run(inProcessTool, toolArgs, workingDir, toolEnv, procInput, options.getTimeout());
+            timeDelta += System.currentTimeMillis() - startTime;
+            return output;
         } else {
             ProcessBuilder pb = new ProcessBuilder(args).directory(workingDir);
             pb.environment().clear();
@@ -9,6 +9,7 @@ import org.kframework.utils.StringUtil;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class KRunProgram {
@@ -40,15 +41,24 @@ public class KRunProgram {
     }
 
     /**
-     * @return command array to pass process builder
+     * @return arguments to pass krun, without shell escaping
      */
-    public String[] getKrunCmd(String customKrunCmd) {
+    public String[] getKrunArgs() {
         List<String> stringArgs = new ArrayList<>();
-        stringArgs.add(ExecNames.getKrun(customKrunCmd));
         stringArgs.add(pgmPath);
         for (PgmArg arg : args) {
             stringArgs.addAll(arg.toStringList());
         }
+        return stringArgs.toArray(new String[stringArgs.size()]);
+    }
+
+    /**
+     * @return command array to pass process builder
+     */
+    public String[] getKrunCmd(String customKrunCmd) {
+        List<String> stringArgs = new ArrayList<>();
+        stringArgs.add(ExecNames.getKrun(customKrunCmd));
+        stringArgs.addAll(Arrays.asList(getKrunArgs()));
         String[] argsArr = stringArgs.toArray(new String[stringArgs.size()]);
         if (OS.current() == OS.WINDOWS) {
             for (int i = 0; i < argsArr.length; i++) {
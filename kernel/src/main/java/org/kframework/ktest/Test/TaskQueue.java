@@ -2,6 +2,7 @@
 package org.kframework.ktest.Test;
 
 import org.kframework.ktest.CmdArgs.KTestOptions;
+import org.kframework.ktest.InProcessRunner;
 import org.kframework.ktest.KTestStep;
 import org.kframework.ktest.Proc;
 import org.kframework.utils.OS;
@@ -38,6 +39,11 @@ public class TaskQueue {
     // wrapper around it.
     private final ThreadPoolExecutor tpe;
 
+    /**
+     * Runner of the krun steps inside the ktest process, or null to spawn a process for each of them.
+     */
+    private final InProcessRunner inProcessRunner;
+
     /**
      * Status of a kompile task. See {@link #kompilePaths}.
      */
@@ -89,8 +95,9 @@ public class TaskQueue {
      */
     private volatile long lastTestFinished;
 
-    public TaskQueue(KTestOptions options) {
+    public TaskQueue(KTestOptions options, InProcessRunner inProcessRunner) {
         this.options = options;
+        this.inProcessRunner = inProcessRunner;
         int nThreads;
         if (options.getUpdateOut() || options.getGenerateOut()) {
             nThreads = 1;
@@ -121,6 +128,9 @@ public class TaskQueue {
             while (!tpe.awaitTermination(1, TimeUnit.SECONDS)) {
                 if (tpe.getActiveCount() == 0) {
                     tpe.shutdown();
+                    if (inProcessRunner != null) {
+                        inProcessRunner.shutdown();
+                    }
                     return;
                 }
             }
@@ -338,6 +348,7 @@ public class TaskQueue {
                 if (options.dry ||
                         krunStep.getObj().testCase.isDefinitionKompiled()) {
                     krunProcs.add(krunStep);
+                    krunStep.setInProcessRunner(inProcessRunner);
                     krunStep.run();
                     lastTestFinished = System.currentTimeMillis();
                 } else {
@@ -248,6 +248,9 @@ public class TestCase {
             Proc<KRunProgram> p = new Proc<>(program, args, program.inputFile, inputContents,
                     outputContentsAnn, errorContentsAnn, matcher, program.defPath, options,
                     program.outputFile, program.newOutputFile, kem, env,  warnings2errors);
+            if (getCustomKrunCmd() == null) {
+                p.setInProcessCommand("-krun", program.getKrunArgs());
+            }
             procs.add(p);
         }
 
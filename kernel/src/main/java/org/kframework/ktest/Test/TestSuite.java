@@ -4,6 +4,7 @@ package org.kframework.ktest.Test;
 import com.google.common.collect.Iterables;
 import org.apache.commons.io.FilenameUtils;
 import org.kframework.ktest.CmdArgs.KTestOptions;
+import org.kframework.ktest.InProcessRunner;
 import org.kframework.ktest.Proc;
 import org.kframework.ktest.ReportGen;
 import org.kframework.utils.ColorUtil;
@@ -19,17 +20,19 @@ public class TestSuite {
     private final List<TestCase> tests;
     private final KTestOptions options;
     private final ReportGen reportGen;
+    private final InProcessRunner inProcessRunner;
 
     public static final String REPORT_DIR = "junit-reports";
 
-    public TestSuite(List<TestCase> tests, KTestOptions options, FileUtil files) {
+    public TestSuite(List<TestCase> tests, KTestOptions options, FileUtil files, InProcessRunner inProcessRunner) {
         this.tests = tests;
         this.options = options;
+        this.inProcessRunner = inProcessRunner;
         reportGen = options.getGenerateReport() ? new ReportGen(files.resolveWorkingDirectory(REPORT_DIR)) : null;
     }
 
     public boolean run() throws IOException, TransformerException, ParserConfigurationException {
-        TaskQueue queue = new TaskQueue(options);
+        TaskQueue queue = new TaskQueue(options, inProcessRunner);
         for (TestCase test : tests) {
             queue.addTask(test);
         }
@@ -0,0 +1,194 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.parser.concrete2kore;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.kframework.attributes.Att;
+import org.kframework.definition.Module;
+import org.kframework.definition.NonTerminal;
+import org.kframework.definition.Production;
+import org.kframework.definition.ProductionItem;
+import org.kframework.definition.RegexTerminal;
+import org.kframework.definition.Sentence;
+import org.kframework.definition.SyntaxAssociativity;
+import org.kframework.definition.SyntaxPriority;
+import org.kframework.definition.SyntaxSort;
+import org.kframework.definition.Tag;
+import org.kframework.definition.Terminal;
+import org.kframework.parser.concrete2kore.ParseCache.ParsedSentence;
+import org.kframework.utils.BinaryLoader;
+import org.kframework.utils.errorsystem.KExceptionManager;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.kframework.Collections.*;
+
+/**
+ * The parse caches of the grammars of a definition, stored in a directory with one file per grammar.
+ * Each file is named after a fingerprint of the syntax of its grammar, so that a grammar which is
+ * unchanged finds its cache without comparing modules, and saving writes only the files of the
+ * caches which gained parses since they were loaded.
+ *
+ * A store without a directory keeps its caches in memory only.
+ */
+public class ParseCacheStore {
+
+    private static final String EXTENSION = ".bin";
+
+    private static class Shard {
+        final ParseCache cache;
+        int savedSize;
+
+        Shard(ParseCache cache) {
+            this.cache = cache;
+            this.savedSize = cache.getCache().size();
+        }
+    }
+
+    private final File directory;
+    private final BinaryLoader loader;
+    private final KExceptionManager kem;
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+
+    public final AtomicInteger loadedShards = new AtomicInteger(0);
+    public final AtomicInteger savedShards = new AtomicInteger(0);
+
+    public ParseCacheStore(File directory, BinaryLoader loader, KExceptionManager kem) {
+        this.directory = directory;
+        this.loader = loader;
+        this.kem = kem;
+    }
+
+    /**
+     * @return the cache of the given grammar, loaded from the directory of this store the first time
+     * the grammar is requested. May be called concurrently.
+     */
+    public ParseCache get(Module grammar, boolean strict) {
+        return shards.computeIfAbsent(fingerprint(grammar, strict), fingerprint -> new Shard(
+                new ParseCache(grammar, strict, Collections.synchronizedMap(load(fingerprint))))).cache;
+    }
+
+    /**
+     * @return the number of grammars whose cache was requested.
+     */
+    public int size() {
+        return shards.size();
+    }
+
+    private Map<String, ParsedSentence> load(String fingerprint) {
+        if (directory != null) {
+            try {
+                @SuppressWarnings("unchecked")
+                Map<String, ParsedSentence> cache = loader.load(Map.class, new File(directory, fingerprint + EXTENSION));
+                loadedShards.getAndIncrement();
+                return new HashMap<>(cache);
+            } catch (FileNotFoundException e) {
+            } catch (IOException | ClassNotFoundException | ClassCastException e) {
+                kem.registerInternalHiddenWarning("Invalidating serialized cache due to corruption.", e);
+            }
+        }
+        return new HashMap<>();
+    }
+
+    /**
+     * Writes the caches which gained parses since they were loaded or last saved.
+     */
+    public void save() {
+        if (directory == null) {
+            return;
+        }
+        for (Map.Entry<String, Shard> entry : shards.entrySet()) {
+            Shard shard = entry.getValue();
+            Map<String, ParsedSentence> cache = shard.cache.getCache();
+            Map<String, ParsedSentence> snapshot;
+            synchronized (cache) {
+                if (cache.size() == shard.savedSize) {
+                    continue;
+                }
+                snapshot = new HashMap<>(cache);
+            }
+            loader.saveOrDie(new File(directory, entry.getKey() + EXTENSION), snapshot);
+            shard.savedSize = snapshot.size();
+            savedShards.getAndIncrement();
+        }
+    }
+
+    /**
+     * Deletes the files of the grammars whose cache was not requested, e.g. after parsing a whole
+     * definition, so that the caches of grammars which no longer exist do not accumulate.
+     */
+    public void prune() {
+        if (directory == null) {
+            return;
+        }
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION)
+                && !shards.containsKey(name.substring(0, name.length() - EXTENSION.length())));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * A hash of the name of the given grammar, of whether it is parsed strictly, and of everything in
+     * its productions, priorities, associativities and sort declarations, which are what its parses
+     * depend on.
+     */
+    static String fingerprint(Module grammar, boolean strict) {
+        List<String> lines = new ArrayList<>();
+        for (Sentence s : iterable(grammar.sentences())) {
+            if (s instanceof Production) {
+                Production p = (Production) s;
+                lines.add("syntax " + p.sort() + " ::= " + stream(p.items()).map(ParseCacheStore::render).collect(Collectors.joining(" ")) + render(p.att()));
+            } else if (s instanceof SyntaxSort) {
+                SyntaxSort sort = (SyntaxSort) s;
+                lines.add("syntax " + sort.sort() + render(sort.att()));
+            } else if (s instanceof SyntaxPriority) {
+                lines.add("priority " + stream(((SyntaxPriority) s).priorities()).map(ParseCacheStore::render).collect(Collectors.joining(" > ")));
+            } else if (s instanceof SyntaxAssociativity) {
+                SyntaxAssociativity assoc = (SyntaxAssociativity) s;
+                lines.add(assoc.assoc() + " " + render(assoc.tags()));
+            }
+        }
+        Collections.sort(lines);
+        Hasher hasher = Hashing.sha1().newHasher()
+                .putString(grammar.name(), StandardCharsets.UTF_8)
+                .putBoolean(strict);
+        for (String line : lines) {
+            hasher.putString(line, StandardCharsets.UTF_8).putChar('\n');
+        }
+        return hasher.hash().toString();
+    }
+
+    private static String render(ProductionItem item) {
+        if (item instanceof Terminal) {
+            Terminal t = (Terminal) item;
+            return item + stream(t.followRegex()).map(r -> " ~r\"" + r + "\"").collect(Collectors.joining());
+        } else if (item instanceof RegexTerminal) {
+            RegexTerminal t = (RegexTerminal) item;
+            return "r(" + t.precedeRegex() + ", " + t.regex() + ", " + t.followRegex() + ")";
+        } else {
+            return ((NonTerminal) item).sort().toString();
+        }
+    }
+
+    private static String render(scala.collection.Set<Tag> tags) {
+        return stream(tags).map(Tag::name).sorted().collect(Collectors.joining(" ", "{", "}"));
+    }
+
+    private static String render(Att att) {
+        return stream(att.att()).map(Object::toString).sorted().collect(Collectors.joining(", ", " [", "]"));
+    }
+}
@@ -23,6 +23,9 @@ import java.util.Map;
  */
 public class ToBinary {
 
+    /**
+     * Writes the term to the given stream as it is traversed, so a buffered stream should be given.
+     */
     public static void apply(OutputStream out, K k) {
         try {
             DataOutputStream data = new DataOutputStream(out);
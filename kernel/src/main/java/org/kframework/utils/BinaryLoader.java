@@ -1,6 +1,9 @@
 // Copyright (c) 2013-2016 K Team. All Rights Reserved.
 package org.kframework.utils;
 
+import org.kframework.frontend.ADT;
+import org.kframework.frontend.KLabel;
+import org.kframework.frontend.Sort;
 import org.kframework.utils.errorsystem.KEMException;
 import org.kframework.utils.errorsystem.KExceptionManager;
 
@@ -15,33 +18,74 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamException;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Saves and loads objects with Java serialization.
+ * <p>
+ * The objects are saved either in the plain Java serialization format, or in a compact format in
+ * which equal strings, labels and sorts are written once and then referred to, which makes the
+ * files smaller and faster to load, and the loaded objects share these values. The compact format
+ * starts with {@link #COMPACT_HEADER}, so that files in both formats can be loaded.
+ */
 public class BinaryLoader {
 
+    static final byte[] COMPACT_HEADER = {'K', 'B', 'I', 'N'};
+
     private final KExceptionManager kem;
+    private final boolean compact;
 
     public BinaryLoader(
             KExceptionManager kem) {
+        this(kem, false);
+    }
+
+    /**
+     * @param compact whether to save objects in the compact format
+     */
+    public BinaryLoader(
+            KExceptionManager kem,
+            boolean compact) {
         this.kem = kem;
+        this.compact = compact;
     }
 
+    /**
+     * Saves the given object to a temporary file next to the given one, then moves it in place of
+     * the given file, so that the file is never seen partially written, and the files still mapped
+     * by earlier loads are not modified under them.
+     */
     public void save(File fileName, Object o) throws IOException {
         File dir = fileName.getAbsoluteFile().getParentFile();
         if (!dir.exists() && !dir.mkdirs()) {
             throw KEMException.criticalError("Could not create directory " + dir);
         }
-        try (OutputStream out = new FileOutputStream(fileName)) {
-            save(out, o);
+        File tempFile = File.createTempFile(fileName.getName(), ".tmp", dir);
+        try {
+            try (OutputStream out = new FileOutputStream(tempFile)) {
+                save(out, o);
+            }
+            try {
+                Files.move(tempFile.toPath(), fileName.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile.toPath(), fileName.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
         }
     }
 
     public void saveOrDie(File fileName, Object o) {
-        File dir = fileName.getAbsoluteFile().getParentFile();
-        if (!dir.exists() && !dir.mkdirs()) {
-            throw KEMException.criticalError("Could not create directory " + dir);
-        }
-        try (OutputStream out = new FileOutputStream(fileName)) {
-            saveOrDie(out, o, fileName.getAbsolutePath());
+        try {
+            save(fileName, o);
         } catch (IOException e) {
             throw KEMException.criticalError("Could not write to " + fileName, e);
         }
@@ -60,12 +104,51 @@ public class BinaryLoader {
     }
 
     public void save(OutputStream out, Object o) throws IOException {
-        try(ObjectOutputStream serializer
-                = new ObjectOutputStream(new BufferedOutputStream(out))) {
+        try(ObjectOutputStream serializer = serializer(new BufferedOutputStream(out))) {
             serializer.writeObject(o);
         }
     }
 
+    private ObjectOutputStream serializer(OutputStream out) throws IOException {
+        if (!compact) {
+            return new ObjectOutputStream(out);
+        }
+        out.write(COMPACT_HEADER);
+        return new InterningObjectOutputStream(out);
+    }
+
+    /**
+     * Writes each string, label and sort that is equal to one written before as a reference to
+     * the one written before.
+     */
+    private static class InterningObjectOutputStream extends ObjectOutputStream {
+
+        private final Map<String, String> strings = new HashMap<>();
+        /* the labels and sorts by class and name, as their equality does not distinguish their classes */
+        private final Map<Class<?>, Map<String, Object>> symbols = new HashMap<>();
+
+        InterningObjectOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            if (obj instanceof String) {
+                return strings.computeIfAbsent((String) obj, s -> s);
+            } else if (obj instanceof ADT.KLabelLookup) {
+                return intern(obj, ((KLabel) obj).name());
+            } else if (obj instanceof ADT.SortLookup || obj instanceof ADT.Sort) {
+                return intern(obj, ((Sort) obj).name());
+            }
+            return obj;
+        }
+
+        private Object intern(Object obj, String name) {
+            return symbols.computeIfAbsent(obj.getClass(), c -> new HashMap<>()).computeIfAbsent(name, n -> obj);
+        }
+    }
+
     public <T> T load(Class<T> cls, File fileName) throws IOException, ClassNotFoundException {
         return cls.cast(load(fileName));
     }
@@ -75,7 +158,7 @@ public class BinaryLoader {
     }
 
     public <T> T loadOrDie(Class<T> cls, File fileName) {
-        try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+        try (InputStream in = open(fileName)) {
             return loadOrDie(cls, in, fileName.getAbsolutePath());
         } catch (IOException e) {
             throw KEMException.criticalError("Could not read from " + fileName, e);
@@ -83,6 +166,10 @@ public class BinaryLoader {
     }
 
     public Object load(InputStream in) throws IOException, ClassNotFoundException {
+        if (!in.markSupported()) {
+            in = new BufferedInputStream(in);
+        }
+        skipCompactHeader(in);
         try (ObjectInputStream deserializer
                 = new ObjectInputStream(in)) {
             Object obj = deserializer.readObject();
@@ -91,11 +178,97 @@ public class BinaryLoader {
     }
 
     public Object load(File fileName) throws IOException, ClassNotFoundException {
-        try (InputStream in = new BufferedInputStream(new FileInputStream(fileName))) {
+        try (InputStream in = open(fileName)) {
             return load(in);
         }
     }
 
+    /**
+     * Skips the header of the compact format if the given stream starts with it. The compact
+     * format is read like the Java format, as the references to the values written before are
+     * part of Java serialization.
+     */
+    private static void skipCompactHeader(InputStream in) throws IOException {
+        byte[] header = new byte[COMPACT_HEADER.length];
+        in.mark(header.length);
+        int length = 0;
+        int read;
+        while (length < header.length && (read = in.read(header, length, header.length - length)) > 0) {
+            length += read;
+        }
+        if (length < header.length || !Arrays.equals(header, COMPACT_HEADER)) {
+            in.reset();
+        }
+    }
+
+    /**
+     * Opens the given file for reading. On POSIX systems, the file is memory mapped, so that
+     * reading it does not copy it through a buffer; on Windows, a mapped file cannot be deleted
+     * until the mapping is garbage collected, which would prevent kompile from overwriting it.
+     */
+    private static InputStream open(File fileName) throws IOException {
+        if (!OS.current().isPosix) {
+            return new BufferedInputStream(new FileInputStream(fileName));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            return new ByteBufferInputStream(file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length()));
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public long skip(long n) {
+            int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        @Override
+        public synchronized void mark(int readlimit) {
+            buffer.mark();
+        }
+
+        @Override
+        public synchronized void reset() {
+            buffer.reset();
+        }
+    }
+
     public <T> T loadOrDie(Class<T> cls, InputStream in, String fileName) {
 
         try {
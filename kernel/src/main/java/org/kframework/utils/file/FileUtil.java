@@ -43,7 +43,7 @@ public class FileUtil {
     public static final String PARSED_DEFINITION_BIN = "extras/parsedDefinition.bin";
     public static final String EXTRAS_FOLDER = "extras/";
     public static final String TOP_CELL_INITIALIZER_BIN = "extras/topCellInitializer.bin";
-    public static final String CACHE_BIN = "extras/cache.bin";
+    public static final String CACHE_DIR = "extras/cache";
     public static final String TIMESTAMP = "extras/timestamp";
 
     public FileUtil(
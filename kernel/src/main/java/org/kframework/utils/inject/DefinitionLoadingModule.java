@@ -1,6 +1,7 @@
 // Copyright (c) 2014-2016 K Team. All Rights Reserved.
 package org.kframework.utils.inject;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.kframework.definition.ProcessedDefinition;
 import org.kframework.kil.Definition;
 import org.kframework.kil.loader.Context;
@@ -78,9 +79,23 @@ public class DefinitionLoadingModule {
 
     // NOTE: should be matched with org.kframework.kompile.KompileFrontEnd.save()
     public static CompiledDefinition koreDefinition(BinaryLoader loader, FileUtil files) {
-        // org.kframework.definition.Definition kompiledDefinition = loader.loadOrDie(org.kframework.definition.Definition.class, files.resolveKompiled(FileUtil.KOMPILED_DEFINITION_BIN)); // deprecated
-        org.kframework.definition.Definition kompiledDefinition = MiniToKore.apply(parseKore(files));
         KompileOptions kompileOptions = loader.loadOrDie(KompileOptions.class, files.resolveKompiled(FileUtil.KOMPILE_OPTIONS_BIN));
+        return koreDefinition(loader, files, parseKore(files), kompileOptions);
+    }
+
+    /**
+     * Loads both the compiled and the processed definition, reading the files they share, in
+     * particular {@link FileUtil#KORE_TXT}, only once.
+     */
+    public static Pair<CompiledDefinition, ProcessedDefinition> definitions(BinaryLoader loader, FileUtil files) {
+        org.kframework.kore.Definition koreDefinition = parseKore(files);
+        KompileOptions kompileOptions = loader.loadOrDie(KompileOptions.class, files.resolveKompiled(FileUtil.KOMPILE_OPTIONS_BIN));
+        return Pair.of(koreDefinition(loader, files, koreDefinition, kompileOptions), new ProcessedDefinition(kompileOptions, koreDefinition));
+    }
+
+    private static CompiledDefinition koreDefinition(BinaryLoader loader, FileUtil files, org.kframework.kore.Definition koreDefinition, KompileOptions kompileOptions) {
+        // org.kframework.definition.Definition kompiledDefinition = loader.loadOrDie(org.kframework.definition.Definition.class, files.resolveKompiled(FileUtil.KOMPILED_DEFINITION_BIN)); // deprecated
+        org.kframework.definition.Definition kompiledDefinition = MiniToKore.apply(koreDefinition);
         org.kframework.definition.Definition parsedDefinition = loader.loadOrDie(org.kframework.definition.Definition.class, files.resolveKompiled(FileUtil.PARSED_DEFINITION_BIN));
         org.kframework.frontend.KLabel topCellInitializer = loader.loadOrDie(org.kframework.frontend.KLabel.class, files.resolveKompiled(FileUtil.TOP_CELL_INITIALIZER_BIN));
         return new CompiledDefinition(kompileOptions, parsedDefinition, kompiledDefinition, topCellInitializer);
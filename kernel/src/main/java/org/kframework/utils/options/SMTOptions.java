@@ -39,6 +39,20 @@ public class SMTOptions implements Serializable {
     @Parameter(names="--z3-executable", description="Invokes Z3 as an external process.")
     public boolean z3Executable = false;
 
+    @Parameter(names="--z3-pool-size", description="Maximum number of Z3 solvers checking queries concurrently.")
+    public int z3PoolSize = Runtime.getRuntime().availableProcessors();
+
+    @Parameter(names="--smt-cache-size", description="Maximum number of cached results of SMT queries.")
+    public int smtCacheSize = 1 << 16;
+
+    @Parameter(names="--smt-cache-file", description="Path to a file in which the results of SMT queries "
+            + "are saved and from which they are reused by later runs on the same definition.")
+    public String smtCacheFile;
+
+    @Parameter(names="--smt-incremental", description="Send the SMT-LIB declarations of the definition "
+            + "to each Z3 session once, instead of with every query.")
+    public boolean smtIncremental = false;
+
     @Parameter(names="--z3-cnstr-timeout", description="The default soft timeout (in milli seconds) of Z3 for checking constraint satisfiability.")
     public int z3CnstrTimeout = 50;
 
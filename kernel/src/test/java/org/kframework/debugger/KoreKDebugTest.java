@@ -0,0 +1,133 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.debugger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.kframework.RewriterResult;
+import org.kframework.definition.Rule;
+import org.kframework.frontend.K;
+import org.kframework.frontend.KToken;
+import org.kframework.rewriter.Rewriter;
+import org.kframework.rewriter.RewriterSession;
+import org.kframework.rewriter.SearchType;
+import scala.Tuple2;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.kframework.frontend.KORE.*;
+
+public class KoreKDebugTest {
+
+    /**
+     * Rewrites the configuration n to n + 1 until it reaches {@link #FINAL}, and supports stepping
+     * only through its session.
+     */
+    private static class CountingRewriter implements Rewriter {
+
+        static final int FINAL = 10;
+
+        int sessions = 0;
+
+        @Override
+        public RewriterSession session(K k) {
+            sessions++;
+            return new RewriterSession() {
+                private int n = Integer.parseInt(((KToken) k).s());
+
+                @Override
+                public int step(int steps) {
+                    int stepsTaken = Math.min(steps, FINAL - n);
+                    n += stepsTaken;
+                    return stepsTaken;
+                }
+
+                @Override
+                public Checkpoint checkpoint() {
+                    int current = n;
+                    return () -> token(current);
+                }
+
+                @Override
+                public void restore(Checkpoint checkpoint) {
+                    n = Integer.parseInt(((KToken) checkpoint.k()).s());
+                }
+
+                @Override
+                public K match(Rule rule) {
+                    return token(n);
+                }
+            };
+        }
+
+        @Override
+        public RewriterResult execute(K k, Optional<Integer> depth) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public K match(K k, Rule rule) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public K search(K initialConfiguration, Optional<Integer> depth, Optional<Integer> bound, Rule pattern, SearchType searchType, boolean resultsAsSubstitution) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Tuple2<RewriterResult, K> executeAndMatch(K k, Optional<Integer> depth, Rule rule) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<K> prove(List<Rule> rules) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static K token(int n) {
+        return KToken(Integer.toString(n), Sort("Int"));
+    }
+
+    private CountingRewriter rewriter;
+    private KDebug debugger;
+
+    @Before
+    public void setUp() {
+        rewriter = new CountingRewriter();
+        debugger = new KoreKDebug(token(0), rewriter, 3, null, null, null, null);
+    }
+
+    @Test
+    public void testStepCheckpointsEveryInterval() {
+        DebuggerState state = debugger.step(debugger.getActiveStateId(), 7);
+        assertEquals(7, state.getStepNum());
+        assertEquals(token(7), state.getCurrentK());
+        assertEquals(Arrays.asList(0, 3, 6), Arrays.asList(state.getCheckpointMap().keySet().toArray()));
+        assertEquals(token(6), state.getCheckpointMap().get(6));
+        assertEquals(1, rewriter.sessions);
+    }
+
+    @Test
+    public void testStepStopsAtTheFinalConfiguration() {
+        DebuggerState state = debugger.step(debugger.getActiveStateId(), 15);
+        assertEquals(CountingRewriter.FINAL, state.getStepNum());
+        assertEquals(token(CountingRewriter.FINAL), state.getCurrentK());
+    }
+
+    @Test
+    public void testBackStepAndJumpToRestoreCheckpoints() {
+        debugger.step(debugger.getActiveStateId(), 8);
+        DebuggerState state = debugger.backStep(debugger.getActiveStateId(), 3);
+        assertEquals(5, state.getStepNum());
+        assertEquals(token(5), state.getCurrentK());
+        state = debugger.jumpTo(debugger.getActiveStateId(), 1);
+        assertEquals(token(1), state.getCurrentK());
+        state = debugger.jumpTo(debugger.getActiveStateId(), 9);
+        assertEquals(token(9), state.getCurrentK());
+        assertEquals(1, rewriter.sessions);
+    }
+}
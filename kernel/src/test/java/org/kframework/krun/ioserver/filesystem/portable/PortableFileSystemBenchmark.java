@@ -0,0 +1,59 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.krun.ioserver.filesystem.portable;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Measures the throughput of reading a file byte by byte through {@link File#getc}, unbuffered,
+ * buffered and memory-mapped.
+ * <p>
+ * Not part of the regular test suite; run with {@code mvn test -Dtest=PortableFileSystemBenchmark}.
+ */
+public class PortableFileSystemBenchmark {
+
+    private static final int SIZE = 16 << 20;
+
+    @Test
+    public void measureGetc() throws IOException {
+        java.io.File tmp = java.io.File.createTempFile("fs-benchmark", ".bin");
+        tmp.deleteOnExit();
+        byte[] contents = new byte[SIZE];
+        new Random(0).nextBytes(contents);
+        Files.write(tmp.toPath(), contents);
+
+        try (RandomAccessFile raf = new RandomAccessFile(tmp, "r")) {
+            long start = System.nanoTime();
+            for (int i = 0; i < SIZE; i++) {
+                raf.readByte();
+            }
+            report("unbuffered", start);
+        }
+
+        RandomAccessFileFile buffered = new RandomAccessFileFile(new RandomAccessFile(tmp, "r"), false);
+        long start = System.nanoTime();
+        for (int i = 0; i < SIZE; i++) {
+            buffered.getc();
+        }
+        report("buffered", start);
+        buffered.close();
+
+        MappedFileFile mapped = new MappedFileFile(new RandomAccessFile(tmp, "r"));
+        start = System.nanoTime();
+        for (int i = 0; i < SIZE; i++) {
+            mapped.getc();
+        }
+        report("mapped", start);
+        mapped.close();
+    }
+
+    private static void report(String mode, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %.1f MB/s%n", mode, SIZE / seconds / (1 << 20));
+    }
+
+}
@@ -13,8 +13,12 @@ import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 
 
 public class PortableFileSystemTest extends BaseTestCase {
@@ -44,4 +48,118 @@ public class PortableFileSystemTest extends BaseTestCase {
         }
     }
 
+    @Test
+    public void testBufferedFileIsCoherentWithSeek() throws Exception {
+        java.io.File tmp = java.io.File.createTempFile("fs-test", ".txt");
+        tmp.deleteOnExit();
+        Files.write(tmp.toPath(), "abcdef".getBytes(Charset.forName("ASCII")));
+        RandomAccessFileFile f = new RandomAccessFileFile(new RandomAccessFile(tmp, "rw"), true);
+        Assert.assertEquals('a', f.getc());
+        f.putc((byte) 'B');
+        Assert.assertEquals(2, f.tell());
+        f.seek(1);
+        Assert.assertEquals('B', f.getc());
+        f.seek(6);
+        f.write("gh".getBytes(Charset.forName("ASCII")));
+        f.seek(RandomAccessFileFile.BUFFER_SIZE * 2);
+        f.putc((byte) 'z');
+        f.seek(4);
+        Assert.assertArrayEquals("efgh".getBytes(Charset.forName("ASCII")), f.read(4));
+        f.close();
+        byte[] contents = Files.readAllBytes(tmp.toPath());
+        Assert.assertEquals(RandomAccessFileFile.BUFFER_SIZE * 2 + 1, contents.length);
+        Assert.assertEquals("aBcdefgh", new String(contents, 0, 8, Charset.forName("ASCII")));
+        Assert.assertEquals('z', contents[RandomAccessFileFile.BUFFER_SIZE * 2]);
+    }
+
+    @Test
+    public void testReadOnlyFileFailsToWriteImmediately() throws Exception {
+        java.io.File tmp = java.io.File.createTempFile("fs-test", ".txt");
+        tmp.deleteOnExit();
+        RandomAccessFileFile f = new RandomAccessFileFile(new RandomAccessFile(tmp, "r"), false);
+        try {
+            f.putc((byte) 'a');
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("EBADF", e.getMessage());
+        }
+        f.close();
+    }
+
+    @Test
+    public void testFileSystemsShareStdin() throws Exception {
+        InputStream originalIn = System.in;
+        System.setIn(new ByteArrayInputStream("abc".getBytes(Charset.forName("ASCII"))));
+        try {
+            PortableFileSystem first = new PortableFileSystem(kem, files);
+            PortableFileSystem second = new PortableFileSystem(kem, files);
+            Assert.assertEquals('a', first.get(0).getc());
+            Assert.assertEquals('b', second.get(0).getc());
+            Assert.assertArrayEquals("c".getBytes(Charset.forName("ASCII")), first.get(0).read(2));
+        } finally {
+            System.setIn(originalIn);
+        }
+    }
+
+    @Test
+    public void testMappedFile() throws Exception {
+        java.io.File tmp = java.io.File.createTempFile("fs-test", ".txt");
+        tmp.deleteOnExit();
+        Files.write(tmp.toPath(), "abcdef".getBytes(Charset.forName("ASCII")));
+        MappedFileFile f = new MappedFileFile(new RandomAccessFile(tmp, "r"));
+        Assert.assertEquals('a', f.getc());
+        Assert.assertArrayEquals("bcd".getBytes(Charset.forName("ASCII")), f.read(3));
+        Assert.assertEquals(4, f.tell());
+        f.seek(1);
+        Assert.assertEquals('b', f.getc());
+        f.seek(4);
+        Assert.assertArrayEquals("ef".getBytes(Charset.forName("ASCII")), f.read(4));
+        Assert.assertArrayEquals(new byte[0], f.read(0));
+        try {
+            f.getc();
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("EOF", e.getMessage());
+        }
+        f.seek(10);
+        try {
+            f.read(1);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("EOF", e.getMessage());
+        }
+        try {
+            f.seek(-1);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("EINVAL", e.getMessage());
+        }
+        try {
+            f.putc((byte) 'a');
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("EBADF", e.getMessage());
+        }
+        f.close();
+    }
+
+    @Test
+    public void testLargeInputFilesAreMapped() throws Exception {
+        when(files.resolveWorkingDirectory(Matchers.anyString())).thenAnswer(invocation -> new java.io.File((String) invocation.getArguments()[0]));
+        java.io.File tmp = java.io.File.createTempFile("fs-test", ".txt");
+        tmp.deleteOnExit();
+        byte[] contents = new byte[(int) PortableFileSystem.MAP_THRESHOLD];
+        contents[contents.length - 1] = 'z';
+        Files.write(tmp.toPath(), contents);
+        PortableFileSystem fs = new PortableFileSystem(kem, files, true);
+        long mapped = fs.open(tmp.getAbsolutePath(), "r");
+        Assert.assertTrue(fs.get(mapped) instanceof MappedFileFile);
+        fs.get(mapped).seek(contents.length - 1);
+        Assert.assertEquals('z', fs.get(mapped).getc());
+        fs.close(mapped);
+        long unmapped = fs.open(tmp.getAbsolutePath(), "rw");
+        Assert.assertTrue(fs.get(unmapped) instanceof RandomAccessFileFile);
+        fs.close(unmapped);
+    }
+
 }
@@ -0,0 +1,64 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.kserver;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DefinitionCacheTest {
+
+    private File kompiledDir;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        kompiledDir = Files.createTempDirectory("definition-cache").toFile();
+        kompiledDir.deleteOnExit();
+        write("compiled.bin", 4096);
+    }
+
+    private void write(String name, int size) throws IOException {
+        File file = new File(kompiledDir, name);
+        file.deleteOnExit();
+        Files.write(file.toPath(), new byte[size]);
+    }
+
+    private Integer load(File dir) {
+        return loads.incrementAndGet();
+    }
+
+    @Test
+    public void testDefinitionIsLoadedOnce() {
+        DefinitionCache<Integer> cache = new DefinitionCache<>(1 << 20);
+        assertEquals(Integer.valueOf(1), cache.get(kompiledDir, this::load));
+        assertEquals(Integer.valueOf(1), cache.get(new File(kompiledDir, "."), this::load));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testRekompilingInvalidates() throws IOException {
+        DefinitionCache<Integer> cache = new DefinitionCache<>(1 << 20);
+        cache.get(kompiledDir, this::load);
+        write("compiled.bin", 8192);
+        assertEquals(Integer.valueOf(2), cache.get(kompiledDir, this::load));
+        write("other.bin", 1);
+        assertEquals(Integer.valueOf(3), cache.get(kompiledDir, this::load));
+        assertEquals(Integer.valueOf(3), cache.get(kompiledDir, this::load));
+    }
+
+    @Test
+    public void testDefinitionsLargerThanTheBoundAreNotKept() {
+        DefinitionCache<Integer> cache = new DefinitionCache<>(1024);
+        cache.get(kompiledDir, this::load);
+        cache.get(kompiledDir, this::load);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+}
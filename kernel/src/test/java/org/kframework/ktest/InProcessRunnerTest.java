@@ -0,0 +1,85 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.ktest;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class InProcessRunnerTest {
+
+    /**
+     * Echoes its input to its output and its first argument to its error output, and returns its
+     * second argument.
+     */
+    private static int echo(String tool, String[] args, File workingDir, java.util.Map<String, String> env) {
+        try {
+            System.out.print(IOUtils.toString(System.in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.err.print(args[0]);
+        return Integer.parseInt(args[1]);
+    }
+
+    @Test
+    public void testCapturesOutputsOfEachRun() throws Exception {
+        InProcessRunner runner = new InProcessRunner(InProcessRunnerTest::echo);
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] runs = new Future<?>[16];
+            for (int i = 0; i < runs.length; i++) {
+                int n = i;
+                runs[i] = workers.submit(() -> runner.run("-krun", new String[] {"err" + n, Integer.toString(n)},
+                        new File("."), Collections.emptyMap(), "out" + n, 10000));
+            }
+            for (int i = 0; i < runs.length; i++) {
+                ProcOutput output = (ProcOutput) runs[i].get();
+                assertEquals("out" + i, output.stdout);
+                assertEquals("err" + i, output.stderr);
+                assertEquals(i, output.returnCode);
+                assertFalse(output.timeout);
+            }
+        } finally {
+            workers.shutdown();
+            runner.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimeoutAbandonsTheRun() {
+        InProcessRunner runner = new InProcessRunner((tool, args, workingDir, env) -> {
+            System.out.print("started");
+            while (true) {
+                Thread.yield();
+            }
+        });
+        ProcOutput output = runner.run("-krun", new String[0], new File("."), Collections.emptyMap(), null, 100);
+        assertTrue(output.timeout);
+        assertEquals("started", output.stdout);
+
+        InProcessRunner echo = new InProcessRunner(InProcessRunnerTest::echo);
+        assertEquals(0, echo.run("-krun", new String[] {"", "0"}, new File("."), Collections.emptyMap(), null, 10000).returnCode);
+        runner.shutdown();
+        echo.shutdown();
+    }
+
+    @Test
+    public void testUncaughtExceptionFailsTheRun() {
+        InProcessRunner runner = new InProcessRunner((tool, args, workingDir, env) -> {
+            throw new IllegalStateException("crashed");
+        });
+        ProcOutput output = runner.run("-krun", new String[0], new File("."), Collections.emptyMap(), null, 10000);
+        assertEquals(1, output.returnCode);
+        assertTrue(output.stderr.contains("crashed"));
+        runner.shutdown();
+    }
+}
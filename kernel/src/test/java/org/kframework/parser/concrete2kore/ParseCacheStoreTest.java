@@ -0,0 +1,72 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.parser.concrete2kore;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kframework.definition.Module;
+import org.kframework.definition.Sentence;
+import org.kframework.parser.concrete2kore.ParseCache.ParsedSentence;
+import org.kframework.utils.BinaryLoader;
+
+import java.io.File;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+import static org.kframework.Collections.*;
+import static org.kframework.definition.Constructors.Att;
+import static org.kframework.definition.Constructors.*;
+import static org.kframework.frontend.KORE.*;
+
+public class ParseCacheStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Module grammar(String name, String terminal) {
+        return Module(name, Set((Sentence) Production(Sort("Exp"), Seq(NonTerminal(Sort("Exp")), Terminal(terminal), NonTerminal(Sort("Exp"))), Att())));
+    }
+
+    private static ParsedSentence parse(String s) {
+        return new ParsedSentence(KToken(s, Sort("Exp")), new HashSet<>());
+    }
+
+    @Test
+    public void testFingerprintDependsOnSyntax() {
+        assertEquals(ParseCacheStore.fingerprint(grammar("A", "+"), true), ParseCacheStore.fingerprint(grammar("A", "+"), true));
+        assertNotEquals(ParseCacheStore.fingerprint(grammar("A", "+"), true), ParseCacheStore.fingerprint(grammar("A", "*"), true));
+        assertNotEquals(ParseCacheStore.fingerprint(grammar("A", "+"), true), ParseCacheStore.fingerprint(grammar("B", "+"), true));
+        assertNotEquals(ParseCacheStore.fingerprint(grammar("A", "+"), true), ParseCacheStore.fingerprint(grammar("A", "+"), false));
+    }
+
+    @Test
+    public void testSavesOnlyChangedGrammars() {
+        File dir = folder.getRoot();
+        ParseCacheStore store = new ParseCacheStore(dir, new BinaryLoader(null), null);
+        store.get(grammar("A", "+"), true).getCache().put("1 + 2", parse("1 + 2"));
+        store.get(grammar("B", "+"), true).getCache().put("3 + 4", parse("3 + 4"));
+        store.save();
+        assertEquals(2, store.savedShards.get());
+
+        store = new ParseCacheStore(dir, new BinaryLoader(null), null);
+        assertEquals(parse("1 + 2").getParse(), store.get(grammar("A", "+"), true).getCache().get("1 + 2").getParse());
+        store.get(grammar("B", "+"), true).getCache().put("5 + 6", parse("5 + 6"));
+        store.save();
+        assertEquals(2, store.loadedShards.get());
+        assertEquals(1, store.savedShards.get());
+    }
+
+    @Test
+    public void testPruneDeletesUnusedGrammars() {
+        File dir = folder.getRoot();
+        ParseCacheStore store = new ParseCacheStore(dir, new BinaryLoader(null), null);
+        store.get(grammar("A", "+"), true).getCache().put("1 + 2", parse("1 + 2"));
+        store.get(grammar("B", "+"), true).getCache().put("3 + 4", parse("3 + 4"));
+        store.save();
+
+        store = new ParseCacheStore(dir, new BinaryLoader(null), null);
+        store.get(grammar("A", "+"), true);
+        store.prune();
+        assertArrayEquals(new String[] {ParseCacheStore.fingerprint(grammar("A", "+"), true) + ".bin"}, dir.list());
+    }
+}
@@ -17,6 +17,7 @@ import org.kframework.utils.errorsystem.ParseFailedException;
 import scala.Tuple2;
 import scala.util.Either;
 
+import java.io.IOException;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -75,6 +76,24 @@ public class AddBracketsTest {
         unparserTest(def, "( 1 + 1 ) * 1");
     }
 
+    @Test
+    public void testPrintWithoutBrackets() throws IOException {
+        String def = "module TEST\n" +
+                "  syntax Exp ::= Exp \"+\" Exp [left]\n" +
+                "  syntax Exp ::= Exp \"*\" Exp [left]\n" +
+                "  syntax Exp ::= \"1\"\n" +
+                "  syntax Exp ::= \"(\" Exp \")\" [bracket]\n" +
+                "  syntax priority _*_ > _+_\n" +
+                "endmodule\n";
+        Definition baseK = RuleGrammarGenerator.autoGenerateBaseKCasts(org.kframework.DefinitionParser.from(baseKText + def, "TEST"));
+        Module test = baseK.getModule("TEST").get();
+        ParseInModule parser = RuleGrammarGenerator.getCombinedGrammar(RuleGrammarGenerator.getRuleGrammar(test, s -> baseK.getModule(s).get()), true);
+        K parsed = parseTerm("1 + ( 1 + 1 ) * 1", parser);
+        StringBuilder printed = new StringBuilder();
+        KOREToTreeNodes.print(printed, parsed, test);
+        assertEquals(KOREToTreeNodes.toString(KOREToTreeNodes.apply(KOREToTreeNodes.up(test, parsed), test)), printed.toString());
+    }
+
     private void unparserTest(String def, String pgm) {
         Definition baseK = RuleGrammarGenerator.autoGenerateBaseKCasts(org.kframework.DefinitionParser.from(baseKText + def, "TEST"));
         Module test = baseK.getModule("TEST").get();
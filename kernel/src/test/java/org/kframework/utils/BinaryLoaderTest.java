@@ -0,0 +1,69 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kframework.frontend.KLabel;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.kframework.frontend.KORE.*;
+
+public class BinaryLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCompactFormatSharesEqualValues() throws IOException {
+        File file = new File(folder.getRoot(), "compact.bin");
+        List<Object> values = Arrays.asList(new String("foo"), new String("foo"), KLabel("_+_"), KLabel("_+_"), Sort("Int"), Sort("Int"));
+        new BinaryLoader(null, true).saveOrDie(file, values);
+        assertArrayEquals(BinaryLoader.COMPACT_HEADER, header(file));
+
+        List<?> loaded = new BinaryLoader(null).loadOrDie(List.class, file);
+        assertEquals(values, loaded);
+        assertSame(loaded.get(0), loaded.get(1));
+        assertSame(loaded.get(2), loaded.get(3));
+        assertSame(loaded.get(4), loaded.get(5));
+    }
+
+    @Test
+    public void testJavaFormatIsStillLoaded() throws IOException {
+        File file = new File(folder.getRoot(), "java.bin");
+        List<Object> values = Arrays.asList(new String("foo"), new String("foo"), KLabel("_+_"));
+        new BinaryLoader(null).saveOrDie(file, values);
+        assertFalse(Arrays.equals(BinaryLoader.COMPACT_HEADER, header(file)));
+
+        List<?> loaded = new BinaryLoader(null, true).loadOrDie(List.class, file);
+        assertEquals(values, loaded);
+        assertNotSame(loaded.get(0), loaded.get(1));
+        assertTrue(loaded.get(2) instanceof KLabel);
+    }
+
+    @Test
+    public void testSaveReplacesMappedFile() throws IOException {
+        File file = new File(folder.getRoot(), "replaced.bin");
+        BinaryLoader loader = new BinaryLoader(null, true);
+        loader.saveOrDie(file, Arrays.asList("foo"));
+        assertEquals(Arrays.asList("foo"), loader.loadOrDie(List.class, file));
+        loader.saveOrDie(file, Arrays.asList("bar", "baz"));
+        assertEquals(Arrays.asList("bar", "baz"), loader.loadOrDie(List.class, file));
+        assertArrayEquals(new String[] {"replaced.bin"}, folder.getRoot().list());
+    }
+
+    private static byte[] header(File file) throws IOException {
+        byte[] header = new byte[BinaryLoader.COMPACT_HEADER.length];
+        try (InputStream in = new FileInputStream(file)) {
+            assertEquals(header.length, in.read(header));
+        }
+        return header;
+    }
+}
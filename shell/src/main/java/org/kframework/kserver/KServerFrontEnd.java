@@ -33,6 +33,7 @@ public class KServerFrontEnd extends FrontEnd {
             FileUtil files) {
         super(kem, options.global, files);
         this.options = options;
+        this.definitionCache = new DefinitionCache<>(options.definitionCacheSize << 20);
     }
 
     private static KServerFrontEnd instance;
@@ -41,6 +42,8 @@ public class KServerFrontEnd extends FrontEnd {
 
     private final KServerOptions options;
 
+    private final DefinitionCache<LoadedDefinition> definitionCache;
+
     @Override
     protected int run() {
         NGServer server = new NGServer(InetAddress.getLoopbackAddress(), options.port);
@@ -71,6 +74,13 @@ public class KServerFrontEnd extends FrontEnd {
         return instance;
     }
 
+    /**
+     * Returns the definitions kept loaded by this server between the requests.
+     */
+    public DefinitionCache<LoadedDefinition> definitionCache() {
+        return definitionCache;
+    }
+
     public int run(String tool, String[] args, File workingDir, Map<String, String> env) {
         ThreadLocalPrintStream system_out = (ThreadLocalPrintStream) System.out;
         ThreadLocalPrintStream system_err = (ThreadLocalPrintStream) System.err;
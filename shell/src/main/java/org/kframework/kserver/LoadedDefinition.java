@@ -0,0 +1,44 @@
+// Copyright (c) 2016 K Team. All Rights Reserved.
+package org.kframework.kserver;
+
+import org.kframework.backend.java.symbolic.InitializeRewriter;
+import org.kframework.definition.ProcessedDefinition;
+import org.kframework.kompile.CompiledDefinition;
+import org.kframework.kompile.KompileMetaInfo;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Map;
+
+/**
+ * The parts of a kompiled definition that krun loads before it runs a program, which the K
+ * server keeps in its {@link DefinitionCache}.
+ * <p>
+ * The {@link InitializeRewriter.InitializeDefinition} caches the module converted from
+ * {@link #processedDefinition} and the builtin function tables built from {@link #hookProvider},
+ * so those are kept warm as well. The rules of the Java backend definition are built again for
+ * each request.
+ */
+public class LoadedDefinition {
+
+    public final KompileMetaInfo kompileMetaInfo;
+    public final CompiledDefinition compiledDefinition;
+    public final ProcessedDefinition processedDefinition;
+
+    /* used by the Java backend only */
+    public final Map<String, MethodHandle> hookProvider;
+    public final InitializeRewriter.InitializeDefinition initializeDefinition;
+
+    public LoadedDefinition(
+            KompileMetaInfo kompileMetaInfo,
+            CompiledDefinition compiledDefinition,
+            ProcessedDefinition processedDefinition,
+            Map<String, MethodHandle> hookProvider,
+            InitializeRewriter.InitializeDefinition initializeDefinition) {
+        this.kompileMetaInfo = kompileMetaInfo;
+        this.compiledDefinition = compiledDefinition;
+        this.processedDefinition = processedDefinition;
+        this.hookProvider = hookProvider;
+        this.initializeDefinition = initializeDefinition;
+    }
+
+}
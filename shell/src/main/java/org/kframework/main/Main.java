@@ -36,9 +36,12 @@ import org.kframework.krun.ioserver.filesystem.portable.PortableFileSystem;
 import org.kframework.krun.modes.DebugMode.DebugExecutionMode;
 import org.kframework.krun.modes.ExecutionMode;
 import org.kframework.krun.modes.KRunExecutionMode;
+import org.kframework.kserver.DefinitionCache;
 import org.kframework.kserver.KServerFrontEnd;
 import org.kframework.kserver.KServerOptions;
+import org.kframework.kserver.LoadedDefinition;
 import org.kframework.ktest.CmdArgs.KTestOptions;
+import org.kframework.ktest.InProcessRunner;
 import org.kframework.ktest.KTestFrontEnd;
 import org.kframework.rewriter.Rewriter;
 import org.kframework.utils.BinaryLoader;
@@ -54,7 +57,6 @@ import org.kframework.utils.inject.OuterParsingModule;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.invoke.MethodHandle;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
@@ -92,6 +94,14 @@ public class Main {
     }
 
     public static int runApplication(String toolName, String[] args, File workingDir, Map<String, String> env) {
+        return runApplication(toolName, args, workingDir, env, null);
+    }
+
+    /**
+     * @param definitions the definitions to reuse if krun runs one of them, or null to use those of the K server, if
+     *                    any
+     */
+    public static int runApplication(String toolName, String[] args, File workingDir, Map<String, String> env, DefinitionCache<LoadedDefinition> definitions) {
 
         if (toolName.equals("-kompile")) {
             Tool tool = Tool.KOMPILE;
@@ -100,7 +110,6 @@ public class Main {
             KompileOptions kompileOptions = new KompileOptions();
             KExceptionManager kem = new KExceptionManager(kompileOptions.global);
             Stopwatch sw = new Stopwatch(kompileOptions.global);
-            BinaryLoader loader = new BinaryLoader(kem);
             JarInfo jarInfo = new JarInfo(kem);
 
             // parsing options
@@ -111,6 +120,7 @@ public class Main {
             String usage = JCommanderModule.usage(jc);
             String experimentalUsage = JCommanderModule.experimentalUsage(jc);
             usage(kompileOptions.global, usage, experimentalUsage, jarInfo);
+            BinaryLoader loader = new BinaryLoader(kem, kompileOptions.experimental.compactBinaries);
 
             // directories
             File tempDir = CommonModule.tempDir(workingDir, tool);
@@ -219,14 +229,22 @@ public class Main {
             File definitionDir = DefinitionLoadingModule.directory(kRunOptions.configurationCreation.definitionLoading, workingDir, kem, env);
             File kompiledDir = DefinitionLoadingModule.definition(definitionDir, kem);
             FileUtil files = new FileUtil(tempDir, definitionDir, workingDir, kompiledDir, kRunOptions.global, env);
-            FileSystem fs = new PortableFileSystem(kem, files);
+            FileSystem fs = new PortableFileSystem(kem, files, kRunOptions.experimental.mapInputFiles);
 
-            // loading kompiled definition
+            // loading kompiled definition, or reusing the one kept loaded by the K server
             Context context = null; // DefinitionLoadingModule.context(loader, kRunOptions.configurationCreation.definitionLoading, kRunOptions.global, sw, kem, files, kRunOptions); // TODO: check if 'context.bin' exists
-            KompileMetaInfo kompileMetaInfo = DefinitionLoadingModule.kompilemetaInfo(files);
-            CompiledDefinition compiledDef = DefinitionLoadingModule.koreDefinition(loader, files);
-            ProcessedDefinition processedDefinition = DefinitionLoadingModule.miniKoreDefinition(loader, files);
+            KServerFrontEnd kserver = KServerFrontEnd.instance();
+            if (definitions == null && isNailgun && kserver != null) {
+                definitions = kserver.definitionCache();
+            }
+            LoadedDefinition loadedDefinition = definitions != null
+                    ? definitions.get(kompiledDir, dir -> loadDefinition(loader, files, context, kem))
+                    : loadDefinition(loader, files, context, kem);
+            KompileMetaInfo kompileMetaInfo = loadedDefinition.kompileMetaInfo;
+            CompiledDefinition compiledDef = loadedDefinition.compiledDefinition;
+            ProcessedDefinition processedDefinition = loadedDefinition.processedDefinition;
             KompileOptions kompileOptions = DefinitionLoadingModule.kompileOptions(context, compiledDef, files);
+            sw.printIntermediate("Loading definition");
 
             // krun
 
@@ -234,11 +252,9 @@ public class Main {
             Function<Pair<Module, org.kframework.kore.Definition>, Rewriter> intializeMiniKoreRewriter;
             if (kompileOptions.backend.equals(Backends.JAVA)) {
                 //
-                Map<String, MethodHandle> hookProvider = HookProvider.get(kem);
-                InitializeRewriter.InitializeDefinition initializeDefinition = new InitializeRewriter.InitializeDefinition();
                 intializeMiniKoreRewriter = new InitializeRewriter(fs, javaExecutionOptions.deterministicFunctions,
-                        kRunOptions.global, kem, kRunOptions.experimental.smt, hookProvider, kompileOptions.transition,
-                        kRunOptions, files, initializeDefinition);
+                        kRunOptions.global, kem, kRunOptions.experimental.smt, loadedDefinition.hookProvider, kompileOptions.transition,
+                        kRunOptions, files, loadedDefinition.initializeDefinition);
             } else if (kompileOptions.backend.equals(Backends.KALE)) {
                 initializeRewriter = KaleRewriter::apply;
                 intializeMiniKoreRewriter = null;
@@ -346,7 +362,16 @@ public class Main {
             File kompiledDir = null;
             FileUtil files = new FileUtil(tempDir, definitionDir, workingDir, kompiledDir, kTestOptions.getGlobal(), env);
 
-            KTestFrontEnd frontEnd = new KTestFrontEnd(kTestOptions, kem, kTestOptions.getGlobal(), env, files);
+            // run krun in worker threads, each keeping the definitions it ran loaded
+            InProcessRunner inProcessRunner = null;
+            if (kTestOptions.isInProcess()) {
+                ThreadLocal<DefinitionCache<LoadedDefinition>> workerDefinitions =
+                        ThreadLocal.withInitial(() -> new DefinitionCache<>(kTestOptions.getDefinitionCacheSize() << 20));
+                inProcessRunner = new InProcessRunner((krunTool, krunArgs, krunWorkingDir, krunEnv) ->
+                        runApplication(krunTool, krunArgs, krunWorkingDir, krunEnv, workerDefinitions.get()));
+            }
+
+            KTestFrontEnd frontEnd = new KTestFrontEnd(kTestOptions, kem, kTestOptions.getGlobal(), env, files, inProcessRunner);
 
             return runApplication(frontEnd, kem);
         }
@@ -410,6 +435,22 @@ public class Main {
         return 1; // not reached
     }
 
+    /**
+     * Loads the parts of the kompiled definition of the given files that krun needs.
+     */
+    private static LoadedDefinition loadDefinition(BinaryLoader loader, FileUtil files, Context context, KExceptionManager kem) {
+        KompileMetaInfo kompileMetaInfo = DefinitionLoadingModule.kompilemetaInfo(files);
+        Pair<CompiledDefinition, ProcessedDefinition> definitions = DefinitionLoadingModule.definitions(loader, files);
+        CompiledDefinition compiledDef = definitions.getLeft();
+        ProcessedDefinition processedDefinition = definitions.getRight();
+        KompileOptions kompileOptions = DefinitionLoadingModule.kompileOptions(context, compiledDef, files);
+        if (kompileOptions.backend.equals(Backends.JAVA)) {
+            return new LoadedDefinition(kompileMetaInfo, compiledDef, processedDefinition,
+                    HookProvider.get(kem), new InitializeRewriter.InitializeDefinition());
+        }
+        return new LoadedDefinition(kompileMetaInfo, compiledDef, processedDefinition, null, null);
+    }
+
     public static int runApplication(FrontEnd frontEnd, KExceptionManager kem) {
         kem.installForUncaughtExceptions();
         int retval = frontEnd.main();